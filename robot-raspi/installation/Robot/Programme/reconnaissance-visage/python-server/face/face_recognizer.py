@@ -55,8 +55,8 @@ class FaceRecognizer:
         # Initialize some variables
         face_names = []
 
-        # Load the uploaded image file
-        img = face_recognition.load_image_file(image_file)
+        # Load the uploaded image file (or use the image already decoded)
+        img = image_file if isinstance(image_file, np.ndarray) else face_recognition.load_image_file(image_file)
         small_img = cv2.resize(img, (0, 0), fx=0.5, fy=0.5)
 
         # Find all the faces and face encodings in the current frame of video
@@ -94,6 +94,15 @@ class FaceRecognizer:
 
         return face_boxes, face_names, face_landmarks_list
 
+    def embed_faces(self, image_file):
+        # Détection des visages et calcul de leur encodage (la reconnaissance est faite par le robot)
+        img = image_file if isinstance(image_file, np.ndarray) else face_recognition.load_image_file(image_file)
+        small_img = cv2.resize(img, (0, 0), fx=0.5, fy=0.5)
+        face_boxes = face_recognition.face_locations(small_img)
+        face_landmarks_list = face_recognition.face_landmarks(small_img, face_boxes)
+        face_encodings = face_recognition.face_encodings(small_img, face_boxes)
+        return face_boxes, face_landmarks_list, [encoding.tolist() for encoding in face_encodings]
+
     def detect_faces(self, image_file):
         return self.__detect_faces(image_file, False)
 
@@ -0,0 +1,91 @@
+import io
+import json
+import logging
+import socket
+import socketserver
+import struct
+import threading
+
+import numpy as np
+
+from utils.utils import load_image_file
+
+# Protocole binaire (entiers big-endian), une connexion persistante par client, requêtes traitées dans l'ordre :
+#   requête : type (u8), format (u8), largeur (u16), hauteur (u16), taille (u32), contenu de l'image
+#   réponse : statut (u8), taille (u32), résultat JSON UTF-8
+REQUEST_HEADER = struct.Struct('>BBHHI')
+RESPONSE_HEADER = struct.Struct('>BI')
+
+# Types de traitement
+PING = 0
+FACE_RECOGNITION = 1
+FACE_DETECTION = 2
+OBJECT_DETECTION = 3
+FACE_EMBEDDING = 4
+
+# Formats d'image : pixels RGB 8 bits entrelacés (ligne par ligne) ou fichier JPEG
+FORMAT_RAW_RGB = 0
+FORMAT_JPEG = 1
+
+STATUS_OK = 0
+STATUS_ERROR = 1
+
+
+def decode_image(image_format, width, height, content):
+    if image_format == FORMAT_RAW_RGB:
+        return np.frombuffer(content, dtype=np.uint8).reshape((height, width, 3))
+    return load_image_file(io.BytesIO(content))
+
+
+def read_exactly(stream, size):
+    data = stream.read(size)
+    if data is None or len(data) < size:
+        raise EOFError()
+    return data
+
+
+class VisionRequestHandler(socketserver.StreamRequestHandler):
+
+    def setup(self):
+        super().setup()
+        self.connection.setsockopt(socket.IPPROTO_TCP, socket.TCP_NODELAY, 1)
+
+    def handle(self):
+        try:
+            while True:
+                request_type, image_format, width, height, size = REQUEST_HEADER.unpack(
+                    read_exactly(self.rfile, REQUEST_HEADER.size))
+                content = read_exactly(self.rfile, size)
+                try:
+                    if request_type == PING:
+                        results = {}
+                    else:
+                        image = decode_image(image_format, width, height, content)
+                        results = self.server.processors[request_type](image)
+                    status = STATUS_OK
+                    payload = json.dumps(results).encode('utf-8')
+                except Exception as e:
+                    logging.exception('Erreur lors du traitement de la requête %s', request_type)
+                    status = STATUS_ERROR
+                    payload = str(e).encode('utf-8')
+                self.wfile.write(RESPONSE_HEADER.pack(status, len(payload)))
+                self.wfile.write(payload)
+                self.wfile.flush()
+        except (EOFError, ConnectionError):
+            # Fermeture de la connexion par le client
+            pass
+
+
+class VisionIpcServer(socketserver.ThreadingTCPServer):
+    daemon_threads = True
+    allow_reuse_address = True
+
+    def __init__(self, port, processors):
+        # processors : fonction de traitement (image numpy RGB --> dictionnaire de résultats) par type de requête
+        super().__init__(('localhost', port), VisionRequestHandler)
+        self.processors = processors
+
+    def start(self):
+        thread = threading.Thread(target=self.serve_forever, name='VisionIpcServer', daemon=True)
+        thread.start()
+        return thread
@@ -32,7 +32,7 @@ class YoloV3ObjectDetector:
 
     def __load_image(self, image_file):
         # image loading
-        img = load_image_file(image_file)
+        img = image_file if isinstance(image_file, np.ndarray) else load_image_file(image_file)
         img = cv2.resize(img, None, fx=0.5, fy=0.5)
         height, width, channels = img.shape
         return img, height, width, channels
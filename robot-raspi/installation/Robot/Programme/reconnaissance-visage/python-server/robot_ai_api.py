@@ -17,14 +17,17 @@
 # $ pip3 install flask
 
 from flask import Flask, jsonify, request, redirect
+from werkzeug.serving import WSGIRequestHandler
 import time
 import argparse
 import logging
+import threading
 
 # You can change this to any folder on your system
 from face.face_recognizer import FaceRecognizer
 from object.yolov3_object_detector import YoloV3ObjectDetector
 from utils.utils import allowed_file
+from ipc.vision_ipc_server import VisionIpcServer, FACE_RECOGNITION, FACE_DETECTION, OBJECT_DETECTION, FACE_EMBEDDING
 
 app = Flask(__name__)
 
@@ -34,6 +37,8 @@ logging.basicConfig(filename='test_log.log',level=logging.ERROR,\
 # Récupération des arguments en entrée
 parser = argparse.ArgumentParser()
 parser.add_argument("known_faces_dir", help="The directory of the known faces")
+parser.add_argument("--ipc-port", type=int, default=5002, help="The port of the binary IPC server")
+parser.add_argument("--http-port", type=int, default=5001, help="The port of the HTTP server")
 args = parser.parse_args()
 known_faces_dir = args.known_faces_dir
 if known_faces_dir == '':
@@ -44,6 +49,10 @@ face_recognizer = FaceRecognizer(known_faces_dir)
 # Création de l'objet de détection d'objets
 object_detector = YoloV3ObjectDetector()
 
+# Verrous des modèles (requêtes HTTP et IPC traitées en parallèle)
+face_lock = threading.Lock()
+object_lock = threading.Lock()
+
 
 @app.route('/face-recognition', methods=['GET', 'POST'])
 def recognize_faces():
@@ -55,11 +64,22 @@ def detect_faces():
     return process_detection_or_recognition('FD')
 
 
+@app.route('/face-embedding', methods=['GET', 'POST'])
+def embed_faces():
+    return process_detection_or_recognition('FE')
+
+
 @app.route('/object-detection', methods=['GET', 'POST'])
 def detect_objects():
     return process_detection_or_recognition('OD')
 
 
+@app.route('/ping', methods=['GET', 'POST'])
+def ping():
+    # Aller-retour sans traitement (mesure du coût du transport)
+    return jsonify({})
+
+
 def process_detection_or_recognition(process_type):
     # Check if a valid image file was uploaded
     if request.method == 'POST':
@@ -73,9 +93,11 @@ def process_detection_or_recognition(process_type):
 
         if file and allowed_file(file.filename):
             if (process_type == 'OD'):
-                return detect_objects_in_image(file)
+                return jsonify(detect_objects_in_image(file))
+            elif (process_type == 'FE'):
+                return jsonify(embed_faces_in_image(file))
             else:
-                return detect_faces_in_image(file, process_type == 'FR')
+                return jsonify(detect_faces_in_image(file, process_type == 'FR'))
 
     # If no valid image file was uploaded, show the file upload form:
     return '''
@@ -89,17 +111,30 @@ def process_detection_or_recognition(process_type):
     '''
 
 
-def detect_faces_in_image(image_file, recognition):
+def detect_faces_in_image(image, recognition):
+    # image : fichier image ou tableau numpy RGB
+    before = int(round(time.time() * 1000))
+    with face_lock:
+        if recognition:
+            # Recognition
+            face_locations, face_names, face_landmarks_list = face_recognizer.recognize_faces(image)
+        else:
+            # Detection
+            face_locations, face_names, face_landmarks_list = face_recognizer.detect_faces(image)
+    return faces_to_results(before, face_locations, face_names, face_landmarks_list, None)
+
+
+def embed_faces_in_image(image):
+    # Visages et encodages (128 valeurs), les noms étant retrouvés par le robot dans sa mémoire des visages
     before = int(round(time.time() * 1000))
-    if recognition:
-        # Recognition
-        face_locations, face_names, face_landmarks_list = face_recognizer.recognize_faces(image_file)
-    else:
-        # Detection
-        face_locations, face_names, face_landmarks_list = face_recognizer.detect_faces(image_file)
+    with face_lock:
+        face_locations, face_landmarks_list, face_encodings = face_recognizer.embed_faces(image)
+    return faces_to_results(before, face_locations, [""] * len(face_locations), face_landmarks_list, face_encodings)
 
+
+def faces_to_results(before, face_locations, face_names, face_landmarks_list, face_encodings):
     faces = []
-    for (top, right, bottom, left), name, landmarks in zip(face_locations, face_names, face_landmarks_list):
+    for index, ((top, right, bottom, left), name, landmarks) in enumerate(zip(face_locations, face_names, face_landmarks_list)):
         # Bounds
         top *= 2
         right *= 2
@@ -118,7 +153,7 @@ def detect_faces_in_image(image_file, recognition):
         right_eye = [{"x": x, "y": y} for x, y in landmarks["right_eye"]]
         top_lip = [{"x": x, "y": y} for x, y in landmarks["top_lip"]]
         bottom_lip = [{"x": x, "y": y} for x, y in landmarks["bottom_lip"]]
-        faces.append({
+        face = {
             "x": left,
             "y": top,
             "width": right - left,
@@ -135,7 +170,10 @@ def detect_faces_in_image(image_file, recognition):
                 "top_lip": top_lip,
                 "bottom_lip": bottom_lip
             }
-        })
+        }
+        if face_encodings is not None:
+            face["embedding"] = face_encodings[index]
+        faces.append(face)
 
     # Return the result as json
     results = {
@@ -148,14 +186,16 @@ def detect_faces_in_image(image_file, recognition):
 
     after = int(round(time.time() * 1000))
     logging.debug('(' + str(after - before) + " ms) : " + json)
-    return jsonify(results)
+    return results
 
 
-def detect_objects_in_image(image_file):
+def detect_objects_in_image(image):
+    # image : fichier image ou tableau numpy RGB
     before = int(round(time.time() * 1000))
 
     # Detection
-    object_locations, object_names, object_scores = object_detector.detect_objects(image_file)
+    with object_lock:
+        object_locations, object_names, object_scores = object_detector.detect_objects(image)
 
     objects = []
     for (x, y, width, height), name, score in zip(object_locations, object_names, object_scores):
@@ -179,8 +219,18 @@ def detect_objects_in_image(image_file):
 
     after = int(round(time.time() * 1000))
     logging.debug('(' + str(after - before) + " ms) : " + json)
-    return jsonify(results)
+    return results
 
 
 if __name__ == "__main__":
-    app.run(host='localhost', port=5001, debug=True)
+    # Serveur IPC binaire (connexions persistantes, images transmises en mémoire)
+    VisionIpcServer(args.ipc_port, {
+        FACE_RECOGNITION: lambda image: detect_faces_in_image(image, True),
+        FACE_DETECTION: lambda image: detect_faces_in_image(image, False),
+        FACE_EMBEDDING: embed_faces_in_image,
+        OBJECT_DETECTION: detect_objects_in_image
+    }).start()
+    # HTTP/1.1 : connexions persistantes (une connexion par requête sinon), sans attente de l'envoi des réponses
+    WSGIRequestHandler.protocol_version = "HTTP/1.1"
+    WSGIRequestHandler.disable_nagle_algorithm = True
+    app.run(host='localhost', port=args.http_port, debug=True, use_reloader=False, threaded=True)
@@ -9,6 +9,7 @@ import fr.roboteek.robot.organes.actionneurs.animation.AnimationPlayer;
 import fr.roboteek.robot.organes.capteurs.CapteurActiviteSon;
 import fr.roboteek.robot.organes.capteurs.CapteurVisionWebSocket;
 import fr.roboteek.robot.organes.capteurs.CapteurVocalAvecReconnaissance;
+import fr.roboteek.robot.organes.capteurs.CapteurVocalAvecReconnaissanceContinue;
 import fr.roboteek.robot.systemenerveux.event.ParoleEvent;
 import fr.roboteek.robot.systemenerveux.event.RobotEventBus;
 import fr.roboteek.robot.systemenerveux.event.StopEvent;
@@ -16,6 +17,8 @@ import fr.roboteek.robot.systemenerveux.event.persistance.RobotEventPersistance;
 import fr.roboteek.robot.util.gamepad.shared.RobotGamepadController;
 import org.apache.log4j.Logger;
 
+import static fr.roboteek.robot.configuration.Configurations.googleSpeechRecognizerConfig;
+
 /**
  * Classe principale du robot.
  *
@@ -119,7 +122,8 @@ public class Robot {
         cerveau = new Cerveau();
         cerveau.initialiser();
 
-        // Actionneurs
+        // Actionneurs (la sortie audio est partagée par la parole et les sons)
+        SortieAudio.getInstance().initialiser();
         organeParole = new OrganeParoleGoogle();
 
         // Initialisation des actionneurs
@@ -133,7 +137,8 @@ public class Robot {
 
         // Capteurs
         capteurVision = new CapteurVisionWebSocket();
-        capteurVocal = new CapteurVocalAvecReconnaissance();
+        capteurVocal = googleSpeechRecognizerConfig().streaming() ?
+                new CapteurVocalAvecReconnaissanceContinue() : new CapteurVocalAvecReconnaissance();
 
         // Initialisation des capteurs
         capteurVision.initialiser();
@@ -203,6 +208,7 @@ public class Robot {
             // Arrêt des organes
             capteurVision.arreter();
             organeParole.arreter();
+            SortieAudio.getInstance().arreter();
 
             logger.debug("Fin de l'arrêt du robot");
 
@@ -44,7 +44,7 @@ public abstract class AbstractActivity {
     }
 
     /**
-     * Sends an event to say a text.
+     * Sends an event to say a text, and waits until it has been said.
      *
      * @param text the text to say
      */
@@ -52,6 +52,7 @@ public abstract class AbstractActivity {
         System.out.println(Thread.currentThread().getName() + " want to say : " + text);
         final ParoleEvent paroleEvent = new ParoleEvent();
         paroleEvent.setTexte(text);
+        paroleEvent.setSynchrone(true);
         RobotEventBus.getInstance().publish(paroleEvent);
     }
 
@@ -71,6 +71,8 @@ public class MainActivity extends AbstractActivity {
         final ParoleEvent paroleEvent = new ParoleEvent();
         paroleEvent.setTexte(reponse.getOutputText());
         paroleEvent.setAudioContent(reponse.getOutputAudio());
+        // La nouvelle réponse remplace celle en cours
+        paroleEvent.setInterrompre(true);
         RobotEventBus.getInstance().publishAsync(paroleEvent);
     }
 }
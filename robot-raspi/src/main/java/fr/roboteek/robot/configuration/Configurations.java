@@ -1,8 +1,20 @@
 package fr.roboteek.robot.configuration;
 
+import fr.roboteek.robot.configuration.audio.AudioCaptureConfig;
+import fr.roboteek.robot.configuration.audio.AudioOutputConfig;
+import fr.roboteek.robot.configuration.audio.VoiceActivityDetectorConfig;
+import fr.roboteek.robot.configuration.eventbus.EventBusConfig;
 import fr.roboteek.robot.configuration.phidgets.PhidgetsConfig;
 import fr.roboteek.robot.configuration.speech.recognizer.google.GoogleSpeechRecognizerConfig;
+import fr.roboteek.robot.configuration.speech.synthesis.SpeechSynthesisCacheConfig;
+import fr.roboteek.robot.configuration.speech.synthesis.SpeechSynthesisConfig;
 import fr.roboteek.robot.configuration.speech.synthesis.google.GoogleSpeechSynthesisConfig;
+import fr.roboteek.robot.configuration.video.VideoStreamConfig;
+import fr.roboteek.robot.configuration.vision.VisionEngineConfig;
+import fr.roboteek.robot.configuration.vision.VisionFaceMemoryConfig;
+import fr.roboteek.robot.configuration.vision.VisionPythonConfig;
+import fr.roboteek.robot.configuration.vision.VisionSchedulerConfig;
+import fr.roboteek.robot.configuration.vision.VisionTrackerConfig;
 import org.aeonbits.owner.ConfigCache;
 
 public class Configurations {
@@ -22,7 +34,55 @@ public class Configurations {
         return ConfigCache.getOrCreate(GoogleSpeechSynthesisConfig.class);
     }
 
+    public static SpeechSynthesisConfig speechSynthesisConfig() {
+        return ConfigCache.getOrCreate(SpeechSynthesisConfig.class);
+    }
+
+    public static SpeechSynthesisCacheConfig speechSynthesisCacheConfig() {
+        return ConfigCache.getOrCreate(SpeechSynthesisCacheConfig.class);
+    }
+
     public static GoogleSpeechRecognizerConfig googleSpeechRecognizerConfig() {
         return ConfigCache.getOrCreate(GoogleSpeechRecognizerConfig.class);
     }
+
+    public static EventBusConfig eventBusConfig() {
+        return ConfigCache.getOrCreate(EventBusConfig.class);
+    }
+
+    public static AudioCaptureConfig audioCaptureConfig() {
+        return ConfigCache.getOrCreate(AudioCaptureConfig.class);
+    }
+
+    public static AudioOutputConfig audioOutputConfig() {
+        return ConfigCache.getOrCreate(AudioOutputConfig.class);
+    }
+
+    public static VoiceActivityDetectorConfig voiceActivityDetectorConfig() {
+        return ConfigCache.getOrCreate(VoiceActivityDetectorConfig.class);
+    }
+
+    public static VideoStreamConfig videoStreamConfig() {
+        return ConfigCache.getOrCreate(VideoStreamConfig.class);
+    }
+
+    public static VisionPythonConfig visionPythonConfig() {
+        return ConfigCache.getOrCreate(VisionPythonConfig.class);
+    }
+
+    public static VisionSchedulerConfig visionSchedulerConfig() {
+        return ConfigCache.getOrCreate(VisionSchedulerConfig.class);
+    }
+
+    public static VisionTrackerConfig visionTrackerConfig() {
+        return ConfigCache.getOrCreate(VisionTrackerConfig.class);
+    }
+
+    public static VisionEngineConfig visionEngineConfig() {
+        return ConfigCache.getOrCreate(VisionEngineConfig.class);
+    }
+
+    public static VisionFaceMemoryConfig visionFaceMemoryConfig() {
+        return ConfigCache.getOrCreate(VisionFaceMemoryConfig.class);
+    }
 }
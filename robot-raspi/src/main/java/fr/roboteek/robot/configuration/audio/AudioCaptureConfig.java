@@ -0,0 +1,105 @@
+package fr.roboteek.robot.configuration.audio;
+
+import org.aeonbits.owner.Config;
+
+import static org.aeonbits.owner.Config.*;
+
+@HotReload(type = HotReloadType.ASYNC)
+@Sources({"file:${ROBOT_HOME}/configuration/robot.properties"})
+public interface AudioCaptureConfig extends Config {
+
+    /**
+     * Fréquence d'échantillonnage de l'acquisition (micro). Le flux à cette fréquence n'est diffusé qu'au moniteur
+     * audio, et uniquement s'il est écouté.
+     *
+     * @return la fréquence en Hz
+     */
+    @Key("audio.capture.sample.rate")
+    @DefaultValue("44100")
+    int sampleRate();
+
+    /**
+     * Fréquence d'échantillonnage de traitement : le flux acquis est rééchantillonné à cette fréquence avant la
+     * détection d'activité vocale, la mise en tampon et la reconnaissance (fréquence native des moteurs de
+     * reconnaissance). Aucun rééchantillonnage si elle est égale à la fréquence d'acquisition.
+     *
+     * @return la fréquence en Hz
+     */
+    @Key("audio.capture.processing.sample.rate")
+    @DefaultValue("16000")
+    int processingSampleRate();
+
+    /**
+     * Durée du signal conservé avant le premier bloc parlé (permet de ne pas couper le début d'une phrase).
+     *
+     * @return la durée en millisecondes
+     */
+    @Key("audio.capture.preroll.ms")
+    @DefaultValue("460")
+    int preRollMillis();
+
+    /**
+     * Durée de silence après le dernier bloc parlé au-delà de laquelle la phrase est considérée terminée.
+     *
+     * @return la durée en millisecondes
+     */
+    @Key("audio.capture.postroll.ms")
+    @DefaultValue("600")
+    int postRollMillis();
+
+    /**
+     * Durée du tampon circulaire de capture (durée maximale d'une phrase).
+     *
+     * @return la durée en secondes
+     */
+    @Key("audio.capture.buffer.seconds")
+    @DefaultValue("30")
+    int bufferSeconds();
+
+    /**
+     * Mode debug : écrit chaque phrase détectée dans un fichier WAV (la reconnaissance s'effectue en mémoire).
+     *
+     * @return true si les fichiers WAV doivent être écrits
+     */
+    @Key("audio.capture.debug.files")
+    @DefaultValue("false")
+    boolean debugFiles();
+
+    /**
+     * Écoute en full duplex : la reconnaissance vocale continue pendant que le robot parle ou joue un son, les blocs
+     * ne contenant que l'écho de la sortie audio étant ignorés par la détection d'activité vocale. Si false, la
+     * reconnaissance est mise en pause pendant la parole et les sons.
+     *
+     * @return true pour écouter en full duplex
+     */
+    @Key("audio.capture.full.duplex")
+    @DefaultValue("true")
+    boolean fullDuplex();
+
+    /**
+     * Délai maximal entre la sortie d'un son et la capture de son écho (tampons audio et propagation).
+     *
+     * @return le délai en millisecondes
+     */
+    @Key("audio.capture.echo.max.delay.ms")
+    @DefaultValue("250")
+    int echoMaxDelayMillis();
+
+    /**
+     * Niveau au-dessus de l'écho attendu à partir duquel le signal capté contient une autre voix que celle du robot.
+     *
+     * @return le niveau en dB
+     */
+    @Key("audio.capture.echo.double.talk.db")
+    @DefaultValue("6")
+    double echoDoubleTalkDecibels();
+
+    /**
+     * Interruption de la parole du robot dès qu'une phrase est détectée pendant qu'il parle (full duplex uniquement).
+     *
+     * @return true pour interrompre le robot
+     */
+    @Key("audio.capture.barge.in")
+    @DefaultValue("true")
+    boolean bargeIn();
+}
@@ -0,0 +1,38 @@
+package fr.roboteek.robot.configuration.audio;
+
+import org.aeonbits.owner.Config;
+
+import static org.aeonbits.owner.Config.*;
+
+@HotReload(type = HotReloadType.ASYNC)
+@Sources({"file:${ROBOT_HOME}/configuration/robot.properties"})
+public interface AudioOutputConfig extends Config {
+
+    /**
+     * Fréquence d'échantillonnage de la sortie audio : les sons et la parole sont rééchantillonnés à cette
+     * fréquence avant d'être mixés.
+     *
+     * @return la fréquence en Hz
+     */
+    @Key("audio.output.sample.rate")
+    @DefaultValue("44100")
+    int sampleRate();
+
+    /**
+     * Durée du tampon de la ligne de sortie : délai entre le début d'une lecture et le son effectivement entendu.
+     *
+     * @return la durée en millisecondes
+     */
+    @Key("audio.output.buffer.ms")
+    @DefaultValue("40")
+    int bufferMillis();
+
+    /**
+     * Nom (ou partie du nom) de la carte son de sortie. Sortie par défaut si elle est vide ou n'est pas trouvée.
+     *
+     * @return le nom de la carte son
+     */
+    @Key("audio.output.device.name")
+    @DefaultValue("")
+    String deviceName();
+}
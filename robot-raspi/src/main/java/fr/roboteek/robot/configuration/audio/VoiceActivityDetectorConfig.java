@@ -0,0 +1,102 @@
+package fr.roboteek.robot.configuration.audio;
+
+import org.aeonbits.owner.Config;
+
+import static org.aeonbits.owner.Config.*;
+
+@HotReload(type = HotReloadType.ASYNC)
+@Sources({"file:${ROBOT_HOME}/configuration/robot.properties"})
+public interface VoiceActivityDetectorConfig extends Config {
+
+    /**
+     * Détecteur d'activité vocale utilisé : PITCH (silence + fréquence fondamentale YIN), ENERGY_ZCR (énergie et
+     * taux de passages par zéro) ou FRAMES (décision par trames de 10 à 30 ms sur plusieurs bandes de fréquences).
+     *
+     * @return le type de détecteur
+     */
+    @Key("audio.vad.type")
+    @DefaultValue("PITCH")
+    String type();
+
+    /**
+     * PITCH : niveau sonore en dessous duquel un bloc est un silence.
+     *
+     * @return le seuil en dB
+     */
+    @Key("audio.vad.pitch.silence.threshold.db")
+    @DefaultValue("-70")
+    double pitchSilenceThresholdDb();
+
+    /**
+     * ENERGY_ZCR : écart au bruit de fond au-delà duquel un bloc contient de la voix.
+     *
+     * @return l'écart en dB
+     */
+    @Key("audio.vad.energy.margin.db")
+    @DefaultValue("10")
+    double energyMarginDb();
+
+    /**
+     * ENERGY_ZCR : niveau minimal (dBFS) d'un bloc contenant de la voix, quel que soit le bruit de fond.
+     *
+     * @return le niveau minimal en dBFS
+     */
+    @Key("audio.vad.energy.min.db")
+    @DefaultValue("-55")
+    double energyMinDb();
+
+    /**
+     * ENERGY_ZCR : taux de passages par zéro minimal des consonnes non voisées (s, f, ch...).
+     *
+     * @return le taux en passages par seconde
+     */
+    @Key("audio.vad.energy.zcr.min.hz")
+    @DefaultValue("2500")
+    int energyZcrMinHz();
+
+    /**
+     * ENERGY_ZCR : taux de passages par zéro maximal des consonnes non voisées (au-delà : bruit large bande).
+     *
+     * @return le taux en passages par seconde
+     */
+    @Key("audio.vad.energy.zcr.max.hz")
+    @DefaultValue("9000")
+    int energyZcrMaxHz();
+
+    /**
+     * FRAMES : durée d'une trame.
+     *
+     * @return la durée en millisecondes (10, 20 ou 30)
+     */
+    @Key("audio.vad.frames.duration.ms")
+    @DefaultValue("20")
+    int framesDurationMillis();
+
+    /**
+     * FRAMES : agressivité (0 à 3), plus elle est élevée moins le bruit est pris pour de la voix.
+     *
+     * @return l'agressivité
+     */
+    @Key("audio.vad.frames.aggressiveness")
+    @DefaultValue("2")
+    int framesAggressiveness();
+
+    /**
+     * FRAMES : durée pendant laquelle les trames suivant une trame de voix sont encore considérées comme de la voix
+     * (le post-roll de la capture conserve déjà la fin des phrases : utile seulement avec un post-roll court).
+     *
+     * @return la durée en millisecondes
+     */
+    @Key("audio.vad.frames.hangover.ms")
+    @DefaultValue("0")
+    int framesHangoverMillis();
+
+    /**
+     * FRAMES : proportion de trames de voix au-delà de laquelle un bloc contient de la voix.
+     *
+     * @return la proportion (0 à 1)
+     */
+    @Key("audio.vad.frames.speech.ratio")
+    @DefaultValue("0.3")
+    double framesSpeechRatio();
+}
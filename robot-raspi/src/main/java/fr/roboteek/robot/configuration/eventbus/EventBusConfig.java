@@ -0,0 +1,50 @@
+package fr.roboteek.robot.configuration.eventbus;
+
+import org.aeonbits.owner.Config;
+
+import static org.aeonbits.owner.Config.*;
+
+@HotReload(type = HotReloadType.ASYNC)
+@Sources({"file:${ROBOT_HOME}/configuration/robot.properties"})
+public interface EventBusConfig extends Config {
+
+    /**
+     * Nombre de threads de la voie des évènements de contrôle et de sécurité.
+     * Un seul thread permet de conserver l'ordre des commandes moteurs.
+     *
+     * @return le nombre de threads
+     */
+    @Key("eventbus.lane.control.threads")
+    @DefaultValue("1")
+    int controlLaneThreads();
+
+    @Key("eventbus.lane.control.capacity")
+    @DefaultValue("64")
+    int controlLaneCapacity();
+
+    /**
+     * Nombre de threads de la voie des évènements capteurs (audio, vidéo).
+     *
+     * @return le nombre de threads
+     */
+    @Key("eventbus.lane.sensor.threads")
+    @DefaultValue("2")
+    int sensorLaneThreads();
+
+    /**
+     * Taille de la file de la voie des évènements capteurs : au-delà, les plus anciens sont abandonnés.
+     *
+     * @return la taille de la file
+     */
+    @Key("eventbus.lane.sensor.capacity")
+    @DefaultValue("16")
+    int sensorLaneCapacity();
+
+    @Key("eventbus.lane.default.threads")
+    @DefaultValue("16")
+    int defaultLaneThreads();
+
+    @Key("eventbus.lane.default.capacity")
+    @DefaultValue("256")
+    int defaultLaneCapacity();
+}
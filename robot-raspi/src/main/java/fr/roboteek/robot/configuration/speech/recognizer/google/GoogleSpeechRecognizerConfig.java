@@ -11,4 +11,31 @@ public interface GoogleSpeechRecognizerConfig extends Config {
     @Key("speech.recognizer.google.language.code")
     @DefaultValue("fr-FR")
     String languageCode();
+
+    /**
+     * Endpoint (host:port) of a local stand-in server replacing the cloud service (tests).
+     * The cloud service is used when not set.
+     *
+     * @return the endpoint of the stand-in server
+     */
+    @Key("speech.recognizer.google.endpoint")
+    String endpoint();
+
+    /**
+     * Streaming recognition: the audio is sent while the speaker is talking.
+     *
+     * @return true if the streaming recognition is used
+     */
+    @Key("speech.recognizer.google.streaming")
+    @DefaultValue("false")
+    boolean streaming();
+
+    /**
+     * Streaming recognition: the utterance is finalized as soon as the service detects its end (endpointing).
+     *
+     * @return true if the endpointing of the service is used
+     */
+    @Key("speech.recognizer.google.streaming.endpointing")
+    @DefaultValue("true")
+    boolean endpointing();
 }
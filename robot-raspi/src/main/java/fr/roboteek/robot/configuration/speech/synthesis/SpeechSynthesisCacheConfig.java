@@ -0,0 +1,54 @@
+package fr.roboteek.robot.configuration.speech.synthesis;
+
+import org.aeonbits.owner.Config;
+
+import static org.aeonbits.owner.Config.*;
+
+/**
+ * Cache des phrases synthétisées (mémoire et disque).
+ */
+@HotReload(type = HotReloadType.ASYNC)
+@Sources({"file:${ROBOT_HOME}/configuration/robot.properties"})
+public interface SpeechSynthesisCacheConfig extends Config {
+
+    @Key("speech.synthesis.cache.enabled")
+    @DefaultValue("true")
+    boolean enabled();
+
+    /**
+     * Taille maximale des phrases gardées en mémoire.
+     *
+     * @return la taille en octets
+     */
+    @Key("speech.synthesis.cache.memory.max.bytes")
+    @DefaultValue("16777216")
+    long memoryMaxBytes();
+
+    /**
+     * Taille maximale des phrases enregistrées sur le disque (les moins récemment dites sont supprimées).
+     *
+     * @return la taille en octets
+     */
+    @Key("speech.synthesis.cache.disk.max.bytes")
+    @DefaultValue("134217728")
+    long diskMaxBytes();
+
+    /**
+     * Dossier des phrases enregistrées, relatif au dossier de synthèse vocale s'il n'est pas absolu.
+     *
+     * @return le dossier
+     */
+    @Key("speech.synthesis.cache.dir")
+    @DefaultValue("cache")
+    String directory();
+
+    /**
+     * Fichier des phrases synthétisées au démarrage si elles ne sont pas déjà enregistrées (une phrase par ligne),
+     * relatif au dossier de synthèse vocale s'il n'est pas absolu.
+     *
+     * @return le fichier
+     */
+    @Key("speech.synthesis.cache.prewarm.file")
+    @DefaultValue("phrases.txt")
+    String prewarmFile();
+}
@@ -0,0 +1,44 @@
+package fr.roboteek.robot.configuration.speech.synthesis;
+
+import org.aeonbits.owner.Config;
+
+import static org.aeonbits.owner.Config.*;
+
+/**
+ * Ordonnancement, découpage et lecture en flux des textes synthétisés.
+ */
+@HotReload(type = HotReloadType.ASYNC)
+@Sources({"file:${ROBOT_HOME}/configuration/robot.properties"})
+public interface SpeechSynthesisConfig extends Config {
+
+    /**
+     * Longueur maximale d'un morceau de texte synthétisé en une fois : les textes sont découpés en phrases, et les
+     * phrases plus longues après une virgule ou entre deux mots. Le délai avant le début de la parole ne dépend que
+     * de la longueur du premier morceau.
+     *
+     * @return la longueur en caractères
+     */
+    @Key("speech.synthesis.chunk.max.chars")
+    @DefaultValue("150")
+    int chunkMaxChars();
+
+    /**
+     * Nombre de morceaux synthétisés en attente de lecture au-delà duquel la synthèse du morceau suivant attend
+     * (1 : le morceau suivant est synthétisé pendant la lecture du morceau courant).
+     *
+     * @return le nombre de morceaux
+     */
+    @Key("speech.synthesis.lookahead.chunks")
+    @DefaultValue("1")
+    int lookaheadChunks();
+
+    /**
+     * Délai maximal d'attente d'une parole dans la file de l'ordonnanceur avant qu'elle ne commence, au-delà duquel
+     * elle est abandonnée car périmée (délai par défaut des évènements qui n'en précisent pas, 0 pour aucun délai).
+     *
+     * @return le délai en millisecondes
+     */
+    @Key("speech.synthesis.queue.max.wait.ms")
+    @DefaultValue("15000")
+    long queueMaxWaitMillis();
+}
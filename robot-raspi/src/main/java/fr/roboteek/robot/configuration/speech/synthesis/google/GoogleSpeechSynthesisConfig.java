@@ -16,7 +16,12 @@ public interface GoogleSpeechSynthesisConfig extends Config {
     @DefaultValue("fr-FR-Wavenet-D")
     String voiceName();
 
-    @Key("speech.synthesis.google.voice.filter")
-    @DefaultValue("synthesis_from_wavenet_d.sh")
-    String voiceFilter();
+    /**
+     * Effets appliqués à la voix synthétisée (syntaxe des effets sox : pitch, tempo, stretch, treble, bass, gain).
+     *
+     * @return les effets, vide pour aucun
+     */
+    @Key("speech.synthesis.google.voice.effects")
+    @DefaultValue("pitch 900 treble -4 gain 3")
+    String voiceEffects();
 }
@@ -0,0 +1,45 @@
+package fr.roboteek.robot.configuration.video;
+
+import org.aeonbits.owner.Config;
+
+import static org.aeonbits.owner.Config.*;
+
+@HotReload(type = HotReloadType.ASYNC)
+@Sources({"file:${ROBOT_HOME}/configuration/robot.properties"})
+public interface VideoStreamConfig extends Config {
+
+    /**
+     * Nombre d'images par seconde envoyées à un client qui n'en précise pas (paramètre "fps" de l'URL).
+     *
+     * @return le nombre d'images par seconde
+     */
+    @Key("video.stream.fps")
+    @DefaultValue("15")
+    int fps();
+
+    /**
+     * Nombre maximal d'images par seconde envoyées à un client, quelle que soit sa demande.
+     *
+     * @return le nombre d'images par seconde
+     */
+    @Key("video.stream.max.fps")
+    @DefaultValue("25")
+    int maxFps();
+
+    /**
+     * Qualité JPEG initiale de chaque client (entre 0 et 1), adaptée ensuite à son débit.
+     *
+     * @return la qualité
+     */
+    @Key("video.stream.quality")
+    @DefaultValue("0.75")
+    float quality();
+
+    @Key("video.stream.quality.min")
+    @DefaultValue("0.3")
+    float minQuality();
+
+    @Key("video.stream.quality.max")
+    @DefaultValue("0.9")
+    float maxQuality();
+}
@@ -0,0 +1,69 @@
+package fr.roboteek.robot.configuration.vision;
+
+import org.aeonbits.owner.Config;
+
+import static org.aeonbits.owner.Config.*;
+
+/**
+ * Choix des moteurs d'analyse d'image : serveur Python, ou détecteurs exécutés dans la JVM.
+ */
+@HotReload(type = HotReloadType.ASYNC)
+@Sources({"file:${ROBOT_HOME}/configuration/robot.properties"})
+public interface VisionEngineConfig extends Config {
+
+    /**
+     * Moteur de détection des visages : PYTHON, SSD (réseau OpenCV DNN), HAAR (cascade de Haar OpenCV) ou NONE (aucune
+     * détection).
+     *
+     * @return le moteur
+     */
+    @Key("vision.engine.face.detection")
+    @DefaultValue("PYTHON")
+    String faceDetection();
+
+    /**
+     * Moteur de reconnaissance des visages : PYTHON, ou NONE (détection seule, visages inconnus).
+     *
+     * @return le moteur
+     */
+    @Key("vision.engine.face.recognition")
+    @DefaultValue("PYTHON")
+    String faceRecognition();
+
+    /**
+     * Moteur de détection des objets : PYTHON, TINY_YOLO (Tiny YOLO V2, classes VOC), YOLO2 (YOLO V2, classes COCO) ou
+     * NONE (aucune détection).
+     *
+     * @return le moteur
+     */
+    @Key("vision.engine.object.detection")
+    @DefaultValue("PYTHON")
+    String objectDetection();
+
+    /**
+     * Dossier des modèles OpenCV (SSD, cascade de Haar), relatif au dossier de reconnaissance faciale s'il n'est
+     * pas absolu.
+     *
+     * @return le dossier
+     */
+    @Key("vision.engine.models.dir")
+    @DefaultValue("models")
+    String modelsDirectory();
+
+    @Key("vision.engine.face.confidence")
+    @DefaultValue("0.6")
+    float faceConfidence();
+
+    @Key("vision.engine.object.confidence")
+    @DefaultValue("0.5")
+    float objectConfidence();
+
+    /**
+     * Nombre maximal d'images analysées ensemble par les détecteurs d'objets YOLO (une image par caméra).
+     *
+     * @return la taille maximale d'un lot
+     */
+    @Key("vision.engine.object.batch.max")
+    @DefaultValue("3")
+    int objectBatchMax();
+}
@@ -0,0 +1,43 @@
+package fr.roboteek.robot.configuration.vision;
+
+import org.aeonbits.owner.Config;
+
+import static org.aeonbits.owner.Config.*;
+
+/**
+ * Mémoire des visages connus : reconnaissance dans la JVM à partir des encodages calculés par le serveur Python.
+ */
+@HotReload(type = HotReloadType.ASYNC)
+@Sources({"file:${ROBOT_HOME}/configuration/robot.properties"})
+public interface VisionFaceMemoryConfig extends Config {
+
+    /**
+     * Reconnaissance dans la mémoire des visages (sinon les visages sont reconnus par le serveur Python, et aucun
+     * visage ne peut être appris sans le redémarrer).
+     *
+     * @return true si la mémoire des visages est utilisée
+     */
+    @Key("vision.face.memory.enabled")
+    @DefaultValue("true")
+    boolean enabled();
+
+    /**
+     * Fichier des encodages des visages connus, relatif au dossier de reconnaissance faciale s'il n'est pas absolu.
+     * S'il n'existe pas, il est créé à partir du fichier known-faces.csv du serveur Python.
+     *
+     * @return le fichier
+     */
+    @Key("vision.face.memory.file")
+    @DefaultValue("known-faces/known-faces.bin")
+    String file();
+
+    /**
+     * Distance maximale entre deux encodages d'une même personne (0.6 comme la bibliothèque face_recognition, plus
+     * petite pour une reconnaissance plus stricte).
+     *
+     * @return la distance maximale
+     */
+    @Key("vision.face.memory.tolerance")
+    @DefaultValue("0.6")
+    float tolerance();
+}
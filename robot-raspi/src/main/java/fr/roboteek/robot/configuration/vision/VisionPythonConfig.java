@@ -0,0 +1,106 @@
+package fr.roboteek.robot.configuration.vision;
+
+import org.aeonbits.owner.Config;
+
+import static org.aeonbits.owner.Config.*;
+
+@HotReload(type = HotReloadType.ASYNC)
+@Sources({"file:${ROBOT_HOME}/configuration/robot.properties"})
+public interface VisionPythonConfig extends Config {
+
+    /**
+     * Commande de l'interpréteur Python lançant le serveur.
+     *
+     * @return la commande
+     */
+    @Key("vision.python.command")
+    @DefaultValue("/usr/bin/python3.8")
+    String command();
+
+    /**
+     * Transport des images vers le serveur Python de vision : IPC (connexion persistante, protocole binaire,
+     * images transmises en mémoire) ou HTTP (connexions persistantes, envoi multipart de l'image encodée en JPEG).
+     *
+     * @return le transport
+     */
+    @Key("vision.python.transport")
+    @DefaultValue("IPC")
+    String transport();
+
+    @Key("vision.python.http.port")
+    @DefaultValue("5001")
+    int httpPort();
+
+    @Key("vision.python.ipc.port")
+    @DefaultValue("5002")
+    int ipcPort();
+
+    /**
+     * Format des images transmises par le transport IPC : RAW (pixels RGB, aucun encodage) ou JPEG (moins d'octets,
+     * mais encodage et décodage à chaque image).
+     *
+     * @return le format
+     */
+    @Key("vision.python.ipc.format")
+    @DefaultValue("RAW")
+    String ipcFormat();
+
+    /**
+     * Délai maximal d'attente d'une réponse du serveur Python.
+     *
+     * @return le délai en millisecondes
+     */
+    @Key("vision.python.timeout.ms")
+    @DefaultValue("5000")
+    int timeoutMillis();
+
+    /**
+     * Intervalle entre deux vérifications de l'état du serveur Python (requête HTTP /ping).
+     *
+     * @return l'intervalle en millisecondes
+     */
+    @Key("vision.python.health.interval.ms")
+    @DefaultValue("2000")
+    int healthIntervalMillis();
+
+    /**
+     * Délai maximal d'attente de la réponse à une vérification de l'état du serveur Python.
+     *
+     * @return le délai en millisecondes
+     */
+    @Key("vision.python.health.timeout.ms")
+    @DefaultValue("1000")
+    int healthTimeoutMillis();
+
+    /**
+     * Nombre de vérifications successives sans réponse après lequel le serveur Python est redémarré.
+     *
+     * @return le nombre d'échecs
+     */
+    @Key("vision.python.health.failures.max")
+    @DefaultValue("3")
+    int healthMaxFailures();
+
+    /**
+     * Délai maximal de démarrage du serveur Python (chargement des modèles), au-delà duquel il est redémarré.
+     *
+     * @return le délai en millisecondes
+     */
+    @Key("vision.python.startup.timeout.ms")
+    @DefaultValue("120000")
+    int startupTimeoutMillis();
+
+    /**
+     * Délai avant le redémarrage du serveur Python après un arrêt, doublé à chaque redémarrage successif jusqu'au
+     * délai maximal.
+     *
+     * @return le délai en millisecondes
+     */
+    @Key("vision.python.restart.delay.min.ms")
+    @DefaultValue("1000")
+    int restartDelayMinMillis();
+
+    @Key("vision.python.restart.delay.max.ms")
+    @DefaultValue("60000")
+    int restartDelayMaxMillis();
+}
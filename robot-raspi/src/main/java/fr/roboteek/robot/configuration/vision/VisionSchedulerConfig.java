@@ -0,0 +1,67 @@
+package fr.roboteek.robot.configuration.vision;
+
+import org.aeonbits.owner.Config;
+
+import static org.aeonbits.owner.Config.*;
+
+/**
+ * Ordonnancement des analyses d'image : l'intervalle entre deux exécutions de chaque modèle varie entre son minimum
+ * (scène en mouvement) et son maximum (scène immobile), allongé quand le processeur est chargé, et jamais inférieur
+ * à ce que permet la latence mesurée du modèle.
+ */
+@HotReload(type = HotReloadType.ASYNC)
+@Sources({"file:${ROBOT_HOME}/configuration/robot.properties"})
+public interface VisionSchedulerConfig extends Config {
+
+    @Key("vision.scheduler.face.detection.interval.min.ms")
+    @DefaultValue("40")
+    int faceDetectionMinInterval();
+
+    @Key("vision.scheduler.face.detection.interval.max.ms")
+    @DefaultValue("1000")
+    int faceDetectionMaxInterval();
+
+    @Key("vision.scheduler.face.recognition.interval.min.ms")
+    @DefaultValue("1000")
+    int faceRecognitionMinInterval();
+
+    @Key("vision.scheduler.face.recognition.interval.max.ms")
+    @DefaultValue("5000")
+    int faceRecognitionMaxInterval();
+
+    @Key("vision.scheduler.object.detection.interval.min.ms")
+    @DefaultValue("120")
+    int objectDetectionMinInterval();
+
+    @Key("vision.scheduler.object.detection.interval.max.ms")
+    @DefaultValue("2000")
+    int objectDetectionMaxInterval();
+
+    /**
+     * Différence moyenne de luminance (entre 0 et 1) entre deux images à partir de laquelle la scène est considérée
+     * en plein mouvement (intervalles minimaux).
+     *
+     * @return le seuil de mouvement
+     */
+    @Key("vision.scheduler.motion.threshold")
+    @DefaultValue("0.04")
+    float motionThreshold();
+
+    /**
+     * Charge processeur (entre 0 et 1) au-delà de laquelle les intervalles sont allongés proportionnellement.
+     *
+     * @return la charge cible
+     */
+    @Key("vision.scheduler.cpu.target")
+    @DefaultValue("0.7")
+    float cpuTarget();
+
+    /**
+     * Part maximale du temps (entre 0 et 1) pendant laquelle un modèle peut être en cours d'exécution.
+     *
+     * @return la part maximale
+     */
+    @Key("vision.scheduler.max.busy.ratio")
+    @DefaultValue("0.5")
+    float maxBusyRatio();
+}
@@ -0,0 +1,41 @@
+package fr.roboteek.robot.configuration.vision;
+
+import org.aeonbits.owner.Config;
+
+import static org.aeonbits.owner.Config.*;
+
+/**
+ * Suivi des visages et des objets d'une analyse à l'autre.
+ */
+@HotReload(type = HotReloadType.ASYNC)
+@Sources({"file:${ROBOT_HOME}/configuration/robot.properties"})
+public interface VisionTrackerConfig extends Config {
+
+    /**
+     * Recouvrement minimal (intersection sur union, entre 0 et 1) entre la position prédite d'une piste et une
+     * détection pour les associer.
+     *
+     * @return le seuil de recouvrement
+     */
+    @Key("vision.tracker.iou.threshold")
+    @DefaultValue("0.3")
+    float iouThreshold();
+
+    /**
+     * Demi-vie de la confiance d'une piste qui n'est plus détectée.
+     *
+     * @return la demi-vie en millisecondes
+     */
+    @Key("vision.tracker.confidence.half.life.ms")
+    @DefaultValue("500")
+    int confidenceHalfLife();
+
+    /**
+     * Confiance (entre 0 et 1) en dessous de laquelle une piste est abandonnée.
+     *
+     * @return la confiance minimale
+     */
+    @Key("vision.tracker.confidence.min")
+    @DefaultValue("0.15")
+    float minConfidence();
+}
@@ -0,0 +1,34 @@
+package fr.roboteek.robot.memoire;
+
+import fr.roboteek.robot.util.video.VideoFrame;
+
+import java.util.Collections;
+
+/**
+ * Moteur d'analyse désactivé (NONE) : aucun visage ni objet n'est jamais trouvé.
+ */
+public class AucunVisionEngine implements VisionEngine {
+
+    @Override
+    public FacialRecognitionResponse recognizeFaces(VideoFrame image) {
+        return detectFaces(image);
+    }
+
+    @Override
+    public FacialRecognitionResponse detectFaces(VideoFrame image) {
+        final FacialRecognitionResponse reponse = new FacialRecognitionResponse();
+        reponse.setFaces(Collections.emptyList());
+        return reponse;
+    }
+
+    @Override
+    public ObjectDetectionResponse detectObjects(VideoFrame image) {
+        final ObjectDetectionResponse reponse = new ObjectDetectionResponse();
+        reponse.setObjects(Collections.emptyList());
+        return reponse;
+    }
+
+    @Override
+    public void close() {
+    }
+}
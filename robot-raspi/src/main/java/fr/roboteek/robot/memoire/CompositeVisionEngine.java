@@ -0,0 +1,94 @@
+package fr.roboteek.robot.memoire;
+
+import fr.roboteek.robot.util.video.VideoFrame;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moteur d'analyse délégant chaque analyse au moteur choisi pour elle.
+ * Sans moteur de reconnaissance, la reconnaissance se limite à la détection (visages inconnus).
+ */
+public class CompositeVisionEngine implements VisionEngine {
+
+    private final VisionEngine detectionVisages;
+
+    private final VisionEngine reconnaissanceVisages;
+
+    private final VisionEngine detectionObjets;
+
+    /**
+     * Constructeur.
+     *
+     * @param detectionVisages      le moteur de détection des visages
+     * @param reconnaissanceVisages le moteur de reconnaissance des visages (null si aucun)
+     * @param detectionObjets       le moteur de détection des objets
+     */
+    public CompositeVisionEngine(VisionEngine detectionVisages, VisionEngine reconnaissanceVisages, VisionEngine detectionObjets) {
+        this.detectionVisages = detectionVisages;
+        this.reconnaissanceVisages = reconnaissanceVisages;
+        this.detectionObjets = detectionObjets;
+    }
+
+    @Override
+    public FacialRecognitionResponse recognizeFaces(VideoFrame image) {
+        if (reconnaissanceVisages == null) {
+            return detectionVisages.detectFaces(image);
+        }
+        return reconnaissanceVisages.recognizeFaces(image);
+    }
+
+    @Override
+    public FacialRecognitionResponse detectFaces(VideoFrame image) {
+        return detectionVisages.detectFaces(image);
+    }
+
+    @Override
+    public ObjectDetectionResponse detectObjects(VideoFrame image) {
+        return detectionObjets.detectObjects(image);
+    }
+
+    @Override
+    public List<ObjectDetectionResponse> detectObjects(List<VideoFrame> images) {
+        return detectionObjets.detectObjects(images);
+    }
+
+    @Override
+    public int learnFaces(List<VideoFrame> images, String prenom) {
+        if (reconnaissanceVisages == null) {
+            return VisionEngine.super.learnFaces(images, prenom);
+        }
+        return reconnaissanceVisages.learnFaces(images, prenom);
+    }
+
+    @Override
+    public boolean awaitReady(long delaiMaximal) throws InterruptedException {
+        final long fin = System.currentTimeMillis() + delaiMaximal;
+        for (VisionEngine moteur : moteurs().keySet()) {
+            if (!moteur.awaitReady(Math.max(0, fin - System.currentTimeMillis()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void close() {
+        // Un même moteur peut assurer plusieurs analyses : fermeture unique
+        moteurs().keySet().forEach(VisionEngine::close);
+    }
+
+    /**
+     * @return les moteurs utilisés, chacun une seule fois
+     */
+    private Map<VisionEngine, Boolean> moteurs() {
+        final Map<VisionEngine, Boolean> moteurs = new IdentityHashMap<>();
+        moteurs.put(detectionVisages, true);
+        if (reconnaissanceVisages != null) {
+            moteurs.put(reconnaissanceVisages, true);
+        }
+        moteurs.put(detectionObjets, true);
+        return moteurs;
+    }
+}
@@ -17,6 +17,40 @@ public class DetectedObject {
 
     private String name;
 
+    /**
+     * Identifiant de la piste de suivi (0 si l'objet n'est pas suivi).
+     */
+    private long trackId;
+
+    /**
+     * Ancienneté de la piste de suivi (millisecondes).
+     */
+    private long trackAge;
+
+    /**
+     * Confiance de la piste de suivi (entre 0 et 1).
+     */
+    private float confidence;
+
+    public DetectedObject() {
+    }
+
+    /**
+     * Constructeur de copie.
+     *
+     * @param source l'objet à copier
+     */
+    public DetectedObject(DetectedObject source) {
+        this.x = source.x;
+        this.y = source.y;
+        this.width = source.width;
+        this.height = source.height;
+        this.name = source.name;
+        this.trackId = source.trackId;
+        this.trackAge = source.trackAge;
+        this.confidence = source.confidence;
+    }
+
     public int getX() {
         return x;
     }
@@ -57,6 +91,30 @@ public class DetectedObject {
         this.name = name;
     }
 
+    public long getTrackId() {
+        return trackId;
+    }
+
+    public void setTrackId(long trackId) {
+        this.trackId = trackId;
+    }
+
+    public long getTrackAge() {
+        return trackAge;
+    }
+
+    public void setTrackAge(long trackAge) {
+        this.trackAge = trackAge;
+    }
+
+    public float getConfidence() {
+        return confidence;
+    }
+
+    public void setConfidence(float confidence) {
+        this.confidence = confidence;
+    }
+
     public Rectangle getBounds() {
         return new Rectangle((float) x, (float) y, (float) width, (float) height);
     }
@@ -70,6 +128,9 @@ public class DetectedObject {
                 ", width=" + width +
                 ", height=" + height +
                 ", name='" + name + '\'' +
+                ", trackId=" + trackId +
+                ", trackAge=" + trackAge +
+                ", confidence=" + confidence +
                 '}';
     }
 }
@@ -0,0 +1,124 @@
+package fr.roboteek.robot.memoire;
+
+import org.openimaj.math.geometry.shape.Rectangle;
+
+/**
+ * Filtre de Kalman à vitesse constante sur une boîte englobante : centre et taille, chacun filtré sur un axe
+ * indépendant (position, vitesse). Les pas de temps sont variables (les analyses n'ont pas de cadence fixe).
+ */
+class FiltreKalmanBoite {
+
+    /**
+     * Écart-type de l'accélération du centre (pixels / s²) et de la variation de taille.
+     */
+    private static final double ACCELERATION_CENTRE = 400;
+    private static final double ACCELERATION_TAILLE = 100;
+
+    /**
+     * Écart-type de l'erreur de mesure des détecteurs (pixels).
+     */
+    private static final double ERREUR_MESURE = 4;
+
+    /**
+     * Écart-type initial de la vitesse (pixels / s).
+     */
+    private static final double VITESSE_INITIALE = 200;
+
+    private final Axe centreX;
+    private final Axe centreY;
+    private final Axe largeur;
+    private final Axe hauteur;
+
+    FiltreKalmanBoite(DetectedObject mesure) {
+        centreX = new Axe(mesure.getX() + mesure.getWidth() / 2.0, ACCELERATION_CENTRE);
+        centreY = new Axe(mesure.getY() + mesure.getHeight() / 2.0, ACCELERATION_CENTRE);
+        largeur = new Axe(mesure.getWidth(), ACCELERATION_TAILLE);
+        hauteur = new Axe(mesure.getHeight(), ACCELERATION_TAILLE);
+    }
+
+    /**
+     * Prédit la boîte après un pas de temps.
+     *
+     * @param dt le pas de temps (secondes)
+     */
+    void predire(double dt) {
+        centreX.predire(dt);
+        centreY.predire(dt);
+        largeur.predire(dt);
+        hauteur.predire(dt);
+    }
+
+    /**
+     * Corrige la prédiction avec une mesure.
+     *
+     * @param mesure la boîte détectée
+     */
+    void corriger(DetectedObject mesure) {
+        centreX.corriger(mesure.getX() + mesure.getWidth() / 2.0);
+        centreY.corriger(mesure.getY() + mesure.getHeight() / 2.0);
+        largeur.corriger(mesure.getWidth());
+        hauteur.corriger(mesure.getHeight());
+    }
+
+    /**
+     * @return la boîte estimée
+     */
+    Rectangle getBoite() {
+        final double l = Math.max(1, largeur.position);
+        final double h = Math.max(1, hauteur.position);
+        return new Rectangle((float) (centreX.position - l / 2), (float) (centreY.position - h / 2), (float) l, (float) h);
+    }
+
+    /**
+     * Filtre sur un axe : état (position, vitesse) et covariance symétrique.
+     */
+    private static class Axe {
+
+        private final double varianceAcceleration;
+
+        private double position;
+        private double vitesse;
+
+        private double p00;
+        private double p01;
+        private double p11;
+
+        private Axe(double position, double acceleration) {
+            this.varianceAcceleration = acceleration * acceleration;
+            this.position = position;
+            this.p00 = ERREUR_MESURE * ERREUR_MESURE;
+            this.p11 = VITESSE_INITIALE * VITESSE_INITIALE;
+        }
+
+        private void predire(double dt) {
+            if (dt <= 0) {
+                return;
+            }
+            position += vitesse * dt;
+            // P = F.P.Ft + Q (bruit d'accélération blanc discrétisé)
+            final double dt2 = dt * dt;
+            final double q = varianceAcceleration;
+            final double n00 = p00 + dt * (2 * p01 + dt * p11) + q * dt2 * dt2 / 4;
+            final double n01 = p01 + dt * p11 + q * dt2 * dt / 2;
+            final double n11 = p11 + q * dt2;
+            p00 = n00;
+            p01 = n01;
+            p11 = n11;
+        }
+
+        private void corriger(double mesure) {
+            final double s = p00 + ERREUR_MESURE * ERREUR_MESURE;
+            final double k0 = p00 / s;
+            final double k1 = p01 / s;
+            final double innovation = mesure - position;
+            position += k0 * innovation;
+            vitesse += k1 * innovation;
+            final double n00 = (1 - k0) * p00;
+            final double n01 = (1 - k0) * p01;
+            final double n11 = p11 - k1 * p01;
+            p00 = n00;
+            p01 = n01;
+            p11 = n11;
+        }
+    }
+}
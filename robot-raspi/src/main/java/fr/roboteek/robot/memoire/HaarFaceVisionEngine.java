@@ -0,0 +1,97 @@
+package fr.roboteek.robot.memoire;
+
+import fr.roboteek.robot.util.video.FrameResampler;
+import fr.roboteek.robot.util.video.VideoFrame;
+import org.apache.log4j.Logger;
+import org.bytedeco.javacpp.opencv_core.Mat;
+import org.bytedeco.javacpp.opencv_core.Rect;
+import org.bytedeco.javacpp.opencv_core.RectVector;
+import org.bytedeco.javacpp.opencv_core.Size;
+import org.bytedeco.javacpp.opencv_objdetect.CascadeClassifier;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.bytedeco.javacpp.opencv_core.CV_8UC1;
+
+/**
+ * Détection des visages dans la JVM avec une cascade de Haar OpenCV (haarcascade_frontalface_alt.xml, dossier des
+ * modèles), sur l'image en niveaux de gris réduite à 320 x 240.
+ * L'image de travail et la liste des visages sont allouées une seule fois.
+ */
+public class HaarFaceVisionEngine implements VisionEngine {
+
+    private static final int LARGEUR_TRAVAIL = 320;
+
+    private static final int HAUTEUR_TRAVAIL = 240;
+
+    private static final String FICHIER_CASCADE = "haarcascade_frontalface_alt.xml";
+
+    private final Logger logger = Logger.getLogger(HaarFaceVisionEngine.class);
+
+    private final CascadeClassifier classifieur;
+
+    private final FrameResampler redimensionnement = new FrameResampler(LARGEUR_TRAVAIL, HAUTEUR_TRAVAIL);
+
+    private final byte[] pixels = new byte[LARGEUR_TRAVAIL * HAUTEUR_TRAVAIL];
+
+    private final Mat imageGris = new Mat(HAUTEUR_TRAVAIL, LARGEUR_TRAVAIL, CV_8UC1);
+
+    private final ByteBuffer tamponImage;
+
+    private final RectVector rectangles = new RectVector();
+
+    private final Size tailleMin = new Size(20, 20);
+
+    private final Size tailleMax = new Size();
+
+    public HaarFaceVisionEngine(File dossierModeles) {
+        final File cascade = new File(dossierModeles, FICHIER_CASCADE);
+        classifieur = new CascadeClassifier(cascade.getAbsolutePath());
+        if (classifieur.empty()) {
+            throw new IllegalStateException("Cascade de Haar de détection des visages introuvable : " + cascade);
+        }
+        tamponImage = imageGris.createBuffer();
+    }
+
+    @Override
+    public synchronized FacialRecognitionResponse detectFaces(VideoFrame image) {
+        redimensionnement.resizeLuminance(image, pixels);
+        tamponImage.clear();
+        tamponImage.put(pixels);
+
+        final List<RecognizedFace> visages = new ArrayList<>();
+        try {
+            classifieur.detectMultiScale(imageGris, rectangles, 1.2, 3, 0, tailleMin, tailleMax);
+            final float echelleX = (float) image.getWidth() / LARGEUR_TRAVAIL;
+            final float echelleY = (float) image.getHeight() / HAUTEUR_TRAVAIL;
+            for (long i = 0; i < rectangles.size(); i++) {
+                final Rect rectangle = rectangles.get(i);
+                final RecognizedFace visage = new RecognizedFace();
+                visage.setX(Math.round(rectangle.x() * echelleX));
+                visage.setY(Math.round(rectangle.y() * echelleY));
+                visage.setWidth(Math.round(rectangle.width() * echelleX));
+                visage.setHeight(Math.round(rectangle.height() * echelleY));
+                visage.setName("");
+                visages.add(visage);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Erreur lors de la détection des visages", e);
+            return null;
+        }
+
+        final FacialRecognitionResponse reponse = new FacialRecognitionResponse();
+        reponse.setFaceFound(!visages.isEmpty());
+        reponse.setFaces(visages);
+        return reponse;
+    }
+
+    @Override
+    public synchronized void close() {
+        classifieur.close();
+        imageGris.close();
+        rectangles.close();
+    }
+}
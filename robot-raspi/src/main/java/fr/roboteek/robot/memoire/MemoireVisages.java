@@ -0,0 +1,306 @@
+package fr.roboteek.robot.memoire;
+
+import org.apache.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Mémoire des visages connus : encodages (calculés par le serveur Python) et prénoms des personnes.
+ * <p>
+ * Les encodages sont rangés bout à bout dans une matrice de flottants, parcourue entièrement à chaque recherche du
+ * plus proche voisin (quelques centaines de visages au plus : le parcours coûte quelques dizaines de microsecondes).
+ * Un visage appris est ajouté à la fin du fichier et de la matrice sans bloquer les recherches en cours : la matrice
+ * n'est agrandie (par copie) que lorsqu'elle est pleine, et chaque recherche travaille sur un index immuable.
+ * <p>
+ * Fichier : un en-tête (signature, version, dimension des encodages) suivi des visages (longueur et octets UTF-8 du
+ * prénom, puis l'encodage), en ordre big-endian. Un visage incomplet en fin de fichier (arrêt pendant l'écriture)
+ * est supprimé au chargement.
+ * <p>
+ * Le fichier CSV des visages connus du serveur Python est repris à la création du fichier, puis à chaque chargement
+ * où il est plus récent que le fichier : ses visages absents du fichier y sont ajoutés (les visages appris sont
+ * conservés).
+ */
+public class MemoireVisages {
+
+    private static final Logger logger = Logger.getLogger(MemoireVisages.class);
+
+    private static final int SIGNATURE = 0x56495347;
+
+    private static final int VERSION = 1;
+
+    private static final int TAILLE_EN_TETE = 3 * Integer.BYTES;
+
+    /**
+     * Dimension des encodages de la bibliothèque face_recognition.
+     */
+    public static final int DIMENSION = 128;
+
+    private static final int CAPACITE_INITIALE = 64;
+
+    /**
+     * Index des visages connus : seuls les nombreVisages premiers visages sont lus, ce qui permet d'ajouter un visage
+     * à la fin des tableaux partagés avec un index précédent.
+     */
+    private static final class Index {
+        private final float[] encodages;
+        private final String[] prenoms;
+        private final int nombreVisages;
+
+        private Index(float[] encodages, String[] prenoms, int nombreVisages) {
+            this.encodages = encodages;
+            this.prenoms = prenoms;
+            this.nombreVisages = nombreVisages;
+        }
+    }
+
+    private final File fichier;
+
+    private volatile Index index = new Index(new float[CAPACITE_INITIALE * DIMENSION], new String[CAPACITE_INITIALE], 0);
+
+    /**
+     * Constructeur : charge le fichier (complété par les nouveaux visages du fichier CSV du serveur Python s'il est
+     * plus récent), ou le crée à partir du fichier CSV s'il n'existe pas.
+     *
+     * @param fichier          le fichier des encodages
+     * @param fichierCsvPython le fichier CSV des visages connus du serveur Python (prénom puis encodage sur chaque
+     *                         ligne), null si aucun
+     * @throws IllegalStateException si le fichier ne peut être lu ou créé
+     */
+    public MemoireVisages(File fichier, File fichierCsvPython) {
+        this.fichier = fichier;
+        try {
+            if (fichier.isFile()) {
+                charger();
+                if (fichierCsvPython != null && fichierCsvPython.lastModified() > fichier.lastModified()) {
+                    fusionner(fichierCsvPython);
+                }
+            } else {
+                creer(fichierCsvPython);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Impossible de charger la mémoire des visages " + fichier, e);
+        }
+        logger.info(getNombreVisages() + " visages connus chargés depuis " + fichier);
+    }
+
+    /**
+     * Recherche la personne dont un visage connu est le plus proche d'un encodage.
+     *
+     * @param encodage    l'encodage du visage
+     * @param distanceMax la distance maximale entre deux encodages d'une même personne
+     * @return le prénom de la personne, null si aucun visage connu n'est assez proche
+     */
+    public String reconnaitre(float[] encodage, float distanceMax) {
+        if (encodage == null || encodage.length != DIMENSION) {
+            return null;
+        }
+        final Index index = this.index;
+        final float[] encodages = index.encodages;
+        float meilleureDistance = distanceMax * distanceMax;
+        int meilleurVisage = -1;
+        for (int visage = 0, debut = 0; visage < index.nombreVisages; visage++, debut += DIMENSION) {
+            // Carré de la distance, par blocs de 16 composantes (4 sommes indépendantes), abandonné dès qu'il
+            // dépasse la meilleure distance
+            float somme = 0;
+            for (int bloc = 0; bloc < DIMENSION && somme < meilleureDistance; bloc += 16) {
+                float somme0 = 0, somme1 = 0, somme2 = 0, somme3 = 0;
+                for (int i = bloc, j = debut + bloc; i < bloc + 16; i += 4, j += 4) {
+                    final float d0 = encodage[i] - encodages[j];
+                    final float d1 = encodage[i + 1] - encodages[j + 1];
+                    final float d2 = encodage[i + 2] - encodages[j + 2];
+                    final float d3 = encodage[i + 3] - encodages[j + 3];
+                    somme0 += d0 * d0;
+                    somme1 += d1 * d1;
+                    somme2 += d2 * d2;
+                    somme3 += d3 * d3;
+                }
+                somme += (somme0 + somme1) + (somme2 + somme3);
+            }
+            if (somme < meilleureDistance) {
+                meilleureDistance = somme;
+                meilleurVisage = visage;
+            }
+        }
+        return meilleurVisage >= 0 ? index.prenoms[meilleurVisage] : null;
+    }
+
+    /**
+     * Apprend un visage d'une personne (enregistré dans le fichier, puis reconnu par les recherches suivantes).
+     *
+     * @param prenom   le prénom de la personne
+     * @param encodage l'encodage du visage
+     * @throws IOException en cas d'erreur d'écriture (le visage n'est alors pas appris)
+     */
+    public synchronized void apprendre(String prenom, float[] encodage) throws IOException {
+        if (encodage == null || encodage.length != DIMENSION) {
+            throw new IllegalArgumentException("Encodage de visage invalide pour " + prenom);
+        }
+        try (FileChannel canal = FileChannel.open(fichier.toPath(), StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            final ByteBuffer tampon = ByteBuffer.allocate(tailleVisage(prenom));
+            ecrireVisage(tampon, prenom, encodage, 0);
+            tampon.flip();
+            while (tampon.hasRemaining()) {
+                canal.write(tampon);
+            }
+        }
+        ajouter(prenom, encodage);
+        logger.info("Visage de " + prenom + " appris (" + getNombreVisages() + " visages connus)");
+    }
+
+    /**
+     * @return le nombre de visages connus
+     */
+    public int getNombreVisages() {
+        return index.nombreVisages;
+    }
+
+    /**
+     * Ajoute un visage à la fin de l'index (agrandi si besoin), puis publie le nouvel index.
+     */
+    private void ajouter(String prenom, float[] encodage) {
+        final Index actuel = index;
+        float[] nouveauxEncodages = actuel.encodages;
+        String[] nouveauxPrenoms = actuel.prenoms;
+        if (actuel.nombreVisages == nouveauxPrenoms.length) {
+            nouveauxEncodages = Arrays.copyOf(nouveauxEncodages, 2 * nouveauxEncodages.length);
+            nouveauxPrenoms = Arrays.copyOf(nouveauxPrenoms, 2 * nouveauxPrenoms.length);
+        }
+        System.arraycopy(encodage, 0, nouveauxEncodages, actuel.nombreVisages * DIMENSION, DIMENSION);
+        nouveauxPrenoms[actuel.nombreVisages] = prenom;
+        index = new Index(nouveauxEncodages, nouveauxPrenoms, actuel.nombreVisages + 1);
+    }
+
+    private void charger() throws IOException {
+        final ByteBuffer contenu = ByteBuffer.wrap(Files.readAllBytes(fichier.toPath()));
+        if (contenu.remaining() < TAILLE_EN_TETE || contenu.getInt() != SIGNATURE || contenu.getInt() != VERSION
+                || contenu.getInt() != DIMENSION) {
+            throw new IOException("Fichier de visages connus invalide : " + fichier);
+        }
+        final float[] encodage = new float[DIMENSION];
+        int finDernierVisage = contenu.position();
+        try {
+            while (contenu.hasRemaining()) {
+                final byte[] prenom = new byte[contenu.getShort() & 0xFFFF];
+                contenu.get(prenom);
+                contenu.asFloatBuffer().get(encodage);
+                contenu.position(contenu.position() + DIMENSION * Float.BYTES);
+                ajouter(new String(prenom, StandardCharsets.UTF_8), encodage);
+                finDernierVisage = contenu.position();
+            }
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            logger.warn("Visage incomplet supprimé à la fin de " + fichier);
+            try (FileChannel canal = FileChannel.open(fichier.toPath(), StandardOpenOption.WRITE)) {
+                canal.truncate(finDernierVisage);
+            }
+        }
+    }
+
+    /**
+     * Ajoute au fichier les visages du fichier CSV du serveur Python qu'il ne contient pas encore.
+     */
+    private void fusionner(File fichierCsvPython) throws IOException {
+        final int premierNouveauVisage = index.nombreVisages;
+        lireCsv(fichierCsvPython);
+        final Index actuel = index;
+        if (actuel.nombreVisages > premierNouveauVisage) {
+            int taille = 0;
+            for (int visage = premierNouveauVisage; visage < actuel.nombreVisages; visage++) {
+                taille += tailleVisage(actuel.prenoms[visage]);
+            }
+            final ByteBuffer tampon = ByteBuffer.allocate(taille);
+            for (int visage = premierNouveauVisage; visage < actuel.nombreVisages; visage++) {
+                ecrireVisage(tampon, actuel.prenoms[visage], actuel.encodages, visage * DIMENSION);
+            }
+            tampon.flip();
+            try (FileChannel canal = FileChannel.open(fichier.toPath(), StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                while (tampon.hasRemaining()) {
+                    canal.write(tampon);
+                }
+            }
+            logger.info((actuel.nombreVisages - premierNouveauVisage) + " visages repris de " + fichierCsvPython);
+        }
+        // Fichier CSV pris en compte : il n'est relu qu'après sa prochaine modification
+        fichier.setLastModified(System.currentTimeMillis());
+    }
+
+    /**
+     * Ajoute à l'index les visages du fichier CSV du serveur Python (prénom puis encodage sur chaque ligne) absents
+     * de l'index.
+     */
+    private void lireCsv(File fichierCsvPython) throws IOException {
+        final float[] encodage = new float[DIMENSION];
+        try (BufferedReader lecteur = Files.newBufferedReader(fichierCsvPython.toPath(), StandardCharsets.UTF_8)) {
+            String ligne;
+            while ((ligne = lecteur.readLine()) != null) {
+                final String[] valeurs = ligne.split(",");
+                if (valeurs.length != DIMENSION + 1) {
+                    continue;
+                }
+                for (int i = 0; i < DIMENSION; i++) {
+                    encodage[i] = Float.parseFloat(valeurs[i + 1]);
+                }
+                if (!isConnu(valeurs[0], encodage)) {
+                    ajouter(valeurs[0], encodage);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return true si l'index contient déjà ce visage de cette personne
+     */
+    private boolean isConnu(String prenom, float[] encodage) {
+        final Index actuel = index;
+        for (int visage = 0; visage < actuel.nombreVisages; visage++) {
+            final int debut = visage * DIMENSION;
+            if (actuel.prenoms[visage].equals(prenom)
+                    && Arrays.equals(actuel.encodages, debut, debut + DIMENSION, encodage, 0, DIMENSION)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void creer(File fichierCsvPython) throws IOException {
+        if (fichierCsvPython != null && fichierCsvPython.isFile()) {
+            lireCsv(fichierCsvPython);
+        }
+
+        // Écriture de l'en-tête et des visages repris du serveur Python
+        final Index actuel = index;
+        int taille = TAILLE_EN_TETE;
+        for (int visage = 0; visage < actuel.nombreVisages; visage++) {
+            taille += tailleVisage(actuel.prenoms[visage]);
+        }
+        final ByteBuffer contenu = ByteBuffer.allocate(taille);
+        contenu.putInt(SIGNATURE).putInt(VERSION).putInt(DIMENSION);
+        for (int visage = 0; visage < actuel.nombreVisages; visage++) {
+            ecrireVisage(contenu, actuel.prenoms[visage], actuel.encodages, visage * DIMENSION);
+        }
+        final File dossier = fichier.getAbsoluteFile().getParentFile();
+        if (dossier != null) {
+            dossier.mkdirs();
+        }
+        Files.write(fichier.toPath(), contenu.array());
+    }
+
+    private static int tailleVisage(String prenom) {
+        return Short.BYTES + prenom.getBytes(StandardCharsets.UTF_8).length + DIMENSION * Float.BYTES;
+    }
+
+    private static void ecrireVisage(ByteBuffer tampon, String prenom, float[] encodages, int debut) {
+        final byte[] octetsPrenom = prenom.getBytes(StandardCharsets.UTF_8);
+        tampon.putShort((short) octetsPrenom.length).put(octetsPrenom);
+        tampon.asFloatBuffer().put(encodages, debut, DIMENSION);
+        tampon.position(tampon.position() + DIMENSION * Float.BYTES);
+    }
+}
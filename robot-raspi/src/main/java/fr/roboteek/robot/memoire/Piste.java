@@ -0,0 +1,142 @@
+package fr.roboteek.robot.memoire;
+
+import org.openimaj.math.geometry.shape.Rectangle;
+
+/**
+ * Piste de suivi d'un visage ou d'un objet : identifiant stable, position filtrée (Kalman), ancienneté et
+ * confiance (renforcée à chaque détection, décroissante sinon).
+ *
+ * @param <T> le type des objets suivis
+ */
+public class Piste<T extends DetectedObject> {
+
+    /**
+     * Gain de confiance à chaque détection (part de la confiance manquante).
+     */
+    private static final float GAIN_CONFIANCE = 0.5f;
+
+    private final long id;
+
+    private final long dateCreation;
+
+    private final FiltreKalmanBoite filtre;
+
+    /**
+     * Dernière détection associée à la piste.
+     */
+    private T derniereDetection;
+
+    private long dateDerniereDetection;
+
+    /**
+     * Date de la dernière mise à jour (prédiction ou correction).
+     */
+    private long dateMiseAJour;
+
+    private int nombreDetections = 1;
+
+    private float confiance = GAIN_CONFIANCE;
+
+    /**
+     * Indique si la piste a été associée à une détection lors de la dernière mise à jour.
+     */
+    private boolean detectee = true;
+
+    /**
+     * Nom reconnu (visages), null si la reconnaissance n'a pas encore été tentée, vide si le visage est inconnu.
+     */
+    private String nom;
+
+    Piste(long id, T detection, long date) {
+        this.id = id;
+        this.dateCreation = date;
+        this.dateMiseAJour = date;
+        this.dateDerniereDetection = date;
+        this.derniereDetection = detection;
+        this.filtre = new FiltreKalmanBoite(detection);
+    }
+
+    void predire(long date) {
+        filtre.predire((date - dateMiseAJour) / 1e9);
+    }
+
+    void corriger(T detection, long date) {
+        filtre.corriger(detection);
+        derniereDetection = detection;
+        dateDerniereDetection = date;
+        dateMiseAJour = date;
+        nombreDetections++;
+        confiance += (1 - confiance) * GAIN_CONFIANCE;
+        detectee = true;
+    }
+
+    /**
+     * Piste non détectée : la confiance décroît avec le temps écoulé depuis la dernière mise à jour.
+     */
+    void manquer(long date, double demiVie) {
+        confiance *= (float) Math.pow(0.5, (date - dateMiseAJour) / demiVie);
+        dateMiseAJour = date;
+        detectee = false;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * @param date la date courante ({@link System#nanoTime()})
+     * @return l'ancienneté de la piste (millisecondes)
+     */
+    public long getAge(long date) {
+        return (date - dateCreation) / 1_000_000L;
+    }
+
+    public long getDateDerniereDetection() {
+        return dateDerniereDetection;
+    }
+
+    public int getNombreDetections() {
+        return nombreDetections;
+    }
+
+    public float getConfiance() {
+        return confiance;
+    }
+
+    public boolean isDetectee() {
+        return detectee;
+    }
+
+    /**
+     * @return la boîte estimée par le filtre
+     */
+    public Rectangle getBoite() {
+        return filtre.getBoite();
+    }
+
+    public T getDerniereDetection() {
+        return derniereDetection;
+    }
+
+    public String getNom() {
+        return nom;
+    }
+
+    public void setNom(String nom) {
+        this.nom = nom;
+    }
+
+    /**
+     * @return true si la reconnaissance a été tentée sur la piste
+     */
+    public boolean isReconnue() {
+        return nom != null;
+    }
+
+    /**
+     * @return true si la reconnaissance a identifié la personne
+     */
+    public boolean isIdentifiee() {
+        return nom != null && !nom.isEmpty();
+    }
+}
@@ -1,9 +1,31 @@
 package fr.roboteek.robot.memoire;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 public class RecognizedFace extends DetectedObject {
 
     private FaceLandmarks landmarks;
 
+    /**
+     * Encodage du visage (traitement FACE_EMBEDDING), non transmis à l'interface.
+     */
+    @JsonIgnore
+    private float[] embedding;
+
+    public RecognizedFace() {
+    }
+
+    /**
+     * Constructeur de copie (les points caractéristiques et l'encodage sont partagés).
+     *
+     * @param source le visage à copier
+     */
+    public RecognizedFace(RecognizedFace source) {
+        super(source);
+        this.landmarks = source.landmarks;
+        this.embedding = source.embedding;
+    }
+
     public FaceLandmarks getLandmarks() {
         return landmarks;
     }
@@ -12,6 +34,14 @@ public class RecognizedFace extends DetectedObject {
         this.landmarks = landmarks;
     }
 
+    public float[] getEmbedding() {
+        return embedding;
+    }
+
+    public void setEmbedding(float[] embedding) {
+        this.embedding = embedding;
+    }
+
 
     @Override
     public String toString() {
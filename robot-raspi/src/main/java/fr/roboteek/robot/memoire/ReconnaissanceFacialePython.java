@@ -1,116 +1,170 @@
 package fr.roboteek.robot.memoire;
 
 import fr.roboteek.robot.Constantes;
-import kong.unirest.Unirest;
-import kong.unirest.UnirestException;
-import org.openimaj.image.FImage;
+import fr.roboteek.robot.configuration.vision.VisionFaceMemoryConfig;
+import fr.roboteek.robot.configuration.vision.VisionPythonConfig;
+import fr.roboteek.robot.util.video.VideoFrame;
+import org.apache.log4j.Logger;
 import org.openimaj.image.ImageUtilities;
-import org.openimaj.image.MBFImage;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
 
-public class ReconnaissanceFacialePython {
+import static fr.roboteek.robot.configuration.Configurations.visionFaceMemoryConfig;
+import static fr.roboteek.robot.configuration.Configurations.visionPythonConfig;
+
+public class ReconnaissanceFacialePython implements VisionEngine {
+
+    private final Logger logger = Logger.getLogger(ReconnaissanceFacialePython.class);
 
-    private String PYTHON_CMD = "/usr/bin/python3.8";
     private String FACE_RECOGNITION_PYTHON_SERVER_FILE = Constantes.DOSSIER_RECONNAISSANCE_FACIALE + File.separator + "python-server" + File.separator + "robot_ai_api.py";
     private String KNOWN_FACES_FOLDER = Constantes.DOSSIER_RECONNAISSANCE_FACIALE + File.separator + "known-faces";
-    private String IMAGE_TEMP_FOLDER = Constantes.DOSSIER_RECONNAISSANCE_FACIALE + File.separator + "tmp-img";
-    private String FACE_RECOGNITION_ENDPOINT_URL = "http://localhost:5001/face-recognition";
-    private String FACE_DETECTION_ENDPOINT_URL = "http://localhost:5001/face-detection";
-    private String OBJECT_DETECTION_ENDPOINT_URL = "http://localhost:5001/object-detection";
+
+    /**
+     * Transport des images vers le serveur Python.
+     */
+    private final TransportVisionPython transport;
+
+    /**
+     * Mémoire des visages connus (null si la reconnaissance est faite par le serveur Python).
+     */
+    private final MemoireVisages memoireVisages;
+
+    /**
+     * Supervision du serveur Python (lancement, vérification de son état, redémarrage).
+     */
+    private final SuperviseurServeurPython superviseur;
 
     public ReconnaissanceFacialePython() {
 
-        final Thread threadServer = new Thread("FacialRecognitionServer") {
-            @Override
-            public void run() {
-                // Lancement du serveur Python de reconnaissance faciale
-                String[] params = {PYTHON_CMD, FACE_RECOGNITION_PYTHON_SERVER_FILE, KNOWN_FACES_FOLDER};
-                try {
-                    Process p = Runtime.getRuntime().exec(params);
-                    p.waitFor();
-                } catch (IOException e) {
-                    // TODO Auto-generated catch block
-                    e.printStackTrace();
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                }
-                while (true) {
-                    try {
-                        Thread.sleep(10);
-                    } catch (InterruptedException e) {
-                        e.printStackTrace();
-                    }
-                }
+        final VisionPythonConfig visionPythonConfig = visionPythonConfig();
+        superviseur = new SuperviseurServeurPython(Arrays.asList(visionPythonConfig.command(), FACE_RECOGNITION_PYTHON_SERVER_FILE,
+                KNOWN_FACES_FOLDER, "--ipc-port", String.valueOf(visionPythonConfig.ipcPort()),
+                "--http-port", String.valueOf(visionPythonConfig.httpPort())), visionPythonConfig);
+
+        final TransportVisionPython transportServeur;
+        if ("HTTP".equalsIgnoreCase(visionPythonConfig.transport())) {
+            transportServeur = new TransportVisionPythonHttp(visionPythonConfig.httpPort(), visionPythonConfig.timeoutMillis());
+        } else {
+            transportServeur = new TransportVisionPythonIpc(visionPythonConfig.ipcPort(), visionPythonConfig.timeoutMillis(),
+                    TransportVisionPythonIpc.FormatImage.valueOf(visionPythonConfig.ipcFormat().toUpperCase()));
+        }
+        transport = new TransportVisionPythonSupervise(transportServeur, superviseur);
+
+        final VisionFaceMemoryConfig visionFaceMemoryConfig = visionFaceMemoryConfig();
+        if (visionFaceMemoryConfig.enabled()) {
+            File fichierMemoire = new File(visionFaceMemoryConfig.file());
+            if (!fichierMemoire.isAbsolute()) {
+                fichierMemoire = new File(Constantes.DOSSIER_RECONNAISSANCE_FACIALE, visionFaceMemoryConfig.file());
             }
-        };
-        threadServer.start();
-    }
+            memoireVisages = new MemoireVisages(fichierMemoire, new File(KNOWN_FACES_FOLDER, "known-faces.csv"));
+        } else {
+            memoireVisages = null;
+        }
 
-    public FacialRecognitionResponse recognizeFaces(MBFImage image) {
-        return processFacialImage(image, FACE_RECOGNITION_ENDPOINT_URL, FacialRecognitionResponse.class);
+        superviseur.demarrer();
     }
 
-    public FacialRecognitionResponse detectFaces(MBFImage image) {
-        return processFacialImage(image, FACE_DETECTION_ENDPOINT_URL, FacialRecognitionResponse.class);
+    @Override
+    public FacialRecognitionResponse recognizeFaces(VideoFrame image) {
+        if (memoireVisages == null) {
+            return transport.traiter(TypeTraitementVision.FACE_RECOGNITION, image, FacialRecognitionResponse.class);
+        }
+
+        // Encodage des visages par le serveur Python, puis recherche dans la mémoire des visages
+        final FacialRecognitionResponse reponse = transport.traiter(TypeTraitementVision.FACE_EMBEDDING, image, FacialRecognitionResponse.class);
+        if (reponse != null && reponse.getFaces() != null) {
+            final float tolerance = visionFaceMemoryConfig().tolerance();
+            for (RecognizedFace visage : reponse.getFaces()) {
+                final String prenom = memoireVisages.reconnaitre(visage.getEmbedding(), tolerance);
+                visage.setName(prenom != null ? prenom : "");
+            }
+        }
+        return reponse;
     }
 
-    public void apprendreVisagesPersonne(List<FImage> listeVisages, String prenomPersonne) {
+    @Override
+    public FacialRecognitionResponse detectFaces(VideoFrame image) {
+        return transport.traiter(TypeTraitementVision.FACE_DETECTION, image, FacialRecognitionResponse.class);
+    }
 
+    /**
+     * Apprend le visage d'une personne : le plus grand visage de chaque image est encodé par le serveur Python puis
+     * ajouté à la mémoire des visages.
+     *
+     * @param images les images de la personne
+     * @param prenom le prénom de la personne
+     * @return le nombre de visages appris
+     */
+    @Override
+    public int learnFaces(List<VideoFrame> images, String prenom) {
+        if (memoireVisages == null) {
+            logger.warn("Mémoire des visages désactivée : le visage de " + prenom + " n'est pas appris");
+            return VisionEngine.super.learnFaces(images, prenom);
+        }
+        int nombreVisagesAppris = 0;
+        for (VideoFrame image : images) {
+            final FacialRecognitionResponse reponse = transport.traiter(TypeTraitementVision.FACE_EMBEDDING, image, FacialRecognitionResponse.class);
+            if (reponse == null || reponse.getFaces() == null) {
+                continue;
+            }
+            RecognizedFace plusGrandVisage = null;
+            for (RecognizedFace visage : reponse.getFaces()) {
+                if (visage.getEmbedding() != null && (plusGrandVisage == null
+                        || visage.getWidth() * visage.getHeight() > plusGrandVisage.getWidth() * plusGrandVisage.getHeight())) {
+                    plusGrandVisage = visage;
+                }
+            }
+            if (plusGrandVisage != null) {
+                try {
+                    memoireVisages.apprendre(prenom, plusGrandVisage.getEmbedding());
+                    nombreVisagesAppris++;
+                } catch (IOException e) {
+                    logger.error("Impossible d'enregistrer le visage de " + prenom, e);
+                }
+            }
+        }
+        return nombreVisagesAppris;
     }
 
-    public ObjectDetectionResponse detectObjects(MBFImage image) {
-        return processFacialImage(image, OBJECT_DETECTION_ENDPOINT_URL, ObjectDetectionResponse.class);
+    @Override
+    public ObjectDetectionResponse detectObjects(VideoFrame image) {
+        return transport.traiter(TypeTraitementVision.OBJECT_DETECTION, image, ObjectDetectionResponse.class);
     }
 
-    private <T> T processFacialImage(MBFImage image, String endpointUrl, Class<T> responseClass) {
-        long timestamp = System.currentTimeMillis();
-        File file = new File(IMAGE_TEMP_FOLDER + File.separator + "face_" + timestamp + ".jpg");
-        try {
-            ImageUtilities.write(image, file);
-            T response = Unirest.post(endpointUrl)
-                    .field("file", file)
-                    .asObject(responseClass).getBody();
-            asyncDeleteFile(file);
-            return response;
-        } catch (UnirestException | IOException e) {
-            e.printStackTrace();
-            asyncDeleteFile(file);
-        }
-        return null;
+    @Override
+    public boolean awaitReady(long delaiMaximal) throws InterruptedException {
+        return superviseur.attendrePret(delaiMaximal);
     }
 
-    private void asyncDeleteFile(final File file) {
-        final Thread thread = new Thread("DeleteFileThread") {
-            @Override
-            public void run() {
-                if (file.exists()) {
-                    file.delete();
-                }
-            }
-        };
-        thread.start();
+    /**
+     * Ferme les connexions au serveur Python et l'arrête.
+     */
+    @Override
+    public void close() {
+        transport.close();
+        superviseur.arreter();
     }
 
     public static void main(String[] args) throws InterruptedException, IOException {
         ReconnaissanceFacialePython rf = new ReconnaissanceFacialePython();
-        Thread.sleep(5000);
+        rf.awaitReady(120000);
         long start = System.currentTimeMillis();
-        FacialRecognitionResponse response = rf.recognizeFaces(ImageUtilities.readMBF(new File("/home/npeltier/Robot/Programme/reconnaissance-visage/known-faces/penny.jpg")));
+        FacialRecognitionResponse response = rf.recognizeFaces(VideoFrame.copyOf(ImageUtilities.readMBF(new File("/home/npeltier/Robot/Programme/reconnaissance-visage/known-faces/penny.jpg"))));
         long stop = System.currentTimeMillis();
         System.out.println(" Temps = " +(stop - start) + ", response = " + response);
         start = System.currentTimeMillis();
-        response = rf.recognizeFaces(ImageUtilities.readMBF(new File("/home/npeltier/Robot/Programme/reconnaissance-visage/known-faces/penny.jpg")));
+        response = rf.recognizeFaces(VideoFrame.copyOf(ImageUtilities.readMBF(new File("/home/npeltier/Robot/Programme/reconnaissance-visage/known-faces/penny.jpg"))));
         stop = System.currentTimeMillis();
         System.out.println(" Temps = " +(stop - start) + ", response = " + response);
         start = System.currentTimeMillis();
-        response = rf.recognizeFaces(ImageUtilities.readMBF(new File("/home/npeltier/Robot/Programme/reconnaissance-visage/known-faces/penny.jpg")));
+        response = rf.recognizeFaces(VideoFrame.copyOf(ImageUtilities.readMBF(new File("/home/npeltier/Robot/Programme/reconnaissance-visage/known-faces/penny.jpg"))));
         stop = System.currentTimeMillis();
         System.out.println(" Temps = " +(stop - start) + ", response = " + response);
         start = System.currentTimeMillis();
-        response = rf.recognizeFaces(ImageUtilities.readMBF(new File("/home/npeltier/Robot/Programme/reconnaissance-visage/known-faces/penny.jpg")));
+        response = rf.recognizeFaces(VideoFrame.copyOf(ImageUtilities.readMBF(new File("/home/npeltier/Robot/Programme/reconnaissance-visage/known-faces/penny.jpg"))));
         stop = System.currentTimeMillis();
         System.out.println(" Temps = " +(stop - start) + ", response = " + response);
     }
@@ -0,0 +1,128 @@
+package fr.roboteek.robot.memoire;
+
+import fr.roboteek.robot.util.video.FrameResampler;
+import fr.roboteek.robot.util.video.VideoFrame;
+import org.apache.log4j.Logger;
+import org.bytedeco.javacpp.indexer.FloatIndexer;
+import org.bytedeco.javacpp.opencv_core.Mat;
+import org.bytedeco.javacpp.opencv_dnn.Net;
+
+import java.io.File;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.bytedeco.javacpp.opencv_core.CV_32F;
+import static org.bytedeco.javacpp.opencv_dnn.readNetFromCaffe;
+
+/**
+ * Détection des visages dans la JVM avec le réseau SSD ResNet-10 d'OpenCV DNN (entrée 300 x 300).
+ * Fichiers du modèle (dossier des modèles) : deploy.prototxt et res10_300x300_ssd_iter_140000.caffemodel.
+ * Le réseau est chargé et exécuté une première fois à la création ; le blob d'entrée est alloué une seule fois et
+ * rempli directement depuis l'image (redimensionnement bilinéaire, BGR moins la moyenne du modèle).
+ */
+public class SsdFaceVisionEngine implements VisionEngine {
+
+    private static final int TAILLE_ENTREE = 300;
+
+    /**
+     * Moyenne soustraite à chaque canal (B, G, R) lors de l'apprentissage du modèle.
+     */
+    private static final float[] MOYENNES_BGR = {104f, 177f, 123f};
+
+    private static final String FICHIER_PROTOTXT = "deploy.prototxt";
+
+    private static final String FICHIER_MODELE = "res10_300x300_ssd_iter_140000.caffemodel";
+
+    private final Logger logger = Logger.getLogger(SsdFaceVisionEngine.class);
+
+    private final Net reseau;
+
+    private final float seuilConfiance;
+
+    private final FrameResampler redimensionnement = new FrameResampler(TAILLE_ENTREE, TAILLE_ENTREE);
+
+    /**
+     * Pixels de l'image d'entrée (plans B, G, R).
+     */
+    private final float[] pixels = new float[3 * TAILLE_ENTREE * TAILLE_ENTREE];
+
+    /**
+     * Blob d'entrée (1 x 3 x 300 x 300) et sa vue en mémoire.
+     */
+    private final Mat entree = new Mat(new int[]{1, 3, TAILLE_ENTREE, TAILLE_ENTREE}, CV_32F);
+
+    private final FloatBuffer tamponEntree;
+
+    /**
+     * Constructeur.
+     *
+     * @param dossierModeles le dossier des modèles
+     * @param seuilConfiance la confiance minimale des visages détectés
+     */
+    public SsdFaceVisionEngine(File dossierModeles, float seuilConfiance) {
+        this.seuilConfiance = seuilConfiance;
+        final File prototxt = new File(dossierModeles, FICHIER_PROTOTXT);
+        final File modele = new File(dossierModeles, FICHIER_MODELE);
+        if (!prototxt.exists() || !modele.exists()) {
+            throw new IllegalStateException("Modèle SSD de détection des visages introuvable dans " + dossierModeles);
+        }
+        reseau = readNetFromCaffe(prototxt.getAbsolutePath(), modele.getAbsolutePath());
+        tamponEntree = entree.createBuffer();
+
+        // Première exécution (allocation des couches du réseau)
+        detectFaces(new VideoFrame(TAILLE_ENTREE, TAILLE_ENTREE));
+    }
+
+    @Override
+    public synchronized FacialRecognitionResponse detectFaces(VideoFrame image) {
+        final int plan = TAILLE_ENTREE * TAILLE_ENTREE;
+        for (int canal = 0; canal < 3; canal++) {
+            // Canaux BGR, valeurs entre 0 et 255
+            redimensionnement.resize(image, 2 - canal, pixels, canal * plan, 1, -MOYENNES_BGR[canal]);
+        }
+        tamponEntree.clear();
+        tamponEntree.put(pixels);
+
+        final List<RecognizedFace> visages = new ArrayList<>();
+        try {
+            reseau.setInput(entree);
+            // Sortie 1 x 1 x N x 7 : (image, classe, confiance, x1, y1, x2, y2) en coordonnées relatives
+            try (Mat sortie = reseau.forward();
+                 Mat detections = new Mat(sortie.size(2), sortie.size(3), CV_32F, sortie.ptr(0, 0))) {
+                final FloatIndexer indexeur = detections.createIndexer();
+                for (int i = 0; i < detections.rows(); i++) {
+                    if (indexeur.get(i, 2) < seuilConfiance) {
+                        continue;
+                    }
+                    final int x1 = Math.round(indexeur.get(i, 3) * image.getWidth());
+                    final int y1 = Math.round(indexeur.get(i, 4) * image.getHeight());
+                    final int x2 = Math.round(indexeur.get(i, 5) * image.getWidth());
+                    final int y2 = Math.round(indexeur.get(i, 6) * image.getHeight());
+                    final RecognizedFace visage = new RecognizedFace();
+                    visage.setX(Math.max(0, x1));
+                    visage.setY(Math.max(0, y1));
+                    visage.setWidth(Math.max(1, x2 - x1));
+                    visage.setHeight(Math.max(1, y2 - y1));
+                    visage.setName("");
+                    visages.add(visage);
+                }
+                indexeur.release();
+            }
+        } catch (RuntimeException e) {
+            logger.error("Erreur lors de la détection des visages", e);
+            return null;
+        }
+
+        final FacialRecognitionResponse reponse = new FacialRecognitionResponse();
+        reponse.setFaceFound(!visages.isEmpty());
+        reponse.setFaces(visages);
+        return reponse;
+    }
+
+    @Override
+    public synchronized void close() {
+        reseau.close();
+        entree.close();
+    }
+}
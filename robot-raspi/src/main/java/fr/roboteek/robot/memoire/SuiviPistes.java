@@ -0,0 +1,190 @@
+package fr.roboteek.robot.memoire;
+
+import fr.roboteek.robot.configuration.vision.VisionTrackerConfig;
+import org.openimaj.math.geometry.shape.Rectangle;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+
+import static fr.roboteek.robot.configuration.Configurations.visionTrackerConfig;
+
+/**
+ * Suivi multi-objets : associe les détections successives à des pistes d'identifiant stable.
+ * <ul>
+ * <li>la position de chaque piste est prédite à la date de l'image (filtre de Kalman à vitesse constante) ;</li>
+ * <li>les détections sont associées aux pistes par recouvrement décroissant (intersection sur union) au-delà du
+ * seuil, et éventuellement à condition d'avoir le même nom (classe des objets) ;</li>
+ * <li>les pistes non détectées perdent de la confiance et sont abandonnées sous le seuil de confiance, les détections
+ * non associées créent de nouvelles pistes.</li>
+ * </ul>
+ * Non thread-safe : une instance par thread d'analyse.
+ *
+ * @param <T> le type des objets suivis
+ */
+public class SuiviPistes<T extends DetectedObject> {
+
+    /**
+     * Identifiants des pistes (uniques pour tous les suivis).
+     */
+    private static final AtomicLong COMPTEUR_PISTES = new AtomicLong();
+
+    private final UnaryOperator<T> copie;
+
+    private final boolean memeNom;
+
+    private final VisionTrackerConfig config = visionTrackerConfig();
+
+    private final List<Piste<T>> pistes = new ArrayList<>();
+
+    /**
+     * Constructeur.
+     *
+     * @param copie   la copie d'un objet (les objets publiés ne sont plus modifiés par le suivi)
+     * @param memeNom true si une détection ne peut être associée qu'à une piste de même nom (classe des objets)
+     */
+    public SuiviPistes(UnaryOperator<T> copie, boolean memeNom) {
+        this.copie = copie;
+        this.memeNom = memeNom;
+    }
+
+    /**
+     * Met à jour les pistes avec les détections d'une image.
+     *
+     * @param detections les détections (null ou vide si rien n'a été détecté)
+     * @param date       la date de l'image ({@link System#nanoTime()})
+     * @return les pistes actives
+     */
+    public List<Piste<T>> mettreAJour(List<T> detections, long date) {
+        final List<T> listeDetections = detections != null ? detections : Collections.emptyList();
+        pistes.forEach(piste -> piste.predire(date));
+
+        // Association gloutonne par recouvrement décroissant
+        final List<Association> associations = new ArrayList<>();
+        for (int i = 0; i < pistes.size(); i++) {
+            final Piste<T> piste = pistes.get(i);
+            final Rectangle boite = piste.getBoite();
+            for (int j = 0; j < listeDetections.size(); j++) {
+                final T detection = listeDetections.get(j);
+                if (memeNom && !Objects.equals(piste.getDerniereDetection().getName(), detection.getName())) {
+                    continue;
+                }
+                final double recouvrement = calculerRecouvrement(boite, detection.getBounds());
+                if (recouvrement >= config.iouThreshold()) {
+                    associations.add(new Association(i, j, recouvrement));
+                }
+            }
+        }
+        associations.sort(Comparator.comparingDouble((Association association) -> association.recouvrement).reversed());
+
+        final boolean[] pistesAssociees = new boolean[pistes.size()];
+        final boolean[] detectionsAssociees = new boolean[listeDetections.size()];
+        for (Association association : associations) {
+            if (!pistesAssociees[association.piste] && !detectionsAssociees[association.detection]) {
+                pistesAssociees[association.piste] = true;
+                detectionsAssociees[association.detection] = true;
+                pistes.get(association.piste).corriger(listeDetections.get(association.detection), date);
+            }
+        }
+
+        // Pistes non détectées
+        final double demiVie = config.confidenceHalfLife() * 1_000_000.0;
+        for (int i = 0; i < pistesAssociees.length; i++) {
+            if (!pistesAssociees[i]) {
+                pistes.get(i).manquer(date, demiVie);
+            }
+        }
+        pistes.removeIf(piste -> piste.getConfiance() < config.minConfidence());
+
+        // Nouvelles pistes
+        for (int j = 0; j < detectionsAssociees.length; j++) {
+            if (!detectionsAssociees[j]) {
+                pistes.add(new Piste<>(COMPTEUR_PISTES.incrementAndGet(), listeDetections.get(j), date));
+            }
+        }
+        return Collections.unmodifiableList(pistes);
+    }
+
+    /**
+     * Recherche la piste active qui recouvre le plus un objet (au-delà du seuil).
+     *
+     * @param objet l'objet
+     * @return la piste, null si aucune ne correspond
+     */
+    public Piste<T> getPiste(DetectedObject objet) {
+        Piste<T> meilleurePiste = null;
+        double meilleurRecouvrement = config.iouThreshold();
+        for (Piste<T> piste : pistes) {
+            final double recouvrement = calculerRecouvrement(piste.getBoite(), objet.getBounds());
+            if (recouvrement >= meilleurRecouvrement) {
+                meilleurePiste = piste;
+                meilleurRecouvrement = recouvrement;
+            }
+        }
+        return meilleurePiste;
+    }
+
+    /**
+     * Construit les objets à publier : une copie de la dernière détection de chaque piste, à la position estimée,
+     * avec l'identifiant, l'ancienneté et la confiance de la piste (et le nom reconnu, s'il y en a un).
+     *
+     * @param date la date courante ({@link System#nanoTime()})
+     * @return les objets suivis
+     */
+    public List<T> getObjets(long date) {
+        final List<T> objets = new ArrayList<>(pistes.size());
+        for (Piste<T> piste : pistes) {
+            final T objet = copie.apply(piste.getDerniereDetection());
+            final Rectangle boite = piste.getBoite();
+            objet.setX(Math.round(boite.x));
+            objet.setY(Math.round(boite.y));
+            objet.setWidth(Math.round(boite.width));
+            objet.setHeight(Math.round(boite.height));
+            if (piste.isReconnue()) {
+                objet.setName(piste.getNom());
+            }
+            objet.setTrackId(piste.getId());
+            objet.setTrackAge(piste.getAge(date));
+            objet.setConfidence(piste.getConfiance());
+            objets.add(objet);
+        }
+        return objets;
+    }
+
+    /**
+     * Calcule le recouvrement de deux boîtes (intersection sur union).
+     *
+     * @return le recouvrement, entre 0 et 1
+     */
+    static double calculerRecouvrement(Rectangle a, Rectangle b) {
+        final double largeur = Math.min(a.x + a.width, b.x + b.width) - Math.max(a.x, b.x);
+        final double hauteur = Math.min(a.y + a.height, b.y + b.height) - Math.max(a.y, b.y);
+        if (largeur <= 0 || hauteur <= 0) {
+            return 0;
+        }
+        final double intersection = largeur * hauteur;
+        return intersection / (a.width * a.height + b.width * b.height - intersection);
+    }
+
+    /**
+     * Couple piste / détection candidat à l'association.
+     */
+    private static class Association {
+
+        private final int piste;
+
+        private final int detection;
+
+        private final double recouvrement;
+
+        private Association(int piste, int detection, double recouvrement) {
+            this.piste = piste;
+            this.detection = detection;
+            this.recouvrement = recouvrement;
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package fr.roboteek.robot.memoire;
+
+import fr.roboteek.robot.configuration.vision.VisionPythonConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import org.apache.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Supervision du serveur Python de vision :
+ * <ul>
+ * <li>lancement du processus, dont les sorties sont redirigées dans les journaux du robot ;</li>
+ * <li>vérification régulière de son état (requête HTTP /ping) : le serveur n'est déclaré prêt qu'après la
+ * première réponse, ce qui permet d'attendre la fin du chargement des modèles avant d'envoyer des images ;</li>
+ * <li>redémarrage automatique si le processus ne peut pas être lancé, s'arrête, ne démarre pas dans le délai
+ * imparti ou ne répond plus, avec un délai doublé à chaque redémarrage successif.</li>
+ * </ul>
+ */
+public class SuperviseurServeurPython {
+
+    private final Logger logger = Logger.getLogger(SuperviseurServeurPython.class);
+
+    /**
+     * Journal des sorties du serveur Python.
+     */
+    private final Logger loggerServeur = Logger.getLogger(SuperviseurServeurPython.class.getName() + ".serveur");
+
+    private final List<String> commande;
+
+    private final VisionPythonConfig config;
+
+    private final URL urlEtat;
+
+    private final Thread threadSupervision;
+
+    private final Counter compteurRedemarrages;
+
+    private final Object verrouEtat = new Object();
+
+    private volatile boolean pret = false;
+
+    private volatile Process processus;
+
+    /**
+     * Constructeur.
+     *
+     * @param commande la commande de lancement du serveur
+     * @param config   la configuration
+     */
+    public SuperviseurServeurPython(List<String> commande, VisionPythonConfig config) {
+        this.commande = commande;
+        this.config = config;
+        try {
+            urlEtat = new URL("http://localhost:" + config.httpPort() + "/" + TypeTraitementVision.PING.getChemin());
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Port HTTP du serveur Python invalide : " + config.httpPort(), e);
+        }
+        compteurRedemarrages = Counter.builder("vision.python.restarts")
+                .description("Nombre de redémarrages du serveur Python de vision")
+                .register(Metrics.globalRegistry);
+
+        threadSupervision = new Thread(this::superviser, "Vision - Supervision Python");
+        threadSupervision.setDaemon(true);
+        // Le serveur ne doit pas survivre au robot (il garderait ses ports)
+        Runtime.getRuntime().addShutdownHook(new Thread(this::arreterProcessus, "Vision - Arrêt Python"));
+    }
+
+    /**
+     * Lance le serveur et sa supervision.
+     */
+    public void demarrer() {
+        threadSupervision.start();
+    }
+
+    /**
+     * Arrête la supervision et le serveur.
+     */
+    public void arreter() {
+        threadSupervision.interrupt();
+        try {
+            threadSupervision.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        arreterProcessus();
+    }
+
+    /**
+     * @return true si le serveur a répondu à la dernière vérification de son état
+     */
+    public boolean isPret() {
+        return pret;
+    }
+
+    /**
+     * Attend que le serveur soit prêt.
+     *
+     * @param delaiMaximal le délai maximal d'attente en millisecondes
+     * @return true si le serveur est prêt, false si le délai est écoulé
+     * @throws InterruptedException si l'attente est interrompue
+     */
+    public boolean attendrePret(long delaiMaximal) throws InterruptedException {
+        final long fin = System.currentTimeMillis() + delaiMaximal;
+        synchronized (verrouEtat) {
+            long attente;
+            while (!pret && (attente = fin - System.currentTimeMillis()) > 0) {
+                verrouEtat.wait(attente);
+            }
+            return pret;
+        }
+    }
+
+    private void superviser() {
+        long delaiRedemarrage = config.restartDelayMinMillis();
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                final long debut = System.currentTimeMillis();
+                try {
+                    lancerProcessus();
+                    surveillerProcessus(debut);
+                } catch (IOException e) {
+                    // Echec du lancement (éventuellement passager) : nouvelle tentative après le délai de redémarrage
+                    logger.error("Impossible de lancer le serveur Python de vision : " + commande, e);
+                }
+                changerEtat(false);
+                arreterProcessus();
+
+                // Délai de redémarrage réinitialisé si le serveur a fonctionné plus longtemps que le délai maximal
+                if (System.currentTimeMillis() - debut > config.restartDelayMaxMillis()) {
+                    delaiRedemarrage = config.restartDelayMinMillis();
+                }
+                logger.warn("Redémarrage du serveur Python de vision dans " + delaiRedemarrage + " ms");
+                Thread.sleep(delaiRedemarrage);
+                delaiRedemarrage = Math.min(2 * delaiRedemarrage, config.restartDelayMaxMillis());
+                compteurRedemarrages.increment();
+            }
+        } catch (InterruptedException e) {
+            // Arrêt de la supervision
+        } finally {
+            changerEtat(false);
+        }
+    }
+
+    /**
+     * Surveille le processus jusqu'à son arrêt, l'échec de son démarrage, ou trop de vérifications sans réponse.
+     *
+     * @param debut l'heure de lancement du processus
+     */
+    private void surveillerProcessus(long debut) throws InterruptedException {
+        int echecs = 0;
+        while (true) {
+            if (processus.waitFor(config.healthIntervalMillis(), TimeUnit.MILLISECONDS)) {
+                logger.error("Arrêt du serveur Python de vision (code " + processus.exitValue() + ")");
+                return;
+            }
+            if (verifierEtat()) {
+                echecs = 0;
+                if (!pret) {
+                    logger.info("Serveur Python de vision prêt en " + (System.currentTimeMillis() - debut) + " ms");
+                    changerEtat(true);
+                }
+            } else if (pret) {
+                if (++echecs >= config.healthMaxFailures()) {
+                    logger.error("Le serveur Python de vision ne répond plus");
+                    return;
+                }
+            } else if (System.currentTimeMillis() - debut > config.startupTimeoutMillis()) {
+                logger.error("Le serveur Python de vision n'a pas démarré en " + config.startupTimeoutMillis() + " ms");
+                return;
+            }
+        }
+    }
+
+    private void lancerProcessus() throws IOException {
+        logger.info("Lancement du serveur Python de vision : " + String.join(" ", commande));
+        processus = new ProcessBuilder(commande).redirectErrorStream(true).start();
+
+        final Process processusLance = processus;
+        final Thread threadSorties = new Thread(() -> journaliserSorties(processusLance), "Vision - Sorties Python");
+        threadSorties.setDaemon(true);
+        threadSorties.start();
+    }
+
+    /**
+     * Recopie les sorties du serveur dans les journaux (jusqu'à l'arrêt du processus), au niveau indiqué par chaque
+     * ligne. Les vérifications de l'état du serveur ne sont journalisées qu'en mode debug.
+     */
+    private void journaliserSorties(Process processusLance) {
+        try (BufferedReader lecteur = new BufferedReader(new InputStreamReader(processusLance.getInputStream(), StandardCharsets.UTF_8))) {
+            String ligne;
+            while ((ligne = lecteur.readLine()) != null) {
+                if (ligne.contains("/" + TypeTraitementVision.PING.getChemin() + " ")) {
+                    loggerServeur.debug(ligne);
+                } else if (ligne.startsWith("ERROR") || ligne.startsWith("CRITICAL") || ligne.startsWith("Traceback")) {
+                    loggerServeur.error(ligne);
+                } else if (ligne.startsWith("WARNING")) {
+                    loggerServeur.warn(ligne);
+                } else {
+                    loggerServeur.info(ligne);
+                }
+            }
+        } catch (IOException e) {
+            // Processus arrêté
+        }
+    }
+
+    private void arreterProcessus() {
+        final Process processusLance = processus;
+        if (processusLance == null || !processusLance.isAlive()) {
+            return;
+        }
+        processusLance.destroy();
+        try {
+            if (!processusLance.waitFor(2, TimeUnit.SECONDS)) {
+                processusLance.destroyForcibly();
+            }
+        } catch (InterruptedException e) {
+            processusLance.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return true si le serveur répond à la requête /ping
+     */
+    private boolean verifierEtat() {
+        HttpURLConnection connexion = null;
+        try {
+            connexion = (HttpURLConnection) urlEtat.openConnection();
+            connexion.setConnectTimeout(config.healthTimeoutMillis());
+            connexion.setReadTimeout(config.healthTimeoutMillis());
+            return connexion.getResponseCode() == HttpURLConnection.HTTP_OK;
+        } catch (IOException e) {
+            return false;
+        } finally {
+            if (connexion != null) {
+                connexion.disconnect();
+            }
+        }
+    }
+
+    private void changerEtat(boolean pret) {
+        synchronized (verrouEtat) {
+            this.pret = pret;
+            verrouEtat.notifyAll();
+        }
+    }
+}
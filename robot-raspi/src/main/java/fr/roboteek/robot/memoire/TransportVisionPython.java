@@ -0,0 +1,26 @@
+package fr.roboteek.robot.memoire;
+
+import fr.roboteek.robot.util.video.VideoFrame;
+
+import java.io.Closeable;
+
+/**
+ * Transport des images vers le serveur Python de vision et des résultats en retour.
+ * Les implémentations peuvent être appelées par plusieurs threads à la fois.
+ */
+public interface TransportVisionPython extends Closeable {
+
+    /**
+     * Fait traiter une image par le serveur Python.
+     *
+     * @param traitement    le traitement
+     * @param image         l'image (non conservée au-delà de l'appel)
+     * @param classeReponse la classe de la réponse
+     * @param <T>           le type de la réponse
+     * @return la réponse, null en cas d'erreur
+     */
+    <T> T traiter(TypeTraitementVision traitement, VideoFrame image, Class<T> classeReponse);
+
+    @Override
+    void close();
+}
@@ -0,0 +1,180 @@
+package fr.roboteek.robot.memoire;
+
+import com.google.gson.Gson;
+import fr.roboteek.robot.util.video.JpegEncoder;
+import fr.roboteek.robot.util.video.VideoFrame;
+import org.apache.log4j.Logger;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Transport HTTP : chaque image est encodée en JPEG en mémoire et envoyée en multipart au serveur Python.
+ * <ul>
+ * <li>les connexions sont persistantes et partagées par les threads appelants (client java.net.http) ;</li>
+ * <li>chaque requête a un délai maximal : un modèle lent ne bloque que l'analyse qui l'attend ;</li>
+ * <li>une image envoyée à plusieurs traitements (analyses des visages et des objets sur la même image) n'est
+ * encodée qu'une fois.</li>
+ * </ul>
+ */
+public class TransportVisionPythonHttp implements TransportVisionPython {
+
+    private static final float QUALITE_JPEG = 0.75f;
+
+    private static final String SEPARATEUR = "----RobotVisionFrame";
+
+    private static final byte[] DEBUT_CONTENU = ("--" + SEPARATEUR + "\r\n"
+            + "Content-Disposition: form-data; name=\"file\"; filename=\"frame.jpg\"\r\n"
+            + "Content-Type: image/jpeg\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] FIN_CONTENU = ("\r\n--" + SEPARATEUR + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+
+    private final Logger logger = Logger.getLogger(TransportVisionPythonHttp.class);
+
+    private final String urlServeur;
+
+    private final Duration delaiMaximal;
+
+    private final HttpClient client;
+
+    private final Gson gson = new Gson();
+
+    /**
+     * Encodeurs JPEG créés, libérés à la fermeture.
+     */
+    private final Queue<Encodeur> encodeursCrees = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Encodeur JPEG (et image convertie) de chaque thread appelant.
+     */
+    private final ThreadLocal<Encodeur> encodeurs = ThreadLocal.withInitial(() -> {
+        final Encodeur encodeur = new Encodeur();
+        encodeursCrees.add(encodeur);
+        return encodeur;
+    });
+
+    private volatile boolean ferme;
+
+    /**
+     * Dernière image encodée.
+     */
+    private volatile ImageEncodee derniereImage;
+
+    /**
+     * Constructeur.
+     *
+     * @param port         le port du serveur HTTP
+     * @param delaiMaximal le délai maximal d'attente d'une réponse (ms)
+     */
+    public TransportVisionPythonHttp(int port, int delaiMaximal) {
+        urlServeur = "http://localhost:" + port + "/";
+        this.delaiMaximal = Duration.ofMillis(delaiMaximal);
+        // HTTP/1.1 : le serveur Flask ne propose pas HTTP/2
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(this.delaiMaximal)
+                .build();
+    }
+
+    @Override
+    public <T> T traiter(TypeTraitementVision traitement, VideoFrame image, Class<T> classeReponse) {
+        try {
+            // Contenu envoyé sans copie de l'image, avec sa taille (le serveur Flask n'accepte pas l'envoi par morceaux)
+            final byte[] jpeg = encoder(image);
+            final HttpRequest requete = HttpRequest.newBuilder(URI.create(urlServeur + traitement.getChemin()))
+                    .timeout(delaiMaximal)
+                    .header("Content-Type", "multipart/form-data; boundary=" + SEPARATEUR)
+                    .POST(HttpRequest.BodyPublishers.fromPublisher(
+                            HttpRequest.BodyPublishers.ofByteArrays(Arrays.asList(DEBUT_CONTENU, jpeg, FIN_CONTENU)),
+                            DEBUT_CONTENU.length + jpeg.length + FIN_CONTENU.length))
+                    .build();
+            final HttpResponse<String> reponse = client.send(requete, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+            if (reponse.statusCode() != 200) {
+                logger.error("Erreur du serveur Python de vision (" + traitement.getChemin() + ") : statut " + reponse.statusCode());
+                return null;
+            }
+            return gson.fromJson(reponse.body(), classeReponse);
+        } catch (IOException e) {
+            // Délai dépassé, ou serveur arrêté ou redémarré
+            logger.error("Erreur de communication avec le serveur Python de vision (" + traitement.getChemin() + ") : " + e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    /**
+     * Libère les encodeurs JPEG de tous les threads appelants (un encodage en cours se termine d'abord).
+     */
+    @Override
+    public void close() {
+        ferme = true;
+        Encodeur encodeur;
+        while ((encodeur = encodeursCrees.poll()) != null) {
+            synchronized (encodeur) {
+                encodeur.jpegEncoder.dispose();
+                encodeur.image = null;
+            }
+        }
+    }
+
+    /**
+     * Encode une image en JPEG, ou retourne l'encodage déjà fait pour un autre traitement de la même image.
+     */
+    private byte[] encoder(VideoFrame image) throws IOException {
+        final ImageEncodee imageEncodee = derniereImage;
+        if (imageEncodee != null && imageEncodee.correspond(image)) {
+            return imageEncodee.jpeg;
+        }
+        final Encodeur encodeur = encodeurs.get();
+        final byte[] jpeg;
+        synchronized (encodeur) {
+            if (ferme) {
+                throw new IOException("Transport fermé");
+            }
+            encodeur.image = image.toBufferedImage(encodeur.image);
+            jpeg = encodeur.jpegEncoder.encode(encodeur.image, QUALITE_JPEG);
+        }
+        derniereImage = new ImageEncodee(image, jpeg);
+        return jpeg;
+    }
+
+    /**
+     * Encodeur JPEG d'un thread.
+     */
+    private static class Encodeur {
+        private final JpegEncoder jpegEncoder = new JpegEncoder();
+        private BufferedImage image;
+    }
+
+    /**
+     * Encodage JPEG d'une image, identifiée par son index et son heure de capture (les images de la réserve de la
+     * capture sont réutilisées).
+     */
+    private static class ImageEncodee {
+        private final VideoFrame image;
+        private final long index;
+        private final long timestamp;
+        private final byte[] jpeg;
+
+        private ImageEncodee(VideoFrame image, byte[] jpeg) {
+            this.image = image;
+            this.index = image.getIndex();
+            this.timestamp = image.getTimestamp();
+            this.jpeg = jpeg;
+        }
+
+        private boolean correspond(VideoFrame autreImage) {
+            return image == autreImage && index == autreImage.getIndex() && timestamp == autreImage.getTimestamp();
+        }
+    }
+}
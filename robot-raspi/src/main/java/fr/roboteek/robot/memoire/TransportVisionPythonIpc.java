@@ -0,0 +1,217 @@
+package fr.roboteek.robot.memoire;
+
+import com.google.gson.Gson;
+import fr.roboteek.robot.util.video.JpegEncoder;
+import fr.roboteek.robot.util.video.VideoFrame;
+import org.apache.log4j.Logger;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+/**
+ * Transport IPC : connexions persistantes vers le serveur Python (boucle locale), protocole binaire compact.
+ * Les images partent directement de la mémoire (pixels RGB bruts ou JPEG) et les résultats reviennent sur la même
+ * connexion. Chaque thread appelant utilise sa propre connexion (réservée le temps d'une requête, puis réutilisée).
+ * <p>
+ * Protocole (entiers big-endian) :
+ * <ul>
+ * <li>requête : type (u8), format (u8), largeur (u16), hauteur (u16), taille (u32), contenu de l'image ;</li>
+ * <li>réponse : statut (u8, 0 si OK), taille (u32), résultat JSON UTF-8 (ou message d'erreur).</li>
+ * </ul>
+ */
+public class TransportVisionPythonIpc implements TransportVisionPython {
+
+    /**
+     * Format des images transmises.
+     */
+    public enum FormatImage {
+        /**
+         * Pixels RGB 8 bits entrelacés, ligne par ligne.
+         */
+        RAW(0),
+        JPEG(1);
+
+        private final int code;
+
+        FormatImage(int code) {
+            this.code = code;
+        }
+    }
+
+    private static final int STATUT_OK = 0;
+
+    private static final float QUALITE_JPEG = 0.75f;
+
+    private static final int TAILLE_TAMPON = 64 * 1024;
+
+    private final Logger logger = Logger.getLogger(TransportVisionPythonIpc.class);
+
+    private final int port;
+
+    private final int delaiMaximal;
+
+    private final FormatImage format;
+
+    private final Gson gson = new Gson();
+
+    /**
+     * Connexions ouvertes et disponibles.
+     */
+    private final Deque<Connexion> connexionsLibres = new ConcurrentLinkedDeque<>();
+
+    private volatile boolean ferme = false;
+
+    /**
+     * Constructeur.
+     *
+     * @param port         le port du serveur IPC
+     * @param delaiMaximal le délai maximal d'attente d'une réponse (ms)
+     * @param format       le format des images transmises
+     */
+    public TransportVisionPythonIpc(int port, int delaiMaximal, FormatImage format) {
+        this.port = port;
+        this.delaiMaximal = delaiMaximal;
+        this.format = format;
+    }
+
+    @Override
+    public <T> T traiter(TypeTraitementVision traitement, VideoFrame image, Class<T> classeReponse) {
+        Connexion connexion = connexionsLibres.pollFirst();
+        boolean liberee = false;
+        try {
+            if (connexion == null) {
+                connexion = new Connexion();
+            }
+            final String reponse = connexion.envoyer(traitement, image);
+            liberer(connexion);
+            liberee = true;
+            return reponse == null ? null : gson.fromJson(reponse, classeReponse);
+        } catch (IOException e) {
+            // Serveur arrêté ou redémarré : une nouvelle connexion sera ouverte à la prochaine requête
+            logger.error("Erreur de communication avec le serveur Python de vision : " + e.getMessage());
+        } finally {
+            // Échange interrompu (quelle qu'en soit la cause) : la connexion, dans un état inconnu, est abandonnée
+            if (!liberee && connexion != null) {
+                connexion.fermer();
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() {
+        ferme = true;
+        Connexion connexion;
+        while ((connexion = connexionsLibres.pollFirst()) != null) {
+            connexion.fermer();
+        }
+    }
+
+    private void liberer(Connexion connexion) {
+        connexionsLibres.offerFirst(connexion);
+        if (ferme && connexionsLibres.remove(connexion)) {
+            connexion.fermer();
+        }
+    }
+
+    /**
+     * Connexion au serveur, avec ses tampons de conversion réutilisés d'une image à l'autre.
+     */
+    private class Connexion {
+
+        private final Socket socket;
+
+        private final DataInputStream entree;
+
+        private final DataOutputStream sortie;
+
+        /**
+         * Tampon de copie des pixels vers le flux de sortie (format RAW).
+         */
+        private final byte[] morceau = new byte[TAILLE_TAMPON];
+
+        /**
+         * Image convertie pour l'encodage (format JPEG).
+         */
+        private BufferedImage imageJpeg;
+
+        private JpegEncoder jpegEncoder;
+
+        private Connexion() throws IOException {
+            socket = new Socket(InetAddress.getLoopbackAddress(), port);
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(delaiMaximal);
+            entree = new DataInputStream(new BufferedInputStream(socket.getInputStream(), TAILLE_TAMPON));
+            sortie = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), TAILLE_TAMPON));
+        }
+
+        /**
+         * Envoie une image et attend la réponse.
+         *
+         * @return le résultat JSON, null si le serveur a signalé une erreur
+         */
+        private String envoyer(TypeTraitementVision traitement, VideoFrame image) throws IOException {
+            final int largeur = image.getWidth();
+            final int hauteur = image.getHeight();
+            byte[] jpeg = null;
+            if (format == FormatImage.JPEG) {
+                if (jpegEncoder == null) {
+                    jpegEncoder = new JpegEncoder();
+                }
+                imageJpeg = image.toBufferedImage(imageJpeg);
+                jpeg = jpegEncoder.encode(imageJpeg, QUALITE_JPEG);
+            }
+
+            sortie.writeByte(traitement.getCode());
+            sortie.writeByte(format.code);
+            sortie.writeShort(largeur);
+            sortie.writeShort(hauteur);
+            if (jpeg != null) {
+                sortie.writeInt(jpeg.length);
+                sortie.write(jpeg);
+            } else {
+                // Pixels RGB de l'image, copiés directement depuis sa mémoire
+                sortie.writeInt(image.getSize());
+                final ByteBuffer pixels = image.getPixels().duplicate();
+                pixels.clear();
+                while (pixels.hasRemaining()) {
+                    final int taille = Math.min(morceau.length, pixels.remaining());
+                    pixels.get(morceau, 0, taille);
+                    sortie.write(morceau, 0, taille);
+                }
+            }
+            sortie.flush();
+
+            final int statut = entree.readUnsignedByte();
+            final byte[] reponse = new byte[entree.readInt()];
+            entree.readFully(reponse);
+            final String texte = new String(reponse, StandardCharsets.UTF_8);
+            if (statut != STATUT_OK) {
+                logger.error("Erreur du serveur Python de vision (" + traitement + ") : " + texte);
+                return null;
+            }
+            return texte;
+        }
+
+        private void fermer() {
+            if (jpegEncoder != null) {
+                jpegEncoder.dispose();
+            }
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Connexion déjà perdue
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package fr.roboteek.robot.memoire;
+
+import fr.roboteek.robot.util.video.VideoFrame;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transport vers le serveur Python supervisé : les images ne sont envoyées que lorsque le serveur est prêt (elles
+ * sont ignorées pendant son démarrage ou son redémarrage), et la durée des requêtes ainsi que les erreurs sont
+ * publiées dans les métriques pour chaque traitement (vision.python.request, vision.python.errors,
+ * vision.python.skipped).
+ */
+public class TransportVisionPythonSupervise implements TransportVisionPython {
+
+    private final TransportVisionPython transport;
+
+    private final SuperviseurServeurPython superviseur;
+
+    private final Map<TypeTraitementVision, Timer> durees = new EnumMap<>(TypeTraitementVision.class);
+    private final Map<TypeTraitementVision, Counter> erreurs = new EnumMap<>(TypeTraitementVision.class);
+    private final Map<TypeTraitementVision, Counter> ignorees = new EnumMap<>(TypeTraitementVision.class);
+
+    /**
+     * Constructeur.
+     *
+     * @param transport   le transport vers le serveur
+     * @param superviseur le superviseur du serveur
+     */
+    public TransportVisionPythonSupervise(TransportVisionPython transport, SuperviseurServeurPython superviseur) {
+        this.transport = transport;
+        this.superviseur = superviseur;
+        for (TypeTraitementVision traitement : TypeTraitementVision.values()) {
+            durees.put(traitement, Timer.builder("vision.python.request")
+                    .description("Durée des requêtes au serveur Python de vision")
+                    .tag("endpoint", traitement.getChemin())
+                    .register(Metrics.globalRegistry));
+            erreurs.put(traitement, Counter.builder("vision.python.errors")
+                    .description("Requêtes au serveur Python de vision en erreur")
+                    .tag("endpoint", traitement.getChemin())
+                    .register(Metrics.globalRegistry));
+            ignorees.put(traitement, Counter.builder("vision.python.skipped")
+                    .description("Images non envoyées au serveur Python de vision (serveur non prêt)")
+                    .tag("endpoint", traitement.getChemin())
+                    .register(Metrics.globalRegistry));
+        }
+    }
+
+    @Override
+    public <T> T traiter(TypeTraitementVision traitement, VideoFrame image, Class<T> classeReponse) {
+        if (!superviseur.isPret()) {
+            ignorees.get(traitement).increment();
+            return null;
+        }
+        final long debut = System.nanoTime();
+        final T reponse = transport.traiter(traitement, image, classeReponse);
+        if (reponse == null) {
+            erreurs.get(traitement).increment();
+        } else {
+            durees.get(traitement).record(System.nanoTime() - debut, TimeUnit.NANOSECONDS);
+        }
+        return reponse;
+    }
+
+    @Override
+    public void close() {
+        transport.close();
+    }
+}
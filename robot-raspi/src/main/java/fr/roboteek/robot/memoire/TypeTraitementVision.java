@@ -0,0 +1,42 @@
+package fr.roboteek.robot.memoire;
+
+/**
+ * Traitements proposés par le serveur Python de vision.
+ */
+public enum TypeTraitementVision {
+
+    /**
+     * Aller-retour sans traitement (mesure du coût du transport).
+     */
+    PING(0, "ping"),
+    FACE_RECOGNITION(1, "face-recognition"),
+    FACE_DETECTION(2, "face-detection"),
+    OBJECT_DETECTION(3, "object-detection"),
+    /**
+     * Détection des visages et calcul de leur encodage, la reconnaissance étant faite dans la mémoire des visages.
+     */
+    FACE_EMBEDDING(4, "face-embedding");
+
+    /**
+     * Code du traitement dans le protocole IPC.
+     */
+    private final int code;
+
+    /**
+     * Chemin du traitement sur le serveur HTTP.
+     */
+    private final String chemin;
+
+    TypeTraitementVision(int code, String chemin) {
+        this.code = code;
+        this.chemin = chemin;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    public String getChemin() {
+        return chemin;
+    }
+}
@@ -0,0 +1,189 @@
+package fr.roboteek.robot.memoire;
+
+import fr.roboteek.robot.Constantes;
+import fr.roboteek.robot.configuration.vision.VisionEngineConfig;
+import fr.roboteek.robot.util.video.VideoFrame;
+
+import java.io.Closeable;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Moteur d'analyse d'image : détection et reconnaissance des visages, détection des objets.
+ * Les moteurs chargent leur modèle à la création (et le gardent chargé jusqu'à la fermeture) ; un moteur peut ne
+ * proposer qu'une partie des analyses.
+ * Les images sont lues sans être conservées au-delà de l'appel ; les méthodes retournent null en cas d'erreur.
+ * Les analyses proposées par chaque moteur sont vérifiées une fois pour toutes à la création ({@link #creer}) :
+ * une analyse non proposée retourne null.
+ */
+public interface VisionEngine extends Closeable {
+
+    /**
+     * Analyses d'image.
+     */
+    enum Analyse {
+        DETECTION_VISAGES("la détection des visages"),
+        RECONNAISSANCE_VISAGES("la reconnaissance des visages"),
+        DETECTION_OBJETS("la détection des objets");
+
+        private final String libelle;
+
+        Analyse(String libelle) {
+            this.libelle = libelle;
+        }
+    }
+
+    /**
+     * Moteurs disponibles, avec les analyses qu'ils proposent.
+     */
+    enum Type {
+        PYTHON(EnumSet.allOf(Analyse.class)),
+        SSD(EnumSet.of(Analyse.DETECTION_VISAGES)),
+        HAAR(EnumSet.of(Analyse.DETECTION_VISAGES)),
+        TINY_YOLO(EnumSet.of(Analyse.DETECTION_OBJETS)),
+        YOLO2(EnumSet.of(Analyse.DETECTION_OBJETS)),
+        /**
+         * Aucune analyse : rien n'est détecté, et sans reconnaissance les visages restent inconnus.
+         */
+        NONE(EnumSet.allOf(Analyse.class));
+
+        private final Set<Analyse> analyses;
+
+        Type(Set<Analyse> analyses) {
+            this.analyses = analyses;
+        }
+
+        /**
+         * @param analyse l'analyse
+         * @return true si le moteur propose l'analyse
+         */
+        public boolean propose(Analyse analyse) {
+            return analyses.contains(analyse);
+        }
+    }
+
+    default FacialRecognitionResponse recognizeFaces(VideoFrame image) {
+        return null;
+    }
+
+    default FacialRecognitionResponse detectFaces(VideoFrame image) {
+        return null;
+    }
+
+    default ObjectDetectionResponse detectObjects(VideoFrame image) {
+        return null;
+    }
+
+    /**
+     * Détecte les objets dans plusieurs images (une par caméra).
+     * Les moteurs capables d'analyser un lot d'images en une seule passe redéfinissent cette méthode.
+     *
+     * @param images les images
+     * @return les objets détectés dans chaque image, dans l'ordre des images
+     */
+    default List<ObjectDetectionResponse> detectObjects(List<VideoFrame> images) {
+        final List<ObjectDetectionResponse> reponses = new ArrayList<>(images.size());
+        for (VideoFrame image : images) {
+            reponses.add(detectObjects(image));
+        }
+        return reponses;
+    }
+
+    /**
+     * Apprend le visage d'une personne, reconnu ensuite sans redémarrer le moteur.
+     *
+     * @param images les images de la personne (le plus grand visage de chaque image est appris)
+     * @param prenom le prénom de la personne
+     * @return le nombre de visages appris (0 si le moteur n'apprend pas de visages)
+     */
+    default int learnFaces(List<VideoFrame> images, String prenom) {
+        return 0;
+    }
+
+    /**
+     * Attend que le moteur soit prêt à analyser des images (les moteurs exécutés dans la JVM le sont dès leur
+     * création, le serveur Python après le chargement de ses modèles).
+     *
+     * @param delaiMaximal le délai maximal d'attente en millisecondes
+     * @return true si le moteur est prêt, false si le délai est écoulé
+     * @throws InterruptedException si l'attente est interrompue
+     */
+    default boolean awaitReady(long delaiMaximal) throws InterruptedException {
+        return true;
+    }
+
+    @Override
+    void close();
+
+    /**
+     * Crée le moteur d'analyse selon la configuration (un moteur par analyse, le serveur Python n'étant lancé que
+     * s'il est utilisé).
+     *
+     * @param config la configuration
+     * @return le moteur
+     * @throws IllegalArgumentException si un moteur configuré ne propose pas l'analyse qui lui est confiée
+     */
+    static VisionEngine creer(VisionEngineConfig config) {
+        final Type detectionVisages = verifier(config.faceDetection(), Analyse.DETECTION_VISAGES);
+        final Type reconnaissanceVisages = verifier(config.faceRecognition(), Analyse.RECONNAISSANCE_VISAGES);
+        final Type detectionObjets = verifier(config.objectDetection(), Analyse.DETECTION_OBJETS);
+
+        final ReconnaissanceFacialePython python =
+                detectionVisages == Type.PYTHON || reconnaissanceVisages == Type.PYTHON || detectionObjets == Type.PYTHON
+                        ? new ReconnaissanceFacialePython() : null;
+        return new CompositeVisionEngine(
+                creer(detectionVisages, config, python),
+                reconnaissanceVisages == Type.PYTHON ? python : null,
+                creer(detectionObjets, config, python));
+    }
+
+    /**
+     * Vérifie qu'un moteur configuré propose l'analyse qui lui est confiée.
+     *
+     * @param moteur  le nom du moteur
+     * @param analyse l'analyse
+     * @return le type de moteur
+     * @throws IllegalArgumentException si le moteur est inconnu ou ne propose pas l'analyse
+     */
+    static Type verifier(String moteur, Analyse analyse) {
+        final Type type = Type.valueOf(moteur.trim().toUpperCase());
+        if (!type.propose(analyse)) {
+            throw new IllegalArgumentException("Le moteur " + type + " ne permet pas " + analyse.libelle);
+        }
+        return type;
+    }
+
+    /**
+     * Crée un moteur.
+     *
+     * @param type   le type de moteur
+     * @param config la configuration
+     * @param python le moteur Python, s'il est utilisé
+     * @return le moteur
+     */
+    static VisionEngine creer(Type type, VisionEngineConfig config, ReconnaissanceFacialePython python) {
+        File dossierModeles = new File(config.modelsDirectory());
+        if (!dossierModeles.isAbsolute()) {
+            dossierModeles = new File(Constantes.DOSSIER_RECONNAISSANCE_FACIALE, config.modelsDirectory());
+        }
+        switch (type) {
+            case PYTHON:
+                return python != null ? python : new ReconnaissanceFacialePython();
+            case SSD:
+                return new SsdFaceVisionEngine(dossierModeles, config.faceConfidence());
+            case HAAR:
+                return new HaarFaceVisionEngine(dossierModeles);
+            case TINY_YOLO:
+                return new YoloVisionEngine(false, config.objectConfidence(), config.objectBatchMax());
+            case YOLO2:
+                return new YoloVisionEngine(true, config.objectConfidence(), config.objectBatchMax());
+            case NONE:
+                return new AucunVisionEngine();
+            default:
+                throw new IllegalArgumentException("Moteur d'analyse d'image inconnu : " + type);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package fr.roboteek.robot.memoire;
+
+import fr.roboteek.robot.util.video.FrameResampler;
+import fr.roboteek.robot.util.video.VideoFrame;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.apache.log4j.Logger;
+import org.deeplearning4j.nn.graph.ComputationGraph;
+import org.deeplearning4j.nn.layers.objdetect.Yolo2OutputLayer;
+import org.deeplearning4j.zoo.model.TinyYOLO;
+import org.deeplearning4j.zoo.model.YOLO2;
+import org.deeplearning4j.zoo.util.Labels;
+import org.deeplearning4j.zoo.util.darknet.COCOLabels;
+import org.deeplearning4j.zoo.util.darknet.VOCLabels;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Détection des objets dans la JVM avec les réseaux YOLO V2 du zoo DL4J : Tiny YOLO V2 (416 x 416, classes VOC) ou
+ * YOLO V2 (608 x 608, classes COCO).
+ * Le réseau est chargé et exécuté une première fois à la création. Les images (une par caméra) peuvent être analysées
+ * par lots en une seule passe du réseau ; le tenseur d'entrée de chaque taille de lot est alloué une seule fois et
+ * rempli directement depuis les images (redimensionnement bilinéaire, RGB entre 0 et 1).
+ * Les durées de chaque étape (préparation, réseau, décodage) sont publiées dans les métriques (vision.engine.stage).
+ */
+public class YoloVisionEngine implements VisionEngine {
+
+    private final Logger logger = Logger.getLogger(YoloVisionEngine.class);
+
+    private final ComputationGraph reseau;
+
+    private final Yolo2OutputLayer coucheSortie;
+
+    private final Labels classes;
+
+    private final double seuilConfiance;
+
+    private final int tailleLotMax;
+
+    private final FrameResampler redimensionnement;
+
+    /**
+     * Pixels d'une image d'entrée (plans R, G, B).
+     */
+    private final float[] pixels;
+
+    /**
+     * Tenseurs d'entrée (et leur vue en mémoire) par taille de lot, alloués à la première utilisation.
+     */
+    private final INDArray[] entrees;
+    private final FloatBuffer[] tamponsEntrees;
+
+    /**
+     * Métriques.
+     */
+    private final Timer dureePreparation;
+    private final Timer dureeReseau;
+    private final Timer dureeDecodage;
+    private final DistributionSummary tailleLots;
+
+    /**
+     * Constructeur.
+     *
+     * @param yolo2          true pour YOLO V2, false pour Tiny YOLO V2
+     * @param seuilConfiance la confiance minimale des objets détectés
+     * @param tailleLotMax   le nombre maximal d'images analysées en une seule passe
+     */
+    public YoloVisionEngine(boolean yolo2, double seuilConfiance, int tailleLotMax) {
+        this.seuilConfiance = seuilConfiance;
+        this.tailleLotMax = Math.max(1, tailleLotMax);
+        final int taille = yolo2 ? 608 : 416;
+        try {
+            reseau = (ComputationGraph) (yolo2 ? YOLO2.builder().build() : TinyYOLO.builder().build()).initPretrained();
+            classes = yolo2 ? new COCOLabels() : new VOCLabels();
+        } catch (IOException e) {
+            throw new IllegalStateException("Impossible de charger le réseau " + (yolo2 ? "YOLO V2" : "Tiny YOLO V2"), e);
+        }
+        coucheSortie = (Yolo2OutputLayer) reseau.getOutputLayer(0);
+        redimensionnement = new FrameResampler(taille, taille);
+        pixels = new float[3 * taille * taille];
+        entrees = new INDArray[this.tailleLotMax + 1];
+        tamponsEntrees = new FloatBuffer[this.tailleLotMax + 1];
+
+        final String moteur = yolo2 ? "yolo2" : "tiny_yolo";
+        dureePreparation = creerMinuteur(moteur, "prepare");
+        dureeReseau = creerMinuteur(moteur, "forward");
+        dureeDecodage = creerMinuteur(moteur, "decode");
+        tailleLots = DistributionSummary.builder("vision.engine.batch.size")
+                .description("Nombre d'images analysées en une passe")
+                .tag("engine", moteur)
+                .register(Metrics.globalRegistry);
+
+        // Première exécution (initialisation des espaces de travail du réseau)
+        detectObjects(new VideoFrame(taille, taille));
+    }
+
+    private static Timer creerMinuteur(String moteur, String etape) {
+        return Timer.builder("vision.engine.stage")
+                .description("Durée d'une étape de l'analyse d'un lot d'images")
+                .tags("engine", moteur, "stage", etape)
+                .register(Metrics.globalRegistry);
+    }
+
+    @Override
+    public ObjectDetectionResponse detectObjects(VideoFrame image) {
+        final List<ObjectDetectionResponse> reponses = detectObjects(Collections.singletonList(image));
+        return reponses.get(0);
+    }
+
+    @Override
+    public synchronized List<ObjectDetectionResponse> detectObjects(List<VideoFrame> images) {
+        final List<ObjectDetectionResponse> reponses = new ArrayList<>(images.size());
+        for (int debut = 0; debut < images.size(); debut += tailleLotMax) {
+            reponses.addAll(analyserLot(images.subList(debut, Math.min(images.size(), debut + tailleLotMax))));
+        }
+        return reponses;
+    }
+
+    /**
+     * Analyse un lot d'images en une seule passe du réseau.
+     *
+     * @param images les images (au plus tailleLotMax)
+     * @return les objets détectés dans chaque image (null pour toutes en cas d'erreur)
+     */
+    private List<ObjectDetectionResponse> analyserLot(List<VideoFrame> images) {
+        final int tailleLot = images.size();
+        long debut = System.nanoTime();
+
+        // Préparation : écriture directe des pixels dans le tenseur d'entrée du lot
+        if (entrees[tailleLot] == null) {
+            entrees[tailleLot] = Nd4j.create(tailleLot, 3, redimensionnement.getOutputHeight(), redimensionnement.getOutputWidth());
+            tamponsEntrees[tailleLot] = entrees[tailleLot].data().asNioFloat();
+        }
+        final INDArray entree = entrees[tailleLot];
+        final FloatBuffer tamponEntree = tamponsEntrees[tailleLot];
+        final int plan = redimensionnement.getOutputWidth() * redimensionnement.getOutputHeight();
+        tamponEntree.clear();
+        for (VideoFrame image : images) {
+            for (int bande = 0; bande < 3; bande++) {
+                redimensionnement.resize(image, bande, pixels, bande * plan, 1 / 255f, 0);
+            }
+            tamponEntree.put(pixels);
+        }
+        long fin = System.nanoTime();
+        dureePreparation.record(fin - debut, TimeUnit.NANOSECONDS);
+        tailleLots.record(tailleLot);
+
+        final List<List<DetectedObject>> objets = new ArrayList<>(tailleLot);
+        for (int i = 0; i < tailleLot; i++) {
+            objets.add(new ArrayList<>());
+        }
+        try {
+            debut = fin;
+            final INDArray sortie = reseau.outputSingle(entree);
+            fin = System.nanoTime();
+            dureeReseau.record(fin - debut, TimeUnit.NANOSECONDS);
+
+            debut = fin;
+            final long hauteurGrille = sortie.size(2);
+            final long largeurGrille = sortie.size(3);
+            for (org.deeplearning4j.nn.layers.objdetect.DetectedObject prediction : coucheSortie.getPredictedObjects(sortie, seuilConfiance)) {
+                final VideoFrame image = images.get(prediction.getExampleNumber());
+                final double[] hautGauche = prediction.getTopLeftXY();
+                final double[] basDroit = prediction.getBottomRightXY();
+                final DetectedObject objet = new DetectedObject();
+                objet.setX((int) Math.round(image.getWidth() * hautGauche[0] / largeurGrille));
+                objet.setY((int) Math.round(image.getHeight() * hautGauche[1] / hauteurGrille));
+                objet.setWidth((int) Math.round(image.getWidth() * (basDroit[0] - hautGauche[0]) / largeurGrille));
+                objet.setHeight((int) Math.round(image.getHeight() * (basDroit[1] - hautGauche[1]) / hauteurGrille));
+                objet.setName(classes.getLabel(prediction.getPredictedClass()));
+                objets.get(prediction.getExampleNumber()).add(objet);
+            }
+            dureeDecodage.record(System.nanoTime() - debut, TimeUnit.NANOSECONDS);
+        } catch (RuntimeException e) {
+            logger.error("Erreur lors de la détection des objets", e);
+            return Collections.nCopies(tailleLot, null);
+        }
+
+        final List<ObjectDetectionResponse> reponses = new ArrayList<>(tailleLot);
+        for (List<DetectedObject> objetsImage : objets) {
+            final ObjectDetectionResponse reponse = new ObjectDetectionResponse();
+            reponse.setObjectFound(!objetsImage.isEmpty());
+            reponse.setObjects(objetsImage);
+            reponses.add(reponse);
+        }
+        return reponses;
+    }
+
+    @Override
+    public void close() {
+        reseau.clear();
+    }
+}
@@ -0,0 +1,389 @@
+package fr.roboteek.robot.organes.actionneurs;
+
+import fr.roboteek.robot.configuration.audio.AudioCaptureConfig;
+import fr.roboteek.robot.configuration.speech.synthesis.SpeechSynthesisConfig;
+import fr.roboteek.robot.systemenerveux.event.ParoleEvent;
+import fr.roboteek.robot.systemenerveux.event.ParoleEvent.PRIORITE;
+import fr.roboteek.robot.systemenerveux.event.ReconnaissanceVocaleControleEvent;
+import fr.roboteek.robot.systemenerveux.event.ReconnaissanceVocaleControleEvent.CONTROLE;
+import fr.roboteek.robot.systemenerveux.event.RobotEventBus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.apache.log4j.Logger;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static fr.roboteek.robot.configuration.Configurations.audioCaptureConfig;
+import static fr.roboteek.robot.configuration.Configurations.speechSynthesisConfig;
+
+/**
+ * Ordonnanceur de la parole : les demandes sont dites une par une, par un thread dédié, dans l'ordre de leur
+ * priorité puis de leur arrivée.
+ * <ul>
+ * <li>une demande identique à la parole en cours ou à une demande en attente n'est pas ajoutée ;</li>
+ * <li>une demande qui n'a pas commencé dans son délai maximal est abandonnée (périmée) ;</li>
+ * <li>une demande de priorité supérieure interrompt la parole en cours ; une demande qui interrompt annule aussi
+ * les demandes en attente de priorité inférieure ou égale ;</li>
+ * <li>hors écoute full duplex, la reconnaissance vocale est mise en pause exactement pendant que le robot parle.</li>
+ * </ul>
+ * L'attente dans la file et la durée de la parole sont publiées dans les métriques (speech.queue.wait,
+ * speech.speaking), ainsi que les demandes abandonnées (speech.requests.dropped) et la taille de la file
+ * (speech.queue.size).
+ */
+public class OrdonnanceurParole {
+
+    /**
+     * Etats d'une demande.
+     */
+    public enum Etat {
+        EN_ATTENTE, EN_COURS, TERMINEE, ANNULEE, PERIMEE
+    }
+
+    private final Logger logger = Logger.getLogger(OrdonnanceurParole.class);
+
+    private final SpeechSynthesisConfig config = speechSynthesisConfig();
+
+    private final AudioCaptureConfig audioCaptureConfig = audioCaptureConfig();
+
+    /**
+     * Dit une demande (bloque jusqu'à la fin de la parole).
+     */
+    private final Consumer<DemandeParole> locuteur;
+
+    /**
+     * Interrompt la parole en cours.
+     */
+    private final Runnable interruption;
+
+    /**
+     * Demandes en attente, par priorité puis par ordre d'arrivée.
+     */
+    private final PriorityQueue<DemandeParole> file = new PriorityQueue<>(
+            Comparator.comparing((DemandeParole demande) -> demande.priorite).reversed()
+                    .thenComparingLong(demande -> demande.numero));
+
+    private final Thread thread;
+
+    private final Timer dureeAttente;
+    private final Timer dureeParole;
+    private final Counter doublons;
+    private final Counter perimees;
+    private final Counter annulees;
+
+    /**
+     * Demande en cours de parole (null si aucune).
+     */
+    private DemandeParole demandeEnCours;
+
+    private long nombreDemandes;
+
+    private volatile boolean actif = true;
+
+    /**
+     * Constructeur.
+     *
+     * @param locuteur     dit une demande, en bloquant jusqu'à la fin de la parole
+     * @param interruption interrompt la parole en cours (le locuteur rend la main au plus tôt)
+     */
+    public OrdonnanceurParole(Consumer<DemandeParole> locuteur, Runnable interruption) {
+        this.locuteur = locuteur;
+        this.interruption = interruption;
+        dureeAttente = Timer.builder("speech.queue.wait")
+                .description("Attente des demandes de parole avant que le robot ne commence à parler")
+                .register(Metrics.globalRegistry);
+        dureeParole = Timer.builder("speech.speaking")
+                .description("Durée de la parole du robot")
+                .register(Metrics.globalRegistry);
+        doublons = compteurAbandons("duplicate");
+        perimees = compteurAbandons("stale");
+        annulees = compteurAbandons("cancelled");
+        Gauge.builder("speech.queue.size", this, OrdonnanceurParole::getTailleFile)
+                .description("Demandes de parole en attente")
+                .register(Metrics.globalRegistry);
+
+        thread = new Thread(this::ordonnancer, "Parole - Ordonnanceur");
+        thread.setDaemon(true);
+    }
+
+    private static Counter compteurAbandons(String raison) {
+        return Counter.builder("speech.requests.dropped")
+                .description("Demandes de parole non dites")
+                .tag("reason", raison)
+                .register(Metrics.globalRegistry);
+    }
+
+    public void demarrer() {
+        thread.start();
+    }
+
+    /**
+     * Arrête l'ordonnanceur : la parole en cours est interrompue et les demandes en attente annulées.
+     */
+    public void arreter() {
+        actif = false;
+        annulerTout();
+        thread.interrupt();
+        try {
+            thread.join(2000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Soumet un évènement de parole.
+     *
+     * @param paroleEvent l'évènement
+     * @return la demande ajoutée à la file, ou la demande identique déjà en attente ou en cours ; null si
+     * l'évènement ne fait qu'interrompre ou si l'ordonnanceur est arrêté
+     */
+    public synchronized DemandeParole soumettre(ParoleEvent paroleEvent) {
+        final PRIORITE priorite = paroleEvent.getPriorite() != null ? paroleEvent.getPriorite() : PRIORITE.NORMALE;
+        if (paroleEvent.isInterrompre()) {
+            annuler(priorite);
+        }
+        final String texte = paroleEvent.getTexte() != null ? paroleEvent.getTexte().trim() : "";
+        if (!actif || (texte.isEmpty() && paroleEvent.getAudioContent() == null)) {
+            return null;
+        }
+
+        final long delaiMaximal = paroleEvent.getDelaiMaximal() != null ? paroleEvent.getDelaiMaximal() : config.queueMaxWaitMillis();
+        final DemandeParole demande = new DemandeParole(texte, paroleEvent.getAudioContent(), priorite, delaiMaximal, nombreDemandes++);
+
+        // Dédoublonnage (la parole en cours ne compte plus si elle vient d'être interrompue)
+        if (demandeEnCours != null && !demandeEnCours.interrompue && demande.estIdentique(demandeEnCours)) {
+            doublons.increment();
+            return demandeEnCours;
+        }
+        for (DemandeParole demandeEnAttente : file) {
+            if (demande.estIdentique(demandeEnAttente)) {
+                doublons.increment();
+                return demandeEnAttente;
+            }
+        }
+
+        file.add(demande);
+        if (demandeEnCours != null && priorite.compareTo(demandeEnCours.priorite) > 0) {
+            logger.debug("Parole interrompue par une parole de priorité " + priorite);
+            interrompre(demandeEnCours);
+        }
+        notifyAll();
+        return demande;
+    }
+
+    /**
+     * Interrompt la parole en cours (les demandes en attente sont conservées).
+     */
+    public synchronized void interrompreParoleEnCours() {
+        if (demandeEnCours != null) {
+            interrompre(demandeEnCours);
+        }
+    }
+
+    /**
+     * Annule la parole en cours et toutes les demandes en attente.
+     */
+    public void annulerTout() {
+        annuler(PRIORITE.values()[PRIORITE.values().length - 1]);
+    }
+
+    /**
+     * Annule la parole en cours et les demandes en attente de priorité inférieure ou égale à une priorité.
+     */
+    private synchronized void annuler(PRIORITE priorite) {
+        final Iterator<DemandeParole> iterateur = file.iterator();
+        while (iterateur.hasNext()) {
+            final DemandeParole demande = iterateur.next();
+            if (demande.priorite.compareTo(priorite) <= 0) {
+                iterateur.remove();
+                demande.terminer(Etat.ANNULEE);
+                annulees.increment();
+            }
+        }
+        if (demandeEnCours != null && demandeEnCours.priorite.compareTo(priorite) <= 0) {
+            interrompre(demandeEnCours);
+        }
+    }
+
+    private void interrompre(DemandeParole demande) {
+        demande.interrompue = true;
+        interruption.run();
+    }
+
+    public synchronized int getTailleFile() {
+        return file.size();
+    }
+
+    private void ordonnancer() {
+        try {
+            while (actif) {
+                final DemandeParole demande = prochaineDemande();
+                if (demande == null) {
+                    continue;
+                }
+                dureeAttente.record(System.nanoTime() - demande.dateCreation, TimeUnit.NANOSECONDS);
+
+                // Hors full duplex (écho de la parole ignoré par la capture), la reconnaissance vocale est en pause
+                // exactement pendant la parole
+                final boolean pauseReconnaissance = !audioCaptureConfig.fullDuplex();
+                if (pauseReconnaissance) {
+                    publierControleReconnaissance(CONTROLE.METTRE_EN_PAUSE);
+                }
+                final long debut = System.nanoTime();
+                try {
+                    locuteur.accept(demande);
+                } catch (RuntimeException e) {
+                    logger.error("Erreur lors de la parole : " + demande, e);
+                } finally {
+                    dureeParole.record(System.nanoTime() - debut, TimeUnit.NANOSECONDS);
+                    if (pauseReconnaissance) {
+                        publierControleReconnaissance(CONTROLE.DEMARRER);
+                    }
+                    synchronized (this) {
+                        demandeEnCours = null;
+                    }
+                    demande.terminer(demande.interrompue ? Etat.ANNULEE : Etat.TERMINEE);
+                }
+            }
+        } catch (InterruptedException e) {
+            // Arrêt de l'ordonnanceur
+        } finally {
+            annulerTout();
+        }
+    }
+
+    /**
+     * Attend la prochaine demande à dire, en abandonnant les demandes périmées.
+     *
+     * @return la demande, devenue la demande en cours (null si l'ordonnanceur est arrêté)
+     */
+    private synchronized DemandeParole prochaineDemande() throws InterruptedException {
+        while (actif) {
+            final DemandeParole demande = file.poll();
+            if (demande == null) {
+                wait();
+            } else if (System.nanoTime() > demande.echeance) {
+                logger.info("Parole abandonnée car périmée : " + demande);
+                demande.terminer(Etat.PERIMEE);
+                perimees.increment();
+            } else {
+                demandeEnCours = demande;
+                demande.etat = Etat.EN_COURS;
+                return demande;
+            }
+        }
+        return null;
+    }
+
+    private void publierControleReconnaissance(CONTROLE controle) {
+        final ReconnaissanceVocaleControleEvent event = new ReconnaissanceVocaleControleEvent();
+        event.setControle(controle);
+        // Publication synchrone : la pause est effective avant que le robot ne parle
+        RobotEventBus.getInstance().publish(event);
+    }
+
+    /**
+     * Demande de parole.
+     */
+    public static class DemandeParole {
+
+        private final String texte;
+
+        private final byte[] contenuAudio;
+
+        private final PRIORITE priorite;
+
+        /**
+         * Date de création ({@link System#nanoTime()}).
+         */
+        private final long dateCreation = System.nanoTime();
+
+        /**
+         * Date au-delà de laquelle la demande est périmée ({@link System#nanoTime()}).
+         */
+        private final long echeance;
+
+        /**
+         * Numéro d'arrivée.
+         */
+        private final long numero;
+
+        private volatile Etat etat = Etat.EN_ATTENTE;
+
+        /**
+         * Flag indiquant que la parole a été interrompue (annulation ou demande de priorité supérieure).
+         */
+        private volatile boolean interrompue;
+
+        private final CountDownLatch fin = new CountDownLatch(1);
+
+        private DemandeParole(String texte, byte[] contenuAudio, PRIORITE priorite, long delaiMaximal, long numero) {
+            this.texte = texte;
+            this.contenuAudio = contenuAudio;
+            this.priorite = priorite;
+            this.echeance = delaiMaximal > 0 ? dateCreation + TimeUnit.MILLISECONDS.toNanos(delaiMaximal) : Long.MAX_VALUE;
+            this.numero = numero;
+        }
+
+        /**
+         * @return le texte à dire (vide s'il n'y a qu'un contenu audio)
+         */
+        public String getTexte() {
+            return texte;
+        }
+
+        /**
+         * @return le contenu audio à lire à la place du texte (null si aucun)
+         */
+        public byte[] getContenuAudio() {
+            return contenuAudio;
+        }
+
+        public PRIORITE getPriorite() {
+            return priorite;
+        }
+
+        public Etat getEtat() {
+            return etat;
+        }
+
+        /**
+         * @return true si la parole a été interrompue : le locuteur doit rendre la main au plus tôt
+         */
+        public boolean isInterrompue() {
+            return interrompue;
+        }
+
+        /**
+         * Attend la fin de la demande (dite, annulée ou périmée).
+         *
+         * @throws InterruptedException si l'attente est interrompue
+         */
+        public void attendreFin() throws InterruptedException {
+            fin.await();
+        }
+
+        private void terminer(Etat etatFinal) {
+            etat = etatFinal;
+            fin.countDown();
+        }
+
+        private boolean estIdentique(DemandeParole autre) {
+            return autre != null && (contenuAudio != null ? Arrays.equals(contenuAudio, autre.contenuAudio)
+                    : autre.contenuAudio == null && texte.equalsIgnoreCase(autre.texte));
+        }
+
+        @Override
+        public String toString() {
+            return "DemandeParole{texte='" + texte + "', priorite=" + priorite + ", etat=" + etat + '}';
+        }
+    }
+}
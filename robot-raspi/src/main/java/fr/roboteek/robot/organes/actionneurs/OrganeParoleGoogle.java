@@ -7,33 +7,42 @@ import com.google.cloud.texttospeech.v1.SynthesisInput;
 import com.google.cloud.texttospeech.v1.SynthesizeSpeechResponse;
 import com.google.cloud.texttospeech.v1.TextToSpeechClient;
 import com.google.cloud.texttospeech.v1.VoiceSelectionParams;
+import com.google.common.eventbus.AllowConcurrentEvents;
 import com.google.common.eventbus.Subscribe;
-import com.google.protobuf.ByteString;
 import fr.roboteek.robot.Constantes;
+import fr.roboteek.robot.configuration.speech.synthesis.SpeechSynthesisCacheConfig;
+import fr.roboteek.robot.configuration.speech.synthesis.SpeechSynthesisConfig;
 import fr.roboteek.robot.configuration.speech.synthesis.google.GoogleSpeechSynthesisConfig;
 import fr.roboteek.robot.organes.AbstractOrgane;
+import fr.roboteek.robot.organes.actionneurs.OrdonnanceurParole.DemandeParole;
 import fr.roboteek.robot.systemenerveux.event.ParoleEvent;
-import fr.roboteek.robot.systemenerveux.event.ReconnaissanceVocaleControleEvent;
-import fr.roboteek.robot.systemenerveux.event.ReconnaissanceVocaleControleEvent.CONTROLE;
-import fr.roboteek.robot.systemenerveux.event.RobotEventBus;
+import fr.roboteek.robot.util.audio.AudioCache;
+import fr.roboteek.robot.util.audio.PcmClip;
+import fr.roboteek.robot.util.audio.Playback;
+import fr.roboteek.robot.util.audio.VoiceFilter;
+import fr.roboteek.robot.util.speech.synthesis.SentenceSplitter;
 import org.apache.log4j.Logger;
 
+import javax.sound.sampled.UnsupportedAudioFileException;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
 
 import static fr.roboteek.robot.configuration.Configurations.googleSpeechSynthesisConfig;
+import static fr.roboteek.robot.configuration.Configurations.speechSynthesisCacheConfig;
+import static fr.roboteek.robot.configuration.Configurations.speechSynthesisConfig;
 
 /**
  * Organe permettant de synthétiser un texte en passant par la synthèse vocale de Google
- * et en appliquant des effets avec SOX.
+ * et en appliquant des effets à la voix, joué en mémoire par la sortie audio du robot.
+ * Les paroles sont dites une par une par un ordonnanceur ({@link OrdonnanceurParole}), et les textes sont lus en
+ * flux, phrase par phrase : la phrase suivante est synthétisée pendant la lecture de la phrase courante, et une
+ * interruption annule les phrases restantes.
  */
 public class OrganeParoleGoogle extends AbstractOrgane {
 
-    private String fichierSyntheseVocale;
-
     private TextToSpeechClient textToSpeechClient;
 
     private GoogleSpeechSynthesisConfig config;
@@ -42,6 +51,30 @@ public class OrganeParoleGoogle extends AbstractOrgane {
 
     private AudioConfig audioConfig;
 
+    /**
+     * Effets appliqués à la voix.
+     */
+    private VoiceFilter filtreVoix;
+
+    private SortieAudio sortieAudio;
+
+    private SpeechSynthesisConfig syntheseConfig;
+
+    /**
+     * Ordonnanceur des paroles : une seule parole à la fois.
+     */
+    private OrdonnanceurParole ordonnanceur;
+
+    /**
+     * Parole en cours de lecture (null si aucune).
+     */
+    private volatile Playback lectureEnCours;
+
+    /**
+     * Cache des phrases synthétisées (null s'il est désactivé).
+     */
+    private AudioCache cacheSynthese;
+
     /**
      * Logger.
      */
@@ -53,138 +86,279 @@ public class OrganeParoleGoogle extends AbstractOrgane {
     public OrganeParoleGoogle() {
         super();
         config = googleSpeechSynthesisConfig();
+        syntheseConfig = speechSynthesisConfig();
     }
 
     /**
-     * Lit un texte.
+     * Lit un texte (après les paroles déjà en attente) et attend la fin de la lecture.
      *
      * @param texte le texte à dire
      */
     public void lire(String texte) {
-        if (texte != null && !texte.isEmpty()) {
-            // Envoi d'un évènement pour mettre en pause la reconnaissance vocale
-            final ReconnaissanceVocaleControleEvent eventPause = new ReconnaissanceVocaleControleEvent();
-            eventPause.setControle(CONTROLE.METTRE_EN_PAUSE);
-//            RobotEventBus.getInstance().publish(eventPause);
-
-            System.out.println(Thread.currentThread().getName() + " say (lecture) : " + texte);
-
-            // Set the text input to be synthesized
-            SynthesisInput input = SynthesisInput.newBuilder()
-                    .setText(texte)
-                    .build();
-
-            // Perform the text-to-speech request on the text input with the selected voice parameters and
-            // audio file type
-            logger.info("Avant appel : " + System.currentTimeMillis());
-            SynthesizeSpeechResponse response = textToSpeechClient.synthesizeSpeech(input, voice,
-                    audioConfig);
-            logger.info("Après appel : " + System.currentTimeMillis());
-
-            // Get the audio contents from the response
-            ByteString audioContents = response.getAudioContent();
-
-            // Write the response to the output file.
-            String pathOutputFile = Constantes.DOSSIER_SYNTHESE_VOCALE + File.separator + "output-" + System.currentTimeMillis() + ".wav";
-            try (OutputStream out = new FileOutputStream(pathOutputFile)) {
-                out.write(audioContents.toByteArray());
-                logger.info("Fin d'écriture dans le fichier : " + System.currentTimeMillis());
-            } catch (FileNotFoundException e) {
-                e.printStackTrace();
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+        final ParoleEvent paroleEvent = new ParoleEvent();
+        paroleEvent.setTexte(texte);
+        paroleEvent.setSynchrone(true);
+        handleParoleEvent(paroleEvent);
+    }
 
+    /**
+     * Lit un texte issu d'un contenu audio (après les paroles déjà en attente) et attend la fin de la lecture.
+     *
+     * @param audioContent le texte à dire
+     */
+    public void lire(byte[] audioContent) {
+        final ParoleEvent paroleEvent = new ParoleEvent();
+        paroleEvent.setAudioContent(audioContent);
+        paroleEvent.setSynchrone(true);
+        handleParoleEvent(paroleEvent);
+    }
 
-            String[] params = {fichierSyntheseVocale, pathOutputFile};
+    /**
+     * Dit une demande de parole (thread de l'ordonnanceur).
+     *
+     * @param demande la demande
+     */
+    private void parler(DemandeParole demande) {
+        if (demande.getContenuAudio() != null) {
+            System.out.println("Lecture issu d'un contenu audio :\t" + demande.getContenuAudio());
             try {
-                Process p = Runtime.getRuntime().exec(params);
-                p.waitFor();
-            } catch (IOException e) {
-                // TODO Auto-generated catch block
-                e.printStackTrace();
-            } catch (InterruptedException e) {
-                // TODO Auto-generated catch block
-                e.printStackTrace();
+                jouer(preparer(demande.getContenuAudio()), demande);
+            } catch (IOException | UnsupportedAudioFileException e) {
+                logger.error("Impossible de lire le contenu audio", e);
             }
+        } else {
+            System.out.println(Thread.currentThread().getName() + " say (lecture) : " + demande.getTexte());
+            lireEnFlux(demande);
+        }
+        logger.debug("Fin lecture :\t" + demande);
+    }
 
-            System.out.println("Fin Lecture :\t" + texte);
-            logger.debug("Fin lecture :\t" + texte);
-
-            // Envoi d'un évènement pour redémarrer la reconnaissance vocale
-            final ReconnaissanceVocaleControleEvent eventRedemarrage = new ReconnaissanceVocaleControleEvent();
-            eventRedemarrage.setControle(CONTROLE.DEMARRER);
-            RobotEventBus.getInstance().publishAsync(eventRedemarrage);
+    /**
+     * Lit un texte en flux : chaque morceau est synthétisé pendant la lecture du précédent.
+     *
+     * @param demande la demande
+     */
+    private void lireEnFlux(DemandeParole demande) {
+        final Playback lecture = demarrerLecture(sortieAudio.ouvrirFlux(), demande);
+        try {
+            for (String morceau : SentenceSplitter.split(demande.getTexte(), syntheseConfig.chunkMaxChars())) {
+                if (!lecture.awaitPendingChunks(syntheseConfig.lookaheadChunks())) {
+                    // Lecture interrompue : les morceaux restants ne sont pas synthétisés
+                    break;
+                }
+                try {
+                    lecture.append(synthetiser(morceau).getPcm());
+                } catch (IOException | UnsupportedAudioFileException | RuntimeException e) {
+                    logger.error("Impossible de lire la synthèse vocale de : " + morceau, e);
+                }
+            }
+            lecture.end();
+            lecture.await();
+        } catch (InterruptedException e) {
+            lecture.cancel();
+            Thread.currentThread().interrupt();
+        } finally {
+            terminerLecture(lecture);
         }
     }
 
     /**
-     * Lit un texte issu d'un contenu audio.
+     * Synthétise un texte, ou le reprend du cache s'il a déjà été synthétisé avec la même voix.
      *
-     * @param audioContent le texte à dire
+     * @param texte le texte
+     * @return le son prêt à être joué (effets de la voix appliqués, à la fréquence de la sortie audio)
      */
-    public void lire(byte[] audioContent) {
-        if (audioContent != null) {
-            // Envoi d'un évènement pour mettre en pause la reconnaissance vocale
-            final ReconnaissanceVocaleControleEvent eventPause = new ReconnaissanceVocaleControleEvent();
-            eventPause.setControle(CONTROLE.METTRE_EN_PAUSE);
-//            RobotEventBus.getInstance().publish(eventPause);
-
-            System.out.println("Lecture issu d'un contenu audio :\t" + audioContent);
-
-            // Write the response to the output file.
-            String pathOutputFile = Constantes.DOSSIER_SYNTHESE_VOCALE + File.separator + "output-" + System.currentTimeMillis() + ".wav";
-            try (OutputStream out = new FileOutputStream(pathOutputFile)) {
-                out.write(audioContent);
-                logger.info("Fin d'écriture dans le fichier : " + System.currentTimeMillis());
-            } catch (FileNotFoundException e) {
-                e.printStackTrace();
-            } catch (IOException e) {
-                e.printStackTrace();
+    private PcmClip synthetiser(String texte) throws IOException, UnsupportedAudioFileException {
+        final String cle = cleCache(texte);
+        if (cacheSynthese != null) {
+            final byte[] audio = cacheSynthese.get(cle);
+            if (audio != null) {
+                return PcmClip.decode(audio);
             }
+        }
 
+        // Set the text input to be synthesized
+        SynthesisInput input = SynthesisInput.newBuilder()
+                .setText(texte)
+                .build();
 
-            String[] params = {fichierSyntheseVocale, pathOutputFile};
-            try {
-                Process p = Runtime.getRuntime().exec(params);
-                p.waitFor();
-            } catch (IOException e) {
-                // TODO Auto-generated catch block
-                e.printStackTrace();
-            } catch (InterruptedException e) {
-                // TODO Auto-generated catch block
-                e.printStackTrace();
-            }
+        // Perform the text-to-speech request on the text input with the selected voice parameters and
+        // audio file type
+        logger.info("Avant appel : " + System.currentTimeMillis());
+        SynthesizeSpeechResponse response = textToSpeechClient.synthesizeSpeech(input, voice,
+                audioConfig);
+        logger.info("Après appel : " + System.currentTimeMillis());
+
+        // Get the audio contents from the response
+        final PcmClip son = preparer(response.getAudioContent().toByteArray());
+        if (cacheSynthese != null) {
+            cacheSynthese.put(cle, son.toWav());
+        }
+        return son;
+    }
+
+    /**
+     * Applique les effets de la voix à un contenu audio et le rééchantillonne à la fréquence de la sortie audio.
+     *
+     * @param audio le contenu audio (WAV)
+     * @return le son prêt à être joué
+     */
+    private PcmClip preparer(byte[] audio) throws IOException, UnsupportedAudioFileException {
+        final long debut = System.currentTimeMillis();
+        final PcmClip son = filtreVoix.process(PcmClip.decode(audio)).resample(sortieAudio.getFrequence());
+        logger.debug("Effets de la voix appliqués en " + (System.currentTimeMillis() - debut) + " ms");
+        return son;
+    }
+
+    /**
+     * Joue un son et attend la fin de sa lecture.
+     *
+     * @param son     le son
+     * @param demande la demande de parole
+     */
+    private void jouer(PcmClip son, DemandeParole demande) {
+        final Playback lecture = demarrerLecture(sortieAudio.jouer(son), demande);
+        try {
+            lecture.await();
+        } catch (InterruptedException e) {
+            lecture.cancel();
+            Thread.currentThread().interrupt();
+        } finally {
+            terminerLecture(lecture);
+        }
+    }
+
+    /**
+     * Enregistre la lecture en cours, pour qu'elle puisse être interrompue.
+     *
+     * @param lecture la lecture
+     * @param demande la demande de parole lue
+     * @return la lecture
+     */
+    private Playback demarrerLecture(Playback lecture, DemandeParole demande) {
+        lectureEnCours = lecture;
+        if (demande.isInterrompue()) {
+            // Interrompue avant le début de la lecture
+            lecture.cancel();
+        }
+        return lecture;
+    }
+
+    private void terminerLecture(Playback lecture) {
+        if (lectureEnCours == lecture) {
+            lectureEnCours = null;
+        }
+    }
+
+    /**
+     * Interrompt la parole en cours : le son s'arrête dans le délai du tampon de la sortie audio et les morceaux de
+     * texte restants ne sont pas synthétisés. Les paroles en attente sont dites ensuite.
+     */
+    public void interrompre() {
+        ordonnanceur.interrompreParoleEnCours();
+    }
+
+    /**
+     * Interrompt la parole en cours et annule les paroles en attente.
+     */
+    public void seTaire() {
+        ordonnanceur.annulerTout();
+    }
+
+    /**
+     * Arrête la lecture en cours (appelé par l'ordonnanceur).
+     */
+    private void arreterLecture() {
+        final Playback lecture = lectureEnCours;
+        if (lecture != null) {
+            logger.debug("Interruption de la parole en cours");
+            lecture.cancel();
+        }
+    }
 
-            System.out.println("Fin Lecture :\t" + audioContent);
-            logger.debug("Fin lecture :\t" + audioContent);
+    /**
+     * Clé d'un texte dans le cache : tous les paramètres dont dépend le son produit.
+     *
+     * @param texte le texte
+     * @return la clé
+     */
+    private String cleCache(String texte) {
+        return voice.getLanguageCode() + '|' + voice.getName() + '|' + voice.getSsmlGender() + '|'
+                + audioConfig.toString().replace('\n', ' ') + '|' + filtreVoix + '|' + sortieAudio.getFrequence() + '|' + texte;
+    }
 
-            // Envoi d'un évènement pour redémarrer la reconnaissance vocale
-            final ReconnaissanceVocaleControleEvent eventRedemarrage = new ReconnaissanceVocaleControleEvent();
-            eventRedemarrage.setControle(CONTROLE.DEMARRER);
-            RobotEventBus.getInstance().publishAsync(eventRedemarrage);
+    /**
+     * Synthétise en arrière-plan les phrases du fichier de préchargement qui ne sont pas encore dans le cache.
+     *
+     * @param fichierPhrases le fichier des phrases (une par ligne, lignes vides et commentaires # ignorés)
+     */
+    private void prechargerCache(File fichierPhrases) {
+        if (cacheSynthese == null || !fichierPhrases.isFile()) {
+            return;
         }
+        final Thread threadPrechargement = new Thread("Parole - Préchargement") {
+            @Override
+            public void run() {
+                try {
+                    final List<String> phrases = Files.readAllLines(fichierPhrases.toPath(), StandardCharsets.UTF_8);
+                    int nombrePhrasesSynthetisees = 0;
+                    for (String phrase : phrases) {
+                        phrase = phrase.trim();
+                        if (phrase.isEmpty() || phrase.startsWith("#")) {
+                            continue;
+                        }
+                        // Mis en cache morceau par morceau, comme à la lecture
+                        for (String morceau : SentenceSplitter.split(phrase, syntheseConfig.chunkMaxChars())) {
+                            if (!cacheSynthese.contains(cleCache(morceau))) {
+                                synthetiser(morceau);
+                                nombrePhrasesSynthetisees++;
+                            }
+                        }
+                    }
+                    logger.info("Préchargement du cache de synthèse vocale : " + nombrePhrasesSynthetisees + " phrases synthétisées");
+                } catch (IOException | UnsupportedAudioFileException | RuntimeException e) {
+                    logger.error("Erreur lors du préchargement du cache de synthèse vocale", e);
+                }
+            }
+        };
+        threadPrechargement.setDaemon(true);
+        threadPrechargement.start();
     }
 
     /**
      * Intercepte les évènements pour lire du texte.
+     * Appels concurrents autorisés (l'ordonnanceur est thread-safe) : une demande synchrone qui attend la fin de sa
+     * parole ne doit pas retarder les demandes suivantes (priorité supérieure, interruption).
      *
      * @param paroleEvent évènement pour lire du texte
      */
     @Subscribe
+    @AllowConcurrentEvents
     public void handleParoleEvent(ParoleEvent paroleEvent) {
         System.out.println("ParoleEvent = " + paroleEvent);
-        if (paroleEvent.getAudioContent() != null) {
-            lire(paroleEvent.getAudioContent());
-        } else if (paroleEvent.getTexte() != null && !paroleEvent.getTexte().trim().equals("")) {
-            System.out.println(Thread.currentThread().getName() + " say (avant lecture) : " + paroleEvent.getTexte());
-            lire(paroleEvent.getTexte().trim());
+        // La parole est dite par l'ordonnanceur ; l'émetteur n'attend que si l'évènement est synchrone
+        final DemandeParole demande = ordonnanceur.soumettre(paroleEvent);
+        if (demande != null && paroleEvent.isSynchrone()) {
+            try {
+                demande.attendreFin();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
         }
     }
 
     @Override
     public void initialiser() {
-        fichierSyntheseVocale = Constantes.DOSSIER_SYNTHESE_VOCALE + File.separator + config.voiceFilter();
+        try {
+            filtreVoix = VoiceFilter.parse(config.voiceEffects());
+        } catch (IllegalArgumentException e) {
+            logger.error("Effets de la voix invalides, voix lue sans effets", e);
+            filtreVoix = VoiceFilter.parse("");
+        }
+        sortieAudio = SortieAudio.getInstance();
+        sortieAudio.initialiser();
+        ordonnanceur = new OrdonnanceurParole(this::parler, this::arreterLecture);
+        ordonnanceur.demarrer();
         try {
             textToSpeechClient = TextToSpeechClient.create();
         } catch (IOException e) {
@@ -202,11 +376,34 @@ public class OrganeParoleGoogle extends AbstractOrgane {
         audioConfig = AudioConfig.newBuilder()
                 .setAudioEncoding(AudioEncoding.LINEAR16)
                 .build();
+
+        // Cache des phrases synthétisées
+        final SpeechSynthesisCacheConfig cacheConfig = speechSynthesisCacheConfig();
+        if (cacheConfig.enabled()) {
+            cacheSynthese = new AudioCache("speech.synthesis", fichierSyntheseVocale(cacheConfig.directory()),
+                    cacheConfig.memoryMaxBytes(), cacheConfig.diskMaxBytes());
+            prechargerCache(fichierSyntheseVocale(cacheConfig.prewarmFile()));
+        }
+    }
+
+    /**
+     * @param chemin un chemin, relatif au dossier de synthèse vocale s'il n'est pas absolu
+     * @return le fichier
+     */
+    private static File fichierSyntheseVocale(String chemin) {
+        final File fichier = new File(chemin);
+        return fichier.isAbsolute() ? fichier : new File(Constantes.DOSSIER_SYNTHESE_VOCALE, chemin);
     }
 
     @Override
     public void arreter() {
-
+        if (ordonnanceur != null) {
+            ordonnanceur.arreter();
+        }
+        if (cacheSynthese != null) {
+            logger.info("Cache de synthèse vocale : " + Math.round(100 * cacheSynthese.getHitRatio()) + " % des phrases reprises du cache, "
+                    + cacheSynthese.getBytesSaved() + " octets économisés");
+        }
     }
 
     public static void main(String[] args) {
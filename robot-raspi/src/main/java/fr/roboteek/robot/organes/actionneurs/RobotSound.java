@@ -2,10 +2,10 @@ package fr.roboteek.robot.organes.actionneurs;
 
 public enum RobotSound {
 
-    OH("oh.ogg"),
-    SAD("sad.ogg"),
-    WALLE("walle.ogg"),
-    WOW("wow.ogg");
+    OH("oh.wav"),
+    SAD("sad.wav"),
+    WALLE("walle.wav"),
+    WOW("wow.wav");
 
     /**
      * Fichier associé.
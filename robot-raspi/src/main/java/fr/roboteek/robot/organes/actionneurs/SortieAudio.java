@@ -0,0 +1,137 @@
+package fr.roboteek.robot.organes.actionneurs;
+
+import fr.roboteek.robot.configuration.audio.AudioOutputConfig;
+import fr.roboteek.robot.organes.AbstractOrgane;
+import fr.roboteek.robot.util.audio.AudioMixer;
+import fr.roboteek.robot.util.audio.EchoReference;
+import fr.roboteek.robot.util.audio.PcmClip;
+import fr.roboteek.robot.util.audio.Playback;
+import org.apache.log4j.Logger;
+
+import javax.sound.sampled.LineUnavailableException;
+
+import static fr.roboteek.robot.configuration.Configurations.audioOutputConfig;
+
+/**
+ * Sortie audio du robot, partagée par la parole et les sons : une seule ligne audio reste ouverte pendant toute la
+ * vie du robot et les sons à jouer, en mémoire, y sont mixés (aucun processus lancé par son).
+ * La sortie est ouverte au premier son si elle n'a pas été initialisée. Après un échec d'ouverture, les sons suivants
+ * ne retentent l'ouverture qu'après un délai croissant (une initialisation explicite la retente immédiatement).
+ */
+public class SortieAudio extends AbstractOrgane {
+
+    /**
+     * Délai avant de retenter l'ouverture après un premier échec (millisecondes), doublé à chaque nouvel échec.
+     */
+    private static final long DELAI_INITIAL_NOUVELLE_TENTATIVE = 1_000;
+
+    /**
+     * Délai maximal entre deux tentatives d'ouverture (millisecondes).
+     */
+    private static final long DELAI_MAXIMAL_NOUVELLE_TENTATIVE = 60_000;
+
+    private final Logger logger = Logger.getLogger(SortieAudio.class);
+
+    private final AudioOutputConfig config;
+
+    private AudioMixer mixer;
+
+    /**
+     * Nombre d'échecs d'ouverture consécutifs.
+     */
+    private int echecsOuverture;
+
+    /**
+     * Date avant laquelle l'ouverture n'est pas retentée par un son ({@link System#nanoTime()}).
+     */
+    private long dateNouvelleTentative;
+
+    /** Constructeur privé */
+    private SortieAudio() {
+        config = audioOutputConfig();
+    }
+
+    /** Holder */
+    private static class SortieAudioHolder {
+        /** Instance unique non préinitialisée */
+        private final static SortieAudio instance = new SortieAudio();
+    }
+
+    /** Point d'accès pour l'instance unique du singleton */
+    public static SortieAudio getInstance() {
+        return SortieAudioHolder.instance;
+    }
+
+    @Override
+    public synchronized void initialiser() {
+        if (mixer != null) {
+            return;
+        }
+        try {
+            mixer = new AudioMixer(config.sampleRate(), config.bufferMillis(), config.deviceName());
+            echecsOuverture = 0;
+        } catch (LineUnavailableException | IllegalArgumentException e) {
+            final long delai = Math.min(DELAI_INITIAL_NOUVELLE_TENTATIVE << Math.min(echecsOuverture, 16), DELAI_MAXIMAL_NOUVELLE_TENTATIVE);
+            dateNouvelleTentative = System.nanoTime() + delai * 1_000_000;
+            if (echecsOuverture++ == 0) {
+                logger.error("Impossible d'ouvrir la sortie audio", e);
+            } else {
+                logger.warn("Impossible d'ouvrir la sortie audio (" + echecsOuverture + " échecs) : " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Joue un son.
+     *
+     * @param son le son (rééchantillonné à la fréquence de la sortie si besoin)
+     * @return la lecture en cours (terminée immédiatement si la sortie n'a pas pu être ouverte)
+     */
+    public Playback jouer(PcmClip son) {
+        final AudioMixer mixerOuvert = getMixer();
+        return mixerOuvert != null ? mixerOuvert.play(son) : Playback.none();
+    }
+
+    /**
+     * Ouvre un flux, dont le contenu est ajouté au fur et à mesure de sa lecture.
+     *
+     * @return la lecture du flux (annulée immédiatement si la sortie n'a pas pu être ouverte)
+     */
+    public Playback ouvrirFlux() {
+        final AudioMixer mixerOuvert = getMixer();
+        return mixerOuvert != null ? mixerOuvert.openStream() : Playback.none();
+    }
+
+    /**
+     * @return le signal de référence de la sortie (ce qui est entendu, et quand), pour reconnaître son écho dans le
+     * signal capté ; null si la sortie n'a pas pu être ouverte
+     */
+    public EchoReference getReferenceEcho() {
+        final AudioMixer mixerOuvert = getMixer();
+        return mixerOuvert != null ? mixerOuvert.getReference() : null;
+    }
+
+    /**
+     * @return la fréquence d'échantillonnage de la sortie (Hz)
+     */
+    public int getFrequence() {
+        final AudioMixer mixerOuvert = getMixer();
+        return mixerOuvert != null ? mixerOuvert.getSampleRate() : config.sampleRate();
+    }
+
+    private synchronized AudioMixer getMixer() {
+        if (mixer == null && (echecsOuverture == 0 || System.nanoTime() - dateNouvelleTentative >= 0)) {
+            initialiser();
+        }
+        return mixer;
+    }
+
+    @Override
+    public synchronized void arreter() {
+        if (mixer != null) {
+            mixer.close();
+            mixer = null;
+        }
+        echecsOuverture = 0;
+    }
+}
@@ -2,15 +2,25 @@ package fr.roboteek.robot.organes.actionneurs;
 
 import com.google.common.eventbus.Subscribe;
 import fr.roboteek.robot.Constantes;
+import fr.roboteek.robot.configuration.audio.AudioCaptureConfig;
 import fr.roboteek.robot.organes.AbstractOrgane;
 import fr.roboteek.robot.systemenerveux.event.PlaySoundEvent;
 import fr.roboteek.robot.systemenerveux.event.ReconnaissanceVocaleControleEvent;
 import fr.roboteek.robot.systemenerveux.event.RobotEventBus;
+import fr.roboteek.robot.util.audio.PcmClip;
 import org.apache.log4j.Logger;
 
+import javax.sound.sampled.UnsupportedAudioFileException;
 import java.io.File;
 import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
 
+import static fr.roboteek.robot.configuration.Configurations.audioCaptureConfig;
+
+/**
+ * Organe jouant les sons du robot par la sortie audio (sons chargés en mémoire à l'initialisation).
+ */
 public class SoundPlayer extends AbstractOrgane {
 
     /**
@@ -18,6 +28,13 @@ public class SoundPlayer extends AbstractOrgane {
      */
     private Logger logger = Logger.getLogger(SoundPlayer.class);
 
+    /**
+     * Sons chargés, prêts à être joués.
+     */
+    private final Map<RobotSound, PcmClip> sons = new EnumMap<>(RobotSound.class);
+
+    private final AudioCaptureConfig audioCaptureConfig = audioCaptureConfig();
+
     /**
      * Constructeur.
      */
@@ -33,31 +50,33 @@ public class SoundPlayer extends AbstractOrgane {
     public void play(RobotSound sound) {
         if (sound != null) {
 
-            // Envoi d'un évènement pour mettre en pause la reconnaissance vocale
-            final ReconnaissanceVocaleControleEvent eventPause = new ReconnaissanceVocaleControleEvent();
-            eventPause.setControle(ReconnaissanceVocaleControleEvent.CONTROLE.METTRE_EN_PAUSE);
-            RobotEventBus.getInstance().publishAsync(eventPause);
+            // Hors full duplex (écho du son ignoré par la capture), la reconnaissance vocale est en pause pendant le son
+            final boolean pauseReconnaissance = !audioCaptureConfig.fullDuplex();
+            if (pauseReconnaissance) {
+                final ReconnaissanceVocaleControleEvent eventPause = new ReconnaissanceVocaleControleEvent();
+                eventPause.setControle(ReconnaissanceVocaleControleEvent.CONTROLE.METTRE_EN_PAUSE);
+                RobotEventBus.getInstance().publish(eventPause);
+            }
 
             System.out.println("Lecture son :\t" + sound);
 
-            String[] params = {"play", Constantes.DOSSIER_SONS + File.separator + sound.getFileName()};
-            try {
-                Process p = Runtime.getRuntime().exec(params);
-                p.waitFor();
-            } catch (IOException e) {
-                // TODO Auto-generated catch block
-                e.printStackTrace();
-            } catch (InterruptedException e) {
-                // TODO Auto-generated catch block
-                e.printStackTrace();
+            final PcmClip son = charger(sound);
+            if (son != null) {
+                try {
+                    SortieAudio.getInstance().jouer(son).await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
             }
 
             logger.debug("Fin lecture :\t" + sound);
 
-            // Envoi d'un évènement pour redémarrer la reconnaissance vocale
-            final ReconnaissanceVocaleControleEvent eventRedemarrage = new ReconnaissanceVocaleControleEvent();
-            eventRedemarrage.setControle(ReconnaissanceVocaleControleEvent.CONTROLE.DEMARRER);
-            RobotEventBus.getInstance().publish(eventRedemarrage);
+            if (pauseReconnaissance) {
+                // Envoi d'un évènement pour redémarrer la reconnaissance vocale
+                final ReconnaissanceVocaleControleEvent eventRedemarrage = new ReconnaissanceVocaleControleEvent();
+                eventRedemarrage.setControle(ReconnaissanceVocaleControleEvent.CONTROLE.DEMARRER);
+                RobotEventBus.getInstance().publish(eventRedemarrage);
+            }
         }
     }
 
@@ -73,9 +92,34 @@ public class SoundPlayer extends AbstractOrgane {
         }
     }
 
+    /**
+     * Renvoie un son décodé et rééchantillonné à la fréquence de la sortie audio (chargé au premier appel).
+     *
+     * @param sound le son
+     * @return le son prêt à être joué, null s'il ne peut pas être lu
+     */
+    private PcmClip charger(RobotSound sound) {
+        synchronized (sons) {
+            PcmClip son = sons.get(sound);
+            if (son == null) {
+                final File fichier = new File(Constantes.DOSSIER_SONS, sound.getFileName());
+                try {
+                    son = PcmClip.decode(fichier).resample(SortieAudio.getInstance().getFrequence());
+                    sons.put(sound, son);
+                } catch (IOException | UnsupportedAudioFileException e) {
+                    logger.error("Impossible de lire le son " + fichier, e);
+                }
+            }
+            return son;
+        }
+    }
+
     @Override
     public void initialiser() {
-
+        // Sons chargés en mémoire à l'avance
+        for (RobotSound sound : RobotSound.values()) {
+            charger(sound);
+        }
     }
 
     @Override
@@ -3,22 +3,26 @@ package fr.roboteek.robot.organes.capteurs;
 import be.tarsos.dsp.AudioDispatcher;
 import be.tarsos.dsp.AudioEvent;
 import be.tarsos.dsp.AudioProcessor;
-import be.tarsos.dsp.SilenceDetector;
 import be.tarsos.dsp.io.jvm.JVMAudioInputStream;
-import be.tarsos.dsp.pitch.PitchDetectionHandler;
-import be.tarsos.dsp.pitch.PitchDetectionResult;
-import be.tarsos.dsp.pitch.PitchProcessor;
-import be.tarsos.dsp.pitch.PitchProcessor.PitchEstimationAlgorithm;
 import be.tarsos.dsp.writer.WaveHeader;
 import com.google.common.eventbus.Subscribe;
-import com.google.common.primitives.Bytes;
 import fr.roboteek.robot.Constantes;
 import fr.roboteek.robot.configuration.RobotConfig;
+import fr.roboteek.robot.configuration.audio.AudioCaptureConfig;
 import fr.roboteek.robot.organes.AbstractOrganeWithThread;
+import fr.roboteek.robot.organes.actionneurs.SortieAudio;
 import fr.roboteek.robot.spring.server.ContextProvider;
 import fr.roboteek.robot.spring.server.websocket.WebsocketBroadcaster;
+import fr.roboteek.robot.systemenerveux.event.ParoleEvent;
 import fr.roboteek.robot.systemenerveux.event.ReconnaissanceVocaleControleEvent;
 import fr.roboteek.robot.systemenerveux.event.RobotEventBus;
+import fr.roboteek.robot.util.audio.AudioRingBuffer;
+import fr.roboteek.robot.util.audio.AudioSlice;
+import fr.roboteek.robot.util.audio.EchoGate;
+import fr.roboteek.robot.util.audio.EchoReference;
+import fr.roboteek.robot.util.audio.ResamplingInputStream;
+import fr.roboteek.robot.util.audio.WavEncoder;
+import org.apache.log4j.Logger;
 
 import javax.sound.sampled.AudioFormat;
 import javax.sound.sampled.AudioInputStream;
@@ -27,35 +31,45 @@ import javax.sound.sampled.DataLine;
 import javax.sound.sampled.LineUnavailableException;
 import javax.sound.sampled.Mixer;
 import javax.sound.sampled.TargetDataLine;
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.RandomAccessFile;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Base64;
+import java.util.Arrays;
 
+import static fr.roboteek.robot.configuration.Configurations.audioCaptureConfig;
 import static fr.roboteek.robot.configuration.Configurations.robotConfig;
+import static fr.roboteek.robot.configuration.Configurations.voiceActivityDetectorConfig;
 
 /**
  * Capteur vocal avec appel d'un web service externe pour effectuer la reconnaisance vocale.
+ * En full duplex, l'écoute continue pendant que le robot parle : les blocs ne contenant que l'écho de la sortie audio
+ * ne sont pas des blocs parlés, et une phrase détectée pendant que le robot parle l'interrompt.
  *
  * @author Nicolas
  */
 public abstract class AbstractCapteurVocal extends AbstractOrganeWithThread {
 
+    /**
+     * Logger.
+     */
+    private Logger logger = Logger.getLogger(AbstractCapteurVocal.class);
+
     private WebsocketBroadcaster websocketBroadcaster;
 
     /**
-     * Fréquence d'échantillonage.
+     * Taille du tampon de la ligne d'acquisition (octets).
      */
-    private static final float sampleRate = 44100;
+    private static final int TAILLE_TAMPON_LIGNE = 1024 * 4;
 
     /**
-     * Taille du buffer.
+     * Durée approximative d'un bloc audio traité (secondes) : la taille des blocs est la puissance de 2 inférieure.
      */
-    private static final int bufferSize = 1024 * 4;
+    private static final double DUREE_BLOC = 0.1;
 
     /**
      * ?.
@@ -65,13 +79,28 @@ public abstract class AbstractCapteurVocal extends AbstractOrganeWithThread {
     /**
      * Flag indiquant que la reconnaissance est mise en pause.
      */
-    private boolean misEnPause = false;
+    private volatile boolean misEnPause = false;
+
+    /**
+     * Flag demandant au thread de capture d'abandonner la phrase en cours.
+     */
+    private volatile boolean reinitialisationDemandee = false;
 
     /**
-     * Format audio.
+     * Flag demandant au thread de capture de terminer la phrase en cours (fin de phrase détectée par la reconnaissance).
+     */
+    private volatile boolean finPhraseDemandee = false;
+
+    /**
+     * Format audio de traitement (détection, tampon circulaire et reconnaissance).
      */
     private AudioFormat format;
 
+    /**
+     * Format audio d'acquisition (micro et moniteur audio).
+     */
+    private AudioFormat formatAcquisition;
+
     /**
      * Timestamp précédent (permet de connaître le temps depuis le dernier bloc "parlé").
      */
@@ -83,44 +112,50 @@ public abstract class AbstractCapteurVocal extends AbstractOrganeWithThread {
     private String cheminFichierWav;
 
     /**
-     * Buffer permettant de stocker le signal audio précédent.
+     * Tampon circulaire préalloué contenant le signal capté (pré-roll et phrase en cours).
      */
-    private byte[] bufferNMoins1;
+    private AudioRingBuffer tamponCirculaire;
 
     /**
-     * Buffer permettant de stocker le signal audio précédent.
+     * Position (dans le tampon circulaire) du début de la phrase en cours, pré-roll inclus (-1 si aucune phrase).
      */
-    private byte[] bufferNMoins2;
+    private long debutPhrase = -1;
 
     /**
-     * Buffer permettant de stocker le signal audio précédent.
+     * Position (dans le tampon circulaire) de la fin de la phrase en cours.
      */
-    private byte[] bufferNMoins3;
+    private long finPhrase = -1;
 
     /**
-     * Buffer permettant de stocker le signal audio précédent.
+     * Position (dans le tampon circulaire) de la fin du contenu de la phrase en cours déjà transmis au fil de l'eau.
      */
-    private byte[] bufferNMoins4;
+    private long finPhraseTransmise = -1;
 
     /**
-     * Buffer permettant de stocker le signal audio précédent.
+     * Taille du pré-roll en octets.
      */
-    private byte[] bufferNMoins5;
+    private int taillePreRoll;
 
     /**
-     * Buffer permettant de stocker une phase de reconnaissance.
+     * Durée du post-roll en secondes.
      */
-    private byte[] contenuParle;
+    private double dureePostRoll;
 
     /**
      * Configuration.
      */
     private RobotConfig robotConfig;
 
+    /**
+     * Configuration de la capture audio.
+     */
+    private AudioCaptureConfig audioCaptureConfig;
+
 
     public AbstractCapteurVocal(String threadName) {
         super(threadName);
         robotConfig = robotConfig();
+        audioCaptureConfig = audioCaptureConfig();
 
         websocketBroadcaster = (WebsocketBroadcaster) ContextProvider.getBean("websocketBroadcaster");
     }
@@ -137,11 +172,15 @@ public abstract class AbstractCapteurVocal extends AbstractOrganeWithThread {
             }
             cheminFichierWav = Constantes.DOSSIER_RECONNAISSANCE_VOCALE + File.separator + "reconnaissance.wav";
 
-            // Définition du format audio d'acquisition
-            format = new AudioFormat(sampleRate, 16, 1, true, false);
+            // Définition des formats audio d'acquisition et de traitement
+            final float frequenceAcquisition = audioCaptureConfig.sampleRate();
+            final float frequenceTraitement = audioCaptureConfig.processingSampleRate();
+            formatAcquisition = new AudioFormat(frequenceAcquisition, 16, 1, true, false);
+            format = new AudioFormat(frequenceTraitement, 16, 1, true, false);
+            final int tailleBloc = Integer.highestOneBit((int) (frequenceTraitement * DUREE_BLOC));
 
             // Recherche de la ligne correspondant au micro recherché
-            final TargetDataLine.Info dataLineInfo = new DataLine.Info(TargetDataLine.class, format);
+            final TargetDataLine.Info dataLineInfo = new DataLine.Info(TargetDataLine.class, formatAcquisition);
             TargetDataLine line = null;
             Mixer.Info[] infoMixers = AudioSystem.getMixerInfo();
             for (Mixer.Info infoMixer : infoMixers) {
@@ -159,72 +198,93 @@ public abstract class AbstractCapteurVocal extends AbstractOrganeWithThread {
                 line = (TargetDataLine) AudioSystem.getLine(dataLineInfo);
             }
 
-            // Récupération du flux du micro au format souhaité
-            final AudioInputStream stream = new AudioInputStream(line);
+            // Récupération du flux du micro, rééchantillonné à la fréquence de traitement
+            // (le flux acquis est transmis au moniteur audio avant le rééchantillonnage)
+            final ResamplingInputStream fluxReechantillonne = new ResamplingInputStream(new AudioInputStream(line),
+                    (int) frequenceAcquisition, (int) frequenceTraitement, this::diffuserAudio);
+            final AudioInputStream stream = new AudioInputStream(fluxReechantillonne, format, AudioSystem.NOT_SPECIFIED);
             final JVMAudioInputStream audioStream = new JVMAudioInputStream(stream);
-            final AudioDispatcher dispatcher = new AudioDispatcher(audioStream, bufferSize, overlap);
+            final AudioDispatcher dispatcher = new AudioDispatcher(audioStream, tailleBloc, overlap);
 
             // Ouverture du flux et démarrage de l'acquisition
-            line.open(format, bufferSize);
+            line.open(formatAcquisition, TAILLE_TAMPON_LIGNE);
             line.start();
 
-            // Initialisation des tableaux d'octets contenant les différents blocs audio
-            contenuParle = new byte[0];
-            bufferNMoins1 = new byte[0];
-            bufferNMoins2 = new byte[0];
-            bufferNMoins3 = new byte[0];
-            bufferNMoins4 = new byte[0];
-            bufferNMoins5 = new byte[0];
+            // Allocation unique du tampon circulaire (aucune allocation par bloc pendant la capture)
+            final int tailleTrame = format.getFrameSize();
+            final int octetsParSeconde = (int) frequenceTraitement * tailleTrame;
+            tamponCirculaire = new AudioRingBuffer(audioCaptureConfig.bufferSeconds() * octetsParSeconde);
+            taillePreRoll = (int) ((long) audioCaptureConfig.preRollMillis() * octetsParSeconde / 1000) / tailleTrame * tailleTrame;
+            dureePostRoll = audioCaptureConfig.postRollMillis() / 1000d;
 
-            // Création d'un processeur détectant les silences dans le flux
-            final SilenceDetector silenceDetector = new SilenceDetector(SilenceDetector.DEFAULT_SILENCE_THRESHOLD, false);
+            // Création du détecteur d'activité vocale choisi dans la configuration
+            final VoiceActivityDetector detecteurActiviteVocale = VoiceActivityDetector.creer(voiceActivityDetectorConfig(), frequenceTraitement, tailleBloc);
 
-            // Création d'un processeur permettant de déterminer la hauteur d'un bloc audio (permet de récupérer la fréquence)
-            AudioProcessor p = new PitchProcessor(PitchEstimationAlgorithm.YIN, sampleRate, bufferSize, new PitchDetectionHandler() {
+            // En full duplex, filtre de l'écho de la sortie audio (voix et sons du robot captés par le micro)
+            final EchoReference referenceEcho = audioCaptureConfig.fullDuplex() ? SortieAudio.getInstance().getReferenceEcho() : null;
+            final EchoGate filtreEcho = referenceEcho != null
+                    ? new EchoGate(referenceEcho, audioCaptureConfig.echoMaxDelayMillis(), audioCaptureConfig.echoDoubleTalkDecibels())
+                    : null;
 
-                public synchronized void handlePitch(PitchDetectionResult result, AudioEvent e) {
+            // Création d'un processeur traitant chaque bloc audio
+            AudioProcessor p = new AudioProcessor() {
+
+                @Override
+                public boolean process(AudioEvent e) {
 
                     // Flag permettant de savoir si le flux en cours de traitement est un flux "parlé"
                     boolean isBlocParle;
 
-                    // Récupération du timestamp du bloc audio
+                    // Récupération du timestamp du bloc audio (et de l'instant de sa capture, pour le filtre de l'écho)
                     double timestampBlocEnCours = e.getTimeStamp();
+                    final long finBlocNanos = System.nanoTime();
 
-                    // On teste si le bloc en cours contient de la voix (bruit à une certaine fréquence)
+                    // Copie du bloc dans le tampon circulaire (sert de pré-roll tant qu'aucune phrase n'est en cours)
+                    final byte[] bloc = e.getByteBuffer();
+                    final long debutBloc = tamponCirculaire.getWritePosition();
+                    final long finBloc = tamponCirculaire.write(bloc, 0, bloc.length);
 
-                    if (!misEnPause) {
-                        // Si le bloc ne correspond pas à un silence (volume au delà d'un certain seuil), on traite ce bloc
-                        if (silenceDetector.currentSPL() > SilenceDetector.DEFAULT_SILENCE_THRESHOLD) {
+                    if (reinitialisationDemandee) {
+                        reinitialisationDemandee = false;
+                        abandonnerPhraseEnCours();
+                    }
 
-                            // Récupération de la fréquence du bloc
-                            final float pitchInHz = result.getPitch();
+                    // Le filtre de l'écho analyse tous les blocs, même en pause (historique continu du signal capté)
+                    final boolean isEcho = filtreEcho != null && filtreEcho.isEcho(e.getFloatBuffer(), finBlocNanos, frequenceTraitement);
 
-                            // Si le bloc est compris dans une certaine plage de fréquences : bloc contenant de la voix (parlé)
-                            isBlocParle = pitchInHz > 0;
-                        } else {
-                            isBlocParle = false;
+                    if (!misEnPause) {
+                        // On teste si le bloc en cours contient de la voix, autre que l'écho de la voix du robot
+                        isBlocParle = detecteurActiviteVocale.isVoix(e.getFloatBuffer()) && !isEcho;
+
+                        if (isBlocParle && debutPhrase < 0) {
+                            // Début d'une phrase : on conserve le signal précédent (pré-roll)
+                            debutPhrase = Math.max(debutBloc - taillePreRoll, tamponCirculaire.getOldestPosition());
+                            finPhraseTransmise = debutPhrase;
+                            finPhraseDemandee = false;
+                            traiterDebutPhrase(format);
+                            if (filtreEcho != null && audioCaptureConfig.bargeIn() && filtreEcho.isOutputAudible(finBlocNanos)) {
+                                // Quelqu'un parle par-dessus le robot : le robot se tait pour l'écouter
+                                interrompreParole();
+                            }
                         }
 
-                        if (isBlocParle || timestampBlocEnCours - timestampDernierBlocParle < 0.6) {
-                            // Si ça parle, ou petit silence
-                            // On concatène le bloc audio en cours au contenu général
-                            contenuParle = Bytes.concat(contenuParle, e.getByteBuffer());
-                        } else {
-                            // Ca ne parle pas et grand silence
-
-                            // On ne lance le traitement que s'il y a du contenu
-                            if (contenuParle.length > 0) {
-                                genererFichierEtTraiterDetectionVocale();
-
-                                // Réinitialisation des blocs
-                                contenuParle = new byte[0];
-                                bufferNMoins1 = new byte[0];
-                                bufferNMoins2 = new byte[0];
-                                bufferNMoins3 = new byte[0];
-                                bufferNMoins4 = new byte[0];
-                                bufferNMoins5 = new byte[0];
-                            } else {
-                                // Silence et pas de contenu : on ne fait rien
+                        if (debutPhrase >= 0) {
+                            if (isBlocParle || timestampBlocEnCours - timestampDernierBlocParle < dureePostRoll) {
+                                // Si ça parle, ou petit silence (post-roll) : le bloc fait partie de la phrase
+                                finPhrase = finBloc;
+                            }
+                            if (finPhrase > finPhraseTransmise) {
+                                // Transmission au fil de l'eau du nouveau contenu de la phrase (pré-roll inclus au premier bloc)
+                                traiterContenuPhrase(tamponCirculaire.slice(finPhraseTransmise, finPhrase));
+                                finPhraseTransmise = finPhrase;
+                            }
+                            if (finPhraseDemandee
+                                    || !isBlocParle && timestampBlocEnCours - timestampDernierBlocParle >= dureePostRoll
+                                    || finBloc - debutPhrase + bloc.length > tamponCirculaire.capacity()) {
+                                // Fin de phrase détectée par la reconnaissance, grand silence (ou tampon plein) : fin de la phrase
+                                finPhraseDemandee = false;
+                                traiterPhrase(tamponCirculaire.slice(debutPhrase, finPhrase));
+                                debutPhrase = -1;
                             }
                         }
 
@@ -232,38 +292,20 @@ public abstract class AbstractCapteurVocal extends AbstractOrganeWithThread {
                         if (isBlocParle) {
                             timestampDernierBlocParle = timestampBlocEnCours;
                         }
-
-                        // Si aucun bloc "parlé" depuis la dernière reconnaissance : échange des blocs précédant un éventuel bloc "parlé"
-                        if (contenuParle.length == 0) {
-                            bufferNMoins5 = Bytes.concat(bufferNMoins4);
-                            bufferNMoins4 = Bytes.concat(bufferNMoins3);
-                            bufferNMoins3 = Bytes.concat(bufferNMoins2);
-                            bufferNMoins2 = Bytes.concat(bufferNMoins1);
-                            bufferNMoins1 = Bytes.concat(e.getByteBuffer());
-                        }
                     } else {
                         System.out.println("CAPTEUR MIS EN PAUSE");
-                        // Réinitialisation des blocs
-                        contenuParle = new byte[0];
-                        bufferNMoins1 = new byte[0];
-                        bufferNMoins2 = new byte[0];
-                        bufferNMoins3 = new byte[0];
-                        bufferNMoins4 = new byte[0];
-                        bufferNMoins5 = new byte[0];
+                        // Abandon de la phrase en cours
+                        abandonnerPhraseEnCours();
                     }
-
-                    // Envoi de l'évènement audio : fichier WAV (entête + contenu)
-                    fr.roboteek.robot.systemenerveux.event.AudioEvent audioEvent = new fr.roboteek.robot.systemenerveux.event.AudioEvent();
-                    audioEvent.setAudioContentBase64(Base64.getEncoder().encodeToString(creerFichierWav(e.getByteBuffer())));
-                    audioEvent.setContent(creerFichierWav(e.getByteBuffer()));
-                    RobotEventBus.getInstance().publishAsync(audioEvent);
-                    //websocketBroadcaster.handleAudioEvent(audioEvent);
+                    return true;
                 }
 
-            });
+                @Override
+                public void processingFinished() {
+                }
+            };
 
-            // Assemblage des différents processeurs dans le dispatcher
-            dispatcher.addAudioProcessor(silenceDetector);
+            // Assemblage du processeur dans le dispatcher
             dispatcher.addAudioProcessor(p);
 
             // Override thread with dispatcher
@@ -286,31 +328,116 @@ public abstract class AbstractCapteurVocal extends AbstractOrganeWithThread {
 
     }
 
-    public abstract void traiterDetectionVocale(String cheminFichierWav);
+    /**
+     * Traite une phrase détectée.
+     *
+     * @param contenuAudio le contenu PCM de la phrase (pré-roll inclus), null si {@link #isContenuPhraseNecessaire()}
+     *                     retourne false
+     * @param format       le format du contenu
+     */
+    public abstract void traiterDetectionVocale(byte[] contenuAudio, AudioFormat format);
 
-    private synchronized void genererFichierEtTraiterDetectionVocale() {
+    /**
+     * Indique si {@link #traiterDetectionVocale(byte[], AudioFormat)} a besoin du contenu de la phrase. Les capteurs
+     * qui traitent la phrase au fil de l'eau retournent false : la phrase n'est alors pas copiée.
+     *
+     * @return true par défaut
+     */
+    protected boolean isContenuPhraseNecessaire() {
+        return true;
+    }
 
-        try {
-            // On ne traite la detection vocale que s'il y a du contenu
-            if (contenuParle.length > 0) {
-                System.out.println("Génération du fichier contenant le flux de parole détecté");
+    /**
+     * Traite le début d'une phrase (premier bloc contenant de la voix). Ne fait rien par défaut.
+     *
+     * @param format le format du contenu de la phrase
+     */
+    protected void traiterDebutPhrase(AudioFormat format) {
+    }
 
-                // Concaténation du contenu parlé avec le contenu précédent
-                contenuParle = Bytes.concat(bufferNMoins5, bufferNMoins4, bufferNMoins3, bufferNMoins2, bufferNMoins1, contenuParle);
+    /**
+     * Traite au fil de l'eau le nouveau contenu de la phrase en cours (le pré-roll est inclus dans le premier contenu).
+     * Ne fait rien par défaut.
+     *
+     * @param contenuAudio le nouveau contenu PCM de la phrase (valide uniquement pendant l'appel)
+     */
+    protected void traiterContenuPhrase(AudioSlice contenuAudio) {
+    }
+
+    /**
+     * Traite l'abandon de la phrase en cours (mise en pause ou réinitialisation). Ne fait rien par défaut.
+     */
+    protected void traiterAbandonPhrase() {
+    }
+
+    /**
+     * Demande la fin de la phrase en cours sans attendre le silence (par exemple lorsque la reconnaissance a détecté
+     * la fin de la phrase). La phrase est terminée par le thread de capture au prochain bloc audio.
+     */
+    protected void terminerPhrase() {
+        finPhraseDemandee = true;
+    }
+
+    /**
+     * Diffuse au moniteur audio un morceau du flux acquis (à la fréquence d'acquisition), uniquement si un client du
+     * Websocket l'écoute. L'encodage WAV est effectué une seule fois, au moment de la diffusion.
+     *
+     * @param contenu  le contenu acquis
+     * @param offset   la position du morceau dans le contenu
+     * @param longueur la longueur du morceau en octets
+     */
+    private void diffuserAudio(byte[] contenu, int offset, int longueur) {
+        if (websocketBroadcaster != null && websocketBroadcaster.isEcoutee(WebsocketBroadcaster.DESTINATION_AUDIO)) {
+            fr.roboteek.robot.systemenerveux.event.AudioEvent audioEvent = new fr.roboteek.robot.systemenerveux.event.AudioEvent();
+            audioEvent.setContenuPcm(Arrays.copyOfRange(contenu, offset, offset + longueur), formatAcquisition);
+            RobotEventBus.getInstance().publishAsync(audioEvent);
+        }
+    }
+
+    /**
+     * Interrompt la parole du robot (et les paroles en attente de priorité normale ou basse).
+     */
+    private void interrompreParole() {
+        logger.debug("Interruption de la parole du robot");
+        final ParoleEvent paroleEvent = new ParoleEvent();
+        paroleEvent.setInterrompre(true);
+        RobotEventBus.getInstance().publishAsync(paroleEvent);
+    }
+
+    private void abandonnerPhraseEnCours() {
+        if (debutPhrase >= 0) {
+            debutPhrase = -1;
+            traiterAbandonPhrase();
+        }
+    }
 
-                // Création du fichier Wav
-                final String cheminFichierWavTemp = cheminFichierWav.replace(".wav", "") + System.currentTimeMillis() + ".wav";
-                final RandomAccessFile fichierWavRandom = new RandomAccessFile(cheminFichierWavTemp, "rw");
-                fichierWavRandom.seek(0);
-                // Création du fichier WAV (entête + contenu)
-                fichierWavRandom.write(creerFichierWav(contenuParle));
-                fichierWavRandom.close();
+    private void traiterPhrase(AudioSlice phrase) {
 
-                // Traitement de la détection vocale
-                traiterDetectionVocale(cheminFichierWavTemp);
+        // On ne traite la detection vocale que s'il y a du contenu
+        if (phrase.length() > 0) {
 
+            if (audioCaptureConfig.debugFiles()) {
+                genererFichierWav(phrase);
             }
 
+            // Copie de la phrase hors du tampon circulaire (qui continue d'être alimenté pendant le traitement)
+            traiterDetectionVocale(isContenuPhraseNecessaire() ? phrase.toByteArray() : null, format);
+        }
+    }
+
+    /**
+     * Ecrit une phrase dans un fichier WAV (mode debug).
+     *
+     * @param phrase la phrase
+     */
+    private void genererFichierWav(AudioSlice phrase) {
+        System.out.println("Génération du fichier contenant le flux de parole détecté");
+
+        // Création du fichier WAV (entête + contenu lu directement dans le tampon circulaire)
+        final String cheminFichierWavTemp = cheminFichierWav.replace(".wav", "") + System.currentTimeMillis() + ".wav";
+        try (OutputStream fichierWav = new BufferedOutputStream(new FileOutputStream(cheminFichierWavTemp))) {
+            creerEnteteWav(phrase.length()).write(fichierWav);
+            phrase.writeTo(fichierWav);
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -326,43 +453,35 @@ public abstract class AbstractCapteurVocal extends AbstractOrganeWithThread {
         if (reconnaissanceVocaleControleEvent.getControle() == ReconnaissanceVocaleControleEvent.CONTROLE.DEMARRER) {
             System.out.println("Démarrage de la reconnaissance vocale");
             misEnPause = false;
-            // Réinitialisation des blocs
-            contenuParle = new byte[0];
-            bufferNMoins1 = new byte[0];
-            bufferNMoins2 = new byte[0];
-            bufferNMoins3 = new byte[0];
-            bufferNMoins4 = new byte[0];
-            bufferNMoins5 = new byte[0];
+            // Réinitialisation de la phrase en cours (effectuée par le thread de capture)
+            reinitialisationDemandee = true;
         } else if (reconnaissanceVocaleControleEvent.getControle() == ReconnaissanceVocaleControleEvent.CONTROLE.METTRE_EN_PAUSE) {
             System.out.println("Mise en pause de la reconnaissance vocale");
             misEnPause = true;
-            // Réinitialisation des blocs
-            contenuParle = new byte[0];
-            bufferNMoins1 = new byte[0];
-            bufferNMoins2 = new byte[0];
-            bufferNMoins3 = new byte[0];
-            bufferNMoins4 = new byte[0];
-            bufferNMoins5 = new byte[0];
+            // Réinitialisation de la phrase en cours (effectuée par le thread de capture)
+            reinitialisationDemandee = true;
         }
     }
 
     /**
-     * Crée l'entête WAV au contenu audio
+     * Crée le fichier WAV d'un contenu audio (au format de traitement)
      *
      * @param contenuAudio le contenu audio
      * @return le fichier WAV (entête + contenu) sous forme de tableau d'octets
      */
-    private byte[] creerFichierWav(byte[] contenuAudio) {
-        // Création du header WAV
-        WaveHeader waveHeader = new WaveHeader(WaveHeader.FORMAT_PCM,
+    protected byte[] creerFichierWav(byte[] contenuAudio) {
+        return WavEncoder.encode(contenuAudio, 0, contenuAudio.length, format);
+    }
+
+    /**
+     * Crée l'entête WAV d'un contenu audio au format de traitement.
+     *
+     * @param tailleContenu la taille du contenu audio en octets
+     * @return l'entête WAV
+     */
+    private WaveHeader creerEnteteWav(int tailleContenu) {
+        return new WaveHeader(WaveHeader.FORMAT_PCM,
                 (short) format.getChannels(),
-                (int) format.getSampleRate(), (short) 16, contenuAudio.length);
-        ByteArrayOutputStream header = new ByteArrayOutputStream();
-        try {
-            waveHeader.write(header);
-        } catch (IOException e1) {
-            e1.printStackTrace();
-        }
-        return Bytes.concat(header.toByteArray(), contenuAudio);
+                (int) format.getSampleRate(), (short) 16, tailleContenu);
     }
 }
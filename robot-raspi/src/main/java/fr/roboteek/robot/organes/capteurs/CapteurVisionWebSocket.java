@@ -1,29 +1,22 @@
 package fr.roboteek.robot.organes.capteurs;
 
 import fr.roboteek.robot.configuration.RobotConfig;
-import fr.roboteek.robot.memoire.FacialRecognitionResponse;
-import fr.roboteek.robot.memoire.ObjectDetectionResponse;
-import fr.roboteek.robot.memoire.ReconnaissanceFacialePython;
+import fr.roboteek.robot.memoire.VisionEngine;
 import fr.roboteek.robot.organes.AbstractOrgane;
-import fr.roboteek.robot.systemenerveux.event.RobotEventBus;
-import fr.roboteek.robot.systemenerveux.event.VideoEvent;
+import fr.roboteek.robot.spring.server.ContextProvider;
+import fr.roboteek.robot.spring.server.websocket.VideoStreamHandler;
+import fr.roboteek.robot.util.video.NativeVideoCapture;
+import fr.roboteek.robot.util.video.VideoFrame;
+import fr.roboteek.robot.util.video.VideoFramePool;
 import org.apache.log4j.Logger;
-import org.openimaj.image.ImageUtilities;
-import org.openimaj.image.MBFImage;
-import org.openimaj.math.geometry.line.Line2d;
-import org.openimaj.math.geometry.point.Point2d;
-import org.openimaj.math.geometry.shape.Rectangle;
-import org.openimaj.video.VideoDisplay;
-import org.openimaj.video.VideoDisplayListener;
 import org.openimaj.video.capture.Device;
 import org.openimaj.video.capture.VideoCapture;
 import org.openimaj.video.capture.VideoCaptureException;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.util.Base64;
+import java.awt.image.BufferedImage;
 
 import static fr.roboteek.robot.configuration.Configurations.robotConfig;
+import static fr.roboteek.robot.configuration.Configurations.visionEngineConfig;
 
 
 /**
@@ -31,30 +24,74 @@ import static fr.roboteek.robot.configuration.Configurations.robotConfig;
  *
  * @author Nicolas Peltier (nico.peltier@gmail.com)
  */
-public class CapteurVisionWebSocket extends AbstractOrgane implements VideoDisplayListener<MBFImage> {
+public class CapteurVisionWebSocket extends AbstractOrgane {
 
     /**
      * Capture vidéo.
      */
     private VideoCapture capture;
-    private VideoDisplay<MBFImage> videoFrame;
 
     /**
-     * Largeur de la vidéo issue de la webcam.
+     * Lecture des images directement depuis la webcam, dans les images de la réserve.
+     */
+    private NativeVideoCapture captureNative;
+
+    /**
+     * Réserve des images, à la taille des images fournies par la webcam : capture en cours, dernière image transmise à
+     * l'analyse, images en cours d'analyse (visages, objets) et marge.
+     */
+    private VideoFramePool reserveImages;
+
+    /**
+     * Thread de capture.
+     */
+    private Thread threadCapture;
+
+    /**
+     * Thread de démarrage de l'analyse, une fois le moteur d'analyse prêt.
+     */
+    private Thread threadDemarrageAnalyse;
+
+    /**
+     * Intervalle des messages d'attente du moteur d'analyse (millisecondes).
+     */
+    private static final long INTERVALLE_ATTENTE_MOTEUR = 30000;
+
+    /**
+     * Largeur de la vidéo demandée à la webcam.
      */
     private static final int LARGEUR_WEBCAM = 640;
     /**
-     * Hauteur de la vidéo issue de la webcam.
+     * Hauteur de la vidéo demandée à la webcam.
      */
     private static final int HAUTEUR_WEBCAM = 480;
 
-    private ReconnaissanceFacialePython reconnaissanceFacialePython;
+    /**
+     * Nombre d'images de la réserve.
+     */
+    private static final int TAILLE_RESERVE = 6;
 
-    private int indexFrame = 0;
+    /**
+     * Moteur d'analyse d'image (choisi par configuration).
+     */
+    private VisionEngine moteurVision;
 
-    private FacialRecognitionResponse facialRecognitionResponse;
+    /**
+     * Analyse des images (visages, objets), découplée de la capture.
+     */
+    private PipelineVision pipelineVision;
 
-    private ObjectDetectionResponse objectDetectionResponse;
+    private long indexFrame = 0;
+
+    /**
+     * Diffusion du flux vidéo binaire.
+     */
+    private VideoStreamHandler videoStreamHandler;
+
+    /**
+     * Image réutilisée pour la diffusion du flux vidéo.
+     */
+    private BufferedImage imageDiffusion;
 
     /**
      * Configuration.
@@ -71,7 +108,7 @@ public class CapteurVisionWebSocket extends AbstractOrgane implements VideoDispl
 
         robotConfig = robotConfig();
 
-        reconnaissanceFacialePython = new ReconnaissanceFacialePython();
+        videoStreamHandler = ContextProvider.getBean(VideoStreamHandler.class);
 
         // Récupération de la webcam
         Device webcamRobot = null;
@@ -93,107 +130,120 @@ public class CapteurVisionWebSocket extends AbstractOrgane implements VideoDispl
                 capture = new VideoCapture(LARGEUR_WEBCAM, HAUTEUR_WEBCAM);
             }
         } catch (VideoCaptureException e) {
-            // TODO Auto-generated catch block
-            e.printStackTrace();
+            // Les autres organes fonctionnent sans la vision
+            logger.error("Impossible d'ouvrir la webcam : la vision est désactivée", e);
+            return;
         }
         capture.setFPS(25);
+        captureNative = new NativeVideoCapture(capture);
+        if (captureNative.getWidth() != LARGEUR_WEBCAM || captureNative.getHeight() != HAUTEUR_WEBCAM) {
+            logger.warn("La webcam fournit des images de " + captureNative.getWidth() + "x" + captureNative.getHeight()
+                    + " au lieu de " + LARGEUR_WEBCAM + "x" + HAUTEUR_WEBCAM);
+        }
+        reserveImages = new VideoFramePool(captureNative.getWidth(), captureNative.getHeight(), TAILLE_RESERVE);
+
+        moteurVision = VisionEngine.creer(visionEngineConfig());
+        pipelineVision = new PipelineVision(moteurVision);
 
-        // Création d'un affichage du flux vidéo
-        videoFrame = VideoDisplay.createOffscreenVideoDisplay(capture);
+        threadCapture = new Thread("Vision - Capture") {
+            @Override
+            public void run() {
+                capturer();
+            }
+        };
+        threadCapture.setDaemon(true);
 
-        // TODO A décommenter pour permettre de récupérer le thread qui est lancé dans createOffscreenVideoDisplay
-//        videoFrame = new VideoDisplay<MBFImage>(capture, null);
-//        videoFrame.displayMode(false);
-//        // Ajout de l'écouteur vidéo
-//        videoFrame.addVideoListener(this);
+        threadDemarrageAnalyse = new Thread("Vision - Démarrage analyse") {
+            @Override
+            public void run() {
+                demarrerAnalyse();
+            }
+        };
+        threadDemarrageAnalyse.setDaemon(true);
     }
 
     public void initialiser() {
-        videoFrame.addVideoListener(this);
-        // TODO A décommenter pour permettre de récupérer le thread qui est lancé dans createOffscreenVideoDisplay
-//        new Thread(videoFrame).start();
+        if (capture == null) {
+            // Vision désactivée (webcam indisponible)
+            return;
+        }
+        // La capture et la diffusion démarrent tout de suite, l'analyse quand le moteur est prêt
+        threadCapture.start();
+        threadDemarrageAnalyse.start();
     }
 
     public void arreter() {
-        // Arrêt de l'afficheur vidéo
-        videoFrame.close();
+        if (capture == null) {
+            return;
+        }
+        // Arrêt de la capture (et du démarrage de l'analyse, s'il attend encore le moteur)
+        threadDemarrageAnalyse.interrupt();
+        threadCapture.interrupt();
+        try {
+            threadDemarrageAnalyse.join(1000);
+            threadCapture.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
         // Arrêt du capteur
         capture.stopCapture();
         capture.close();
+        // Arrêt de l'analyse
+        pipelineVision.arreter();
+        moteurVision.close();
     }
 
-    public void afterUpdate(VideoDisplay<MBFImage> display) {
-
-    }
-
-    public synchronized void beforeUpdate(MBFImage frame) {
-
-        // Recherche de visages
-        if (indexFrame % 25 == 0 || facialRecognitionResponse == null) {
-            facialRecognitionResponse = reconnaissanceFacialePython.recognizeFaces(frame);
-        } else {
-            facialRecognitionResponse = processFaceNameForDetection(reconnaissanceFacialePython.detectFaces(frame));
-        }
-        if (facialRecognitionResponse != null && !facialRecognitionResponse.isFaceFound()) {
-            facialRecognitionResponse = null;
-        }
-
-        if (indexFrame % 3 == 0 || objectDetectionResponse == null) {
-            objectDetectionResponse = reconnaissanceFacialePython.detectObjects(frame);
-        }
-        if (objectDetectionResponse != null && !objectDetectionResponse.isObjectFound()) {
-            objectDetectionResponse = null;
-        }
-
-        indexFrame++;
-
-        // Envoi d'un évènement de détection de visages
-////        final VisagesEvent event = new VisagesEvent();
-////        event.setImageOrigine(image);
-//        //event.setListeVisages(listeVisages);
-//        //AbstractActivite.suivreVisage(event);
-////        RobotEventBus.getInstance().publishAsync(event);
-
-        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    /**
+     * Attend que le moteur d'analyse soit prêt (chargement des modèles du serveur Python), puis démarre l'analyse.
+     */
+    private void demarrerAnalyse() {
         try {
-            ImageUtilities.write(frame, "jpg", baos);
-        } catch (IOException e) {
-            // TODO Auto-generated catch block
-            e.printStackTrace();
+            while (!moteurVision.awaitReady(INTERVALLE_ATTENTE_MOTEUR)) {
+                logger.warn("En attente du moteur d'analyse d'image");
+            }
+            pipelineVision.demarrer();
+        } catch (InterruptedException e) {
+            // Arrêt du capteur avant le démarrage de l'analyse
         }
+    }
 
-        VideoEvent videoEvent = new VideoEvent();
-        videoEvent.setImageBase64(Base64.getEncoder().encodeToString(baos.toByteArray()));
-        if (facialRecognitionResponse != null) {
-            videoEvent.setFaceFound(facialRecognitionResponse.isFaceFound());
-            videoEvent.setFaces(facialRecognitionResponse.getFaces());
-        }
-        if (objectDetectionResponse != null) {
-            videoEvent.setObjectFound(objectDetectionResponse.isObjectFound());
-            videoEvent.setObjects(objectDetectionResponse.getObjects());
+    /**
+     * Boucle de capture : chaque image de la webcam est lue dans une image de la réserve, puis transmise à l'analyse
+     * et à la diffusion. Si toutes les images de la réserve sont encore utilisées, l'image de la webcam est sautée.
+     */
+    private void capturer() {
+        while (!Thread.currentThread().isInterrupted()) {
+            final VideoFrame frame = reserveImages.acquire();
+            try {
+                if (!captureNative.read(frame)) {
+                    logger.warn("Aucune image reçue de la webcam");
+                    continue;
+                }
+                if (frame == null) {
+                    continue;
+                }
+                frame.setCapture(indexFrame++, System.nanoTime());
+                traiterImage(frame);
+            } catch (RuntimeException e) {
+                logger.error("Erreur lors de la capture d'une image", e);
+            } finally {
+                if (frame != null) {
+                    frame.release();
+                }
+            }
         }
-        RobotEventBus.getInstance().publishAsync(videoEvent);
     }
 
-    private FacialRecognitionResponse processFaceNameForDetection(FacialRecognitionResponse response) {
-        if (response == null || facialRecognitionResponse == null) {
-            return null;
-        }
-        if (!response.isFaceFound()) {
-            return response;
-        }
+    private void traiterImage(VideoFrame frame) {
+
+        // Analyse de l'image (visages, objets) par le pipeline de vision, sans attendre les résultats
+        pipelineVision.soumettre(frame);
 
-        // Calcul des distances de chacun des visages détectés avec les visages de la reconnaissance précédente
-        response.getFaces().forEach(recognizedFace -> {
-            Rectangle faceBounds = recognizedFace.getBounds();
-            Point2d faceCentroid = faceBounds.calculateCentroid();
-            facialRecognitionResponse.getFaces().stream()
-                    .filter(oldRecognizedFace -> Line2d.distance(oldRecognizedFace.getBounds().calculateCentroid(), faceCentroid) < 40)
-                    .findFirst()
-                    .ifPresent(nearestOldRecognizedFace -> recognizedFace.setName(nearestOldRecognizedFace.getName()));
-        });
-
-        return response;
+        // Diffusion de l'image aux clients du flux vidéo qui l'attendent (encodage JPEG uniquement dans ce cas)
+        if (videoStreamHandler.isImageAttendue()) {
+            imageDiffusion = frame.toBufferedImage(imageDiffusion);
+            videoStreamHandler.diffuser(imageDiffusion);
+        }
     }
 
     public static void main(String[] args) {
@@ -5,6 +5,8 @@ import fr.roboteek.robot.systemenerveux.event.RobotEventBus;
 import fr.roboteek.robot.util.speech.recognizer.SpeechRecognizer;
 import fr.roboteek.robot.util.speech.recognizer.google.GoogleSpeechRecognizer;
 
+import javax.sound.sampled.AudioFormat;
+
 /**
  * Capteur vocal avec appel d'un web service externe pour effectuer la reconnaisance vocale.
  *
@@ -30,10 +32,10 @@ public class CapteurVocalAvecReconnaissance extends AbstractCapteurVocal {
     }
 
     @Override
-    public void traiterDetectionVocale(String cheminFichierWav) {
-        // Appel du moteur de reconnaissance
+    public void traiterDetectionVocale(byte[] contenuAudio, AudioFormat format) {
+        // Appel du moteur de reconnaissance (en mémoire)
         long debut = System.currentTimeMillis();
-        final String resultat = speechRecognizer.recognize(cheminFichierWav);
+        final String resultat = speechRecognizer.recognize(contenuAudio, format);
         long fin = System.currentTimeMillis();
         System.out.println("Temps reconnaissance : " + (fin - debut));
 
@@ -42,8 +44,6 @@ public class CapteurVocalAvecReconnaissance extends AbstractCapteurVocal {
             final ReconnaissanceVocaleEvent event = new ReconnaissanceVocaleEvent();
             event.setTexteReconnu(resultat);
             System.out.println("Résultat = " + resultat);
-            // Suppression du fichier
-//					fichierWav.delete();
             // Lancement de l'évènement de reconnaissance vocale
             RobotEventBus.getInstance().publishAsync(event);
         }
@@ -0,0 +1,137 @@
+package fr.roboteek.robot.organes.capteurs;
+
+import fr.roboteek.robot.systemenerveux.event.ReconnaissanceVocaleEvent;
+import fr.roboteek.robot.systemenerveux.event.ReconnaissanceVocaleIntermediaireEvent;
+import fr.roboteek.robot.systemenerveux.event.RobotEventBus;
+import fr.roboteek.robot.util.audio.AudioSlice;
+import fr.roboteek.robot.util.speech.recognizer.StreamingRecognitionListener;
+import fr.roboteek.robot.util.speech.recognizer.StreamingRecognitionSession;
+import fr.roboteek.robot.util.speech.recognizer.StreamingSpeechRecognizer;
+import fr.roboteek.robot.util.speech.recognizer.google.GoogleStreamingSpeechRecognizer;
+
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * Capteur vocal avec reconnaissance vocale en continu : le signal est transmis au moteur de reconnaissance dès
+ * que la voix est détectée, les hypothèses intermédiaires sont publiées pendant que l'interlocuteur parle et la
+ * phrase est terminée dès que le moteur en détecte la fin.
+ *
+ * @author Nicolas
+ */
+public class CapteurVocalAvecReconnaissanceContinue extends AbstractCapteurVocal {
+
+    /**
+     * Speech recognizer.
+     */
+    private StreamingSpeechRecognizer speechRecognizer;
+
+    /**
+     * Session de reconnaissance de la phrase en cours.
+     */
+    private volatile StreamingRecognitionSession session;
+
+    /**
+     * Ecouteur de la session de la phrase en cours (ignore la fin de phrase signalée par une session précédente).
+     */
+    private volatile EcouteurReconnaissance ecouteurEnCours;
+
+    /**
+     * Tampon d'envoi du contenu de la phrase, réutilisé d'un bloc à l'autre (thread de capture uniquement).
+     */
+    private byte[] tamponEnvoi = new byte[0];
+
+    public CapteurVocalAvecReconnaissanceContinue() {
+        super("CapteurVocalAvecReconnaissanceContinue");
+    }
+
+    @Override
+    public void initialiser() {
+        super.initialiser();
+
+        speechRecognizer = GoogleStreamingSpeechRecognizer.getInstance();
+    }
+
+    @Override
+    protected void traiterDebutPhrase(AudioFormat format) {
+        ecouteurEnCours = new EcouteurReconnaissance();
+        session = speechRecognizer.startSession(format, ecouteurEnCours);
+    }
+
+    @Override
+    protected void traiterContenuPhrase(AudioSlice contenuAudio) {
+        final StreamingRecognitionSession sessionEnCours = session;
+        if (sessionEnCours != null) {
+            if (tamponEnvoi.length < contenuAudio.length()) {
+                tamponEnvoi = new byte[contenuAudio.length()];
+            }
+            contenuAudio.copyTo(tamponEnvoi, 0);
+            sessionEnCours.sendAudio(tamponEnvoi, 0, contenuAudio.length());
+        }
+    }
+
+    @Override
+    protected boolean isContenuPhraseNecessaire() {
+        // Le contenu est transmis au fil de l'eau
+        return false;
+    }
+
+    @Override
+    public void traiterDetectionVocale(byte[] contenuAudio, AudioFormat format) {
+        // Le contenu a déjà été transmis au fil de l'eau : le résultat définitif suivra
+        final StreamingRecognitionSession sessionEnCours = session;
+        session = null;
+        if (sessionEnCours != null) {
+            sessionEnCours.finish();
+        }
+    }
+
+    @Override
+    protected void traiterAbandonPhrase() {
+        final StreamingRecognitionSession sessionEnCours = session;
+        session = null;
+        if (sessionEnCours != null) {
+            sessionEnCours.cancel();
+        }
+    }
+
+    /**
+     * Ecouteur des résultats d'une session de reconnaissance.
+     */
+    private class EcouteurReconnaissance implements StreamingRecognitionListener {
+
+        private final long debut = System.currentTimeMillis();
+
+        @Override
+        public void onInterimResult(String transcript, float stability) {
+            final ReconnaissanceVocaleIntermediaireEvent event = new ReconnaissanceVocaleIntermediaireEvent();
+            event.setTexteReconnu(transcript);
+            event.setStabilite(stability);
+            RobotEventBus.getInstance().publishAsync(event);
+        }
+
+        @Override
+        public void onEndOfUtterance() {
+            // Fin de phrase détectée par le moteur : inutile d'attendre le silence
+            if (ecouteurEnCours == this) {
+                terminerPhrase();
+            }
+        }
+
+        @Override
+        public void onFinalResult(String transcript) {
+            System.out.println("Temps reconnaissance : " + (System.currentTimeMillis() - debut));
+            if (transcript != null && !transcript.trim().equals("")) {
+                // Envoi de l'évènement de reconnaissance
+                final ReconnaissanceVocaleEvent event = new ReconnaissanceVocaleEvent();
+                event.setTexteReconnu(transcript);
+                System.out.println("Résultat = " + transcript);
+                RobotEventBus.getInstance().publishAsync(event);
+            }
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            // Erreur déjà tracée par le moteur de reconnaissance : la phrase est perdue
+        }
+    }
+}
@@ -3,6 +3,8 @@ package fr.roboteek.robot.organes.capteurs;
 import fr.roboteek.robot.systemenerveux.event.DetectionVocaleEvent;
 import fr.roboteek.robot.systemenerveux.event.RobotEventBus;
 
+import javax.sound.sampled.AudioFormat;
+
 /**
  * Capteur vocal avec appel d'un web service externe pour effectuer la reconnaisance vocale.
  *
@@ -15,10 +17,10 @@ public class CapteurVocalSimple extends AbstractCapteurVocal {
     }
 
     @Override
-    public void traiterDetectionVocale(String cheminFichierWav) {
+    public void traiterDetectionVocale(byte[] contenuAudio, AudioFormat format) {
         // Envoi de l'évènement de détection vocale
         final DetectionVocaleEvent event = new DetectionVocaleEvent();
-        event.setCheminFichier(cheminFichierWav);
+        event.setContenuWav(creerFichierWav(contenuAudio));
         RobotEventBus.getInstance().publishAsync(event);
     }
 }
@@ -0,0 +1,88 @@
+package fr.roboteek.robot.organes.capteurs;
+
+/**
+ * Détecteur d'activité vocale par énergie et taux de passages par zéro.
+ * Un bloc contient de la voix s'il dépasse nettement le bruit de fond (voyelles, consonnes voisées), ou s'il le
+ * dépasse un peu avec un taux de passages par zéro élevé (consonnes non voisées : s, f, ch...).
+ * Le bruit de fond est estimé en continu : il suit immédiatement les baisses de niveau et lentement les hausses.
+ *
+ * @author Nicolas Peltier (nico.peltier@gmail.com)
+ */
+public class EnergyZeroCrossingVoiceActivityDetector implements VoiceActivityDetector {
+
+    /**
+     * Part de l'écart appliquée au bruit de fond à chaque bloc sans voix plus fort que le bruit de fond.
+     */
+    private static final double ADAPTATION_BRUIT_DE_FOND = 0.05;
+
+    /**
+     * Part de l'écart appliquée au bruit de fond à chaque bloc de voix (un bruit fort et continu finit par être
+     * considéré comme du bruit de fond).
+     */
+    private static final double ADAPTATION_BRUIT_DE_FOND_VOIX = 0.002;
+
+    private final float frequenceEchantillonnage;
+
+    /**
+     * Ecart au bruit de fond au-delà duquel un bloc contient de la voix (dB).
+     */
+    private final double marge;
+
+    /**
+     * Niveau minimal d'un bloc contenant de la voix (dBFS).
+     */
+    private final double niveauMinimal;
+
+    /**
+     * Plage du taux de passages par zéro des consonnes non voisées (passages par seconde).
+     */
+    private final int tauxPassagesParZeroMin;
+    private final int tauxPassagesParZeroMax;
+
+    /**
+     * Niveau estimé du bruit de fond (dBFS), NaN tant qu'aucun bloc n'a été traité.
+     */
+    private double bruitDeFond = Double.NaN;
+
+    public EnergyZeroCrossingVoiceActivityDetector(float frequenceEchantillonnage, double marge, double niveauMinimal,
+                                                   int tauxPassagesParZeroMin, int tauxPassagesParZeroMax) {
+        this.frequenceEchantillonnage = frequenceEchantillonnage;
+        this.marge = marge;
+        this.niveauMinimal = niveauMinimal;
+        this.tauxPassagesParZeroMin = tauxPassagesParZeroMin;
+        this.tauxPassagesParZeroMax = tauxPassagesParZeroMax;
+    }
+
+    @Override
+    public boolean isVoix(float[] echantillons) {
+        // Energie et passages par zéro en une seule passe
+        double energie = 0;
+        int passagesParZero = 0;
+        float precedent = echantillons[0];
+        for (float echantillon : echantillons) {
+            energie += echantillon * echantillon;
+            if ((echantillon >= 0) != (precedent >= 0)) {
+                passagesParZero++;
+            }
+            precedent = echantillon;
+        }
+        final double niveau = 10 * Math.log10(energie / echantillons.length + 1e-12);
+        final double tauxPassagesParZero = (double) passagesParZero * frequenceEchantillonnage / echantillons.length;
+
+        if (Double.isNaN(bruitDeFond)) {
+            bruitDeFond = niveau;
+        }
+
+        final boolean voix = niveau >= niveauMinimal && niveau > bruitDeFond + marge
+                || niveau > bruitDeFond + marge / 2
+                && tauxPassagesParZero >= tauxPassagesParZeroMin && tauxPassagesParZero <= tauxPassagesParZeroMax;
+
+        // Mise à jour du bruit de fond
+        if (niveau < bruitDeFond) {
+            bruitDeFond = niveau;
+        } else {
+            bruitDeFond += (niveau - bruitDeFond) * (voix ? ADAPTATION_BRUIT_DE_FOND_VOIX : ADAPTATION_BRUIT_DE_FOND);
+        }
+        return voix;
+    }
+}
@@ -0,0 +1,210 @@
+package fr.roboteek.robot.organes.capteurs;
+
+/**
+ * Détecteur d'activité vocale par trames, inspiré du VAD de WebRTC.
+ * Le flux est découpé en trames de 10 à 30 ms (indépendamment des blocs) et l'énergie de chaque trame est mesurée
+ * dans trois bandes de fréquences (fondamentale et premier formant, second formant, consonnes non voisées).
+ * Une trame contient de la voix si la somme de ses écarts au bruit de fond de chaque bande dépasse un seuil
+ * dépendant de l'agressivité ; les trames suivant une trame de voix sont encore considérées comme de la voix
+ * pendant une courte durée. Un bloc contient de la voix si une proportion suffisante de ses trames en contient.
+ *
+ * @author Nicolas Peltier (nico.peltier@gmail.com)
+ */
+public class FrameVoiceActivityDetector implements VoiceActivityDetector {
+
+    /**
+     * Bandes de fréquences analysées (Hz).
+     */
+    private static final double[][] BANDES = {{80, 1000}, {1000, 3000}, {3000, 8000}};
+
+    /**
+     * Somme des écarts au bruit de fond au-delà de laquelle une trame contient de la voix, selon l'agressivité (dB).
+     */
+    private static final double[] SEUILS = {6, 9, 12, 16};
+
+    /**
+     * Niveau minimal d'une trame contenant de la voix (dBFS).
+     */
+    private static final double NIVEAU_MINIMAL = -65;
+
+    /**
+     * Part de l'écart appliquée au bruit de fond à chaque trame sans voix plus forte que le bruit de fond.
+     */
+    private static final double ADAPTATION_BRUIT_DE_FOND = 0.02;
+
+    /**
+     * Part de l'écart appliquée au bruit de fond à chaque trame de voix.
+     */
+    private static final double ADAPTATION_BRUIT_DE_FOND_VOIX = 0.001;
+
+    /**
+     * Filtres passe-bande, un par bande.
+     */
+    private final FiltrePasseBande[] filtres = new FiltrePasseBande[BANDES.length];
+
+    /**
+     * Energie cumulée de la trame en cours, par bande.
+     */
+    private final double[] energiesTrame = new double[BANDES.length];
+
+    /**
+     * Niveau de la trame terminée, par bande (dBFS).
+     */
+    private final double[] niveaux = new double[BANDES.length];
+
+    /**
+     * Niveau estimé du bruit de fond par bande (dBFS), NaN tant qu'aucune trame n'a été traitée.
+     */
+    private final double[] bruitDeFond = new double[BANDES.length];
+
+    private final int tailleTrame;
+
+    private final double seuil;
+
+    private final int tramesMaintien;
+
+    private final double proportionVoix;
+
+    /**
+     * Nombre d'échantillons de la trame en cours.
+     */
+    private int echantillonsTrame = 0;
+
+    /**
+     * Energie totale cumulée de la trame en cours.
+     */
+    private double energieTrame = 0;
+
+    /**
+     * Nombre de trames restant à considérer comme de la voix après la dernière trame de voix.
+     */
+    private int maintienRestant = 0;
+
+    /**
+     * Décision du dernier bloc (utilisée si un bloc ne termine aucune trame).
+     */
+    private boolean derniereDecision = false;
+
+    public FrameVoiceActivityDetector(float frequenceEchantillonnage, int dureeTrameMillis, int agressivite,
+                                      int dureeMaintienMillis, double proportionVoix) {
+        if (dureeTrameMillis < 10 || dureeTrameMillis > 30) {
+            throw new IllegalArgumentException("Durée de trame hors de [10, 30] ms : " + dureeTrameMillis);
+        }
+        this.tailleTrame = (int) (frequenceEchantillonnage * dureeTrameMillis / 1000);
+        this.seuil = SEUILS[Math.max(0, Math.min(SEUILS.length - 1, agressivite))];
+        this.tramesMaintien = dureeMaintienMillis / dureeTrameMillis;
+        this.proportionVoix = proportionVoix;
+        for (int i = 0; i < BANDES.length; i++) {
+            // Les bandes sont limitées par la fréquence de Nyquist
+            final double frequenceMax = Math.min(BANDES[i][1], frequenceEchantillonnage * 0.45);
+            filtres[i] = new FiltrePasseBande(frequenceEchantillonnage, Math.min(BANDES[i][0], frequenceMax / 2), frequenceMax);
+            bruitDeFond[i] = Double.NaN;
+        }
+    }
+
+    @Override
+    public boolean isVoix(float[] echantillons) {
+        int trames = 0;
+        int tramesVoix = 0;
+        for (float echantillon : echantillons) {
+            energieTrame += echantillon * echantillon;
+            for (int i = 0; i < filtres.length; i++) {
+                final double filtre = filtres[i].filtrer(echantillon);
+                energiesTrame[i] += filtre * filtre;
+            }
+            if (++echantillonsTrame == tailleTrame) {
+                trames++;
+                if (traiterTrame()) {
+                    tramesVoix++;
+                }
+            }
+        }
+        if (trames > 0) {
+            derniereDecision = tramesVoix >= proportionVoix * trames;
+        }
+        return derniereDecision;
+    }
+
+    /**
+     * Décide si la trame terminée contient de la voix, met à jour le bruit de fond et réinitialise la trame.
+     *
+     * @return true si la trame contient de la voix
+     */
+    private boolean traiterTrame() {
+        final double niveau = niveau(energieTrame);
+        double ecarts = 0;
+        for (int i = 0; i < energiesTrame.length; i++) {
+            niveaux[i] = niveau(energiesTrame[i]);
+            if (Double.isNaN(bruitDeFond[i])) {
+                bruitDeFond[i] = niveaux[i];
+            }
+            ecarts += Math.max(0, niveaux[i] - bruitDeFond[i]);
+        }
+
+        final boolean voixDetectee = niveau >= NIVEAU_MINIMAL && ecarts > seuil;
+
+        // Mise à jour du bruit de fond de chaque bande
+        for (int i = 0; i < niveaux.length; i++) {
+            if (niveaux[i] < bruitDeFond[i]) {
+                bruitDeFond[i] = niveaux[i];
+            } else {
+                bruitDeFond[i] += (niveaux[i] - bruitDeFond[i]) * (voixDetectee ? ADAPTATION_BRUIT_DE_FOND_VOIX : ADAPTATION_BRUIT_DE_FOND);
+            }
+            energiesTrame[i] = 0;
+        }
+        energieTrame = 0;
+        echantillonsTrame = 0;
+
+        // Maintien après une trame de voix
+        if (voixDetectee) {
+            maintienRestant = tramesMaintien;
+            return true;
+        }
+        if (maintienRestant > 0) {
+            maintienRestant--;
+            return true;
+        }
+        return false;
+    }
+
+    private double niveau(double energie) {
+        return 10 * Math.log10(energie / tailleTrame + 1e-12);
+    }
+
+    /**
+     * Filtre passe-bande biquadratique (gain unitaire au centre de la bande).
+     */
+    private static class FiltrePasseBande {
+
+        private final double b0;
+        private final double b2;
+        private final double a1;
+        private final double a2;
+
+        private double x1;
+        private double x2;
+        private double y1;
+        private double y2;
+
+        private FiltrePasseBande(double frequenceEchantillonnage, double frequenceBasse, double frequenceHaute) {
+            final double frequenceCentrale = Math.sqrt(frequenceBasse * frequenceHaute);
+            final double facteurQualite = frequenceCentrale / (frequenceHaute - frequenceBasse);
+            final double w0 = 2 * Math.PI * frequenceCentrale / frequenceEchantillonnage;
+            final double alpha = Math.sin(w0) / (2 * facteurQualite);
+            final double a0 = 1 + alpha;
+            b0 = alpha / a0;
+            b2 = -alpha / a0;
+            a1 = -2 * Math.cos(w0) / a0;
+            a2 = (1 - alpha) / a0;
+        }
+
+        private double filtrer(double x) {
+            final double y = b0 * x + b2 * x2 - a1 * y1 - a2 * y2;
+            x2 = x1;
+            x1 = x;
+            y2 = y1;
+            y1 = y;
+            return y;
+        }
+    }
+}
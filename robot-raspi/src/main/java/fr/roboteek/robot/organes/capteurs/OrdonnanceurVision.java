@@ -0,0 +1,176 @@
+package fr.roboteek.robot.organes.capteurs;
+
+import fr.roboteek.robot.configuration.vision.VisionSchedulerConfig;
+
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+import static fr.roboteek.robot.configuration.Configurations.visionSchedulerConfig;
+
+/**
+ * Ordonnanceur des analyses d'image : calcule, pour chaque modèle, l'intervalle entre deux exécutions à partir de
+ * la latence mesurée du modèle, de la charge processeur et du mouvement dans la scène.
+ * <ul>
+ * <li>mouvement : l'intervalle varie entre le maximum (scène immobile) et le minimum (mouvement au-delà du seuil) ;</li>
+ * <li>charge processeur : au-delà de la charge cible, l'intervalle est allongé proportionnellement (sans dépasser
+ * le maximum) ;</li>
+ * <li>latence : l'intervalle n'est jamais inférieur à la latence moyenne divisée par la part maximale du temps
+ * qu'un modèle peut occuper.</li>
+ * </ul>
+ * Une hausse du mouvement réveille immédiatement les analyses en attente.
+ *
+ * @author Nicolas Peltier (nico.peltier@gmail.com)
+ */
+public class OrdonnanceurVision {
+
+    /**
+     * Modèles d'analyse ordonnancés.
+     */
+    public enum Modele {
+        DETECTION_VISAGES(VisionSchedulerConfig::faceDetectionMinInterval, VisionSchedulerConfig::faceDetectionMaxInterval),
+        RECONNAISSANCE_VISAGES(VisionSchedulerConfig::faceRecognitionMinInterval, VisionSchedulerConfig::faceRecognitionMaxInterval),
+        DETECTION_OBJETS(VisionSchedulerConfig::objectDetectionMinInterval, VisionSchedulerConfig::objectDetectionMaxInterval);
+
+        private final ToIntFunction<VisionSchedulerConfig> intervalleMin;
+
+        private final ToIntFunction<VisionSchedulerConfig> intervalleMax;
+
+        Modele(ToIntFunction<VisionSchedulerConfig> intervalleMin, ToIntFunction<VisionSchedulerConfig> intervalleMax) {
+            this.intervalleMin = intervalleMin;
+            this.intervalleMax = intervalleMax;
+        }
+    }
+
+    /**
+     * Poids d'une nouvelle mesure dans la latence moyenne (moyenne mobile exponentielle).
+     */
+    private static final double POIDS_LATENCE = 0.2;
+
+    /**
+     * Durée de validité de la mesure de la charge processeur (nanosecondes).
+     */
+    private static final long VALIDITE_CHARGE_CPU = 500_000_000L;
+
+    private final VisionSchedulerConfig config = visionSchedulerConfig();
+
+    private final com.sun.management.OperatingSystemMXBean systeme =
+            (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+
+    /**
+     * Latence moyenne de chaque modèle (nanosecondes).
+     */
+    private final Map<Modele, Double> latences = new EnumMap<>(Modele.class);
+
+    /**
+     * Début de la dernière exécution de chaque modèle (nanosecondes).
+     */
+    private final Map<Modele, Long> dernieresExecutions = new EnumMap<>(Modele.class);
+
+    /**
+     * Niveau de mouvement courant (entre 0 et 1).
+     */
+    private float mouvement;
+
+    private double chargeCpu;
+
+    private long dateChargeCpu = System.nanoTime() - VALIDITE_CHARGE_CPU;
+
+    /**
+     * Met à jour le niveau de mouvement de la scène (appelé à chaque image par le thread de capture).
+     *
+     * @param niveau le niveau de mouvement (différence moyenne de luminance, entre 0 et 1)
+     */
+    public synchronized void mettreAJourMouvement(float niveau) {
+        final boolean hausse = niveau > mouvement;
+        mouvement = niveau;
+        if (hausse) {
+            // Les intervalles raccourcissent : les analyses en attente recalculent leur échéance
+            notifyAll();
+        }
+    }
+
+    /**
+     * Attend l'échéance de la prochaine exécution d'un modèle.
+     *
+     * @param modele le modèle
+     * @throws InterruptedException si l'attente est interrompue
+     */
+    public synchronized void attendre(Modele modele) throws InterruptedException {
+        long attente;
+        while ((attente = getAttente(modele)) > 0) {
+            wait(Math.max(1, attente / 1_000_000L));
+        }
+    }
+
+    /**
+     * Indique si l'échéance de la prochaine exécution d'un modèle est atteinte.
+     *
+     * @param modele le modèle
+     * @return true si le modèle peut être exécuté
+     */
+    public synchronized boolean isEcheanceAtteinte(Modele modele) {
+        return getAttente(modele) <= 0;
+    }
+
+    /**
+     * Enregistre une exécution d'un modèle.
+     *
+     * @param modele le modèle
+     * @param debut  le début de l'exécution ({@link System#nanoTime()})
+     * @param duree  la durée de l'exécution (nanosecondes)
+     */
+    public synchronized void enregistrer(Modele modele, long debut, long duree) {
+        dernieresExecutions.put(modele, debut);
+        latences.merge(modele, (double) duree, (ancienne, mesure) -> ancienne + POIDS_LATENCE * (mesure - ancienne));
+    }
+
+    /**
+     * Calcule l'intervalle courant entre deux exécutions d'un modèle.
+     *
+     * @param modele le modèle
+     * @return l'intervalle (nanosecondes)
+     */
+    public synchronized long getIntervalle(Modele modele) {
+        final double intervalleMin = modele.intervalleMin.applyAsInt(config) * 1_000_000.0;
+        final double intervalleMax = Math.max(intervalleMin, modele.intervalleMax.applyAsInt(config) * 1_000_000.0);
+
+        // Mouvement
+        final double activite = Math.min(1, mouvement / Math.max(1e-6f, config.motionThreshold()));
+        double intervalle = intervalleMax - (intervalleMax - intervalleMin) * activite;
+
+        // Charge processeur
+        final double chargeCpu = getChargeCpu();
+        final double chargeCible = config.cpuTarget();
+        if (chargeCpu > chargeCible && chargeCible > 0) {
+            intervalle = Math.min(intervalleMax, intervalle * chargeCpu / chargeCible);
+        }
+
+        // Latence
+        final Double latence = latences.get(modele);
+        if (latence != null) {
+            intervalle = Math.max(intervalle, latence / Math.max(0.01f, config.maxBusyRatio()));
+        }
+        return (long) intervalle;
+    }
+
+    private long getAttente(Modele modele) {
+        final Long derniereExecution = dernieresExecutions.get(modele);
+        if (derniereExecution == null) {
+            return 0;
+        }
+        return derniereExecution + getIntervalle(modele) - System.nanoTime();
+    }
+
+    private double getChargeCpu() {
+        final long maintenant = System.nanoTime();
+        if (maintenant - dateChargeCpu >= VALIDITE_CHARGE_CPU) {
+            final double charge = systeme.getSystemCpuLoad();
+            // Valeur négative si la mesure n'est pas disponible
+            chargeCpu = charge < 0 ? 0 : charge;
+            dateChargeCpu = maintenant;
+        }
+        return chargeCpu;
+    }
+}
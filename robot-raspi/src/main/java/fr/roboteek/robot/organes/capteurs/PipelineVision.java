@@ -0,0 +1,223 @@
+package fr.roboteek.robot.organes.capteurs;
+
+import fr.roboteek.robot.memoire.DetectedObject;
+import fr.roboteek.robot.memoire.FacialRecognitionResponse;
+import fr.roboteek.robot.memoire.ObjectDetectionResponse;
+import fr.roboteek.robot.memoire.Piste;
+import fr.roboteek.robot.memoire.RecognizedFace;
+import fr.roboteek.robot.memoire.SuiviPistes;
+import fr.roboteek.robot.memoire.VisionEngine;
+import fr.roboteek.robot.organes.capteurs.OrdonnanceurVision.Modele;
+import fr.roboteek.robot.systemenerveux.event.RobotEventBus;
+import fr.roboteek.robot.systemenerveux.event.VideoEvent;
+import fr.roboteek.robot.util.video.LatestFrameSlot;
+import fr.roboteek.robot.util.video.MotionEstimator;
+import fr.roboteek.robot.util.video.VideoFrame;
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Pipeline d'analyse des images de la caméra, découplé du thread de capture.
+ * <ul>
+ * <li>la capture dépose ses images dans un emplacement qui ne conserve que la dernière (sans copie : l'image est
+ * partagée par référence et rendue à la réserve de la capture après la dernière analyse) et n'attend jamais les
+ * analyses ;</li>
+ * <li>l'analyse des visages et celle des objets tournent chacune dans son thread, au rythme fixé par l'ordonnanceur
+ * (latence des modèles, charge processeur, mouvement dans la scène), en prenant à chaque fois une image capturée
+ * après l'échéance ;</li>
+ * <li>les visages et les objets détectés sont suivis d'une analyse à l'autre (pistes d'identifiant stable) ; la
+ * reconnaissance faciale n'est exécutée qu'une fois par piste, dès son apparition (puis à l'échéance de
+ * l'ordonnanceur pour les visages restés inconnus, y compris ceux absents des résultats de la reconnaissance), le
+ * nom reconnu restant attaché à la piste ;</li>
+ * <li>à chaque nouveau résultat, un évènement vidéo est publié avec les derniers résultats de chaque analyse et
+ * l'index de l'image dont ils sont issus.</li>
+ * </ul>
+ *
+ * @author Nicolas Peltier (nico.peltier@gmail.com)
+ */
+public class PipelineVision {
+
+    private final VisionEngine moteurVision;
+
+    /**
+     * Dernière image capturée.
+     */
+    private final LatestFrameSlot<VideoFrame> derniereImage = new LatestFrameSlot<>(VideoFrame::retain, VideoFrame::release);
+
+    /**
+     * Estimation du mouvement dans la scène (thread de capture).
+     */
+    private final MotionEstimator estimateurMouvement = new MotionEstimator();
+
+    private final OrdonnanceurVision ordonnanceur = new OrdonnanceurVision();
+
+    private final List<Thread> analyses = new ArrayList<>();
+
+    /**
+     * Suivi des visages (thread d'analyse des visages uniquement).
+     */
+    private final SuiviPistes<RecognizedFace> suiviVisages = new SuiviPistes<>(RecognizedFace::new, false);
+
+    /**
+     * Suivi des objets (thread d'analyse des objets uniquement), une piste ne changeant pas de classe d'objet.
+     */
+    private final SuiviPistes<DetectedObject> suiviObjets = new SuiviPistes<>(DetectedObject::new, true);
+
+    /**
+     * Derniers résultats publiés, et index des images dont ils sont issus.
+     */
+    private List<RecognizedFace> visages;
+    private long indexImageVisages = -1;
+    private List<DetectedObject> objets;
+    private long indexImageObjets = -1;
+
+    private final Logger logger = Logger.getLogger(PipelineVision.class);
+
+    public PipelineVision(VisionEngine moteurVision) {
+        this.moteurVision = moteurVision;
+        analyses.add(creerAnalyse("Vision - Visages", Modele.DETECTION_VISAGES, this::analyserVisages));
+        analyses.add(creerAnalyse("Vision - Objets", Modele.DETECTION_OBJETS, this::analyserObjets));
+    }
+
+    public void demarrer() {
+        analyses.forEach(Thread::start);
+    }
+
+    public void arreter() {
+        analyses.forEach(Thread::interrupt);
+    }
+
+    /**
+     * Soumet une image capturée (appelé par le thread de capture, ne bloque jamais).
+     * Le mouvement est estimé sur chaque image ; l'image n'est transmise que si une analyse l'attend.
+     *
+     * @param image l'image (le pipeline prend ses propres références)
+     */
+    public void soumettre(VideoFrame image) {
+        ordonnanceur.mettreAJourMouvement(estimateurMouvement.update(image));
+        if (derniereImage.isRequested()) {
+            derniereImage.offer(image, image.getIndex());
+        }
+    }
+
+    /**
+     * Crée le thread d'une analyse.
+     *
+     * @param nom        le nom du thread
+     * @param rythme     le modèle dont l'échéance déclenche l'analyse
+     * @param traitement le traitement d'une image
+     */
+    private Thread creerAnalyse(String nom, Modele rythme, Consumer<LatestFrameSlot.Frame<VideoFrame>> traitement) {
+        final Thread thread = new Thread(nom) {
+            @Override
+            public void run() {
+                while (!isInterrupted()) {
+                    final LatestFrameSlot.Frame<VideoFrame> image;
+                    try {
+                        ordonnanceur.attendre(rythme);
+                        image = derniereImage.take();
+                    } catch (InterruptedException e) {
+                        break;
+                    }
+                    try {
+                        traitement.accept(image);
+                    } catch (RuntimeException e) {
+                        logger.error("Erreur lors de l'analyse de l'image " + image.getIndex(), e);
+                    } finally {
+                        image.getImage().release();
+                    }
+                }
+            }
+        };
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private void analyserVisages(LatestFrameSlot.Frame<VideoFrame> image) {
+        final VideoFrame frame = image.getImage();
+        final FacialRecognitionResponse detection = executer(Modele.DETECTION_VISAGES, () -> moteurVision.detectFaces(frame));
+        if (detection == null) {
+            // Erreur déjà signalée par le transport : les pistes sont conservées en l'état
+            return;
+        }
+        final List<Piste<RecognizedFace>> pistes = suiviVisages.mettreAJour(detection.getFaces(), image.getTimestamp());
+
+        // Reconnaissance faciale pour les nouvelles pistes, et à l'échéance pour les visages restés inconnus
+        final boolean nouvellePiste = pistes.stream().anyMatch(piste -> piste.isDetectee() && !piste.isReconnue());
+        final boolean visageInconnu = pistes.stream().anyMatch(piste -> piste.isDetectee() && !piste.isIdentifiee());
+        if (nouvellePiste || (visageInconnu && ordonnanceur.isEcheanceAtteinte(Modele.RECONNAISSANCE_VISAGES))) {
+            final FacialRecognitionResponse reconnaissance = executer(Modele.RECONNAISSANCE_VISAGES, () -> moteurVision.recognizeFaces(frame));
+            if (reconnaissance != null && reconnaissance.getFaces() != null) {
+                for (RecognizedFace visage : reconnaissance.getFaces()) {
+                    final Piste<RecognizedFace> piste = suiviVisages.getPiste(visage);
+                    if (piste != null && !piste.isIdentifiee()) {
+                        piste.setNom(visage.getName() != null ? visage.getName() : "");
+                    }
+                }
+            }
+            // Pistes absentes des résultats (ou reconnaissance en erreur) : visages inconnus, la reconnaissance
+            // n'étant retentée qu'à l'échéance de l'ordonnanceur
+            for (Piste<RecognizedFace> piste : pistes) {
+                if (piste.isDetectee() && !piste.isReconnue()) {
+                    piste.setNom("");
+                }
+            }
+        }
+        publier(suiviVisages.getObjets(image.getTimestamp()), image.getIndex(), null, -1);
+    }
+
+    private void analyserObjets(LatestFrameSlot.Frame<VideoFrame> image) {
+        final ObjectDetectionResponse detection = executer(Modele.DETECTION_OBJETS, () -> moteurVision.detectObjects(image.getImage()));
+        if (detection == null) {
+            return;
+        }
+        suiviObjets.mettreAJour(detection.getObjects(), image.getTimestamp());
+        publier(null, -1, suiviObjets.getObjets(image.getTimestamp()), image.getIndex());
+    }
+
+    /**
+     * Exécute un modèle et enregistre sa latence auprès de l'ordonnanceur.
+     */
+    private <T> T executer(Modele modele, Supplier<T> analyse) {
+        final long debut = System.nanoTime();
+        try {
+            return analyse.get();
+        } finally {
+            ordonnanceur.enregistrer(modele, debut, System.nanoTime() - debut);
+        }
+    }
+
+    /**
+     * Fusionne un nouveau résultat avec le dernier résultat de l'autre analyse et publie l'évènement vidéo.
+     * Un index négatif indique que le résultat correspondant est inchangé.
+     */
+    private void publier(List<RecognizedFace> nouveauxVisages, long indexVisages,
+                         List<DetectedObject> nouveauxObjets, long indexObjets) {
+        final VideoEvent videoEvent = new VideoEvent();
+        synchronized (this) {
+            if (indexVisages >= 0) {
+                visages = nouveauxVisages;
+                indexImageVisages = indexVisages;
+            }
+            if (indexObjets >= 0) {
+                objets = nouveauxObjets;
+                indexImageObjets = indexObjets;
+            }
+            videoEvent.setFaceFrameIndex(indexImageVisages);
+            videoEvent.setObjectFrameIndex(indexImageObjets);
+            if (visages != null && !visages.isEmpty()) {
+                videoEvent.setFaceFound(true);
+                videoEvent.setFaces(visages);
+            }
+            if (objets != null && !objets.isEmpty()) {
+                videoEvent.setObjectFound(true);
+                videoEvent.setObjects(objets);
+            }
+        }
+        RobotEventBus.getInstance().publishAsync(videoEvent);
+    }
+}
@@ -0,0 +1,39 @@
+package fr.roboteek.robot.organes.capteurs;
+
+import be.tarsos.dsp.SilenceDetector;
+import be.tarsos.dsp.pitch.Yin;
+
+/**
+ * Détecteur d'activité vocale par hauteur : un bloc contient de la voix s'il n'est pas un silence et qu'une
+ * fréquence fondamentale y est détectée (algorithme YIN).
+ * Ne détecte pas les consonnes non voisées (s, f, ch...) et l'algorithme YIN est coûteux : il n'est exécuté que
+ * sur les blocs qui ne sont pas des silences.
+ *
+ * @author Nicolas Peltier (nico.peltier@gmail.com)
+ */
+public class PitchVoiceActivityDetector implements VoiceActivityDetector {
+
+    private final SilenceDetector silenceDetector = new SilenceDetector();
+
+    private final Yin yin;
+
+    /**
+     * Niveau sonore en dessous duquel un bloc est un silence (dB).
+     */
+    private final double seuilSilence;
+
+    public PitchVoiceActivityDetector(float frequenceEchantillonnage, int tailleBloc, double seuilSilence) {
+        this.yin = new Yin(frequenceEchantillonnage, tailleBloc);
+        this.seuilSilence = seuilSilence;
+    }
+
+    @Override
+    public boolean isVoix(float[] echantillons) {
+        // Si le bloc correspond à un silence (volume en deçà d'un certain seuil), inutile de rechercher la fréquence
+        if (silenceDetector.isSilence(echantillons, seuilSilence)) {
+            return false;
+        }
+        // Si une fréquence est détectée : bloc contenant de la voix (parlé)
+        return yin.getPitch(echantillons).getPitch() > 0;
+    }
+}
@@ -0,0 +1,45 @@
+package fr.roboteek.robot.organes.capteurs;
+
+import fr.roboteek.robot.configuration.audio.VoiceActivityDetectorConfig;
+
+import java.util.Locale;
+
+/**
+ * Détecteur d'activité vocale : indique si un bloc audio contient de la voix.
+ * Un détecteur conserve un état (bruit de fond, filtres...) : il traite les blocs d'un seul flux, dans l'ordre.
+ *
+ * @author Nicolas Peltier (nico.peltier@gmail.com)
+ */
+public interface VoiceActivityDetector {
+
+    /**
+     * Indique si un bloc audio contient de la voix.
+     *
+     * @param echantillons les échantillons du bloc (entre -1 et 1)
+     * @return true si le bloc contient de la voix
+     */
+    boolean isVoix(float[] echantillons);
+
+    /**
+     * Crée le détecteur d'activité vocale choisi dans la configuration.
+     *
+     * @param config                   la configuration
+     * @param frequenceEchantillonnage la fréquence d'échantillonnage du flux
+     * @param tailleBloc               le nombre d'échantillons d'un bloc
+     * @return le détecteur
+     */
+    static VoiceActivityDetector creer(VoiceActivityDetectorConfig config, float frequenceEchantillonnage, int tailleBloc) {
+        switch (config.type().trim().toUpperCase(Locale.ROOT)) {
+            case "ENERGY_ZCR":
+                return new EnergyZeroCrossingVoiceActivityDetector(frequenceEchantillonnage,
+                        config.energyMarginDb(), config.energyMinDb(), config.energyZcrMinHz(), config.energyZcrMaxHz());
+            case "FRAMES":
+                return new FrameVoiceActivityDetector(frequenceEchantillonnage, config.framesDurationMillis(),
+                        config.framesAggressiveness(), config.framesHangoverMillis(), config.framesSpeechRatio());
+            case "PITCH":
+                return new PitchVoiceActivityDetector(frequenceEchantillonnage, tailleBloc, config.pitchSilenceThresholdDb());
+            default:
+                throw new IllegalArgumentException("Détecteur d'activité vocale inconnu : " + config.type());
+        }
+    }
+}
@@ -2,6 +2,7 @@ package fr.roboteek.robot.spring.server.config;
 
 import fr.roboteek.robot.spring.server.controller.RobotEventMessageConverter;
 import fr.roboteek.robot.spring.server.websocket.WebsocketBroadcaster;
+import fr.roboteek.robot.spring.server.websocket.WebsocketSubscriptions;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.converter.MessageConverter;
@@ -39,8 +40,13 @@ public class WebSocketBrokerConfig implements WebSocketMessageBrokerConfigurer {
         return true;
     }
 
+    @Bean
+    public WebsocketSubscriptions websocketSubscriptions() {
+        return new WebsocketSubscriptions();
+    }
+
     @Bean(name = "websocketBroadcaster")
-    public WebsocketBroadcaster websocketBroadcaster(SimpMessagingTemplate simpMessagingTemplate) {
-        return new WebsocketBroadcaster(simpMessagingTemplate);
+    public WebsocketBroadcaster websocketBroadcaster(SimpMessagingTemplate simpMessagingTemplate, WebsocketSubscriptions websocketSubscriptions) {
+        return new WebsocketBroadcaster(simpMessagingTemplate, websocketSubscriptions);
     }
 }
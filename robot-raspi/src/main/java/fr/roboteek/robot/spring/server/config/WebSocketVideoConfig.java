@@ -0,0 +1,22 @@
+package fr.roboteek.robot.spring.server.config;
+
+import fr.roboteek.robot.spring.server.websocket.VideoStreamHandler;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+@Configuration
+public class WebSocketVideoConfig implements WebSocketConfigurer {
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        // Endpoint du flux vidéo binaire (une image JPEG par message)
+        registry.addHandler(videoStreamHandler(), "/video-stream").setAllowedOrigins("*");
+    }
+
+    @Bean
+    public VideoStreamHandler videoStreamHandler() {
+        return new VideoStreamHandler();
+    }
+}
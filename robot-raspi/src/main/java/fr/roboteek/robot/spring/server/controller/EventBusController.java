@@ -0,0 +1,22 @@
+package fr.roboteek.robot.spring.server.controller;
+
+import fr.roboteek.robot.systemenerveux.event.EventLaneStatistics;
+import fr.roboteek.robot.systemenerveux.event.RobotEventBus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Exposes the event bus statistics (queue depth, drops and dispatch latency per lane).
+ */
+@RestController
+@RequestMapping("event-bus")
+public class EventBusController {
+
+    @GetMapping("lanes")
+    public List<EventLaneStatistics> findLaneStatistics() {
+        return RobotEventBus.getInstance().getLaneStatistics();
+    }
+}
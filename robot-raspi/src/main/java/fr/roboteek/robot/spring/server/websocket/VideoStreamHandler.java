@@ -0,0 +1,241 @@
+package fr.roboteek.robot.spring.server.websocket;
+
+import fr.roboteek.robot.configuration.video.VideoStreamConfig;
+import fr.roboteek.robot.util.video.JpegEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.BinaryWebSocketHandler;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static fr.roboteek.robot.configuration.Configurations.videoStreamConfig;
+
+/**
+ * Diffusion du flux vidéo en trames binaires (une image JPEG par message) sur un Websocket dédié.
+ * Chaque client choisit sa cadence (paramètre "fps" de l'URL, plafonné par la configuration) ; sa qualité JPEG
+ * est adaptée à son débit : elle baisse quand l'envoi d'une image prend trop de temps ou qu'une image doit être
+ * sautée car la précédente n'est pas encore partie, et remonte doucement quand les envois sont rapides.
+ * Chaque image n'est encodée qu'une fois par niveau de qualité utilisé, et uniquement si un client l'attend.
+ * Les métadonnées (visages, objets) restent diffusées séparément sur la destination STOMP "/video".
+ *
+ * @author Nicolas Peltier (nico.peltier@gmail.com)
+ */
+public class VideoStreamHandler extends BinaryWebSocketHandler {
+
+    /**
+     * Pas des niveaux de qualité (les clients de qualité proche partagent le même encodage).
+     */
+    private static final float PAS_QUALITE = 0.05f;
+
+    /**
+     * Nombre d'envois rapides consécutifs avant d'augmenter la qualité.
+     */
+    private static final int ENVOIS_RAPIDES_AVANT_HAUSSE = 10;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(VideoStreamHandler.class);
+
+    private final Map<String, ClientVideo> clients = new ConcurrentHashMap<>();
+
+    /**
+     * Threads d'envoi (un envoi au plus en cours par client).
+     */
+    private final ExecutorService executeurEnvois = Executors.newCachedThreadPool(runnable -> {
+        final Thread thread = new Thread(runnable, "Video stream");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Encodeur JPEG (utilisé uniquement par le thread de capture).
+     */
+    private final JpegEncoder jpegEncoder = new JpegEncoder();
+
+    private final VideoStreamConfig videoStreamConfig = videoStreamConfig();
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        int fps = videoStreamConfig.fps();
+        if (session.getUri() != null) {
+            final String fpsDemande = UriComponentsBuilder.fromUri(session.getUri()).build().getQueryParams().getFirst("fps");
+            if (fpsDemande != null) {
+                try {
+                    fps = Integer.parseInt(fpsDemande);
+                } catch (NumberFormatException e) {
+                    LOGGER.warn("Cadence demandée invalide : {}", fpsDemande);
+                }
+            }
+        }
+        fps = Math.max(1, Math.min(fps, videoStreamConfig.maxFps()));
+        clients.put(session.getId(), new ClientVideo(session, fps, videoStreamConfig.quality()));
+        LOGGER.info("Client vidéo connecté : {} ({} images/s)", session.getId(), fps);
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        clients.remove(session.getId());
+        LOGGER.info("Client vidéo déconnecté : {}", session.getId());
+    }
+
+    /**
+     * Indique si un client attend une image (permet au capteur de ne préparer l'image que si elle sera envoyée).
+     *
+     * @return true si au moins un client attend une image
+     */
+    public boolean isImageAttendue() {
+        if (clients.isEmpty()) {
+            return false;
+        }
+        final long maintenant = System.nanoTime();
+        for (ClientVideo client : clients.values()) {
+            if (client.isImageAttendue(maintenant)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Diffuse une image aux clients qui l'attendent. L'encodage est effectué par le thread appelant (l'image peut
+     * être réutilisée au retour), les envois par des threads dédiés.
+     *
+     * @param image l'image
+     */
+    public void diffuser(BufferedImage image) {
+        final long maintenant = System.nanoTime();
+        final Map<Float, byte[]> encodages = new HashMap<>();
+        for (ClientVideo client : clients.values()) {
+            if (!client.reserver(maintenant)) {
+                continue;
+            }
+            final float qualite = client.qualite;
+            byte[] jpeg = encodages.get(qualite);
+            if (jpeg == null) {
+                try {
+                    jpeg = jpegEncoder.encode(image, qualite);
+                } catch (IOException e) {
+                    // Seul ce client manque l'image, les suivants sont servis normalement
+                    LOGGER.error("Erreur lors de l'encodage de l'image pour le client {}", client.session.getId(), e);
+                    client.envoiEnCours = false;
+                    continue;
+                }
+                encodages.put(qualite, jpeg);
+            }
+            final byte[] contenu = jpeg;
+            executeurEnvois.execute(() -> client.envoyer(contenu));
+        }
+    }
+
+    /**
+     * Client du flux vidéo.
+     */
+    private class ClientVideo {
+
+        private final WebSocketSession session;
+
+        /**
+         * Intervalle entre deux images (nanosecondes).
+         */
+        private final long intervalle;
+
+        /**
+         * Qualité JPEG courante (multiple de PAS_QUALITE).
+         */
+        private volatile float qualite;
+
+        /**
+         * Date à partir de laquelle le client attend la prochaine image (nanosecondes).
+         */
+        private volatile long prochaineImage;
+
+        private volatile boolean envoiEnCours;
+
+        /**
+         * Nombre d'envois rapides consécutifs (remis à zéro aussi par le thread de capture lorsqu'une image est sautée).
+         */
+        private final AtomicInteger envoisRapides = new AtomicInteger();
+
+        private ClientVideo(WebSocketSession session, int fps, float qualite) {
+            this.session = session;
+            this.intervalle = 1_000_000_000L / fps;
+            this.qualite = arrondir(qualite);
+            this.prochaineImage = System.nanoTime();
+        }
+
+        private boolean isImageAttendue(long maintenant) {
+            return !envoiEnCours && maintenant >= prochaineImage;
+        }
+
+        /**
+         * Réserve l'envoi de l'image courante si le client l'attend (thread de capture uniquement).
+         *
+         * @return true si l'image doit être envoyée au client
+         */
+        private boolean reserver(long maintenant) {
+            if (maintenant < prochaineImage) {
+                return false;
+            }
+            // Image suivante au plus tôt un intervalle plus tard (sans rattrapage des images sautées)
+            prochaineImage = Math.max(prochaineImage + intervalle, maintenant - intervalle / 2);
+            if (envoiEnCours) {
+                // L'image précédente n'est pas encore partie : l'image est sautée et la qualité baisse
+                baisserQualite();
+                return false;
+            }
+            envoiEnCours = true;
+            return true;
+        }
+
+        private void envoyer(byte[] jpeg) {
+            final long debut = System.nanoTime();
+            try {
+                if (session.isOpen()) {
+                    session.sendMessage(new BinaryMessage(jpeg));
+                }
+            } catch (IOException | IllegalStateException e) {
+                LOGGER.warn("Erreur lors de l'envoi d'une image au client {} : {}", session.getId(), e.getMessage());
+                fermer();
+            } finally {
+                final long duree = System.nanoTime() - debut;
+                if (duree > intervalle / 2) {
+                    baisserQualite();
+                } else if (duree < intervalle / 5 && envoisRapides.incrementAndGet() >= ENVOIS_RAPIDES_AVANT_HAUSSE) {
+                    envoisRapides.set(0);
+                    qualite = Math.min(arrondir(videoStreamConfig.maxQuality()), arrondir(qualite + PAS_QUALITE));
+                }
+                envoiEnCours = false;
+            }
+        }
+
+        /**
+         * Retire le client de la diffusion et ferme sa session (les autres clients ne sont pas affectés).
+         */
+        private void fermer() {
+            clients.remove(session.getId(), this);
+            try {
+                session.close(CloseStatus.SESSION_NOT_RELIABLE);
+            } catch (IOException e) {
+                LOGGER.debug("Erreur lors de la fermeture de la session {} : {}", session.getId(), e.getMessage());
+            }
+        }
+
+        private void baisserQualite() {
+            envoisRapides.set(0);
+            qualite = Math.max(arrondir(videoStreamConfig.minQuality()), arrondir(qualite - 2 * PAS_QUALITE));
+        }
+
+        private float arrondir(float valeur) {
+            return Math.round(valeur / PAS_QUALITE) * PAS_QUALITE;
+        }
+    }
+}
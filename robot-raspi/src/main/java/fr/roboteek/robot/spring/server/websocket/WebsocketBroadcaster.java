@@ -2,32 +2,81 @@ package fr.roboteek.robot.spring.server.websocket;
 
 import com.google.common.eventbus.Subscribe;
 import fr.roboteek.robot.systemenerveux.event.AudioEvent;
+import fr.roboteek.robot.systemenerveux.event.Conflated;
+import fr.roboteek.robot.systemenerveux.event.EventFilter;
 import fr.roboteek.robot.systemenerveux.event.RobotEvent;
 import fr.roboteek.robot.systemenerveux.event.RobotEventBus;
 import fr.roboteek.robot.systemenerveux.event.VideoEvent;
+import org.springframework.messaging.MessageHeaders;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.Collections;
+import java.util.Map;
 
 public class WebsocketBroadcaster {
 
+    /**
+     * Destination des blocs audio (moniteur audio).
+     */
+    public static final String DESTINATION_AUDIO = "/audio";
+
+    /**
+     * Entêtes des messages binaires.
+     */
+    private static final Map<String, Object> ENTETES_BINAIRES =
+            Collections.singletonMap(MessageHeaders.CONTENT_TYPE, MimeTypeUtils.APPLICATION_OCTET_STREAM);
+
     /**
      * Template permmettant l'envoi de messages dans le Websocket.
      */
     private SimpMessagingTemplate simpMessagingTemplate;
 
-    public WebsocketBroadcaster(SimpMessagingTemplate simpMessagingTemplate) {
+    /**
+     * Abonnements des clients du Websocket.
+     */
+    private WebsocketSubscriptions websocketSubscriptions;
+
+    public WebsocketBroadcaster(SimpMessagingTemplate simpMessagingTemplate, WebsocketSubscriptions websocketSubscriptions) {
         this.simpMessagingTemplate = simpMessagingTemplate;
+        this.websocketSubscriptions = websocketSubscriptions;
         RobotEventBus.getInstance().subscribe(this);
     }
 
+    /**
+     * Indique si au moins un client du Websocket écoute une destination (permet aux capteurs de ne produire les
+     * évènements destinés au Websocket que s'ils sont écoutés).
+     *
+     * @param destination la destination (ex : {@link #DESTINATION_AUDIO})
+     * @return true si la destination est écoutée
+     */
+    public boolean isEcoutee(String destination) {
+        return websocketSubscriptions.isEcoutee(destination);
+    }
+
+    /**
+     * Diffuse les images : si la diffusion prend du retard, seule la plus récente est envoyée.
+     */
     @Subscribe
-    public void handleRobotEvent(RobotEvent robotEvent) {
-        if (robotEvent instanceof VideoEvent) {
-            simpMessagingTemplate.convertAndSend("/video", robotEvent);
-        } else if (robotEvent instanceof AudioEvent) {
-            simpMessagingTemplate.convertAndSend("/audio", robotEvent);
-        } else {
-            simpMessagingTemplate.convertAndSend("/events/" + robotEvent.getEventType(), robotEvent);
+    @Conflated
+    public void handleVideoEvent(VideoEvent videoEvent) {
+        simpMessagingTemplate.convertAndSend("/video", videoEvent);
+    }
+
+    /**
+     * Diffuse les blocs audio en trames binaires (fichiers WAV). Chaque bloc est un morceau contigu du flux : aucun
+     * n'est remplacé par un plus récent (pas d'abonnement "dernière valeur").
+     */
+    @Subscribe
+    public void handleAudioEvent(AudioEvent audioEvent) {
+        if (isEcoutee(DESTINATION_AUDIO)) {
+            simpMessagingTemplate.convertAndSend(DESTINATION_AUDIO, audioEvent.getContent(), ENTETES_BINAIRES);
         }
+    }
 
+    @Subscribe
+    @EventFilter(exclude = {VideoEvent.class, AudioEvent.class})
+    public void handleRobotEvent(RobotEvent robotEvent) {
+        simpMessagingTemplate.convertAndSend("/events/" + robotEvent.getEventType(), robotEvent);
     }
 }
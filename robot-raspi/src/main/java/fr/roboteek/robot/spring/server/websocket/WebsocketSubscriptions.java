@@ -0,0 +1,84 @@
+package fr.roboteek.robot.spring.server.websocket;
+
+import org.springframework.context.ApplicationListener;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.web.socket.messaging.AbstractSubProtocolEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Suivi des abonnements STOMP en cours, par destination (abonnements, désabonnements et déconnexions des clients).
+ * Permet aux émetteurs de ne produire les messages coûteux que si quelqu'un les écoute.
+ *
+ * @author Nicolas Peltier (nico.peltier@gmail.com)
+ */
+public class WebsocketSubscriptions implements ApplicationListener<AbstractSubProtocolEvent> {
+
+    /**
+     * Destination de chaque abonnement, par session puis par identifiant d'abonnement.
+     */
+    private final Map<String, Map<String, String>> abonnementsParSession = new HashMap<>();
+
+    /**
+     * Nombre d'abonnements par destination (lu sans verrou par les émetteurs).
+     */
+    private final Map<String, AtomicInteger> nombreAbonnements = new ConcurrentHashMap<>();
+
+    @Override
+    public synchronized void onApplicationEvent(AbstractSubProtocolEvent event) {
+        final StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        final String sessionId = accessor.getSessionId();
+        if (sessionId == null) {
+            return;
+        }
+        if (event instanceof SessionSubscribeEvent) {
+            final String destination = accessor.getDestination();
+            if (destination != null) {
+                final String precedente = abonnementsParSession.computeIfAbsent(sessionId, id -> new HashMap<>())
+                        .put(accessor.getSubscriptionId(), destination);
+                if (precedente != null) {
+                    decrementer(precedente);
+                }
+                nombreAbonnements.computeIfAbsent(destination, d -> new AtomicInteger()).incrementAndGet();
+            }
+        } else if (event instanceof SessionUnsubscribeEvent) {
+            final Map<String, String> abonnements = abonnementsParSession.get(sessionId);
+            if (abonnements != null) {
+                final String destination = abonnements.remove(accessor.getSubscriptionId());
+                if (destination != null) {
+                    decrementer(destination);
+                }
+            }
+        } else if (event instanceof SessionDisconnectEvent) {
+            // Tous les abonnements de la session disparaissent avec elle
+            final Map<String, String> abonnements = abonnementsParSession.remove(sessionId);
+            if (abonnements != null) {
+                abonnements.values().forEach(this::decrementer);
+            }
+        }
+    }
+
+    /**
+     * Indique si au moins un client est abonné à une destination.
+     *
+     * @param destination la destination (ex : "/audio")
+     * @return true si la destination est écoutée
+     */
+    public boolean isEcoutee(String destination) {
+        final AtomicInteger nombre = nombreAbonnements.get(destination);
+        return nombre != null && nombre.get() > 0;
+    }
+
+    private void decrementer(String destination) {
+        final AtomicInteger nombre = nombreAbonnements.get(destination);
+        if (nombre != null) {
+            nombre.decrementAndGet();
+        }
+    }
+}
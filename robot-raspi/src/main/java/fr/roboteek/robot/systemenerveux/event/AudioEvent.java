@@ -1,29 +1,61 @@
 package fr.roboteek.robot.systemenerveux.event;
 
+import fr.roboteek.robot.util.audio.WavEncoder;
+
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * Bloc audio capté, diffusé au moniteur audio.
+ * Le contenu PCM est encodé en WAV une seule fois, à la première demande (donc uniquement s'il est diffusé).
+ */
 public class AudioEvent extends RobotEvent {
 
     public static final String EVENT_TYPE = "audio";
 
-    private String audioContentBase64;
-    private byte[] content;
+    private byte[] contenuPcm;
+
+    private AudioFormat format;
+
+    /**
+     * Fichier WAV (entête + contenu), encodé à la première demande.
+     */
+    private volatile byte[] content;
 
     public AudioEvent() {
         super(EVENT_TYPE);
     }
 
-    public String getAudioContentBase64() {
-        return audioContentBase64;
+    public byte[] getContenuPcm() {
+        return contenuPcm;
     }
 
-    public void setAudioContentBase64(String audioContentBase64) {
-        this.audioContentBase64 = audioContentBase64;
+    public AudioFormat getFormat() {
+        return format;
     }
 
-    public byte[] getContent() {
-        return content;
+    /**
+     * Définit le contenu PCM du bloc.
+     *
+     * @param contenuPcm le contenu PCM (n'est plus modifié par l'appelant)
+     * @param format     le format du contenu
+     */
+    public void setContenuPcm(byte[] contenuPcm, AudioFormat format) {
+        this.contenuPcm = contenuPcm;
+        this.format = format;
+        this.content = null;
     }
 
-    public void setContent(byte[] content) {
-        this.content = content;
+    /**
+     * Retourne le bloc sous forme de fichier WAV (trame binaire décodable directement par le navigateur).
+     *
+     * @return le fichier WAV (entête + contenu)
+     */
+    public byte[] getContent() {
+        byte[] wav = content;
+        if (wav == null && contenuPcm != null) {
+            wav = WavEncoder.encode(contenuPcm, 0, contenuPcm.length, format);
+            content = wav;
+        }
+        return wav;
     }
 }
@@ -0,0 +1,21 @@
+package fr.roboteek.robot.systemenerveux.event;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Abonnement asynchrone "dernière valeur" : pour chaque type d'évènement reçu par la méthode {@code @Subscribe},
+ * l'abonné ne reçoit que l'évènement le plus récent non encore consommé.
+ * Les évènements dépassés sont abandonnés avant d'être mis en file (voir {@link LatestValueChannel}).
+ * Destiné aux flux capteurs à haute fréquence consommés par un abonné potentiellement lent.
+ *
+ * @author Nicolas Peltier (nico.peltier@gmail.com)
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Conflated {
+}
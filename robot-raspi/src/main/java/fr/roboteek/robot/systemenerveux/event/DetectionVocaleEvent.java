@@ -1,7 +1,7 @@
 package fr.roboteek.robot.systemenerveux.event;
 
 /**
- * Evènement de détection vocale (un flux de parole a été détecté et stocké dans un fichier).
+ * Evènement de détection vocale (un flux de parole a été détecté).
  *
  * @author Nicolas Peltier (nico.peltier@gmail.com)
  */
@@ -10,21 +10,21 @@ public class DetectionVocaleEvent extends RobotEvent {
     public static final String EVENT_TYPE = "detection-vocale";
 
     /**
-     * Fichier WAV contenant le flux de parole détecté.
+     * Contenu WAV (entête + contenu) du flux de parole détecté.
      */
-    private String cheminFichier;
+    private byte[] contenuWav;
 
 
     public DetectionVocaleEvent() {
         super(EVENT_TYPE);
     }
 
-    public String getCheminFichier() {
-        return cheminFichier;
+    public byte[] getContenuWav() {
+        return contenuWav;
     }
 
-    public void setCheminFichier(String cheminFichier) {
-        this.cheminFichier = cheminFichier;
+    public void setContenuWav(byte[] contenuWav) {
+        this.contenuWav = contenuWav;
     }
 
 }
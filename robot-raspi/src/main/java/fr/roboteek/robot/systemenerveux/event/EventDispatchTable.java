@@ -0,0 +1,131 @@
+package fr.roboteek.robot.systemenerveux.event;
+
+import com.google.common.eventbus.Subscribe;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Table de distribution des évènements : pour chaque classe d'évènement, le tableau précalculé de ses abonnés.
+ * Les méthodes {@code @Subscribe} sont résolues une seule fois à l'abonnement, et la table est reconstruite
+ * à chaque abonnement / désabonnement. Une classe d'évènement jamais publiée est calculée à sa première publication.
+ *
+ * @author Nicolas Peltier (nico.peltier@gmail.com)
+ */
+class EventDispatchTable {
+
+    private static final EventSubscriber[] NO_SUBSCRIBERS = new EventSubscriber[0];
+
+    /**
+     * Abonnés enregistrés.
+     */
+    private final List<EventSubscriber> subscribers = new ArrayList<>();
+
+    /**
+     * Abonnés par classe d'évènement (remplacée en bloc à chaque modification des abonnés).
+     */
+    private volatile Map<Class<?>, EventSubscriber[]> subscribersByEventClass = new ConcurrentHashMap<>();
+
+    /**
+     * Abonne les méthodes {@code @Subscribe} d'un écouteur (y compris celles héritées).
+     * Un écouteur déjà abonné est ignoré (comme avec l'EventBus Guava).
+     *
+     * @param listener l'écouteur
+     */
+    synchronized void register(Object listener) {
+        if (subscribers.stream().anyMatch(subscriber -> subscriber.getListener() == listener)) {
+            return;
+        }
+        for (Method method : findSubscriberMethods(listener.getClass())) {
+            subscribers.add(new EventSubscriber(listener, method));
+        }
+        rebuild();
+    }
+
+    /**
+     * Désabonne toutes les méthodes d'un écouteur.
+     *
+     * @param listener l'écouteur
+     */
+    synchronized void unregister(Object listener) {
+        if (subscribers.removeIf(subscriber -> subscriber.getListener() == listener)) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Retourne les abonnés d'une classe d'évènement.
+     *
+     * @param eventClass la classe de l'évènement
+     * @return les abonnés (tableau à ne pas modifier)
+     */
+    EventSubscriber[] getSubscribers(Class<?> eventClass) {
+        final Map<Class<?>, EventSubscriber[]> table = subscribersByEventClass;
+        final EventSubscriber[] eventSubscribers = table.get(eventClass);
+        if (eventSubscribers != null) {
+            return eventSubscribers;
+        }
+        synchronized (this) {
+            return subscribersByEventClass.computeIfAbsent(eventClass, this::computeSubscribers);
+        }
+    }
+
+    /**
+     * Recalcule la table pour toutes les classes d'évènements déjà connues.
+     */
+    private void rebuild() {
+        final Map<Class<?>, EventSubscriber[]> table = new ConcurrentHashMap<>();
+        for (Class<?> eventClass : subscribersByEventClass.keySet()) {
+            table.put(eventClass, computeSubscribers(eventClass));
+        }
+        subscribersByEventClass = table;
+    }
+
+    private EventSubscriber[] computeSubscribers(Class<?> eventClass) {
+        final List<EventSubscriber> eventSubscribers = new ArrayList<>();
+        for (EventSubscriber subscriber : subscribers) {
+            if (subscriber.accepts(eventClass)) {
+                eventSubscribers.add(subscriber);
+            }
+        }
+        return eventSubscribers.isEmpty() ? NO_SUBSCRIBERS : eventSubscribers.toArray(NO_SUBSCRIBERS);
+    }
+
+    /**
+     * Recherche les méthodes {@code @Subscribe} d'une classe et de ses super-classes.
+     * Une méthode redéfinie n'est retenue qu'une seule fois.
+     */
+    private static List<Method> findSubscriberMethods(Class<?> listenerClass) {
+        final Map<String, Method> methodsBySignature = new HashMap<>();
+        final Set<Class<?>> visited = new HashSet<>();
+        for (Class<?> clazz = listenerClass; clazz != null && clazz != Object.class; clazz = clazz.getSuperclass()) {
+            collectSubscriberMethods(clazz, methodsBySignature, visited);
+        }
+        return new ArrayList<>(methodsBySignature.values());
+    }
+
+    private static void collectSubscriberMethods(Class<?> clazz, Map<String, Method> methodsBySignature, Set<Class<?>> visited) {
+        if (!visited.add(clazz)) {
+            return;
+        }
+        for (Method method : clazz.getDeclaredMethods()) {
+            if (method.isAnnotationPresent(Subscribe.class) && !method.isSynthetic()) {
+                final Class<?>[] parameterTypes = method.getParameterTypes();
+                if (parameterTypes.length != 1) {
+                    throw new IllegalArgumentException("La méthode " + method + " annotée @Subscribe doit avoir un unique paramètre");
+                }
+                methodsBySignature.putIfAbsent(method.getName() + Arrays.toString(parameterTypes), method);
+            }
+        }
+        for (Class<?> interfaceClass : clazz.getInterfaces()) {
+            collectSubscriberMethods(interfaceClass, methodsBySignature, visited);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package fr.roboteek.robot.systemenerveux.event;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Filtre, déclaré à l'abonnement, des types d'évènements reçus par une méthode annotée {@code @Subscribe}.
+ * Permet à un abonné à {@link RobotEvent} de ne pas recevoir les flux capteurs qu'il ignorerait de toute façon :
+ * le filtre est appliqué lors de la construction de la table de distribution et non à chaque évènement.
+ *
+ * @author Nicolas Peltier (nico.peltier@gmail.com)
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface EventFilter {
+
+    /**
+     * Types d'évènements (et leurs sous-types) acceptés. Vide : tous les types compatibles avec le paramètre.
+     *
+     * @return les types acceptés
+     */
+    Class<? extends RobotEvent>[] value() default {};
+
+    /**
+     * Types d'évènements (et leurs sous-types) exclus.
+     *
+     * @return les types exclus
+     */
+    Class<? extends RobotEvent>[] exclude() default {};
+}
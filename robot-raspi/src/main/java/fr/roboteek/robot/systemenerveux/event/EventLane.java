@@ -0,0 +1,110 @@
+package fr.roboteek.robot.systemenerveux.event;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Voie de distribution asynchrone des évènements du système nerveux.
+ * Chaque voie dispose de ses propres threads et d'une file bornée, ce qui évite qu'un flot d'évènements capteurs
+ * retarde une commande de contrôle ou de sécurité.
+ *
+ * @author Nicolas Peltier (nico.peltier@gmail.com)
+ */
+public enum EventLane {
+
+    /**
+     * Evènements de contrôle et de sécurité : priorité maximale, jamais abandonnés ni doublés (l'émetteur attend
+     * qu'une place se libère dans la file, l'ordre de publication est conservé).
+     */
+    CONTROL(Thread.MAX_PRIORITY, OverflowPolicy.BLOCK,
+            StopEvent.class, MouvementRoueEvent.class, MouvementCouEvent.class, MouvementYeuxEvent.class,
+            ReconnaissanceVocaleControleEvent.class),
+
+    /**
+     * Flux des capteurs (audio, vidéo) : en cas de saturation, les évènements les plus anciens sont abandonnés.
+     */
+    SENSOR(Thread.MIN_PRIORITY, OverflowPolicy.DROP_OLDEST,
+            AudioEvent.class, VideoEvent.class),
+
+    /**
+     * Tous les autres évènements.
+     */
+    DEFAULT(Thread.NORM_PRIORITY, OverflowPolicy.CALLER_RUNS);
+
+    /**
+     * Comportement d'une voie lorsque sa file est pleine.
+     */
+    public enum OverflowPolicy {
+        /**
+         * L'évènement le plus ancien de la file est abandonné au profit du nouveau.
+         */
+        DROP_OLDEST,
+        /**
+         * L'évènement est traité directement dans le thread émetteur (aucune perte, mais il double les évènements
+         * déjà en file).
+         */
+        CALLER_RUNS,
+        /**
+         * L'émetteur attend qu'une place se libère dans la file (aucune perte, ordre conservé). Un évènement publié
+         * par un thread de la voie elle-même est traité directement, pour ne pas bloquer la voie. L'attente prend
+         * fin à l'arrêt de la voie : l'évènement est alors abandonné.
+         */
+        BLOCK
+    }
+
+    /**
+     * Cache des voies par classe d'évènement.
+     */
+    private static final Map<Class<?>, EventLane> LANES_BY_EVENT_CLASS = new ConcurrentHashMap<>();
+
+    /**
+     * Priorité des threads de la voie.
+     */
+    private final int threadPriority;
+
+    /**
+     * Comportement en cas de saturation.
+     */
+    private final OverflowPolicy overflowPolicy;
+
+    /**
+     * Classes d'évènements (et leurs sous-classes) distribuées sur cette voie.
+     */
+    private final List<Class<? extends RobotEvent>> eventClasses;
+
+    @SafeVarargs
+    EventLane(int threadPriority, OverflowPolicy overflowPolicy, Class<? extends RobotEvent>... eventClasses) {
+        this.threadPriority = threadPriority;
+        this.overflowPolicy = overflowPolicy;
+        this.eventClasses = Arrays.asList(eventClasses);
+    }
+
+    public int getThreadPriority() {
+        return threadPriority;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * Détermine la voie d'une classe d'évènement.
+     *
+     * @param eventClass la classe de l'évènement
+     * @return la voie de distribution
+     */
+    public static EventLane of(Class<?> eventClass) {
+        return LANES_BY_EVENT_CLASS.computeIfAbsent(eventClass, clazz -> {
+            for (EventLane lane : values()) {
+                for (Class<? extends RobotEvent> laneEventClass : lane.eventClasses) {
+                    if (laneEventClass.isAssignableFrom(clazz)) {
+                        return lane;
+                    }
+                }
+            }
+            return DEFAULT;
+        });
+    }
+}
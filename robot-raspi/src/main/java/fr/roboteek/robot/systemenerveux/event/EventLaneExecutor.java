@@ -0,0 +1,220 @@
+package fr.roboteek.robot.systemenerveux.event;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Exécuteur borné d'une voie de distribution des évènements.
+ * Mesure la profondeur de file, les abandons et la latence de distribution (attente en file).
+ *
+ * @author Nicolas Peltier (nico.peltier@gmail.com)
+ */
+public class EventLaneExecutor extends ThreadPoolExecutor {
+
+    /**
+     * Intervalle de vérification de l'arrêt de l'exécuteur pendant l'attente d'une place dans la file (ms).
+     */
+    private static final long BLOCK_POLL_MILLIS = 100;
+
+    /**
+     * Voie associée.
+     */
+    private final EventLane lane;
+
+    /**
+     * Capacité de la file.
+     */
+    private final int capacity;
+
+    private final LongAdder dispatched = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder callerRuns = new LongAdder();
+    private final LongAdder blocked = new LongAdder();
+    private final LongAdder superseded = new LongAdder();
+    private final LongAdder totalLatencyNanos = new LongAdder();
+    private final LongAccumulator maxLatencyNanos = new LongAccumulator(Math::max, 0);
+
+    public EventLaneExecutor(EventLane lane, int threads, int capacity) {
+        super(threads, threads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(capacity),
+                new LaneThreadFactory(lane));
+        this.lane = lane;
+        this.capacity = capacity;
+        setRejectedExecutionHandler(new LaneRejectedExecutionHandler());
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        super.execute(command instanceof TimedTask ? command : new TimedTask(command, true));
+    }
+
+    /**
+     * Exécute une tâche qui ne doit jamais être abandonnée, même par une voie {@link EventLane.OverflowPolicy#DROP_OLDEST}.
+     *
+     * @param command la tâche
+     */
+    void executeUndroppable(Runnable command) {
+        super.execute(new TimedTask(command, false));
+    }
+
+    @Override
+    protected void beforeExecute(Thread thread, Runnable runnable) {
+        super.beforeExecute(thread, runnable);
+        if (runnable instanceof TimedTask) {
+            recordLatency(System.nanoTime() - ((TimedTask) runnable).enqueuedAt);
+        }
+    }
+
+    private void recordLatency(long latencyNanos) {
+        dispatched.increment();
+        totalLatencyNanos.add(latencyNanos);
+        maxLatencyNanos.accumulate(latencyNanos);
+    }
+
+    /**
+     * Comptabilise un évènement remplacé dans un canal "dernière valeur" avant sa distribution.
+     */
+    void recordSuperseded() {
+        superseded.increment();
+    }
+
+    /**
+     * Retourne un instantané des statistiques de la voie.
+     *
+     * @return les statistiques de la voie
+     */
+    public EventLaneStatistics getStatistics() {
+        final long dispatchedCount = dispatched.sum();
+        return new EventLaneStatistics(lane, getQueue().size(), capacity, getActiveCount(),
+                dispatchedCount, dropped.sum(), callerRuns.sum(), blocked.sum(), superseded.sum(),
+                dispatchedCount > 0 ? totalLatencyNanos.sum() / dispatchedCount / 1000 : 0,
+                maxLatencyNanos.get() / 1000);
+    }
+
+    /**
+     * Tâche horodatée lors de sa mise en file.
+     */
+    private static class TimedTask implements Runnable {
+
+        private final Runnable delegate;
+
+        private final boolean droppable;
+
+        private final long enqueuedAt = System.nanoTime();
+
+        private TimedTask(Runnable delegate, boolean droppable) {
+            this.delegate = delegate;
+            this.droppable = droppable;
+        }
+
+        @Override
+        public void run() {
+            delegate.run();
+        }
+    }
+
+    /**
+     * Gestion de la saturation de la file selon la politique de la voie.
+     */
+    private class LaneRejectedExecutionHandler implements RejectedExecutionHandler {
+
+        @Override
+        public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor) {
+            if (executor.isShutdown()) {
+                return;
+            }
+            if (lane.getOverflowPolicy() == EventLane.OverflowPolicy.DROP_OLDEST && dropOldest(executor.getQueue())) {
+                dropped.increment();
+                executor.execute(runnable);
+            } else if (lane.getOverflowPolicy() == EventLane.OverflowPolicy.BLOCK && !isLaneThread()) {
+                blocked.increment();
+                try {
+                    // Les threads de la voie sont tous démarrés (file pleine) : la tâche sera prise dans la file.
+                    // L'attente prend fin à l'arrêt de l'exécuteur, qui rejette alors l'évènement.
+                    while (!executor.isShutdown()) {
+                        if (executor.getQueue().offer(runnable, BLOCK_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                            if (executor.isShutdown() && executor.getQueue().remove(runnable)) {
+                                break;
+                            }
+                            return;
+                        }
+                    }
+                    dropped.increment();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    runInCaller(runnable);
+                }
+            } else {
+                runInCaller(runnable);
+            }
+        }
+
+        private void runInCaller(Runnable runnable) {
+            callerRuns.increment();
+            recordLatency(0);
+            runnable.run();
+        }
+
+        /**
+         * @return true si le thread courant est un thread de la voie (attendre une place le bloquerait indéfiniment)
+         */
+        private boolean isLaneThread() {
+            return Thread.currentThread() instanceof LaneThread && ((LaneThread) Thread.currentThread()).lane == lane;
+        }
+    }
+
+    /**
+     * Retire de la file la plus ancienne tâche pouvant être abandonnée.
+     *
+     * @param queue la file
+     * @return true si une tâche a été retirée
+     */
+    private static boolean dropOldest(BlockingQueue<Runnable> queue) {
+        for (Runnable queued : queue) {
+            if ((!(queued instanceof TimedTask) || ((TimedTask) queued).droppable) && queue.remove(queued)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Fabrique des threads nommés d'une voie.
+     */
+    private static class LaneThreadFactory implements ThreadFactory {
+
+        private final EventLane lane;
+
+        private final AtomicInteger index = new AtomicInteger();
+
+        private LaneThreadFactory(EventLane lane) {
+            this.lane = lane;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            final Thread thread = new LaneThread(runnable, "RobotEventBus-" + lane.name().toLowerCase() + "-" + index.incrementAndGet(), lane);
+            thread.setPriority(lane.getThreadPriority());
+            return thread;
+        }
+    }
+
+    /**
+     * Thread d'une voie.
+     */
+    private static class LaneThread extends Thread {
+
+        private final EventLane lane;
+
+        private LaneThread(Runnable runnable, String name, EventLane lane) {
+            super(runnable, name);
+            this.lane = lane;
+        }
+    }
+}
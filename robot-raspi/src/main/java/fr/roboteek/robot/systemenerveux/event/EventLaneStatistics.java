@@ -0,0 +1,135 @@
+package fr.roboteek.robot.systemenerveux.event;
+
+/**
+ * Instantané des statistiques d'une voie de distribution des évènements.
+ *
+ * @author Nicolas Peltier (nico.peltier@gmail.com)
+ */
+public class EventLaneStatistics {
+
+    private final EventLane lane;
+
+    /**
+     * Nombre d'évènements en attente dans la file.
+     */
+    private final int queueDepth;
+
+    private final int capacity;
+
+    /**
+     * Nombre de threads en cours de traitement.
+     */
+    private final int activeThreads;
+
+    /**
+     * Nombre total de distributions effectuées.
+     */
+    private final long dispatched;
+
+    /**
+     * Nombre total d'évènements abandonnés (file saturée).
+     */
+    private final long dropped;
+
+    /**
+     * Nombre total d'évènements traités dans le thread émetteur (file saturée).
+     */
+    private final long callerRuns;
+
+    /**
+     * Nombre total de publications ayant attendu une place dans la file (file saturée).
+     */
+    private final long blocked;
+
+    /**
+     * Nombre total d'évènements remplacés par un plus récent dans un canal "dernière valeur".
+     */
+    private final long superseded;
+
+    /**
+     * Latence moyenne de distribution (attente en file) en microsecondes.
+     */
+    private final long meanLatencyMicros;
+
+    /**
+     * Latence maximale de distribution (attente en file) en microsecondes.
+     */
+    private final long maxLatencyMicros;
+
+    public EventLaneStatistics(EventLane lane, int queueDepth, int capacity, int activeThreads, long dispatched,
+                               long dropped, long callerRuns, long blocked, long superseded, long meanLatencyMicros,
+                               long maxLatencyMicros) {
+        this.lane = lane;
+        this.queueDepth = queueDepth;
+        this.capacity = capacity;
+        this.activeThreads = activeThreads;
+        this.dispatched = dispatched;
+        this.dropped = dropped;
+        this.callerRuns = callerRuns;
+        this.blocked = blocked;
+        this.superseded = superseded;
+        this.meanLatencyMicros = meanLatencyMicros;
+        this.maxLatencyMicros = maxLatencyMicros;
+    }
+
+    public EventLane getLane() {
+        return lane;
+    }
+
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getActiveThreads() {
+        return activeThreads;
+    }
+
+    public long getDispatched() {
+        return dispatched;
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+
+    public long getCallerRuns() {
+        return callerRuns;
+    }
+
+    public long getBlocked() {
+        return blocked;
+    }
+
+    public long getSuperseded() {
+        return superseded;
+    }
+
+    public long getMeanLatencyMicros() {
+        return meanLatencyMicros;
+    }
+
+    public long getMaxLatencyMicros() {
+        return maxLatencyMicros;
+    }
+
+    @Override
+    public String toString() {
+        return "EventLaneStatistics{" +
+                "lane=" + lane +
+                ", queueDepth=" + queueDepth +
+                ", capacity=" + capacity +
+                ", activeThreads=" + activeThreads +
+                ", dispatched=" + dispatched +
+                ", dropped=" + dropped +
+                ", callerRuns=" + callerRuns +
+                ", blocked=" + blocked +
+                ", superseded=" + superseded +
+                ", meanLatencyMicros=" + meanLatencyMicros +
+                ", maxLatencyMicros=" + maxLatencyMicros +
+                '}';
+    }
+}
@@ -0,0 +1,159 @@
+package fr.roboteek.robot.systemenerveux.event;
+
+import com.google.common.eventbus.AllowConcurrentEvents;
+import org.apache.log4j.Logger;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Abonné du bus : une méthode annotée {@code @Subscribe} d'un écouteur, résolue une seule fois en {@link MethodHandle}.
+ *
+ * @author Nicolas Peltier (nico.peltier@gmail.com)
+ */
+class EventSubscriber {
+
+    /**
+     * Type de la poignée d'invocation, identique pour tous les abonnés.
+     */
+    private static final MethodType HANDLE_TYPE = MethodType.methodType(void.class, Object.class);
+
+    /**
+     * Logger.
+     */
+    private static final Logger logger = Logger.getLogger(EventSubscriber.class);
+
+    /**
+     * Ecouteur abonné.
+     */
+    private final Object listener;
+
+    /**
+     * Méthode abonnée.
+     */
+    private final Method method;
+
+    /**
+     * Poignée liée à l'écouteur.
+     */
+    private final MethodHandle handle;
+
+    /**
+     * Type du paramètre de la méthode.
+     */
+    private final Class<?> eventType;
+
+    /**
+     * Types acceptés (filtre déclaré).
+     */
+    private final Class<?>[] includedTypes;
+
+    /**
+     * Types exclus (filtre déclaré).
+     */
+    private final Class<?>[] excludedTypes;
+
+    /**
+     * Verrou sérialisant les appels, sauf si la méthode est annotée {@link AllowConcurrentEvents}.
+     */
+    private final Object lock;
+
+    /**
+     * Flag indiquant un abonnement "dernière valeur" (méthode annotée {@link Conflated}).
+     */
+    private final boolean conflated;
+
+    /**
+     * Canaux "dernière valeur" par classe d'évènement (abonnement {@link Conflated} uniquement).
+     */
+    private final Map<Class<?>, LatestValueChannel> channels = new ConcurrentHashMap<>();
+
+    EventSubscriber(Object listener, Method method) {
+        this.listener = listener;
+        this.method = method;
+        this.eventType = method.getParameterTypes()[0];
+        final EventFilter filter = method.getAnnotation(EventFilter.class);
+        this.includedTypes = filter != null ? filter.value() : new Class<?>[0];
+        this.excludedTypes = filter != null ? filter.exclude() : new Class<?>[0];
+        this.lock = method.isAnnotationPresent(AllowConcurrentEvents.class) ? null : new Object();
+        this.conflated = method.isAnnotationPresent(Conflated.class);
+        try {
+            method.setAccessible(true);
+            this.handle = MethodHandles.lookup().unreflect(method).bindTo(listener).asType(HANDLE_TYPE);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Méthode d'abonnement inaccessible : " + method, e);
+        }
+    }
+
+    Object getListener() {
+        return listener;
+    }
+
+    Method getMethod() {
+        return method;
+    }
+
+    boolean isConflated() {
+        return conflated;
+    }
+
+    /**
+     * Retourne le canal "dernière valeur" d'une classe d'évènement.
+     *
+     * @param eventClass la classe de l'évènement
+     * @param executor   l'exécuteur de la voie de cette classe
+     * @return le canal
+     */
+    LatestValueChannel getChannel(Class<?> eventClass, EventLaneExecutor executor) {
+        return channels.computeIfAbsent(eventClass, clazz -> new LatestValueChannel(this, executor));
+    }
+
+    /**
+     * Indique si cet abonné doit recevoir les évènements d'une classe donnée.
+     *
+     * @param eventClass la classe de l'évènement
+     * @return true si l'abonné reçoit les évènements de cette classe
+     */
+    boolean accepts(Class<?> eventClass) {
+        if (!eventType.isAssignableFrom(eventClass)) {
+            return false;
+        }
+        for (Class<?> excludedType : excludedTypes) {
+            if (excludedType.isAssignableFrom(eventClass)) {
+                return false;
+            }
+        }
+        if (includedTypes.length == 0) {
+            return true;
+        }
+        for (Class<?> includedType : includedTypes) {
+            if (includedType.isAssignableFrom(eventClass)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Distribue un évènement à l'abonné. Les exceptions de l'abonné sont journalisées et ne remontent pas à l'émetteur.
+     *
+     * @param event l'évènement
+     */
+    void dispatch(Object event) {
+        try {
+            if (lock == null) {
+                handle.invokeExact(event);
+            } else {
+                synchronized (lock) {
+                    handle.invokeExact(event);
+                }
+            }
+        } catch (Throwable throwable) {
+            logger.error("Exception levée par l'abonné " + method + " pour l'évènement " + event, throwable);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package fr.roboteek.robot.systemenerveux.event;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Canal "dernière valeur" entre le bus et un abonné {@link Conflated}, pour un type d'évènement.
+ * Une seule tâche de distribution au plus est en file pour le canal : un évènement publié pendant que le
+ * précédent attend remplace celui-ci, qui n'est jamais distribué. Cette tâche n'est jamais abandonnée par la voie.
+ *
+ * @author Nicolas Peltier (nico.peltier@gmail.com)
+ */
+class LatestValueChannel {
+
+    /**
+     * Abonné destinataire.
+     */
+    private final EventSubscriber subscriber;
+
+    /**
+     * Exécuteur de la voie du type d'évènement.
+     */
+    private final EventLaneExecutor executor;
+
+    /**
+     * Dernier évènement publié, non encore consommé.
+     */
+    private final AtomicReference<Object> latest = new AtomicReference<>();
+
+    /**
+     * Flag indiquant qu'une tâche de distribution est en file ou en cours.
+     */
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    LatestValueChannel(EventSubscriber subscriber, EventLaneExecutor executor) {
+        this.subscriber = subscriber;
+        this.executor = executor;
+    }
+
+    /**
+     * Publie un évènement dans le canal.
+     *
+     * @param event l'évènement
+     */
+    void offer(Object event) {
+        if (latest.getAndSet(event) != null) {
+            executor.recordSuperseded();
+        }
+        if (scheduled.compareAndSet(false, true)) {
+            executor.executeUndroppable(this::drain);
+        }
+    }
+
+    /**
+     * Distribue la dernière valeur tant qu'il en arrive de nouvelles.
+     */
+    private void drain() {
+        while (true) {
+            final Object event = latest.getAndSet(null);
+            if (event != null) {
+                subscriber.dispatch(event);
+            } else {
+                scheduled.set(false);
+                // Un évènement a pu arriver entre la lecture et la libération du flag
+                if (latest.get() == null || !scheduled.compareAndSet(false, true)) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -3,6 +3,7 @@ package fr.roboteek.robot.systemenerveux.event;
 import javax.persistence.Column;
 import javax.persistence.DiscriminatorValue;
 import javax.persistence.Entity;
+import javax.persistence.Transient;
 
 /**
  * Evènement pour lire du texte.
@@ -15,6 +16,14 @@ public class ParoleEvent extends RobotEvent {
 
     public static final String EVENT_TYPE = "parole";
 
+    /**
+     * Priorités de la parole : une parole de priorité supérieure passe devant les paroles en attente et interrompt
+     * la parole en cours de priorité inférieure.
+     */
+    public enum PRIORITE {
+        BASSE, NORMALE, HAUTE
+    }
+
     /**
      * Texte à dire.
      */
@@ -31,6 +40,32 @@ public class ParoleEvent extends RobotEvent {
      */
     private boolean pourTest = false;
 
+    /**
+     * Priorité de la parole.
+     */
+    @Transient
+    private PRIORITE priorite = PRIORITE.NORMALE;
+
+    /**
+     * Délai maximal d'attente avant le début de la parole (ms), au-delà duquel elle est abandonnée car périmée.
+     * Délai de la configuration si null, aucun délai si 0.
+     */
+    @Transient
+    private Long delaiMaximal;
+
+    /**
+     * Flag indiquant que la parole en cours et les paroles en attente de priorité inférieure ou égale doivent être
+     * annulées (sans texte ni contenu audio, l'évènement ne fait que les annuler).
+     */
+    @Transient
+    private boolean interrompre = false;
+
+    /**
+     * Flag indiquant que la publication de l'évènement doit attendre la fin de la parole.
+     */
+    @Transient
+    private boolean synchrone = false;
+
     public ParoleEvent() {
         super(EVENT_TYPE);
     }
@@ -69,11 +104,45 @@ public class ParoleEvent extends RobotEvent {
         this.pourTest = pourTest;
     }
 
+    public PRIORITE getPriorite() {
+        return priorite;
+    }
+
+    public void setPriorite(PRIORITE priorite) {
+        this.priorite = priorite;
+    }
+
+    public Long getDelaiMaximal() {
+        return delaiMaximal;
+    }
+
+    public void setDelaiMaximal(Long delaiMaximal) {
+        this.delaiMaximal = delaiMaximal;
+    }
+
+    public boolean isInterrompre() {
+        return interrompre;
+    }
+
+    public void setInterrompre(boolean interrompre) {
+        this.interrompre = interrompre;
+    }
+
+    public boolean isSynchrone() {
+        return synchrone;
+    }
+
+    public void setSynchrone(boolean synchrone) {
+        this.synchrone = synchrone;
+    }
+
     @Override
     public String toString() {
         return "ParoleEvent{" +
                 "texte='" + texte + '\'' +
                 ", pourTest=" + pourTest +
+                ", priorite=" + priorite +
+                ", interrompre=" + interrompre +
                 "} " + super.toString();
     }
 }
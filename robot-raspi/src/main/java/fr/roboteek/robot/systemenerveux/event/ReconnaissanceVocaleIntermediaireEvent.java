@@ -0,0 +1,43 @@
+package fr.roboteek.robot.systemenerveux.event;
+
+/**
+ * Evènement de reconnaissance vocale intermédiaire (hypothèse émise pendant que l'interlocuteur parle).
+ * Le texte définitif est transmis par un {@link ReconnaissanceVocaleEvent}.
+ *
+ * @author Nicolas Peltier (nico.peltier@gmail.com)
+ */
+public class ReconnaissanceVocaleIntermediaireEvent extends RobotEvent {
+
+    public static final String EVENT_TYPE = "reconnaissance-vocale-intermediaire";
+
+    /**
+     * Hypothèse de texte reconnu.
+     */
+    private String texteReconnu;
+
+    /**
+     * Stabilité estimée de l'hypothèse (entre 0 et 1).
+     */
+    private float stabilite;
+
+    public ReconnaissanceVocaleIntermediaireEvent() {
+        super(EVENT_TYPE);
+    }
+
+    public String getTexteReconnu() {
+        return texteReconnu;
+    }
+
+    public void setTexteReconnu(String texteReconnu) {
+        this.texteReconnu = texteReconnu;
+    }
+
+    public float getStabilite() {
+        return stabilite;
+    }
+
+    public void setStabilite(float stabilite) {
+        this.stabilite = stabilite;
+    }
+
+}
@@ -3,10 +3,16 @@
  */
 package fr.roboteek.robot.systemenerveux.event;
 
-import com.google.common.eventbus.AsyncEventBus;
-import com.google.common.eventbus.EventBus;
+import fr.roboteek.robot.configuration.eventbus.EventBusConfig;
 
-import java.util.concurrent.Executors;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+import static fr.roboteek.robot.configuration.Configurations.eventBusConfig;
 
 /**
  * @author Nicolas
@@ -14,13 +20,33 @@ import java.util.concurrent.Executors;
  */
 public class RobotEventBus {
 
-    private EventBus eventBus;
-    private AsyncEventBus asyncEventBus;
+    /**
+     * Table de distribution des évènements vers les abonnés.
+     */
+    private final EventDispatchTable dispatchTable = new EventDispatchTable();
+
+    /**
+     * Exécuteurs bornés, un par voie de distribution asynchrone.
+     */
+    private final Map<EventLane, EventLaneExecutor> laneExecutors = new EnumMap<>(EventLane.class);
+
+    /**
+     * Evènements en attente de distribution synchrone dans le thread courant.
+     * Un évènement publié par un abonné pendant une distribution est distribué après celle-ci (ordre de publication).
+     */
+    private final ThreadLocal<Queue<PendingEvent>> pendingEvents = ThreadLocal.withInitial(ArrayDeque::new);
+
+    /**
+     * Flag indiquant que le thread courant est en cours de distribution synchrone.
+     */
+    private final ThreadLocal<Boolean> dispatching = ThreadLocal.withInitial(() -> false);
 
     /** Constructeur privé */
     private RobotEventBus() {
-        eventBus = new EventBus("RobotEventBus");
-        asyncEventBus = new AsyncEventBus("RobotEventBus ASYNC", Executors.newFixedThreadPool(100));
+        final EventBusConfig config = eventBusConfig();
+        laneExecutors.put(EventLane.CONTROL, new EventLaneExecutor(EventLane.CONTROL, config.controlLaneThreads(), config.controlLaneCapacity()));
+        laneExecutors.put(EventLane.SENSOR, new EventLaneExecutor(EventLane.SENSOR, config.sensorLaneThreads(), config.sensorLaneCapacity()));
+        laneExecutors.put(EventLane.DEFAULT, new EventLaneExecutor(EventLane.DEFAULT, config.defaultLaneThreads(), config.defaultLaneCapacity()));
     }
 
     /** Holder */
@@ -34,22 +60,71 @@ public class RobotEventBus {
         return RobotEventBusHolder.instance;
     }
 
-    public synchronized void subscribe(Object listener) {
-        eventBus.register(listener);
-        asyncEventBus.register(listener);
+    public void subscribe(Object listener) {
+        dispatchTable.register(listener);
     }
 
-    public synchronized void unsubscribe(Object listener) {
-        eventBus.unregister(listener);
-        asyncEventBus.unregister(listener);
+    public void unsubscribe(Object listener) {
+        dispatchTable.unregister(listener);
     }
 
     public void publish(RobotEvent event) {
-        eventBus.post(event);
+        final Queue<PendingEvent> queue = pendingEvents.get();
+        queue.offer(new PendingEvent(event, dispatchTable.getSubscribers(event.getClass())));
+        if (!dispatching.get()) {
+            dispatching.set(true);
+            try {
+                PendingEvent pendingEvent;
+                while ((pendingEvent = queue.poll()) != null) {
+                    for (EventSubscriber subscriber : pendingEvent.subscribers) {
+                        subscriber.dispatch(pendingEvent.event);
+                    }
+                }
+            } finally {
+                dispatching.remove();
+                pendingEvents.remove();
+            }
+        }
     }
 
     public void publishAsync(RobotEvent event) {
-        asyncEventBus.post(event);
+        final EventSubscriber[] subscribers = dispatchTable.getSubscribers(event.getClass());
+        if (subscribers.length > 0) {
+            final EventLaneExecutor executor = laneExecutors.get(EventLane.of(event.getClass()));
+            for (EventSubscriber subscriber : subscribers) {
+                if (subscriber.isConflated()) {
+                    subscriber.getChannel(event.getClass(), executor).offer(event);
+                } else {
+                    executor.execute(() -> subscriber.dispatch(event));
+                }
+            }
+        }
+    }
+
+    /**
+     * Retourne les statistiques de chacune des voies de distribution asynchrone.
+     *
+     * @return les statistiques des voies
+     */
+    public List<EventLaneStatistics> getLaneStatistics() {
+        final List<EventLaneStatistics> statistics = new ArrayList<>();
+        laneExecutors.values().forEach(executor -> statistics.add(executor.getStatistics()));
+        return statistics;
+    }
+
+    /**
+     * Evènement en attente de distribution synchrone, avec ses abonnés au moment de la publication.
+     */
+    private static class PendingEvent {
+
+        private final RobotEvent event;
+
+        private final EventSubscriber[] subscribers;
+
+        private PendingEvent(RobotEvent event, EventSubscriber[] subscribers) {
+            this.event = event;
+            this.subscribers = subscribers;
+        }
     }
 
 }
@@ -5,12 +5,14 @@ import fr.roboteek.robot.memoire.RecognizedFace;
 
 import java.util.List;
 
+/**
+ * Derniers résultats de l'analyse des images (visages, objets), chacun avec l'index de l'image dont il est issu
+ * (les analyses tournant à leur propre rythme). Les images elles-mêmes sont diffusées sur le flux vidéo binaire.
+ */
 public class VideoEvent extends RobotEvent {
 
     public static final String EVENT_TYPE = "video";
 
-    private String imageBase64;
-
     private boolean faceFound;
 
     private List<RecognizedFace> faces;
@@ -19,16 +21,18 @@ public class VideoEvent extends RobotEvent {
 
     private List<DetectedObject> objects;
 
-    public VideoEvent() {
-        super(EVENT_TYPE);
-    }
+    /**
+     * Index de l'image dont sont issus les visages (-1 si aucune analyse terminée).
+     */
+    private long faceFrameIndex = -1;
 
-    public String getImageBase64() {
-        return imageBase64;
-    }
+    /**
+     * Index de l'image dont sont issus les objets (-1 si aucune analyse terminée).
+     */
+    private long objectFrameIndex = -1;
 
-    public void setImageBase64(String imageBase64) {
-        this.imageBase64 = imageBase64;
+    public VideoEvent() {
+        super(EVENT_TYPE);
     }
 
     public boolean isFaceFound() {
@@ -62,4 +66,20 @@ public class VideoEvent extends RobotEvent {
     public void setObjects(List<DetectedObject> objects) {
         this.objects = objects;
     }
+
+    public long getFaceFrameIndex() {
+        return faceFrameIndex;
+    }
+
+    public void setFaceFrameIndex(long faceFrameIndex) {
+        this.faceFrameIndex = faceFrameIndex;
+    }
+
+    public long getObjectFrameIndex() {
+        return objectFrameIndex;
+    }
+
+    public void setObjectFrameIndex(long objectFrameIndex) {
+        this.objectFrameIndex = objectFrameIndex;
+    }
 }
@@ -16,9 +16,8 @@ public class RobotEventPersistance {
     }
 
     @Subscribe
+    @EventFilter({ConversationEvent.class, ParoleEvent.class, MouvementCouEvent.class})
     public void handleRobotEvent(RobotEvent robotEvent) {
-        if (robotEvent instanceof ConversationEvent || robotEvent instanceof ParoleEvent || robotEvent instanceof MouvementCouEvent) {
-            robotEventRepository.save(robotEvent);
-        }
+        robotEventRepository.save(robotEvent);
     }
 }
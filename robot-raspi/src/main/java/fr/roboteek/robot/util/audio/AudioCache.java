@@ -0,0 +1,243 @@
+package fr.roboteek.robot.util.audio;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import org.apache.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Two-tier cache of audio clips (e.g. synthesized sentences), keyed by a string describing how the clip was produced:
+ * <ul>
+ * <li>a memory tier, least recently used clips evicted beyond its maximum size;</li>
+ * <li>a disk tier (one file per clip, named after the SHA-256 of the key), kept across restarts, least recently
+ * used clips (by file modification time) deleted beyond its maximum size.</li>
+ * </ul>
+ * Hits, misses and bytes served from the cache are published as metrics (audio.cache.requests,
+ * audio.cache.bytes.saved, audio.cache.hit.ratio), tagged with the name of the cache. Thread-safe.
+ */
+public class AudioCache {
+
+    private static final String EXTENSION = ".audio";
+
+    private static final Logger LOGGER = Logger.getLogger(AudioCache.class);
+
+    private final File directory;
+
+    private final long memoryMaxBytes;
+
+    private final long diskMaxBytes;
+
+    /**
+     * Memory tier, in access order.
+     */
+    private final LinkedHashMap<String, byte[]> memory = new LinkedHashMap<>(16, 0.75f, true);
+    private long memoryBytes;
+
+    /**
+     * Sizes of the clips of the disk tier, in access order.
+     */
+    private final LinkedHashMap<String, Long> disk = new LinkedHashMap<>(16, 0.75f, true);
+    private long diskBytes;
+
+    private final LongAdder memoryHits = new LongAdder();
+    private final LongAdder diskHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder bytesSaved = new LongAdder();
+
+    /**
+     * Constructor: indexes the clips already on disk.
+     *
+     * @param name           the name of the cache (metrics tag)
+     * @param directory      the directory of the disk tier (created if needed)
+     * @param memoryMaxBytes the maximum size of the memory tier
+     * @param diskMaxBytes   the maximum size of the disk tier
+     */
+    public AudioCache(String name, File directory, long memoryMaxBytes, long diskMaxBytes) {
+        this.directory = directory;
+        this.memoryMaxBytes = memoryMaxBytes;
+        this.diskMaxBytes = diskMaxBytes;
+
+        directory.mkdirs();
+        final File[] files = directory.listFiles((dir, fileName) -> fileName.endsWith(EXTENSION));
+        if (files != null) {
+            Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+            for (File file : files) {
+                disk.put(file.getName(), file.length());
+                diskBytes += file.length();
+            }
+        }
+        evictDisk();
+
+        registerRequestCounter(name, "memory", memoryHits);
+        registerRequestCounter(name, "disk", diskHits);
+        registerRequestCounter(name, "miss", misses);
+        FunctionCounter.builder("audio.cache.bytes.saved", bytesSaved, LongAdder::sum)
+                .description("Bytes of audio served from the cache instead of being produced again")
+                .baseUnit("bytes")
+                .tag("cache", name)
+                .register(Metrics.globalRegistry);
+        Gauge.builder("audio.cache.hit.ratio", this, AudioCache::getHitRatio)
+                .description("Ratio of requests served from the cache")
+                .tag("cache", name)
+                .register(Metrics.globalRegistry);
+        LOGGER.info("Audio cache " + name + " : " + disk.size() + " clips on disk (" + diskBytes + " bytes)");
+    }
+
+    private static void registerRequestCounter(String name, String result, LongAdder count) {
+        FunctionCounter.builder("audio.cache.requests", count, LongAdder::sum)
+                .description("Requests to the audio cache")
+                .tags("cache", name, "result", result)
+                .register(Metrics.globalRegistry);
+    }
+
+    /**
+     * Gets a clip.
+     *
+     * @param key the key of the clip
+     * @return the clip (shared, not to be modified), null if it is not in the cache
+     */
+    public byte[] get(String key) {
+        final String fileName = fileName(key);
+        byte[] clip;
+        final boolean onDisk;
+        synchronized (this) {
+            clip = memory.get(fileName);
+            onDisk = clip == null && disk.get(fileName) != null;
+        }
+        if (clip != null) {
+            memoryHits.increment();
+            bytesSaved.add(clip.length);
+            return clip;
+        }
+        if (onDisk) {
+            final File file = new File(directory, fileName);
+            try {
+                clip = Files.readAllBytes(file.toPath());
+                file.setLastModified(System.currentTimeMillis());
+                synchronized (this) {
+                    putInMemory(fileName, clip);
+                }
+                diskHits.increment();
+                bytesSaved.add(clip.length);
+                return clip;
+            } catch (IOException e) {
+                // Deleted in the meantime
+                synchronized (this) {
+                    final Long size = disk.remove(fileName);
+                    diskBytes -= size != null ? size : 0;
+                }
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Indicates whether a clip is in the cache (without counting a request).
+     *
+     * @param key the key of the clip
+     * @return true if the clip is in the cache
+     */
+    public synchronized boolean contains(String key) {
+        final String fileName = fileName(key);
+        return memory.containsKey(fileName) || disk.containsKey(fileName);
+    }
+
+    /**
+     * Adds a clip to both tiers.
+     *
+     * @param key  the key of the clip
+     * @param clip the clip (kept by the cache, not to be modified afterwards)
+     */
+    public void put(String key, byte[] clip) {
+        final String fileName = fileName(key);
+        synchronized (this) {
+            putInMemory(fileName, clip);
+        }
+        if (clip.length > diskMaxBytes) {
+            return;
+        }
+        // Written under a temporary name, then renamed: a clip on disk is always complete
+        final File file = new File(directory, fileName);
+        final File temporaryFile = new File(directory, fileName + ".tmp");
+        try {
+            Files.write(temporaryFile.toPath(), clip);
+            Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.error("Unable to write the audio clip " + file, e);
+            temporaryFile.delete();
+            return;
+        }
+        synchronized (this) {
+            final Long previousSize = disk.put(fileName, (long) clip.length);
+            diskBytes += clip.length - (previousSize != null ? previousSize : 0);
+            evictDisk();
+        }
+    }
+
+    /**
+     * @return the ratio of requests served from the cache (0 if no request yet)
+     */
+    public double getHitRatio() {
+        final long hits = memoryHits.sum() + diskHits.sum();
+        final long requests = hits + misses.sum();
+        return requests > 0 ? (double) hits / requests : 0;
+    }
+
+    /**
+     * @return the bytes of audio served from the cache
+     */
+    public long getBytesSaved() {
+        return bytesSaved.sum();
+    }
+
+    private void putInMemory(String fileName, byte[] clip) {
+        if (clip.length > memoryMaxBytes) {
+            return;
+        }
+        final byte[] previousClip = memory.put(fileName, clip);
+        memoryBytes += clip.length - (previousClip != null ? previousClip.length : 0);
+        final Iterator<byte[]> iterator = memory.values().iterator();
+        while (memoryBytes > memoryMaxBytes && iterator.hasNext()) {
+            memoryBytes -= iterator.next().length;
+            iterator.remove();
+        }
+    }
+
+    private void evictDisk() {
+        final Iterator<Map.Entry<String, Long>> iterator = disk.entrySet().iterator();
+        while (diskBytes > diskMaxBytes && iterator.hasNext()) {
+            final Map.Entry<String, Long> entry = iterator.next();
+            new File(directory, entry.getKey()).delete();
+            diskBytes -= entry.getValue();
+            iterator.remove();
+        }
+    }
+
+    private static String fileName(String key) {
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            final StringBuilder fileName = new StringBuilder(2 * digest.length + EXTENSION.length());
+            for (byte b : digest) {
+                fileName.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return fileName.append(EXTENSION).toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
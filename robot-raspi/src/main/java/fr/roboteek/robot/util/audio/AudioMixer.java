@@ -0,0 +1,235 @@
+package fr.roboteek.robot.util.audio;
+
+import org.apache.log4j.Logger;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.DataLine;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.Mixer;
+import javax.sound.sampled.SourceDataLine;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Audio output kept open for the lifetime of the robot: the clips to play (16-bit signed little-endian mono PCM, in
+ * memory) are summed by a dedicated thread in blocks of a few milliseconds and written to a single
+ * {@link SourceDataLine}. Silence is written when nothing plays, so a clip starts within the duration of the line
+ * buffer, and several clips (speech and sounds) can be heard at the same time. Thread-safe.
+ */
+public class AudioMixer implements AutoCloseable {
+
+    /**
+     * Duration of a mix block (seconds).
+     */
+    private static final double BLOCK_DURATION = 0.005;
+
+    /**
+     * Duration of the history of the reference signal (ms).
+     */
+    private static final int REFERENCE_HISTORY_MILLIS = 2000;
+
+    private static final Logger LOGGER = Logger.getLogger(AudioMixer.class);
+
+    private final AudioFormat format;
+
+    private final SourceDataLine line;
+
+    private final int blockSamples;
+
+    private final EchoReference reference;
+
+    /**
+     * Clips added since the last block.
+     */
+    private final Queue<Playback> added = new ConcurrentLinkedQueue<>();
+
+    private final Thread thread;
+
+    private volatile boolean running = true;
+
+    /**
+     * Constructor: opens the output line and starts the mixing thread.
+     *
+     * @param sampleRate   the output sample rate (Hz)
+     * @param bufferMillis the duration of the line buffer (ms)
+     * @param deviceName   the name (or part of the name) of the output device, empty or not found for the default one
+     * @throws LineUnavailableException if no output line can be opened
+     */
+    public AudioMixer(int sampleRate, int bufferMillis, String deviceName) throws LineUnavailableException {
+        format = new AudioFormat(sampleRate, 16, 1, true, false);
+        line = findLine(format, deviceName);
+        final int bufferSamples = Math.max(1, sampleRate * bufferMillis / 1000);
+        line.open(format, 2 * bufferSamples);
+        line.start();
+        blockSamples = (int) Math.max(1, Math.min(sampleRate * BLOCK_DURATION, line.getBufferSize() / 2 / 4));
+        reference = new EchoReference(blockSamples * 1_000_000_000L / sampleRate, REFERENCE_HISTORY_MILLIS);
+        LOGGER.info("Audio output opened : " + format + ", buffer of " + line.getBufferSize() / 2 * 1000 / sampleRate + " ms");
+
+        thread = new Thread(this::mix, "Audio - Sortie");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MAX_PRIORITY);
+        thread.start();
+    }
+
+    private static SourceDataLine findLine(AudioFormat format, String deviceName) throws LineUnavailableException {
+        final DataLine.Info lineInfo = new DataLine.Info(SourceDataLine.class, format);
+        if (deviceName != null && !deviceName.isEmpty()) {
+            for (Mixer.Info mixerInfo : AudioSystem.getMixerInfo()) {
+                if (mixerInfo.getName() != null && mixerInfo.getName().contains(deviceName)) {
+                    final Mixer mixer = AudioSystem.getMixer(mixerInfo);
+                    if (mixer.isLineSupported(lineInfo)) {
+                        return (SourceDataLine) mixer.getLine(lineInfo);
+                    }
+                }
+            }
+            LOGGER.warn("Audio output device " + deviceName + " not found, default device used");
+        }
+        return (SourceDataLine) AudioSystem.getLine(lineInfo);
+    }
+
+    /**
+     * Plays a clip.
+     *
+     * @param pcm the clip (16-bit signed little-endian mono, at the rate of the mixer, not to be modified)
+     * @return the playback
+     */
+    public Playback play(byte[] pcm) {
+        return start(new Playback(pcm));
+    }
+
+    /**
+     * Opens a stream, whose content is appended while it plays ({@link Playback#append(byte[])}, then
+     * {@link Playback#end()}).
+     *
+     * @return the playback of the stream
+     */
+    public Playback openStream() {
+        return start(new Playback());
+    }
+
+    private Playback start(Playback playback) {
+        added.add(playback);
+        if (!running) {
+            // Output closed (possibly while the clip was being added): nothing will be played
+            playback.cancel();
+            playback.complete();
+        }
+        return playback;
+    }
+
+    /**
+     * Plays a clip, resampled to the rate of the mixer if needed.
+     *
+     * @param clip the clip
+     * @return the playback
+     */
+    public Playback play(PcmClip clip) {
+        return play(clip.resample(getSampleRate()).getPcm());
+    }
+
+    /**
+     * @return the output format (16-bit signed little-endian mono)
+     */
+    public AudioFormat getFormat() {
+        return format;
+    }
+
+    public int getSampleRate() {
+        return Math.round(format.getSampleRate());
+    }
+
+    /**
+     * @return the reference signal (what is heard from the output, and when), for echo detection on the capture side
+     */
+    public EchoReference getReference() {
+        return reference;
+    }
+
+    /**
+     * Stops the clips being played and closes the output line.
+     */
+    @Override
+    public void close() {
+        running = false;
+        try {
+            thread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        line.close();
+    }
+
+    /**
+     * Mixing thread.
+     */
+    private void mix() {
+        final int[] mix = new int[blockSamples];
+        final byte[] block = new byte[2 * blockSamples];
+        final List<Playback> playing = new ArrayList<>();
+        // Clips entirely written to the line, with the frame position at which they will have been heard
+        final Queue<Playback> ending = new ArrayDeque<>();
+        final Queue<Long> endPositions = new ArrayDeque<>();
+        final long sampleRate = getSampleRate();
+        long written = 0;
+        try {
+            while (running) {
+                Playback playback;
+                while ((playback = added.poll()) != null) {
+                    playing.add(playback);
+                }
+
+                Arrays.fill(mix, 0);
+                final Iterator<Playback> iterator = playing.iterator();
+                while (iterator.hasNext()) {
+                    playback = iterator.next();
+                    if (playback.mixInto(mix, blockSamples)) {
+                        iterator.remove();
+                        if (playback.isCancelled()) {
+                            playback.complete();
+                        } else {
+                            ending.add(playback);
+                            endPositions.add(written + blockSamples);
+                        }
+                    }
+                }
+                for (int i = 0; i < blockSamples; i++) {
+                    final int sample = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, mix[i]));
+                    block[2 * i] = (byte) sample;
+                    block[2 * i + 1] = (byte) (sample >> 8);
+                }
+
+                // The block is heard once the content already in the line buffer has been played
+                reference.add(mix, blockSamples,
+                        System.nanoTime() + (written - line.getLongFramePosition()) * 1_000_000_000L / sampleRate);
+
+                // Blocks while the line buffer is full: paces the loop on the output clock
+                line.write(block, 0, block.length);
+                written += blockSamples;
+
+                final long heard = line.getLongFramePosition();
+                while (!endPositions.isEmpty() && endPositions.peek() <= heard) {
+                    endPositions.remove();
+                    ending.remove().complete();
+                }
+            }
+        } catch (RuntimeException e) {
+            LOGGER.error("Audio output stopped", e);
+            running = false;
+        } finally {
+            line.stop();
+            line.flush();
+            playing.forEach(Playback::complete);
+            ending.forEach(Playback::complete);
+            Playback playback;
+            while ((playback = added.poll()) != null) {
+                playback.complete();
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package fr.roboteek.robot.util.audio;
+
+/**
+ * Preallocated circular buffer of PCM bytes.
+ * Positions are absolute (number of bytes written since creation), so a window of the stream can be referenced
+ * as a {@link AudioSlice} without copying, as long as it has not been overwritten.
+ * Single writer: only the capture thread writes.
+ */
+public class AudioRingBuffer {
+
+    /**
+     * Circular storage.
+     */
+    private final byte[] buffer;
+
+    /**
+     * Absolute position of the next byte to write.
+     */
+    private volatile long writePosition;
+
+    /**
+     * Constructor.
+     *
+     * @param capacity the capacity in bytes
+     */
+    public AudioRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive : " + capacity);
+        }
+        buffer = new byte[capacity];
+    }
+
+    public int capacity() {
+        return buffer.length;
+    }
+
+    /**
+     * Appends bytes to the buffer, overwriting the oldest ones if needed.
+     *
+     * @param source the source array
+     * @param offset the offset in the source array
+     * @param length the number of bytes to write
+     * @return the absolute position after the write
+     */
+    public long write(byte[] source, int offset, int length) {
+        if (length > buffer.length) {
+            // Only the most recent bytes can be kept
+            offset += length - buffer.length;
+            writePosition += length - buffer.length;
+            length = buffer.length;
+        }
+        final int index = index(writePosition);
+        final int firstPart = Math.min(length, buffer.length - index);
+        System.arraycopy(source, offset, buffer, index, firstPart);
+        System.arraycopy(source, offset + firstPart, buffer, 0, length - firstPart);
+        writePosition += length;
+        return writePosition;
+    }
+
+    /**
+     * Gets the absolute position of the next byte to write.
+     *
+     * @return the write position
+     */
+    public long getWritePosition() {
+        return writePosition;
+    }
+
+    /**
+     * Gets the absolute position of the oldest byte still available.
+     *
+     * @return the oldest available position
+     */
+    public long getOldestPosition() {
+        return Math.max(0, writePosition - buffer.length);
+    }
+
+    /**
+     * Creates a view on a window of the stream.
+     *
+     * @param start absolute start position (inclusive)
+     * @param end   absolute end position (exclusive)
+     * @return the slice
+     */
+    public AudioSlice slice(long start, long end) {
+        if (start < getOldestPosition() || end > writePosition || start > end) {
+            throw new IllegalArgumentException("Window [" + start + ", " + end + "[ not available in [" + getOldestPosition() + ", " + writePosition + "[");
+        }
+        return new AudioSlice(this, start, (int) (end - start));
+    }
+
+    /**
+     * Copies bytes from the buffer.
+     *
+     * @param position    absolute position of the first byte
+     * @param destination the destination array
+     * @param offset      the offset in the destination array
+     * @param length      the number of bytes to copy
+     */
+    void read(long position, byte[] destination, int offset, int length) {
+        final int index = index(position);
+        final int firstPart = Math.min(length, buffer.length - index);
+        System.arraycopy(buffer, index, destination, offset, firstPart);
+        System.arraycopy(buffer, 0, destination, offset + firstPart, length - firstPart);
+    }
+
+    /**
+     * Gives direct access to the storage (for slices writing without copy).
+     */
+    byte[] array() {
+        return buffer;
+    }
+
+    int index(long position) {
+        return (int) (position % buffer.length);
+    }
+}
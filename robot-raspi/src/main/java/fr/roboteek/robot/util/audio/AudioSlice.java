@@ -0,0 +1,88 @@
+package fr.roboteek.robot.util.audio;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * View on a window of an {@link AudioRingBuffer} (for example an utterance), without copy.
+ * The view stays readable until the ring buffer overwrites it: check {@link #isValid()} when it is read
+ * outside of the capture thread.
+ */
+public class AudioSlice {
+
+    private final AudioRingBuffer ringBuffer;
+
+    /**
+     * Absolute start position in the ring buffer.
+     */
+    private final long start;
+
+    /**
+     * Length in bytes.
+     */
+    private final int length;
+
+    AudioSlice(AudioRingBuffer ringBuffer, long start, int length) {
+        this.ringBuffer = ringBuffer;
+        this.start = start;
+        this.length = length;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Indicates whether the window has not been overwritten yet.
+     *
+     * @return true if the content is still available
+     */
+    public boolean isValid() {
+        return start >= ringBuffer.getOldestPosition();
+    }
+
+    /**
+     * Copies the content into an array.
+     *
+     * @param destination the destination array
+     * @param offset      the offset in the destination array
+     */
+    public void copyTo(byte[] destination, int offset) {
+        checkValid();
+        ringBuffer.read(start, destination, offset, length);
+    }
+
+    /**
+     * Copies the content into a new array.
+     *
+     * @return the content
+     */
+    public byte[] toByteArray() {
+        final byte[] content = new byte[length];
+        copyTo(content, 0);
+        return content;
+    }
+
+    /**
+     * Writes the content directly from the ring buffer storage (at most two writes, no copy).
+     *
+     * @param out the output stream
+     * @throws IOException if the write fails
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        checkValid();
+        final byte[] array = ringBuffer.array();
+        final int index = ringBuffer.index(start);
+        final int firstPart = Math.min(length, array.length - index);
+        out.write(array, index, firstPart);
+        if (length > firstPart) {
+            out.write(array, 0, length - firstPart);
+        }
+    }
+
+    private void checkValid() {
+        if (!isValid()) {
+            throw new IllegalStateException("Audio slice overwritten by the capture");
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package fr.roboteek.robot.util.audio;
+
+/**
+ * Recognizes the captured blocks that only contain the echo of the robot's own output, so that voice activity
+ * detection keeps running while the robot speaks (full duplex) without triggering on its own voice.
+ * <p>
+ * The energy envelope of the microphone (10 ms frames) is compared with the envelope of the {@link EchoReference}:
+ * <ul>
+ * <li>the acoustic delay is the one maximizing the correlation of both envelopes over the last half second (kept
+ * while they are poorly correlated, e.g. when someone speaks over the robot),</li>
+ * <li>the echo expected in each frame is the reference energy at that delay (with a decay for the room reverberation)
+ * times the echo gain, learnt on the blocks recognized as echo, plus the background noise,</li>
+ * <li>a block is echo unless enough of its frames are well above the expected echo (double talk: someone speaks over
+ * the robot).</li>
+ * </ul>
+ * Not thread-safe: used by the capture thread only.
+ */
+public class EchoGate {
+
+    /**
+     * Duration of an envelope frame (ns).
+     */
+    private static final long FRAME_NANOS = 10_000_000L;
+
+    /**
+     * Number of frames of the captured envelope kept to estimate the delay.
+     */
+    private static final int HISTORY_FRAMES = 50;
+
+    /**
+     * Duration of the room reverberation (decay of 60 dB), during which an echo is still expected after the output.
+     */
+    private static final long REVERBERATION_NANOS = 300_000_000L;
+
+    /**
+     * Energy decay of the reverberation per frame.
+     */
+    private static final double REVERBERATION_DECAY = Math.pow(10, -6d * FRAME_NANOS / REVERBERATION_NANOS);
+
+    /**
+     * Minimum proportion of the frames of a block above the expected echo for a double talk.
+     */
+    private static final double DOUBLE_TALK_FRAMES = 1 / 3d;
+
+    /**
+     * Minimum correlation of the envelopes for a delay to be adopted (lower when someone speaks over the robot).
+     */
+    private static final double MIN_DELAY_CORRELATION = 0.5;
+
+    private static final double MIN_ENERGY = 1e-10;
+
+    private final EchoReference reference;
+
+    private final long maxDelayNanos;
+
+    /**
+     * Energy ratio above the expected echo for a frame to be a double talk.
+     */
+    private final double doubleTalkRatio;
+
+    /**
+     * Captured envelope (mean square normalized to [0, 1]) and start time of each frame, circular.
+     */
+    private final double[] energies = new double[HISTORY_FRAMES];
+    private final long[] times = new long[HISTORY_FRAMES];
+    private long frames;
+
+    /**
+     * Reference envelope at the delay being evaluated (work array).
+     */
+    private final double[] referenceEnergies = new double[HISTORY_FRAMES];
+
+    private double noiseFloor = -1;
+
+    /**
+     * Ratio of the captured echo energy to the reference energy (negative until the first echo).
+     */
+    private double echoGain = -1;
+
+    private long delayNanos;
+
+    /**
+     * Constructor.
+     *
+     * @param reference          the reference signal of the audio output
+     * @param maxDelayMillis     the maximum delay between the output and the capture of its echo (ms)
+     * @param doubleTalkDecibels the level above the expected echo from which the captured signal is not echo only (dB)
+     */
+    public EchoGate(EchoReference reference, int maxDelayMillis, double doubleTalkDecibels) {
+        this.reference = reference;
+        this.maxDelayNanos = maxDelayMillis * 1_000_000L;
+        this.doubleTalkRatio = Math.pow(10, doubleTalkDecibels / 10);
+    }
+
+    /**
+     * Analyzes a captured block. All the blocks must be analyzed, in order, for the envelope history to be complete.
+     *
+     * @param block      the samples of the block (normalized to [-1, 1])
+     * @param endNanos   the time at which the last sample of the block has been captured ({@link System#nanoTime()})
+     * @param sampleRate the sample rate of the block (Hz)
+     * @return true if the block only contains the echo of the output (and background noise)
+     */
+    public boolean isEcho(float[] block, long endNanos, float sampleRate) {
+        final int frameSamples = Math.max(1, Math.round(sampleRate * FRAME_NANOS / 1e9f));
+        final int blockFrames = Math.max(1, Math.min(HISTORY_FRAMES, block.length / frameSamples));
+        final long startNanos = endNanos - (long) (block.length * 1e9 / sampleRate);
+        for (int f = 0; f < blockFrames; f++) {
+            final int from = f * frameSamples;
+            final int to = f == blockFrames - 1 ? block.length : from + frameSamples;
+            double sum = 0;
+            for (int i = from; i < to; i++) {
+                sum += block[i] * block[i];
+            }
+            addFrame(sum / Math.max(1, to - from), startNanos + (long) (from * 1e9 / sampleRate));
+        }
+
+        if (!reference.isActiveSince(startNanos - maxDelayNanos - REVERBERATION_NANOS)) {
+            // Nothing played recently: no echo
+            return false;
+        }
+
+        if (echoGain < 0) {
+            estimateDelay();
+        }
+        final int available = (int) Math.min(frames, HISTORY_FRAMES);
+        loadReference(delayNanos, available);
+        // Reverberation: the echo of a frame lasts a few frames after it
+        for (int k = 1; k < available; k++) {
+            referenceEnergies[k] = Math.max(referenceEnergies[k], referenceEnergies[k - 1] * REVERBERATION_DECAY);
+        }
+
+        double capturedSum = 0;
+        double referenceSum = 0;
+        for (int k = available - blockFrames; k < available; k++) {
+            capturedSum += energies[index(k, available)];
+            referenceSum += referenceEnergies[k];
+        }
+        if (referenceSum <= MIN_ENERGY) {
+            // Output silent at the delay of this block
+            return false;
+        }
+        final double ratio = Math.max(0, capturedSum - noiseFloor * blockFrames) / referenceSum;
+        // The gain is only learnt on blocks whose echo is clearly above the background noise
+        final boolean audibleEcho = capturedSum > doubleTalkRatio * noiseFloor * blockFrames;
+        if (echoGain < 0) {
+            if (audibleEcho) {
+                // First block with an echo: the robot has just started to speak
+                echoGain = ratio;
+            }
+            return true;
+        }
+
+        int doubleTalkFrames = 0;
+        for (int k = available - blockFrames; k < available; k++) {
+            final double expected = echoGain * referenceEnergies[k] + noiseFloor;
+            if (energies[index(k, available)] > doubleTalkRatio * expected) {
+                doubleTalkFrames++;
+            }
+        }
+        if (doubleTalkFrames >= DOUBLE_TALK_FRAMES * blockFrames) {
+            return false;
+        }
+
+        if (audibleEcho) {
+            // Echo only: the gain follows quickly when the echo gets lower, slowly when it gets higher
+            echoGain += (ratio - echoGain) * (ratio < echoGain ? 0.5 : 0.1);
+        }
+        // The delay is followed on echo only blocks (used from the next block)
+        estimateDelay();
+        return true;
+    }
+
+    /**
+     * @param nanos the time
+     * @return true if the output has been audible since the given time, taking the maximum delay into account
+     */
+    public boolean isOutputAudible(long nanos) {
+        return reference.isActiveSince(nanos - maxDelayNanos);
+    }
+
+    /**
+     * @return the last estimated delay between the output and the capture of its echo (ms)
+     */
+    public long getDelayMillis() {
+        return delayNanos / 1_000_000L;
+    }
+
+    /**
+     * @return the estimated echo gain (ratio of the captured echo energy to the output energy), negative if unknown
+     */
+    public double getEchoGain() {
+        return echoGain;
+    }
+
+    private void addFrame(double energy, long startNanos) {
+        final int index = (int) (frames % HISTORY_FRAMES);
+        energies[index] = energy;
+        times[index] = startNanos;
+        frames++;
+        // Background noise: follows the minimum, rises slowly
+        if (noiseFloor < 0 || energy < noiseFloor) {
+            noiseFloor = Math.max(energy, MIN_ENERGY);
+        } else {
+            noiseFloor += (energy - noiseFloor) * 0.002;
+        }
+    }
+
+    /**
+     * Adopts the delay maximizing the correlation of the captured and reference envelopes (amplitudes), if they are
+     * correlated enough.
+     */
+    private void estimateDelay() {
+        final int available = (int) Math.min(frames, HISTORY_FRAMES);
+        long bestDelay = delayNanos;
+        double bestCorrelation = MIN_DELAY_CORRELATION;
+        for (long delay = 0; delay <= maxDelayNanos; delay += FRAME_NANOS) {
+            loadReference(delay, available);
+            double sumX = 0, sumY = 0, sumXX = 0, sumYY = 0, sumXY = 0;
+            for (int k = 0; k < available; k++) {
+                final double x = Math.sqrt(energies[index(k, available)]);
+                final double y = Math.sqrt(referenceEnergies[k]);
+                sumX += x;
+                sumY += y;
+                sumXX += x * x;
+                sumYY += y * y;
+                sumXY += x * y;
+            }
+            final double covariance = sumXY - sumX * sumY / available;
+            final double varianceX = sumXX - sumX * sumX / available;
+            final double varianceY = sumYY - sumY * sumY / available;
+            if (varianceX <= 0 || varianceY <= 0) {
+                continue;
+            }
+            final double correlation = covariance / Math.sqrt(varianceX * varianceY);
+            if (correlation > bestCorrelation) {
+                bestCorrelation = correlation;
+                bestDelay = delay;
+            }
+        }
+        delayNanos = bestDelay;
+    }
+
+    /**
+     * Loads the reference envelope heard at the given delay before each frame of the history.
+     */
+    private void loadReference(long delay, int available) {
+        for (int k = 0; k < available; k++) {
+            final long start = times[index(k, available)] - delay;
+            referenceEnergies[k] = reference.energy(start, start + FRAME_NANOS);
+        }
+    }
+
+    /**
+     * @return the index in the circular history of the k-th of the last frames (0 for the oldest)
+     */
+    private int index(int k, int available) {
+        return (int) ((frames - available + k) % HISTORY_FRAMES);
+    }
+}
@@ -0,0 +1,111 @@
+package fr.roboteek.robot.util.audio;
+
+/**
+ * Reference signal of an {@link AudioMixer}: the energy of each mixed block, with the time at which it is heard
+ * ({@link System#nanoTime()} clock). The capture side compares it with the microphone signal to recognize the echo of
+ * the robot's own voice and sounds. Only the energy envelope is kept, so the reference does not depend on the sample
+ * rate of the capture. Thread-safe (one writer, the mixer thread).
+ */
+public class EchoReference {
+
+    /**
+     * Mean square (normalized to [0, 1]) of each block, and time at which the block starts to be heard.
+     */
+    private final double[] energies;
+    private final long[] times;
+
+    private final long blockNanos;
+
+    /**
+     * Number of blocks written since the creation.
+     */
+    private long count;
+
+    /**
+     * Time at which the last block with a non-zero energy has been heard entirely (Long.MIN_VALUE if none).
+     */
+    private volatile long lastActiveNanos = Long.MIN_VALUE;
+
+    /**
+     * Constructor.
+     *
+     * @param blockNanos    the duration of a block (ns)
+     * @param historyMillis the duration of the history kept (ms)
+     */
+    public EchoReference(long blockNanos, int historyMillis) {
+        this.blockNanos = blockNanos;
+        final int capacity = (int) Math.max(1, historyMillis * 1_000_000L / blockNanos);
+        energies = new double[capacity];
+        times = new long[capacity];
+    }
+
+    /**
+     * Adds a block (mixer thread).
+     *
+     * @param mix        the mixed samples (16-bit range)
+     * @param samples    the number of samples of the block
+     * @param heardNanos the time at which the block starts to be heard
+     */
+    void add(int[] mix, int samples, long heardNanos) {
+        double sum = 0;
+        for (int i = 0; i < samples; i++) {
+            final double sample = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, mix[i])) / 32768d;
+            sum += sample * sample;
+        }
+        final double energy = sum / samples;
+        synchronized (this) {
+            final int index = (int) (count % energies.length);
+            energies[index] = energy;
+            times[index] = heardNanos;
+            count++;
+        }
+        if (energy > 0) {
+            lastActiveNanos = heardNanos + blockNanos;
+        }
+    }
+
+    /**
+     * @param fromNanos the start of the period
+     * @return true if something has been (or will be) heard since the given time
+     */
+    public boolean isActiveSince(long fromNanos) {
+        return lastActiveNanos >= fromNanos;
+    }
+
+    /**
+     * Returns the mean energy heard during a period.
+     *
+     * @param fromNanos the start of the period
+     * @param toNanos   the end of the period
+     * @return the mean square (normalized to [0, 1]) of the blocks starting during the period (or of the block being
+     * heard at its start if none starts during it), 0 if the period is out of the history
+     */
+    public synchronized double energy(long fromNanos, long toNanos) {
+        final long oldest = Math.max(0, count - energies.length);
+        // Last block starting before the end of the period (blocks are in chronological order)
+        long low = oldest;
+        long high = count - 1;
+        while (low <= high) {
+            final long middle = (low + high) >>> 1;
+            if (times[(int) (middle % times.length)] < toNanos) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        double sum = 0;
+        int blocks = 0;
+        for (long i = high; i >= oldest; i--) {
+            final int index = (int) (i % times.length);
+            if (times[index] + blockNanos <= fromNanos) {
+                break;
+            }
+            sum += energies[index];
+            blocks++;
+            if (times[index] <= fromNanos) {
+                break;
+            }
+        }
+        return blocks > 0 ? sum / blocks : 0;
+    }
+}
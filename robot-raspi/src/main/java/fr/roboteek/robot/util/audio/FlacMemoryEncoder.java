@@ -0,0 +1,73 @@
+package fr.roboteek.robot.util.audio;
+
+import net.sourceforge.javaflacencoder.FLACEncoder;
+import net.sourceforge.javaflacencoder.FLACStreamOutputStream;
+import net.sourceforge.javaflacencoder.StreamConfiguration;
+
+import javax.sound.sampled.AudioFormat;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * FLAC encoder working fully in memory (PCM bytes --> FLAC bytes), without any temporary file.
+ * Supports 16-bit signed little-endian PCM, mono or stereo.
+ */
+public class FlacMemoryEncoder {
+
+    /**
+     * Number of samples (per channel) handed to the encoder at once.
+     */
+    private static final int CHUNK_SAMPLES = 4096;
+
+    private FlacMemoryEncoder() {
+    }
+
+    /**
+     * Encodes PCM content to FLAC.
+     *
+     * @param pcmData the PCM content
+     * @param offset  the offset of the content in the array
+     * @param length  the length of the content in bytes
+     * @param format  the PCM format
+     * @return the FLAC content
+     * @throws IOException if the encoding fails
+     */
+    public static byte[] encode(byte[] pcmData, int offset, int length, AudioFormat format) throws IOException {
+        if (format.getEncoding() != AudioFormat.Encoding.PCM_SIGNED || format.getSampleSizeInBits() != 16 || format.isBigEndian()) {
+            throw new IllegalArgumentException("Unsupported audio format : " + format);
+        }
+        final int channels = format.getChannels();
+        final int frameSize = format.getFrameSize();
+
+        final StreamConfiguration streamConfiguration = new StreamConfiguration();
+        streamConfiguration.setChannelCount(channels);
+        streamConfiguration.setSampleRate((int) format.getSampleRate());
+        streamConfiguration.setBitsPerSample(16);
+
+        // FLAC is roughly half the size of PCM for speech
+        final ByteArrayOutputStream flacData = new ByteArrayOutputStream(length / 2 + 1024);
+        final FLACEncoder encoder = new FLACEncoder();
+        encoder.setStreamConfiguration(streamConfiguration);
+        encoder.setOutputStream(new FLACStreamOutputStream(flacData));
+        encoder.openFLACStream();
+
+        final int frames = length / frameSize;
+        final int[] samples = new int[Math.min(frames, CHUNK_SAMPLES) * channels];
+        int unencodedSamples = 0;
+        int frame = 0;
+        while (frame < frames) {
+            final int chunkFrames = Math.min(CHUNK_SAMPLES, frames - frame);
+            int position = offset + frame * frameSize;
+            for (int i = 0; i < chunkFrames * channels; i++) {
+                samples[i] = (short) ((pcmData[position] & 0xFF) | (pcmData[position + 1] << 8));
+                position += 2;
+            }
+            encoder.addSamples(samples, chunkFrames);
+            frame += chunkFrames;
+            unencodedSamples += chunkFrames;
+            unencodedSamples -= encoder.encodeSamples(unencodedSamples, false);
+        }
+        encoder.encodeSamples(unencodedSamples, true);
+        return flacData.toByteArray();
+    }
+}
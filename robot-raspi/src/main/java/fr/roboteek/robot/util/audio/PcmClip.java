@@ -0,0 +1,117 @@
+package fr.roboteek.robot.util.audio;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+
+/**
+ * Audio clip decoded in memory as 16-bit signed little-endian mono PCM, the format of the audio output.
+ */
+public class PcmClip {
+
+    private final byte[] pcm;
+
+    private final int sampleRate;
+
+    /**
+     * Constructor.
+     *
+     * @param pcm        the content (16-bit signed little-endian mono)
+     * @param sampleRate the sample rate (Hz)
+     */
+    public PcmClip(byte[] pcm, int sampleRate) {
+        this.pcm = pcm;
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * Decodes an audio file (any format read by Java Sound: WAV, AIFF, AU) held in memory.
+     *
+     * @param audioFile the content of the file
+     * @return the clip, at the sample rate of the file, channels mixed down to mono
+     * @throws IOException                   if the content cannot be read
+     * @throws UnsupportedAudioFileException if the format is not supported
+     */
+    public static PcmClip decode(byte[] audioFile) throws IOException, UnsupportedAudioFileException {
+        return decode(new ByteArrayInputStream(audioFile));
+    }
+
+    /**
+     * Decodes an audio file.
+     *
+     * @param file the file
+     * @return the clip, at the sample rate of the file, channels mixed down to mono
+     * @throws IOException                   if the file cannot be read
+     * @throws UnsupportedAudioFileException if the format is not supported
+     */
+    public static PcmClip decode(File file) throws IOException, UnsupportedAudioFileException {
+        return decode(Files.readAllBytes(file.toPath()));
+    }
+
+    private static PcmClip decode(InputStream input) throws IOException, UnsupportedAudioFileException {
+        try (AudioInputStream fileStream = AudioSystem.getAudioInputStream(input)) {
+            final AudioFormat fileFormat = fileStream.getFormat();
+            final int channels = fileFormat.getChannels();
+            final AudioFormat pcmFormat = new AudioFormat(fileFormat.getSampleRate(), 16, channels, true, false);
+            final byte[] content;
+            try (AudioInputStream pcmStream = AudioSystem.getAudioInputStream(pcmFormat, fileStream)) {
+                content = pcmStream.readAllBytes();
+            }
+            return new PcmClip(channels == 1 ? content : mixDown(content, channels), Math.round(fileFormat.getSampleRate()));
+        }
+    }
+
+    private static byte[] mixDown(byte[] content, int channels) {
+        final int frameSize = 2 * channels;
+        final byte[] mono = new byte[content.length / frameSize * 2];
+        for (int frame = 0, position = 0; position + frameSize <= content.length; frame++, position += frameSize) {
+            int sum = 0;
+            for (int channel = 0; channel < channels; channel++) {
+                sum += (short) ((content[position + 2 * channel] & 0xFF) | (content[position + 2 * channel + 1] << 8));
+            }
+            final int sample = sum / channels;
+            mono[2 * frame] = (byte) sample;
+            mono[2 * frame + 1] = (byte) (sample >> 8);
+        }
+        return mono;
+    }
+
+    /**
+     * @param sampleRate a sample rate (Hz)
+     * @return the clip at this sample rate (this clip if it is already at this rate)
+     */
+    public PcmClip resample(int sampleRate) {
+        return sampleRate == this.sampleRate ? this : new PcmClip(PolyphaseResampler.resample(pcm, this.sampleRate, sampleRate), sampleRate);
+    }
+
+    /**
+     * @return the clip as a WAV file
+     */
+    public byte[] toWav() {
+        return WavEncoder.encode(pcm, 0, pcm.length, new AudioFormat(sampleRate, 16, 1, true, false));
+    }
+
+    /**
+     * @return the content (16-bit signed little-endian mono, shared, not to be modified)
+     */
+    public byte[] getPcm() {
+        return pcm;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * @return the duration in milliseconds
+     */
+    public long getDurationMillis() {
+        return pcm.length / 2 * 1000L / sampleRate;
+    }
+}
@@ -0,0 +1,194 @@
+package fr.roboteek.robot.util.audio;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A clip being played by an {@link AudioMixer}: it can be waited for (until it has been heard, not only written to
+ * the output line) or cancelled. The content of a stream ({@link AudioMixer#openStream()}) is appended chunk by chunk
+ * while it plays: if the next chunk is late, silence is played until it arrives. Thread-safe.
+ */
+public class Playback {
+
+    /**
+     * Chunks not mixed yet (16-bit signed little-endian mono, at the rate of the mixer).
+     */
+    private final Queue<byte[]> chunks = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Chunk being mixed, and next byte to mix (mixer thread only).
+     */
+    private byte[] chunk;
+    private int position;
+
+    /**
+     * Number of chunks appended and not entirely mixed yet (guarded by the lock).
+     */
+    private int pendingChunks;
+
+    private final Object lock = new Object();
+
+    /**
+     * True when all the content has been appended.
+     */
+    private volatile boolean ended;
+
+    private volatile boolean cancelled;
+
+    private final CountDownLatch done = new CountDownLatch(1);
+
+    Playback() {
+    }
+
+    Playback(byte[] pcm) {
+        append(pcm);
+        end();
+    }
+
+    /**
+     * @return a playback already cancelled and done, for a clip or a stream that cannot be played (e.g. no audio
+     * output)
+     */
+    public static Playback none() {
+        final Playback playback = new Playback();
+        playback.cancel();
+        playback.complete();
+        return playback;
+    }
+
+    /**
+     * Appends content to a stream.
+     *
+     * @param pcm the content (16-bit signed little-endian mono, at the rate of the mixer, not to be modified)
+     * @throws IllegalStateException if the end of the stream has already been signaled
+     */
+    public void append(byte[] pcm) {
+        if (ended) {
+            throw new IllegalStateException("Content appended after the end of the stream");
+        }
+        synchronized (lock) {
+            pendingChunks++;
+        }
+        chunks.add(pcm);
+    }
+
+    /**
+     * Signals that all the content of a stream has been appended: the playback is done once it has been heard.
+     */
+    public void end() {
+        ended = true;
+    }
+
+    /**
+     * Waits until at most a given number of appended chunks remain to be played, to append the next one just in
+     * time (e.g. synthesize the next sentence while the current one plays).
+     *
+     * @param maxPendingChunks the maximum number of chunks not entirely played
+     * @return false if the playback has been cancelled in the meantime
+     * @throws InterruptedException if the wait is interrupted
+     */
+    public boolean awaitPendingChunks(int maxPendingChunks) throws InterruptedException {
+        synchronized (lock) {
+            while (pendingChunks > maxPendingChunks && !cancelled && !isDone()) {
+                lock.wait();
+            }
+        }
+        return !cancelled;
+    }
+
+    /**
+     * Stops the playback (the clip stops within the duration of the output buffer, the content not played yet is
+     * dropped).
+     */
+    public void cancel() {
+        cancelled = true;
+        synchronized (lock) {
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * @return true if the playback has been cancelled
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @return true if the clip has been heard entirely, or the playback cancelled
+     */
+    public boolean isDone() {
+        return done.getCount() == 0;
+    }
+
+    /**
+     * Waits for the end of the playback.
+     *
+     * @throws InterruptedException if the wait is interrupted
+     */
+    public void await() throws InterruptedException {
+        done.await();
+    }
+
+    /**
+     * Waits for the end of the playback.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit    the unit of the timeout
+     * @return true if the playback is done, false if the timeout elapsed
+     * @throws InterruptedException if the wait is interrupted
+     */
+    public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        return done.await(timeout, unit);
+    }
+
+    /**
+     * Adds the next samples of the clip to a mix block (mixer thread).
+     *
+     * @param mix   the mix block
+     * @param count the number of samples of the block
+     * @return true if the clip has been entirely mixed (or cancelled)
+     */
+    boolean mixInto(int[] mix, int count) {
+        if (cancelled) {
+            return true;
+        }
+        int mixed = 0;
+        while (mixed < count) {
+            if (chunk == null) {
+                // Read before polling: the stream is over only if it had ended before its last chunk was taken
+                final boolean lastChunk = ended;
+                chunk = chunks.poll();
+                position = 0;
+                if (chunk == null) {
+                    return lastChunk;
+                }
+            }
+            final int samples = Math.min(count - mixed, (chunk.length - position) / 2);
+            for (int i = 0; i < samples; i++, position += 2) {
+                mix[mixed + i] += (short) ((chunk[position] & 0xFF) | (chunk[position + 1] << 8));
+            }
+            mixed += samples;
+            if (chunk.length - position < 2) {
+                chunk = null;
+                synchronized (lock) {
+                    pendingChunks--;
+                    lock.notifyAll();
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Marks the playback as done (mixer thread).
+     */
+    void complete() {
+        done.countDown();
+        synchronized (lock) {
+            lock.notifyAll();
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package fr.roboteek.robot.util.audio;
+
+import java.util.Arrays;
+
+/**
+ * Rational sample rate converter for 16-bit signed little-endian mono PCM, using a polyphase FIR filter.
+ * The conversion ratio is reduced to L/M (44100 Hz --> 16000 Hz gives 160/441): conceptually the signal is
+ * upsampled by L, low-pass filtered and downsampled by M, but only the filter phase needed by each output sample
+ * is computed, so the cost is a fixed number of multiply-adds per output sample whatever the ratio.
+ * The low-pass filter (Kaiser-windowed sinc) removes everything above the output Nyquist frequency to avoid aliasing.
+ * <p>
+ * Stateful (the filter history is kept between blocks, so the stream can be processed block by block) and not
+ * thread-safe. No allocation once the working buffer fits the largest block.
+ */
+public class PolyphaseResampler {
+
+    /**
+     * Filter taps per phase (i.e. input samples used by each output sample).
+     */
+    private static final int TAPS_PER_PHASE = 64;
+
+    /**
+     * Cutoff (-6 dB), as a fraction of the output Nyquist frequency: at 16 kHz, flat up to about 5 kHz and no
+     * aliasing from content above 8 kHz.
+     */
+    private static final double CUTOFF = 0.8;
+
+    /**
+     * Kaiser window shape (about 70 dB of stopband attenuation).
+     */
+    private static final double KAISER_BETA = 7;
+
+    /**
+     * Upsampling factor (L).
+     */
+    private final int interpolation;
+
+    /**
+     * Downsampling factor (M).
+     */
+    private final int decimation;
+
+    /**
+     * Filter coefficients, by phase, in input order (coefficient j applies to the j-th sample of the window).
+     */
+    private final float[][] phases;
+
+    /**
+     * Filter history (last TAPS_PER_PHASE - 1 input samples) followed by the current block.
+     */
+    private float[] samples = new float[0];
+
+    /**
+     * Phase of the next output sample.
+     */
+    private int phase;
+
+    /**
+     * Index, relative to the start of the next block, of the first input sample of the next output window.
+     */
+    private int position;
+
+    /**
+     * Constructor.
+     *
+     * @param inputRate  the input sample rate (Hz)
+     * @param outputRate the output sample rate (Hz)
+     */
+    public PolyphaseResampler(int inputRate, int outputRate) {
+        if (inputRate <= 0 || outputRate <= 0) {
+            throw new IllegalArgumentException("Invalid sample rates : " + inputRate + " --> " + outputRate);
+        }
+        final int gcd = gcd(inputRate, outputRate);
+        interpolation = outputRate / gcd;
+        decimation = inputRate / gcd;
+
+        // Prototype low-pass filter at the upsampled rate
+        final int length = interpolation * TAPS_PER_PHASE;
+        final double cutoff = CUTOFF * 0.5 / Math.max(interpolation, decimation);
+        final double center = (length - 1) / 2d;
+        final double besselBeta = bessel0(KAISER_BETA);
+        phases = new float[interpolation][TAPS_PER_PHASE];
+        for (int i = 0; i < length; i++) {
+            final double x = i - center;
+            final double sinc = x == 0 ? 2 * cutoff : Math.sin(2 * Math.PI * cutoff * x) / (Math.PI * x);
+            final double ratio = x / center;
+            final double window = bessel0(KAISER_BETA * Math.sqrt(Math.max(0, 1 - ratio * ratio))) / besselBeta;
+            // Coefficient i belongs to phase i % L and applies to the input sample k = i / L before the current one
+            phases[i % interpolation][TAPS_PER_PHASE - 1 - i / interpolation] = (float) (interpolation * sinc * window);
+        }
+    }
+
+    public int getInterpolation() {
+        return interpolation;
+    }
+
+    public int getDecimation() {
+        return decimation;
+    }
+
+    /**
+     * Returns the maximum number of output bytes produced for a given number of input bytes.
+     *
+     * @param inputLength the number of input bytes
+     * @return the maximum number of output bytes
+     */
+    public int maxOutputLength(int inputLength) {
+        return (int) (((long) inputLength / 2 * interpolation / decimation + 1) * 2);
+    }
+
+    /**
+     * Resamples a block of PCM content.
+     *
+     * @param source       the input content (whole samples)
+     * @param offset       the offset of the input content
+     * @param length       the length of the input content in bytes
+     * @param output       the output array (at least {@link #maxOutputLength(int)} bytes available)
+     * @param outputOffset the offset in the output array
+     * @return the number of output bytes written
+     */
+    public int process(byte[] source, int offset, int length, byte[] output, int outputOffset) {
+        final int history = TAPS_PER_PHASE - 1;
+        final int count = length / 2;
+        if (samples.length < history + count) {
+            final float[] grown = new float[history + count];
+            System.arraycopy(samples, 0, grown, 0, Math.min(samples.length, history));
+            samples = grown;
+        }
+        for (int i = 0; i < count; i++) {
+            final int index = offset + 2 * i;
+            samples[history + i] = (short) ((source[index] & 0xFF) | (source[index + 1] << 8)) / 32768f;
+        }
+
+        int written = outputOffset;
+        int t = position;
+        while (t < count) {
+            final float[] coefficients = phases[phase];
+            float sum = 0;
+            for (int j = 0; j < TAPS_PER_PHASE; j++) {
+                sum += coefficients[j] * samples[t + j];
+            }
+            final int sample = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, Math.round(sum * 32768f)));
+            output[written++] = (byte) sample;
+            output[written++] = (byte) (sample >> 8);
+
+            phase += decimation;
+            t += phase / interpolation;
+            phase %= interpolation;
+        }
+        position = t - count;
+
+        // Keep the end of the block as history for the next one
+        System.arraycopy(samples, count, samples, 0, history);
+        return written - outputOffset;
+    }
+
+    /**
+     * Resamples a whole clip: unlike block processing, the end of the clip is flushed through the filter and the
+     * filter delay is removed, so the output is aligned with the input and has the expected length.
+     *
+     * @param pcm        the clip (16-bit signed little-endian mono)
+     * @param inputRate  the sample rate of the clip (Hz)
+     * @param outputRate the output sample rate (Hz)
+     * @return the resampled clip (the same array if the rates are equal)
+     */
+    public static byte[] resample(byte[] pcm, int inputRate, int outputRate) {
+        if (inputRate == outputRate) {
+            return pcm;
+        }
+        final PolyphaseResampler resampler = new PolyphaseResampler(inputRate, outputRate);
+        final byte[] padded = Arrays.copyOf(pcm, pcm.length + 2 * TAPS_PER_PHASE);
+        final byte[] output = new byte[resampler.maxOutputLength(padded.length)];
+        final int written = resampler.process(padded, 0, padded.length, output, 0);
+
+        // The filter delays the signal by half its length (TAPS_PER_PHASE / 2 input samples)
+        final int delay = (int) Math.round(TAPS_PER_PHASE / 2d * resampler.interpolation / resampler.decimation) * 2;
+        final int length = (int) Math.round(pcm.length / 2d * resampler.interpolation / resampler.decimation) * 2;
+        return Arrays.copyOfRange(output, delay, delay + Math.min(length, written - delay));
+    }
+
+    /**
+     * Clears the filter history (start of a new, unrelated stream).
+     */
+    public void reset() {
+        Arrays.fill(samples, 0);
+        phase = 0;
+        position = 0;
+    }
+
+    private static int gcd(int a, int b) {
+        return b == 0 ? a : gcd(b, a % b);
+    }
+
+    /**
+     * Zeroth-order modified Bessel function of the first kind (power series).
+     */
+    private static double bessel0(double x) {
+        double sum = 1;
+        double term = 1;
+        for (int k = 1; k < 50; k++) {
+            term *= (x / (2 * k)) * (x / (2 * k));
+            sum += term;
+            if (term < sum * 1e-12) {
+                break;
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,144 @@
+package fr.roboteek.robot.util.audio;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Input stream converting a 16-bit signed little-endian mono PCM stream to another sample rate
+ * (see {@link PolyphaseResampler}). The source is read on demand, about as much as needed to fill each read.
+ * An optional listener receives the source content before the conversion (e.g. to monitor the full-rate stream).
+ */
+public class ResamplingInputStream extends InputStream {
+
+    /**
+     * Listener of the source content.
+     */
+    public interface SourceListener {
+
+        /**
+         * Called with each chunk read from the source, before the conversion.
+         *
+         * @param buffer the source content (valid only during the call)
+         * @param offset the offset of the content
+         * @param length the length of the content in bytes
+         */
+        void onSourceAudio(byte[] buffer, int offset, int length);
+    }
+
+    private final InputStream source;
+
+    /**
+     * Resampler (null if both rates are equal).
+     */
+    private final PolyphaseResampler resampler;
+
+    private final SourceListener listener;
+
+    private byte[] sourceBuffer = new byte[0];
+
+    /**
+     * Number of bytes at the start of the source buffer left over from the previous read (incomplete sample).
+     */
+    private int sourceRemainder;
+
+    private byte[] outputBuffer = new byte[0];
+
+    private int outputPosition;
+
+    private int outputLength;
+
+    private final byte[] singleByte = new byte[1];
+
+    /**
+     * Constructor.
+     *
+     * @param source     the source stream
+     * @param sourceRate the sample rate of the source (Hz)
+     * @param outputRate the sample rate of this stream (Hz)
+     * @param listener   the listener of the source content (may be null)
+     */
+    public ResamplingInputStream(InputStream source, int sourceRate, int outputRate, SourceListener listener) {
+        this.source = source;
+        this.resampler = sourceRate == outputRate ? null : new PolyphaseResampler(sourceRate, outputRate);
+        this.listener = listener;
+    }
+
+    @Override
+    public int read() throws IOException {
+        return read(singleByte, 0, 1) < 0 ? -1 : singleByte[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (outputPosition == outputLength) {
+            if (!fill(len)) {
+                return -1;
+            }
+        }
+        final int count = Math.min(len, outputLength - outputPosition);
+        System.arraycopy(outputBuffer, outputPosition, b, off, count);
+        outputPosition += count;
+        return count;
+    }
+
+    /**
+     * Reads the source and converts it.
+     *
+     * @param requested the number of output bytes requested
+     * @return false at the end of the source
+     */
+    private boolean fill(int requested) throws IOException {
+        // Source bytes matching the request (whole samples)
+        final int wanted = resampler == null ? requested
+                : (int) Math.max(2, (long) requested * resampler.getDecimation() / resampler.getInterpolation()) & ~1;
+        if (sourceBuffer.length < sourceRemainder + wanted) {
+            final byte[] grown = new byte[sourceRemainder + wanted];
+            System.arraycopy(sourceBuffer, 0, grown, 0, sourceRemainder);
+            sourceBuffer = grown;
+        }
+        final int read = source.read(sourceBuffer, sourceRemainder, wanted);
+        if (read < 0) {
+            return false;
+        }
+        if (listener != null && read > 0) {
+            listener.onSourceAudio(sourceBuffer, sourceRemainder, read);
+        }
+        final int available = sourceRemainder + read;
+        final int usable = available & ~1;
+
+        if (resampler == null) {
+            if (outputBuffer.length < usable) {
+                outputBuffer = new byte[usable];
+            }
+            System.arraycopy(sourceBuffer, 0, outputBuffer, 0, usable);
+            outputLength = usable;
+        } else {
+            final int maxOutput = resampler.maxOutputLength(usable);
+            if (outputBuffer.length < maxOutput) {
+                outputBuffer = new byte[maxOutput];
+            }
+            outputLength = resampler.process(sourceBuffer, 0, usable, outputBuffer, 0);
+        }
+        outputPosition = 0;
+
+        // Incomplete sample kept for the next read
+        sourceRemainder = available - usable;
+        if (sourceRemainder > 0) {
+            sourceBuffer[0] = sourceBuffer[usable];
+        }
+        return true;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return outputLength - outputPosition;
+    }
+
+    @Override
+    public void close() throws IOException {
+        source.close();
+    }
+}
@@ -0,0 +1,291 @@
+package fr.roboteek.robot.util.audio;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Voice effects applied in memory to a clip, described with the syntax of the sox effects used by the robot voices
+ * (e.g. "pitch 900 treble -4 gain 3"):
+ * <ul>
+ * <li>pitch CENTS: pitch shift without changing the duration;</li>
+ * <li>tempo FACTOR / stretch FACTOR: duration divided / multiplied by the factor without changing the pitch;</li>
+ * <li>treble GAIN [FREQUENCY] / bass GAIN [FREQUENCY]: shelving filters (dB, default 3 kHz / 100 Hz, slope 0.5);</li>
+ * <li>gain GAIN: volume (dB).</li>
+ * </ul>
+ * Pitch and tempo are changed together: the clip is time-stretched by WSOLA (overlap-add of 40 ms windows aligned
+ * on the waveform), then resampled by the pitch ratio. The effects are applied in this fixed order whatever their
+ * order in the description, which gives the same result as sox for linear effects. Immutable and thread-safe.
+ */
+public class VoiceFilter {
+
+    /**
+     * Duration of the WSOLA windows (seconds).
+     */
+    private static final double WINDOW_DURATION = 0.040;
+
+    /**
+     * Maximum shift of a window to align it on the waveform (seconds).
+     */
+    private static final double TOLERANCE_DURATION = 0.010;
+
+    /**
+     * Precision of the pitch ratio used for resampling (1/1000, i.e. less than 2 cents).
+     */
+    private static final int PITCH_PRECISION = 1000;
+
+    private final String description;
+
+    /**
+     * Pitch ratio (2 ^ (cents / 1200)).
+     */
+    private final double pitch;
+
+    /**
+     * Tempo ratio (greater than 1: faster).
+     */
+    private final double tempo;
+
+    /**
+     * Shelving filters : frequency (Hz), gain (dB), and true for treble.
+     */
+    private final List<double[]> shelves;
+
+    /**
+     * Linear gain.
+     */
+    private final double gain;
+
+    private VoiceFilter(String description, double pitch, double tempo, List<double[]> shelves, double gain) {
+        this.description = description;
+        this.pitch = pitch;
+        this.tempo = tempo;
+        this.shelves = shelves;
+        this.gain = gain;
+    }
+
+    /**
+     * Parses a description of effects.
+     *
+     * @param description the effects (sox syntax, empty for none)
+     * @return the filter
+     * @throws IllegalArgumentException if an effect or a value is not supported
+     */
+    public static VoiceFilter parse(String description) {
+        final String[] tokens = description == null ? new String[0] : description.trim().toLowerCase(Locale.ROOT).split("\\s+");
+        double pitch = 1;
+        double tempo = 1;
+        double gainDb = 0;
+        final List<double[]> shelves = new ArrayList<>();
+        int i = 0;
+        while (i < tokens.length) {
+            final String effect = tokens[i++];
+            if (effect.isEmpty()) {
+                continue;
+            }
+            // sox options (e.g. "tempo -s 0.9") do not change the result enough to be supported
+            while (i < tokens.length && tokens[i].matches("-[a-z]+")) {
+                i++;
+            }
+            if (i >= tokens.length) {
+                throw new IllegalArgumentException("Missing value for the effect " + effect + " : " + description);
+            }
+            final double value = parseNumber(tokens[i++], description);
+            switch (effect) {
+                case "pitch":
+                    pitch *= Math.pow(2, value / 1200);
+                    break;
+                case "tempo":
+                    tempo *= value;
+                    break;
+                case "stretch":
+                    tempo /= value;
+                    break;
+                case "treble":
+                case "bass":
+                    final boolean treble = effect.equals("treble");
+                    double frequency = treble ? 3000 : 100;
+                    if (i < tokens.length && tokens[i].matches("[0-9.]+k?")) {
+                        frequency = parseNumber(tokens[i++], description);
+                    }
+                    shelves.add(new double[]{frequency, value, treble ? 1 : 0});
+                    break;
+                case "gain":
+                    gainDb += value;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unsupported effect " + effect + " : " + description);
+            }
+            if (!(pitch > 0) || !(tempo > 0)) {
+                throw new IllegalArgumentException("Invalid value for the effect " + effect + " : " + description);
+            }
+        }
+        return new VoiceFilter(description == null ? "" : description.trim(), pitch, tempo, shelves, Math.pow(10, gainDb / 20));
+    }
+
+    private static double parseNumber(String token, String description) {
+        try {
+            return token.endsWith("k") ? 1000 * Double.parseDouble(token.substring(0, token.length() - 1)) : Double.parseDouble(token);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value " + token + " : " + description, e);
+        }
+    }
+
+    /**
+     * @return true if the filter does not change the clips
+     */
+    public boolean isIdentity() {
+        return pitch == 1 && tempo == 1 && shelves.isEmpty() && gain == 1;
+    }
+
+    /**
+     * Applies the effects to a clip.
+     *
+     * @param clip the clip
+     * @return the filtered clip, at the same sample rate (the same clip if the filter changes nothing)
+     */
+    public PcmClip process(PcmClip clip) {
+        if (isIdentity()) {
+            return clip;
+        }
+        final int sampleRate = clip.getSampleRate();
+        byte[] pcm = clip.getPcm();
+        if (pitch != 1 || tempo != 1) {
+            // Pitch ratio rounded so that the resampling ratio stays a small fraction
+            final int pitchRate = (int) Math.round(pitch * PITCH_PRECISION);
+            final double pitchRatio = (double) pitchRate / PITCH_PRECISION;
+            pcm = toPcm(stretch(toSamples(pcm), pitchRatio / tempo, sampleRate));
+            pcm = PolyphaseResampler.resample(pcm, pitchRate, PITCH_PRECISION);
+        }
+
+        final float[] samples = toSamples(pcm);
+        for (double[] shelf : shelves) {
+            filter(samples, shelf[0], shelf[1], shelf[2] != 0, sampleRate);
+        }
+        if (gain != 1) {
+            for (int i = 0; i < samples.length; i++) {
+                samples[i] *= gain;
+            }
+        }
+        return new PcmClip(toPcm(samples), sampleRate);
+    }
+
+    /**
+     * Changes the duration of a signal without changing its pitch (WSOLA): windows of the input, spaced by the
+     * synthesis hop divided by the factor, are overlap-added every synthesis hop, each one shifted (within the
+     * tolerance) to best match the waveform following the previous window.
+     *
+     * @param input      the signal
+     * @param factor     the duration ratio (output / input)
+     * @param sampleRate the sample rate (Hz)
+     * @return the stretched signal
+     */
+    static float[] stretch(float[] input, double factor, int sampleRate) {
+        if (factor == 1) {
+            return input;
+        }
+        final int window = 2 * (int) Math.round(WINDOW_DURATION * sampleRate / 2);
+        final int hop = window / 2;
+        final int tolerance = (int) Math.round(TOLERANCE_DURATION * sampleRate);
+        final double analysisHop = hop / factor;
+
+        // Hann window: windows overlapping by half sum to 1
+        final float[] hann = new float[window];
+        for (int i = 0; i < window; i++) {
+            hann[i] = (float) (0.5 - 0.5 * Math.cos(2 * Math.PI * i / window));
+        }
+
+        final int outputLength = (int) Math.round(input.length * factor);
+        final float[] output = new float[outputLength + window];
+        final int lastStart = Math.max(0, input.length - window);
+        int previous = 0;
+        for (int k = 0; (long) k * hop < outputLength; k++) {
+            final int nominal = (int) Math.round(k * analysisHop);
+            int start = Math.min(nominal, lastStart);
+            if (k > 0) {
+                // Window start whose first half best matches the natural continuation of the previous window
+                final int natural = previous + hop;
+                int best = start;
+                double bestCorrelation = Double.NEGATIVE_INFINITY;
+                final int from = Math.max(0, nominal - tolerance);
+                final int to = Math.min(lastStart, nominal + tolerance);
+                for (int candidate = from; candidate <= to; candidate += 2) {
+                    double correlation = 0;
+                    for (int i = 0; i < hop && natural + i < input.length; i += 2) {
+                        correlation += input[candidate + i] * input[natural + i];
+                    }
+                    if (correlation > bestCorrelation) {
+                        bestCorrelation = correlation;
+                        best = candidate;
+                    }
+                }
+                start = best;
+            }
+            final int outputStart = k * hop;
+            for (int i = 0; i < window && start + i < input.length; i++) {
+                output[outputStart + i] += input[start + i] * hann[i];
+            }
+            previous = start;
+        }
+
+        // The first half window is not overlapped: restore its level
+        for (int i = 0; i < hop && i < outputLength; i++) {
+            output[i] = hann[i] > 0 ? output[i] / hann[i] : output[i];
+        }
+        final float[] result = new float[outputLength];
+        System.arraycopy(output, 0, result, 0, outputLength);
+        return result;
+    }
+
+    /**
+     * Shelving filter (biquad, Audio EQ Cookbook, slope 0.5 as sox), applied in place.
+     */
+    private static void filter(float[] samples, double frequency, double gainDb, boolean treble, int sampleRate) {
+        final double a = Math.pow(10, gainDb / 40);
+        final double w0 = 2 * Math.PI * Math.min(frequency, 0.45 * sampleRate) / sampleRate;
+        final double cos = Math.cos(w0);
+        final double alpha = Math.sin(w0) / 2 * Math.sqrt((a + 1 / a) * (1 / 0.5 - 1) + 2);
+        final double sqrtAlpha = 2 * Math.sqrt(a) * alpha;
+        final double sign = treble ? 1 : -1;
+        final double b0 = a * ((a + 1) + sign * (a - 1) * cos + sqrtAlpha);
+        final double b1 = -2 * sign * a * ((a - 1) + sign * (a + 1) * cos);
+        final double b2 = a * ((a + 1) + sign * (a - 1) * cos - sqrtAlpha);
+        final double a0 = (a + 1) - sign * (a - 1) * cos + sqrtAlpha;
+        final double a1 = 2 * sign * ((a - 1) - sign * (a + 1) * cos);
+        final double a2 = (a + 1) - sign * (a - 1) * cos - sqrtAlpha;
+
+        double x1 = 0, x2 = 0, y1 = 0, y2 = 0;
+        for (int i = 0; i < samples.length; i++) {
+            final double x0 = samples[i];
+            final double y0 = (b0 * x0 + b1 * x1 + b2 * x2 - a1 * y1 - a2 * y2) / a0;
+            x2 = x1;
+            x1 = x0;
+            y2 = y1;
+            y1 = y0;
+            samples[i] = (float) y0;
+        }
+    }
+
+    private static float[] toSamples(byte[] pcm) {
+        final float[] samples = new float[pcm.length / 2];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (short) ((pcm[2 * i] & 0xFF) | (pcm[2 * i + 1] << 8)) / 32768f;
+        }
+        return samples;
+    }
+
+    private static byte[] toPcm(float[] samples) {
+        final byte[] pcm = new byte[2 * samples.length];
+        for (int i = 0; i < samples.length; i++) {
+            final int sample = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, Math.round(samples[i] * 32768f)));
+            pcm[2 * i] = (byte) sample;
+            pcm[2 * i + 1] = (byte) (sample >> 8);
+        }
+        return pcm;
+    }
+
+    @Override
+    public String toString() {
+        return description;
+    }
+}
@@ -0,0 +1,71 @@
+package fr.roboteek.robot.util.audio;
+
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * Builds WAV files (canonical 44-byte header + PCM content) in a single array, without intermediate streams.
+ */
+public class WavEncoder {
+
+    /**
+     * Size of the WAV header in bytes.
+     */
+    public static final int HEADER_SIZE = 44;
+
+    private WavEncoder() {
+    }
+
+    /**
+     * Encodes PCM content as a WAV file.
+     *
+     * @param pcmData the PCM content (signed little-endian)
+     * @param offset  the offset of the content in the array
+     * @param length  the length of the content in bytes
+     * @param format  the PCM format
+     * @return the WAV file (header + content)
+     */
+    public static byte[] encode(byte[] pcmData, int offset, int length, AudioFormat format) {
+        final int channels = format.getChannels();
+        final int sampleRate = (int) format.getSampleRate();
+        final int bitsPerSample = format.getSampleSizeInBits();
+        final int blockAlign = channels * bitsPerSample / 8;
+
+        final byte[] wav = new byte[HEADER_SIZE + length];
+        int position = writeAscii(wav, 0, "RIFF");
+        position = writeInt(wav, position, 36 + length);
+        position = writeAscii(wav, position, "WAVE");
+        position = writeAscii(wav, position, "fmt ");
+        position = writeInt(wav, position, 16);
+        position = writeShort(wav, position, 1);
+        position = writeShort(wav, position, channels);
+        position = writeInt(wav, position, sampleRate);
+        position = writeInt(wav, position, sampleRate * blockAlign);
+        position = writeShort(wav, position, blockAlign);
+        position = writeShort(wav, position, bitsPerSample);
+        position = writeAscii(wav, position, "data");
+        position = writeInt(wav, position, length);
+        System.arraycopy(pcmData, offset, wav, position, length);
+        return wav;
+    }
+
+    private static int writeAscii(byte[] array, int position, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            array[position++] = (byte) value.charAt(i);
+        }
+        return position;
+    }
+
+    private static int writeInt(byte[] array, int position, int value) {
+        array[position++] = (byte) value;
+        array[position++] = (byte) (value >> 8);
+        array[position++] = (byte) (value >> 16);
+        array[position++] = (byte) (value >> 24);
+        return position;
+    }
+
+    private static int writeShort(byte[] array, int position, int value) {
+        array[position++] = (byte) value;
+        array[position++] = (byte) (value >> 8);
+        return position;
+    }
+}
@@ -1,5 +1,7 @@
 package fr.roboteek.robot.util.speech.recognizer;
 
+import javax.sound.sampled.AudioFormat;
+
 /**
  * Speech recognition interface.
  */
@@ -12,4 +14,13 @@ public interface SpeechRecognizer {
      * @return the content
      */
     String recognize(String wavFilePath);
+
+    /**
+     * Recognizes a PCM content held in memory.
+     *
+     * @param pcmData the PCM content
+     * @param format  the PCM format
+     * @return the content
+     */
+    String recognize(byte[] pcmData, AudioFormat format);
 }
@@ -0,0 +1,34 @@
+package fr.roboteek.robot.util.speech.recognizer;
+
+/**
+ * Listener of a streaming recognition session. Methods are called from the recognizer threads.
+ */
+public interface StreamingRecognitionListener {
+
+    /**
+     * Called for each interim hypothesis, while the utterance is being captured.
+     *
+     * @param transcript the hypothesis
+     * @param stability  the estimated stability of the hypothesis (0 to 1)
+     */
+    void onInterimResult(String transcript, float stability);
+
+    /**
+     * Called when the recognizer detects the end of the utterance (endpointing), before the audio capture does.
+     */
+    void onEndOfUtterance();
+
+    /**
+     * Called once, when the recognition is complete.
+     *
+     * @param transcript the final transcript (empty if nothing was recognized)
+     */
+    void onFinalResult(String transcript);
+
+    /**
+     * Called if the recognition fails. No final result is notified.
+     *
+     * @param error the error
+     */
+    void onError(Throwable error);
+}
@@ -0,0 +1,28 @@
+package fr.roboteek.robot.util.speech.recognizer;
+
+/**
+ * Recognition of one utterance, fed while the utterance is captured.
+ */
+public interface StreamingRecognitionSession {
+
+    /**
+     * Sends PCM content to the recognizer. The content is read before the method returns: the caller may reuse the
+     * array.
+     *
+     * @param pcmData the PCM content
+     * @param offset  the offset of the content in the array
+     * @param length  the length of the content in bytes
+     */
+    void sendAudio(byte[] pcmData, int offset, int length);
+
+    /**
+     * Indicates that the utterance is over: the final result will be notified once the recognizer has processed
+     * the whole content.
+     */
+    void finish();
+
+    /**
+     * Cancels the recognition: no result will be notified.
+     */
+    void cancel();
+}
@@ -0,0 +1,18 @@
+package fr.roboteek.robot.util.speech.recognizer;
+
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * Streaming speech recognition interface: the audio is sent while the speaker is talking.
+ */
+public interface StreamingSpeechRecognizer {
+
+    /**
+     * Starts the recognition of an utterance.
+     *
+     * @param format   the PCM format of the audio that will be sent
+     * @param listener the listener notified of the recognition results
+     * @return the recognition session
+     */
+    StreamingRecognitionSession startSession(AudioFormat format, StreamingRecognitionListener listener);
+}
@@ -0,0 +1,42 @@
+package fr.roboteek.robot.util.speech.recognizer.google;
+
+import com.google.api.gax.core.NoCredentialsProvider;
+import com.google.api.gax.grpc.GrpcTransportChannel;
+import com.google.api.gax.rpc.FixedTransportChannelProvider;
+import com.google.cloud.speech.v1.SpeechClient;
+import com.google.cloud.speech.v1.SpeechSettings;
+import fr.roboteek.robot.configuration.speech.recognizer.google.GoogleSpeechRecognizerConfig;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+
+import java.io.IOException;
+
+/**
+ * Creation of the Google Cloud Speech clients.
+ */
+class GoogleSpeechClients {
+
+    private GoogleSpeechClients() {
+    }
+
+    /**
+     * Creates a client connected to the cloud service, or to the stand-in server if an endpoint is configured.
+     *
+     * @param config the configuration
+     * @return the client
+     * @throws IOException if the client can not be created
+     */
+    static SpeechClient create(GoogleSpeechRecognizerConfig config) throws IOException {
+        final String endpoint = config.endpoint();
+        if (endpoint == null || endpoint.trim().isEmpty()) {
+            return SpeechClient.create();
+        }
+        // Local stand-in server: plaintext, no credentials
+        final ManagedChannel channel = ManagedChannelBuilder.forTarget(endpoint.trim()).usePlaintext().build();
+        final SpeechSettings settings = SpeechSettings.newBuilder()
+                .setTransportChannelProvider(FixedTransportChannelProvider.create(GrpcTransportChannel.create(channel)))
+                .setCredentialsProvider(NoCredentialsProvider.create())
+                .build();
+        return SpeechClient.create(settings);
+    }
+}
@@ -10,14 +10,15 @@ import com.google.protobuf.ByteString;
 import fr.roboteek.robot.Constantes;
 import fr.roboteek.robot.configuration.Configurations;
 import fr.roboteek.robot.configuration.speech.recognizer.google.GoogleSpeechRecognizerConfig;
+import fr.roboteek.robot.util.audio.FlacMemoryEncoder;
 import fr.roboteek.robot.util.speech.recognizer.SpeechRecognizer;
-import net.sourceforge.javaflacencoder.FLAC_FileEncoder;
 
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.List;
 
 /**
@@ -30,16 +31,6 @@ public class GoogleSpeechRecognizer implements SpeechRecognizer {
      */
     private static GoogleSpeechRecognizer instance;
 
-    /**
-     * FLAC encoder WAV --> FLAC.
-     */
-    private FLAC_FileEncoder flacEncoder;
-
-    /**
-     * FLAC file path.
-     */
-    private String flacFilePath;
-
     private GoogleSpeechRecognizerConfig config;
 
     private SpeechClient speechClient;
@@ -53,11 +44,8 @@ public class GoogleSpeechRecognizer implements SpeechRecognizer {
 
         config = Configurations.googleSpeechRecognizerConfig();
 
-        flacEncoder = new FLAC_FileEncoder();
-        flacFilePath = Constantes.DOSSIER_RECONNAISSANCE_VOCALE + File.separator + "google" + File.separator + "recognition.flac";
-
         try {
-            speechClient = SpeechClient.create();
+            speechClient = GoogleSpeechClients.create(config);
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -85,23 +73,30 @@ public class GoogleSpeechRecognizer implements SpeechRecognizer {
     }
 
     public String recognize(String wavFilePath) {
-        //System.out.println("RECOGNIZER = " + wavFilePath + ", " + flacFilePath);
-        File wavFile = new File(wavFilePath);
-        File flacFile = new File(flacFilePath);
-        flacEncoder.encode(wavFile, flacFile);
-        // Récupération du fichier FLAC
-        Path path = Paths.get(flacFilePath);
-        byte[] data = new byte[0];
+        try (AudioInputStream wavStream = AudioSystem.getAudioInputStream(new File(wavFilePath))) {
+            return recognize(wavStream.readAllBytes(), wavStream.getFormat());
+        } catch (UnsupportedAudioFileException | IOException e) {
+            e.printStackTrace();
+            return "";
+        }
+    }
+
+    public String recognize(byte[] pcmData, AudioFormat format) {
+        // Encodage FLAC en mémoire
+        final byte[] data;
         try {
-            data = Files.readAllBytes(path);
+            data = FlacMemoryEncoder.encode(pcmData, 0, pcmData.length, format);
         } catch (IOException e) {
             e.printStackTrace();
+            return "";
         }
         ByteString audioBytes = ByteString.copyFrom(data);
 
         RecognitionAudio audio = RecognitionAudio.newBuilder().setContent(audioBytes).build();
 
-        RecognizeResponse response = speechClient.recognize(recognitionConfig, audio);
+        final RecognitionConfig requestConfig = (int) format.getSampleRate() == recognitionConfig.getSampleRateHertz() ?
+                recognitionConfig : recognitionConfig.toBuilder().setSampleRateHertz((int) format.getSampleRate()).build();
+        RecognizeResponse response = speechClient.recognize(requestConfig, audio);
 
         // Get the result
         if (response != null) {
@@ -116,7 +111,6 @@ public class GoogleSpeechRecognizer implements SpeechRecognizer {
                 }
             }
         }
-        //		fichierFlac.delete();
         return "";
     }
 
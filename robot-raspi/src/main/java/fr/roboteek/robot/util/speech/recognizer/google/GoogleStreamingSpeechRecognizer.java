@@ -0,0 +1,238 @@
+package fr.roboteek.robot.util.speech.recognizer.google;
+
+import com.google.api.gax.rpc.ClientStream;
+import com.google.api.gax.rpc.ResponseObserver;
+import com.google.api.gax.rpc.StreamController;
+import com.google.cloud.speech.v1.RecognitionConfig;
+import com.google.cloud.speech.v1.SpeechClient;
+import com.google.cloud.speech.v1.StreamingRecognitionConfig;
+import com.google.cloud.speech.v1.StreamingRecognitionResult;
+import com.google.cloud.speech.v1.StreamingRecognizeRequest;
+import com.google.cloud.speech.v1.StreamingRecognizeResponse;
+import com.google.protobuf.ByteString;
+import fr.roboteek.robot.configuration.Configurations;
+import fr.roboteek.robot.configuration.speech.recognizer.google.GoogleSpeechRecognizerConfig;
+import fr.roboteek.robot.util.speech.recognizer.StreamingRecognitionListener;
+import fr.roboteek.robot.util.speech.recognizer.StreamingRecognitionSession;
+import fr.roboteek.robot.util.speech.recognizer.StreamingSpeechRecognizer;
+import org.apache.log4j.Logger;
+
+import javax.sound.sampled.AudioFormat;
+import java.io.IOException;
+
+/**
+ * Streaming speech recognition engine with Google Cloud Speech Service.
+ * Interim hypotheses are notified while the speaker is talking, and the service detects the end of the utterance.
+ */
+public class GoogleStreamingSpeechRecognizer implements StreamingSpeechRecognizer {
+
+    private static final Logger LOGGER = Logger.getLogger(GoogleStreamingSpeechRecognizer.class);
+
+    /**
+     * Class singleton.
+     */
+    private static GoogleStreamingSpeechRecognizer instance;
+
+    /**
+     * Session returned when the client is not available: the audio is ignored.
+     */
+    private static final StreamingRecognitionSession UNAVAILABLE_SESSION = new StreamingRecognitionSession() {
+        @Override
+        public void sendAudio(byte[] pcmData, int offset, int length) {
+        }
+
+        @Override
+        public void finish() {
+        }
+
+        @Override
+        public void cancel() {
+        }
+    };
+
+    private GoogleSpeechRecognizerConfig config;
+
+    private SpeechClient speechClient;
+
+    /**
+     * Private constructor.
+     */
+    private GoogleStreamingSpeechRecognizer() {
+        this(Configurations.googleSpeechRecognizerConfig());
+    }
+
+    /**
+     * Constructor with a given configuration (tests against a stand-in server).
+     *
+     * @param config the configuration
+     */
+    GoogleStreamingSpeechRecognizer(GoogleSpeechRecognizerConfig config) {
+
+        this.config = config;
+
+        try {
+            speechClient = GoogleSpeechClients.create(config);
+        } catch (IOException e) {
+            // Each session will report the failure to its listener
+            LOGGER.error("Unable to create the Google Cloud Speech client", e);
+        }
+    }
+
+    /**
+     * Get the instance of the streaming speech recognition engine.
+     *
+     * @return the instance of the streaming speech recognition engine
+     */
+    public static synchronized GoogleStreamingSpeechRecognizer getInstance() {
+        if (instance == null) {
+            instance = new GoogleStreamingSpeechRecognizer();
+        }
+        return instance;
+    }
+
+    /**
+     * Starts the recognition of an utterance. If the client could not be created, the error is notified to the
+     * listener and the session returned ignores the audio.
+     */
+    public StreamingRecognitionSession startSession(AudioFormat format, StreamingRecognitionListener listener) {
+        if (speechClient == null) {
+            final IllegalStateException error = new IllegalStateException("Google Cloud Speech client not available");
+            LOGGER.error("Streaming recognition failed", error);
+            listener.onError(error);
+            return UNAVAILABLE_SESSION;
+        }
+        final StreamingRecognitionConfig streamingConfig = StreamingRecognitionConfig.newBuilder()
+                .setConfig(RecognitionConfig.newBuilder()
+                        .setEncoding(RecognitionConfig.AudioEncoding.LINEAR16)
+                        .setSampleRateHertz((int) format.getSampleRate())
+                        .setAudioChannelCount(format.getChannels())
+                        .setLanguageCode(config.languageCode())
+                        .build())
+                .setInterimResults(true)
+                .setSingleUtterance(config.endpointing())
+                .build();
+        final GoogleStreamingSession session = new GoogleStreamingSession(listener);
+        session.open(streamingConfig);
+        return session;
+    }
+
+    /**
+     * Recognition of one utterance over a bidirectional gRPC stream.
+     */
+    private class GoogleStreamingSession implements StreamingRecognitionSession, ResponseObserver<StreamingRecognizeResponse> {
+
+        private final StreamingRecognitionListener listener;
+
+        /**
+         * Final transcript, made of the final results received so far.
+         */
+        private final StringBuilder finalTranscript = new StringBuilder();
+
+        private ClientStream<StreamingRecognizeRequest> clientStream;
+
+        private volatile StreamController controller;
+
+        /**
+         * Flag indicating that no more audio can be sent (finished, cancelled, or end of utterance detected).
+         */
+        private boolean sendClosed = false;
+
+        private volatile boolean cancelled = false;
+
+        private GoogleStreamingSession(StreamingRecognitionListener listener) {
+            this.listener = listener;
+        }
+
+        private synchronized void open(StreamingRecognitionConfig streamingConfig) {
+            clientStream = speechClient.streamingRecognizeCallable().splitCall(this);
+            clientStream.send(StreamingRecognizeRequest.newBuilder().setStreamingConfig(streamingConfig).build());
+        }
+
+        @Override
+        public synchronized void sendAudio(byte[] pcmData, int offset, int length) {
+            if (!sendClosed) {
+                clientStream.send(StreamingRecognizeRequest.newBuilder()
+                        .setAudioContent(ByteString.copyFrom(pcmData, offset, length))
+                        .build());
+            }
+        }
+
+        @Override
+        public synchronized void finish() {
+            closeSend();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            synchronized (this) {
+                sendClosed = true;
+            }
+            if (controller != null) {
+                controller.cancel();
+            }
+        }
+
+        private synchronized void closeSend() {
+            if (!sendClosed) {
+                sendClosed = true;
+                clientStream.closeSend();
+            }
+        }
+
+        @Override
+        public void onStart(StreamController controller) {
+            this.controller = controller;
+            if (cancelled) {
+                controller.cancel();
+            }
+        }
+
+        @Override
+        public void onResponse(StreamingRecognizeResponse response) {
+            if (cancelled) {
+                return;
+            }
+            final StringBuilder interimTranscript = new StringBuilder();
+            float stability = 0;
+            for (StreamingRecognitionResult result : response.getResultsList()) {
+                if (result.getAlternativesCount() == 0) {
+                    continue;
+                }
+                final String transcript = result.getAlternatives(0).getTranscript();
+                if (result.getIsFinal()) {
+                    finalTranscript.append(transcript);
+                } else {
+                    // The first result is the most stable one
+                    if (interimTranscript.length() == 0) {
+                        stability = result.getStability();
+                    }
+                    interimTranscript.append(transcript);
+                }
+            }
+            if (interimTranscript.length() > 0) {
+                listener.onInterimResult(finalTranscript + interimTranscript.toString(), stability);
+            }
+            if (response.getSpeechEventType() == StreamingRecognizeResponse.SpeechEventType.END_OF_SINGLE_UTTERANCE) {
+                // The service does not process audio anymore: the final result follows
+                closeSend();
+                listener.onEndOfUtterance();
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            if (!cancelled) {
+                LOGGER.error("Streaming recognition failed", t);
+                listener.onError(t);
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            if (!cancelled) {
+                listener.onFinalResult(finalTranscript.toString());
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package fr.roboteek.robot.util.speech.synthesis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Splits a text into chunks synthesized separately, so that the first one can be played while the next ones are
+ * synthesized: sentences (ended by . ! ? or …), and sentences longer than the maximum length split after clause
+ * punctuation (, ; :) or, failing that, between words.
+ */
+public class SentenceSplitter {
+
+    /**
+     * Abbreviations whose final period does not end a sentence (compared in lower case, without the period).
+     */
+    private static final Set<String> ABBREVIATIONS = new HashSet<>(Arrays.asList(
+            "m", "mm", "mme", "mmes", "mlle", "dr", "pr", "st", "ste", "mr", "mrs", "ms", "vs", "cf", "p", "n°"));
+
+    private SentenceSplitter() {
+    }
+
+    /**
+     * Splits a text.
+     *
+     * @param text      the text
+     * @param maxLength the maximum length of a chunk (characters), unless a single word is longer
+     * @return the chunks, trimmed, without empty ones
+     */
+    public static List<String> split(String text, int maxLength) {
+        final List<String> chunks = new ArrayList<>();
+        for (String sentence : splitSentences(text)) {
+            splitLongSentence(sentence, maxLength, chunks);
+        }
+        return chunks;
+    }
+
+    private static List<String> splitSentences(String text) {
+        final List<String> sentences = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            if (c != '.' && c != '!' && c != '?' && c != '…') {
+                continue;
+            }
+            // Punctuation sequence ("?!", "...") and closing quotes or brackets belong to the sentence
+            int end = i + 1;
+            while (end < text.length() && ".!?…»\"')]".indexOf(text.charAt(end)) >= 0) {
+                end++;
+            }
+            // French closing quote after a space ("« Oui. »")
+            int next = end;
+            while (next < text.length() && Character.isWhitespace(text.charAt(next))) {
+                next++;
+            }
+            if (next < text.length() && text.charAt(next) == '»') {
+                end = next + 1;
+            }
+            if (end < text.length() && !Character.isWhitespace(text.charAt(end))) {
+                // Decimal number, URL, e-mail address...
+                i = end - 1;
+                continue;
+            }
+            if (c == '.' && end == i + 1 && isAbbreviation(text, start, i)) {
+                continue;
+            }
+            addTrimmed(text.substring(start, end), sentences);
+            start = end;
+            i = end - 1;
+        }
+        addTrimmed(text.substring(start), sentences);
+        return sentences;
+    }
+
+    private static boolean isAbbreviation(String text, int sentenceStart, int period) {
+        int wordStart = period;
+        while (wordStart > sentenceStart && !Character.isWhitespace(text.charAt(wordStart - 1))) {
+            wordStart--;
+        }
+        final String word = text.substring(wordStart, period);
+        // Initial of a first name ("J. Dupont")
+        return (word.length() == 1 && Character.isUpperCase(word.charAt(0)))
+                || ABBREVIATIONS.contains(word.toLowerCase(Locale.ROOT));
+    }
+
+    private static void splitLongSentence(String sentence, int maxLength, List<String> chunks) {
+        String rest = sentence;
+        while (rest.length() > maxLength) {
+            int cut = lastIndexOfAny(rest, ",;:", maxLength);
+            if (cut <= 0) {
+                cut = lastIndexOfWhitespace(rest, maxLength);
+            }
+            if (cut <= 0) {
+                // First word longer than the maximum
+                final int nextWhitespace = rest.indexOf(' ', maxLength);
+                cut = nextWhitespace > 0 ? nextWhitespace : rest.length() - 1;
+            }
+            addTrimmed(rest.substring(0, cut + 1), chunks);
+            rest = rest.substring(cut + 1).trim();
+        }
+        addTrimmed(rest, chunks);
+    }
+
+    /**
+     * @return the index of the last punctuation followed by a whitespace before the limit, -1 if none
+     */
+    private static int lastIndexOfAny(String text, String characters, int limit) {
+        for (int i = Math.min(limit, text.length() - 1) - 1; i > 0; i--) {
+            if (characters.indexOf(text.charAt(i)) >= 0 && Character.isWhitespace(text.charAt(i + 1))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int lastIndexOfWhitespace(String text, int limit) {
+        for (int i = Math.min(limit, text.length() - 1); i > 0; i--) {
+            if (Character.isWhitespace(text.charAt(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void addTrimmed(String chunk, List<String> chunks) {
+        final String trimmed = chunk.trim();
+        if (!trimmed.isEmpty()) {
+            chunks.add(trimmed);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package fr.roboteek.robot.util.video;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Bilinear resizing of video frames straight into the input buffers of the detectors (planar float tensors or
+ * 8-bit grey images), without intermediate images. The sampling tables are computed once per input size.
+ * Not thread-safe: one instance per detector.
+ */
+public class FrameResampler {
+
+    private final int outputWidth;
+
+    private final int outputHeight;
+
+    private int inputWidth;
+
+    private int inputHeight;
+
+    private int[] x0;
+    private int[] x1;
+    private float[] fx;
+
+    private int[] y0;
+    private int[] y1;
+    private float[] fy;
+
+    public FrameResampler(int outputWidth, int outputHeight) {
+        this.outputWidth = outputWidth;
+        this.outputHeight = outputHeight;
+    }
+
+    public int getOutputWidth() {
+        return outputWidth;
+    }
+
+    public int getOutputHeight() {
+        return outputHeight;
+    }
+
+    /**
+     * Resizes one channel of a frame into a planar buffer: {@code output[offset + y * width + x] = value * scale + bias}.
+     *
+     * @param frame   the frame
+     * @param channel the channel (0: red, 1: green, 2: blue)
+     * @param output  the output buffer
+     * @param offset  the offset of the plane in the buffer
+     * @param scale   the scale applied to the values (between 0 and 255 in the frame)
+     * @param bias    the bias added to the scaled values
+     */
+    public void resize(VideoFrame frame, int channel, float[] output, int offset, float scale, float bias) {
+        prepare(frame.getWidth(), frame.getHeight());
+        final ByteBuffer pixels = frame.getPixels();
+        int index = offset;
+        for (int y = 0; y < outputHeight; y++) {
+            final int row0 = y0[y] + channel;
+            final int row1 = y1[y] + channel;
+            final float wy = fy[y];
+            for (int x = 0; x < outputWidth; x++) {
+                final float wx = fx[x];
+                final int p00 = pixels.get(row0 + x0[x]) & 0xFF;
+                final int p01 = pixels.get(row0 + x1[x]) & 0xFF;
+                final int p10 = pixels.get(row1 + x0[x]) & 0xFF;
+                final int p11 = pixels.get(row1 + x1[x]) & 0xFF;
+                final float top = p00 + (p01 - p00) * wx;
+                final float bottom = p10 + (p11 - p10) * wx;
+                output[index++] = (top + (bottom - top) * wy) * scale + bias;
+            }
+        }
+    }
+
+    /**
+     * Resizes the luminance of a frame (mean of the channels) into an 8-bit grey image.
+     *
+     * @param frame  the frame
+     * @param output the output buffer (width x height bytes)
+     */
+    public void resizeLuminance(VideoFrame frame, byte[] output) {
+        prepare(frame.getWidth(), frame.getHeight());
+        final ByteBuffer pixels = frame.getPixels();
+        int index = 0;
+        for (int y = 0; y < outputHeight; y++) {
+            final float wy = fy[y];
+            for (int x = 0; x < outputWidth; x++) {
+                final float wx = fx[x];
+                float sum = 0;
+                for (int channel = 0; channel < VideoFrame.CHANNELS; channel++) {
+                    final int p00 = pixels.get(y0[y] + x0[x] + channel) & 0xFF;
+                    final int p01 = pixels.get(y0[y] + x1[x] + channel) & 0xFF;
+                    final int p10 = pixels.get(y1[y] + x0[x] + channel) & 0xFF;
+                    final int p11 = pixels.get(y1[y] + x1[x] + channel) & 0xFF;
+                    final float top = p00 + (p01 - p00) * wx;
+                    final float bottom = p10 + (p11 - p10) * wx;
+                    sum += top + (bottom - top) * wy;
+                }
+                output[index++] = (byte) Math.min(255, Math.round(sum / VideoFrame.CHANNELS));
+            }
+        }
+    }
+
+    private void prepare(int width, int height) {
+        if (width == inputWidth && height == inputHeight) {
+            return;
+        }
+        inputWidth = width;
+        inputHeight = height;
+        x0 = new int[outputWidth];
+        x1 = new int[outputWidth];
+        fx = new float[outputWidth];
+        fill(width, outputWidth, x0, x1, fx);
+        // Offsets of the samples in the interleaved pixels
+        for (int x = 0; x < outputWidth; x++) {
+            x0[x] *= VideoFrame.CHANNELS;
+            x1[x] *= VideoFrame.CHANNELS;
+        }
+        y0 = new int[outputHeight];
+        y1 = new int[outputHeight];
+        fy = new float[outputHeight];
+        fill(height, outputHeight, y0, y1, fy);
+        for (int y = 0; y < outputHeight; y++) {
+            y0[y] *= width * VideoFrame.CHANNELS;
+            y1[y] *= width * VideoFrame.CHANNELS;
+        }
+    }
+
+    /**
+     * Computes the source samples and weights of each output position (pixel centres aligned).
+     */
+    private static void fill(int inputSize, int outputSize, int[] first, int[] second, float[] weight) {
+        final float ratio = (float) inputSize / outputSize;
+        for (int i = 0; i < outputSize; i++) {
+            final float source = Math.max(0, (i + 0.5f) * ratio - 0.5f);
+            final int index = Math.min(inputSize - 1, (int) source);
+            first[i] = index;
+            second[i] = Math.min(inputSize - 1, index + 1);
+            weight[i] = source - index;
+        }
+    }
+}
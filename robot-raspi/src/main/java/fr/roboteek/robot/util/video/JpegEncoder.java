@@ -0,0 +1,72 @@
+package fr.roboteek.robot.util.video;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * JPEG encoder reusing its image writer and output buffer from one frame to the next.
+ * Not thread-safe: one instance per encoding thread.
+ */
+public class JpegEncoder {
+
+    private final ImageWriter writer;
+
+    private final ImageWriteParam param;
+
+    private final ReusableByteArrayOutputStream buffer = new ReusableByteArrayOutputStream(64 * 1024);
+
+    public JpegEncoder() {
+        writer = ImageIO.getImageWritersByFormatName("jpg").next();
+        param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+    }
+
+    /**
+     * Encodes an image.
+     *
+     * @param image   the image
+     * @param quality the JPEG quality, between 0 and 1
+     * @return the JPEG content (exact size, owned by the caller)
+     * @throws IOException if the encoding fails
+     */
+    public byte[] encode(BufferedImage image, float quality) throws IOException {
+        buffer.reset();
+        param.setCompressionQuality(quality);
+        try (ImageOutputStream output = new MemoryCacheImageOutputStream(buffer)) {
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.setOutput(null);
+        }
+        return buffer.copy();
+    }
+
+    /**
+     * Releases the image writer.
+     */
+    public void dispose() {
+        writer.dispose();
+    }
+
+    /**
+     * Output stream whose internal array is kept between encodings.
+     */
+    private static class ReusableByteArrayOutputStream extends ByteArrayOutputStream {
+
+        private ReusableByteArrayOutputStream(int size) {
+            super(size);
+        }
+
+        private byte[] copy() {
+            return Arrays.copyOf(buf, count);
+        }
+    }
+}
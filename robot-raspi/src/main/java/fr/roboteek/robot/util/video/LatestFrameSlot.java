@@ -0,0 +1,127 @@
+package fr.roboteek.robot.util.video;
+
+import java.util.function.Consumer;
+
+/**
+ * Single-slot exchange between a capture thread and consumers running at their own rate.
+ * Only the latest frame is kept: the producer never blocks and never queues, and a consumer asking for a frame
+ * always gets one captured after its request, so its results are never based on a stale image.
+ * The producer should only copy a frame into the slot when {@link #isRequested()} returns true.
+ * <p>
+ * For reference-counted frames, the slot holds one reference to the latest frame (released when it is replaced) and
+ * takes a new reference for each consumer, which releases it once done.
+ *
+ * @param <T> the type of the frames
+ */
+public class LatestFrameSlot<T> {
+
+    /**
+     * Frame with its capture index and time.
+     *
+     * @param <T> the type of the frame
+     */
+    public static final class Frame<T> {
+
+        private final T image;
+
+        private final long index;
+
+        private final long timestamp;
+
+        private Frame(T image, long index, long timestamp) {
+            this.image = image;
+            this.index = index;
+            this.timestamp = timestamp;
+        }
+
+        public T getImage() {
+            return image;
+        }
+
+        public long getIndex() {
+            return index;
+        }
+
+        /**
+         * @return the time the frame was offered ({@link System#nanoTime()})
+         */
+        public long getTimestamp() {
+            return timestamp;
+        }
+    }
+
+    private final Consumer<T> retain;
+
+    private final Consumer<T> release;
+
+    private Frame<T> latest;
+
+    /**
+     * Number of consumers waiting for the next frame.
+     */
+    private int waiting;
+
+    /**
+     * Creates a slot for frames that are not reference counted.
+     */
+    public LatestFrameSlot() {
+        this(image -> {
+        }, image -> {
+        });
+    }
+
+    /**
+     * Creates a slot for reference-counted frames.
+     *
+     * @param retain  takes a reference to a frame
+     * @param release gives back a reference to a frame
+     */
+    public LatestFrameSlot(Consumer<T> retain, Consumer<T> release) {
+        this.retain = retain;
+        this.release = release;
+    }
+
+    /**
+     * Indicates whether a consumer is waiting for the next frame.
+     *
+     * @return true if the next frame should be offered
+     */
+    public synchronized boolean isRequested() {
+        return waiting > 0;
+    }
+
+    /**
+     * Offers a frame (replaces the previous one, never blocks).
+     *
+     * @param image the frame, no longer modified by the producer (the slot takes its own reference)
+     * @param index the capture index of the frame (increasing)
+     */
+    public synchronized void offer(T image, long index) {
+        retain.accept(image);
+        if (latest != null) {
+            release.accept(latest.image);
+        }
+        latest = new Frame<>(image, index, System.nanoTime());
+        notifyAll();
+    }
+
+    /**
+     * Waits for the next frame offered after this call.
+     *
+     * @return the frame (with a reference owned by the caller)
+     * @throws InterruptedException if the consumer is interrupted while waiting
+     */
+    public synchronized Frame<T> take() throws InterruptedException {
+        final long lastIndex = latest == null ? Long.MIN_VALUE : latest.index;
+        waiting++;
+        try {
+            while (latest == null || latest.index <= lastIndex) {
+                wait();
+            }
+            retain.accept(latest.image);
+            return latest;
+        } finally {
+            waiting--;
+        }
+    }
+}
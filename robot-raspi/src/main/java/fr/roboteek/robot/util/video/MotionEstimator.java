@@ -0,0 +1,77 @@
+package fr.roboteek.robot.util.video;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Cheap scene motion estimate by frame differencing on a sparse grid of luminance samples.
+ * The level rises immediately with motion and decays slowly once the scene is still again, so that a brief pause
+ * in a movement does not make the consumers slow down at once.
+ * Not thread-safe: to be updated by the capture thread only ({@link #getLevel()} may be read by any thread).
+ */
+public class MotionEstimator {
+
+    /**
+     * Distance in pixels between two samples (80 x 60 samples for a 640 x 480 frame).
+     */
+    private static final int STEP = 8;
+
+    /**
+     * Decay of the level per frame when the scene is still.
+     */
+    private static final float DECAY = 0.9f;
+
+    private float[] previous;
+
+    private float[] current;
+
+    private volatile float level;
+
+    /**
+     * Updates the estimate with a new frame.
+     *
+     * @param frame the frame
+     * @return the motion level: mean absolute luminance difference with the previous frame, between 0 and 1
+     */
+    public float update(VideoFrame frame) {
+        final ByteBuffer pixels = frame.getPixels();
+        final int columns = (frame.getWidth() + STEP - 1) / STEP;
+        final int rows = (frame.getHeight() + STEP - 1) / STEP;
+        final int size = columns * rows;
+        if (current == null || current.length != size) {
+            current = new float[size];
+            previous = null;
+        }
+
+        int sample = 0;
+        for (int y = 0; y < frame.getHeight(); y += STEP) {
+            for (int x = 0; x < frame.getWidth(); x += STEP) {
+                final int pixel = (y * frame.getWidth() + x) * VideoFrame.CHANNELS;
+                final int luminance = (pixels.get(pixel) & 0xFF) + (pixels.get(pixel + 1) & 0xFF) + (pixels.get(pixel + 2) & 0xFF);
+                current[sample++] = luminance / (3 * 255f);
+            }
+        }
+
+        float difference = 0;
+        if (previous != null) {
+            for (int i = 0; i < size; i++) {
+                difference += Math.abs(current[i] - previous[i]);
+            }
+            difference /= size;
+        } else {
+            previous = new float[size];
+        }
+        final float[] swap = previous;
+        previous = current;
+        current = swap;
+
+        level = Math.max(difference, level * DECAY);
+        return level;
+    }
+
+    /**
+     * @return the current motion level, between 0 and 1
+     */
+    public float getLevel() {
+        return level;
+    }
+}
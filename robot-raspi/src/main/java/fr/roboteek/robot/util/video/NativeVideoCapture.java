@@ -0,0 +1,118 @@
+package fr.roboteek.robot.util.video;
+
+import org.apache.log4j.Logger;
+import org.bridj.Pointer;
+import org.openimaj.image.MBFImage;
+import org.openimaj.video.capture.VideoCapture;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+
+/**
+ * Reads the frames of an OpenIMAJ {@link VideoCapture} straight from the native grabber into pooled
+ * {@link VideoFrame}s: one native copy of the RGB bytes per frame, instead of the byte array and the three float
+ * planes allocated and filled by {@link VideoCapture#getNextFrame()}.
+ * <p>
+ * The grabber is not part of the OpenIMAJ API and is reached by reflection. If it cannot be (other OpenIMAJ
+ * version), the frames are read with {@link VideoCapture#getNextFrame()} and converted, which works the same but
+ * without the saving.
+ * The size of the frames is the one actually delivered by the grabber, which may differ from the size requested to
+ * the camera: the frames to fill must have this size.
+ * Not thread-safe: to be used by the capture thread only.
+ */
+public class NativeVideoCapture {
+
+    private static final Logger LOGGER = Logger.getLogger(NativeVideoCapture.class);
+
+    private final VideoCapture capture;
+
+    private final int width;
+
+    private final int height;
+
+    private final Object grabber;
+
+    private final Method nextFrame;
+
+    private final Method getImage;
+
+    public NativeVideoCapture(VideoCapture capture) {
+        this.capture = capture;
+
+        int width = capture.getWidth();
+        int height = capture.getHeight();
+        Object grabber = null;
+        Method nextFrame = null;
+        Method getImage = null;
+        try {
+            final Field field = VideoCapture.class.getDeclaredField("grabber");
+            field.setAccessible(true);
+            grabber = field.get(capture);
+            nextFrame = grabber.getClass().getDeclaredMethod("nextFrame");
+            nextFrame.setAccessible(true);
+            getImage = grabber.getClass().getDeclaredMethod("getImage");
+            getImage.setAccessible(true);
+            // Size of the native images, read straight into the frames
+            width = (Integer) grabber.getClass().getMethod("getWidth").invoke(grabber);
+            height = (Integer) grabber.getClass().getMethod("getHeight").invoke(grabber);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LOGGER.warn("Native grabber not reachable, frames will be converted from OpenIMAJ images: " + e);
+            grabber = null;
+        }
+        this.width = width;
+        this.height = height;
+        this.grabber = grabber;
+        this.nextFrame = nextFrame;
+        this.getImage = getImage;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Waits for the next frame of the camera and copies it into the given frame.
+     *
+     * @param frame the frame to fill (same size as the capture), or null to drop the camera frame
+     * @return true if a frame was read
+     * @throws IllegalArgumentException if the frame does not have the size of the capture
+     */
+    public boolean read(VideoFrame frame) {
+        if (frame != null && (frame.getWidth() != width || frame.getHeight() != height)) {
+            throw new IllegalArgumentException("Frame of " + frame.getWidth() + "x" + frame.getHeight()
+                    + " for a capture of " + width + "x" + height);
+        }
+        if (grabber == null) {
+            final MBFImage image = capture.getNextFrame();
+            if (frame != null) {
+                frame.copyFrom(image);
+            }
+            return true;
+        }
+        try {
+            if ((Integer) nextFrame.invoke(grabber) < 0) {
+                return false;
+            }
+            if (frame == null) {
+                return true;
+            }
+            final Pointer<?> image = (Pointer<?>) getImage.invoke(grabber);
+            if (image == null) {
+                return false;
+            }
+            final ByteBuffer pixels = frame.getPixels().duplicate();
+            pixels.clear();
+            pixels.put(image.getByteBuffer(frame.getSize()));
+            return true;
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            LOGGER.error("Error while reading a frame", e);
+            return false;
+        }
+    }
+}
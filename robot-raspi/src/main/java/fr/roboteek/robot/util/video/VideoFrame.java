@@ -0,0 +1,211 @@
+package fr.roboteek.robot.util.video;
+
+import org.openimaj.image.MBFImage;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Video frame stored as 8-bit interleaved RGB pixels (the native format of the webcam grabber) in a direct buffer.
+ * <p>
+ * Pooled frames are reference counted: the producer gets a frame holding one reference, every consumer keeping the
+ * frame beyond the call that handed it over takes its own reference with {@link #retain()}, and each reference is
+ * given back with {@link #release()}. The frame returns to its pool once the last reference is released, so its
+ * pixels must not be read after that.
+ * Frames created with a public constructor are not pooled and need no release.
+ */
+public final class VideoFrame {
+
+    /**
+     * Bytes per pixel (R, G, B).
+     */
+    public static final int CHANNELS = 3;
+
+    private final VideoFramePool pool;
+
+    private final int width;
+
+    private final int height;
+
+    private final ByteBuffer pixels;
+
+    private final AtomicInteger references = new AtomicInteger();
+
+    private volatile long index;
+
+    private volatile long timestamp;
+
+    /**
+     * Creates a black frame that is not pooled.
+     *
+     * @param width  the width
+     * @param height the height
+     */
+    public VideoFrame(int width, int height) {
+        this(null, width, height);
+    }
+
+    VideoFrame(VideoFramePool pool, int width, int height) {
+        this.pool = pool;
+        this.width = width;
+        this.height = height;
+        this.pixels = ByteBuffer.allocateDirect(width * height * CHANNELS);
+    }
+
+    /**
+     * Creates a frame that is not pooled from an OpenIMAJ image (RGB bands between 0 and 1).
+     *
+     * @param image the image
+     * @return the frame
+     */
+    public static VideoFrame copyOf(MBFImage image) {
+        final VideoFrame frame = new VideoFrame(image.getWidth(), image.getHeight());
+        frame.copyFrom(image);
+        return frame;
+    }
+
+    /**
+     * Copies the pixels of an OpenIMAJ image of the same size (producer only, before handing the frame over).
+     *
+     * @param image the image (RGB bands between 0 and 1)
+     */
+    public void copyFrom(MBFImage image) {
+        final float[][] red = image.getBand(0).pixels;
+        final float[][] green = image.getBand(1).pixels;
+        final float[][] blue = image.getBand(2).pixels;
+        int index = 0;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                pixels.put(index++, toByte(red[y][x]));
+                pixels.put(index++, toByte(green[y][x]));
+                pixels.put(index++, toByte(blue[y][x]));
+            }
+        }
+    }
+
+    private static byte toByte(float value) {
+        return (byte) Math.max(0, Math.min(255, (int) (value * 255 + 0.5f)));
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return the size of the pixels in bytes
+     */
+    public int getSize() {
+        return pixels.capacity();
+    }
+
+    /**
+     * @return the capture index of the frame
+     */
+    public long getIndex() {
+        return index;
+    }
+
+    /**
+     * @return the capture time of the frame ({@link System#nanoTime()})
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Sets the capture index and time (producer only, before handing the frame over).
+     *
+     * @param index     the capture index
+     * @param timestamp the capture time ({@link System#nanoTime()})
+     */
+    public void setCapture(long index, long timestamp) {
+        this.index = index;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * Returns the pixels, row by row, 3 bytes (R, G, B) per pixel. The buffer is shared: use absolute accesses only,
+     * or a {@link ByteBuffer#duplicate()} to read it sequentially.
+     * Only the producer may write the pixels, before handing the frame over.
+     *
+     * @return the pixels
+     */
+    public ByteBuffer getPixels() {
+        return pixels;
+    }
+
+    /**
+     * Reads one channel of one pixel.
+     *
+     * @param x       the column
+     * @param y       the row
+     * @param channel the channel (0: red, 1: green, 2: blue)
+     * @return the value, between 0 and 255
+     */
+    public int get(int x, int y, int channel) {
+        return pixels.get((y * width + x) * CHANNELS + channel) & 0xFF;
+    }
+
+    /**
+     * Converts the frame to a BufferedImage of type {@link BufferedImage#TYPE_3BYTE_BGR} (used by the JPEG encoder),
+     * reusing the given image when it has the right size and type.
+     *
+     * @param image the image to reuse (may be null)
+     * @return the image
+     */
+    public BufferedImage toBufferedImage(BufferedImage image) {
+        if (image == null || image.getWidth() != width || image.getHeight() != height || image.getType() != BufferedImage.TYPE_3BYTE_BGR) {
+            image = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+        }
+        final byte[] data = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+        final ByteBuffer source = pixels.duplicate();
+        source.clear();
+        source.get(data, 0, data.length);
+        for (int i = 0; i < data.length; i += CHANNELS) {
+            final byte red = data[i];
+            data[i] = data[i + 2];
+            data[i + 2] = red;
+        }
+        return image;
+    }
+
+    /**
+     * Takes a reference to a pooled frame.
+     *
+     * @return this frame
+     */
+    public VideoFrame retain() {
+        if (pool != null && references.getAndIncrement() <= 0) {
+            throw new IllegalStateException("Frame already returned to its pool");
+        }
+        return this;
+    }
+
+    /**
+     * Gives back a reference to a pooled frame; the last one returns the frame to its pool.
+     */
+    public void release() {
+        if (pool == null) {
+            return;
+        }
+        final int remaining = references.decrementAndGet();
+        if (remaining == 0) {
+            pool.recycle(this);
+        } else if (remaining < 0) {
+            throw new IllegalStateException("Frame released too many times");
+        }
+    }
+
+    /**
+     * Marks a frame taken from its pool as held by the producer.
+     */
+    void acquired() {
+        references.set(1);
+    }
+}
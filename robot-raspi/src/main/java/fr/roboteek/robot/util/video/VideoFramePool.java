@@ -0,0 +1,64 @@
+package fr.roboteek.robot.util.video;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded pool of video frames of one size. Frames are allocated on demand up to the capacity and then reused, so
+ * that steady-state capture allocates no pixel memory at all.
+ * When every frame is still referenced by a slow consumer, {@link #acquire()} returns null and the producer drops
+ * the frame instead of allocating a new one.
+ */
+public class VideoFramePool {
+
+    private final int width;
+
+    private final int height;
+
+    private final int capacity;
+
+    private final Queue<VideoFrame> available = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger allocated = new AtomicInteger();
+
+    /**
+     * @param width    the width of the frames
+     * @param height   the height of the frames
+     * @param capacity the maximum number of frames
+     */
+    public VideoFramePool(int width, int height, int capacity) {
+        this.width = width;
+        this.height = height;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Takes a frame from the pool; the caller holds its only reference.
+     *
+     * @return the frame (previous content undefined), or null if all the frames are in use
+     */
+    public VideoFrame acquire() {
+        VideoFrame frame = available.poll();
+        if (frame == null) {
+            if (allocated.incrementAndGet() > capacity) {
+                allocated.decrementAndGet();
+                return null;
+            }
+            frame = new VideoFrame(this, width, height);
+        }
+        frame.acquired();
+        return frame;
+    }
+
+    /**
+     * @return the number of frames allocated so far
+     */
+    public int getAllocated() {
+        return allocated.get();
+    }
+
+    void recycle(VideoFrame frame) {
+        available.offer(frame);
+    }
+}
@@ -0,0 +1,167 @@
+package fr.roboteek.robot.memoire;
+
+import com.sun.net.httpserver.HttpServer;
+import fr.roboteek.robot.configuration.vision.VisionPythonConfig;
+import fr.roboteek.robot.util.video.VideoFrame;
+import org.aeonbits.owner.ConfigFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests de la supervision du serveur Python de vision, avec un serveur HTTP local bouchonné à la place du serveur
+ * Python (réponse à /ping contrôlée par le test) et un processus factice dont chaque lancement est compté.
+ */
+class SuperviseurServeurPythonTest {
+
+    @TempDir
+    Path dossierTemporaire;
+
+    /**
+     * Réponse du bouchon à /ping : 200 si true, 503 sinon.
+     */
+    private final AtomicBoolean repond = new AtomicBoolean();
+
+    private HttpServer serveurBouchon;
+
+    private Path fichierLancements;
+
+    private SuperviseurServeurPython superviseur;
+
+    @BeforeEach
+    void demarrerServeurBouchon() throws IOException {
+        serveurBouchon = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        serveurBouchon.createContext("/" + TypeTraitementVision.PING.getChemin(), echange -> {
+            echange.sendResponseHeaders(repond.get() ? 200 : 503, -1);
+            echange.close();
+        });
+        serveurBouchon.start();
+        fichierLancements = dossierTemporaire.resolve("lancements.txt");
+    }
+
+    @AfterEach
+    void arreter() {
+        if (superviseur != null) {
+            superviseur.arreter();
+        }
+        serveurBouchon.stop(0);
+    }
+
+    @Test
+    void imagesEnvoyeesUniquementLorsqueLeServeurEstPret() throws Exception {
+        final AtomicInteger envois = new AtomicInteger();
+        superviseur = new SuperviseurServeurPython(commandeFactice(), config());
+        final TransportVisionPython transport = new TransportVisionPythonSupervise(new TransportVisionPython() {
+            @Override
+            public <T> T traiter(TypeTraitementVision traitement, VideoFrame image, Class<T> classeReponse) {
+                envois.incrementAndGet();
+                return null;
+            }
+
+            @Override
+            public void close() {
+            }
+        }, superviseur);
+        superviseur.demarrer();
+
+        // Modèles en cours de chargement : le serveur ne répond pas encore, aucune image n'est envoyée
+        assertFalse(superviseur.attendrePret(500));
+        assertNull(transport.traiter(TypeTraitementVision.FACE_DETECTION, null, Object.class));
+        assertEquals(0, envois.get());
+
+        repond.set(true);
+        assertTrue(superviseur.attendrePret(5000));
+        transport.traiter(TypeTraitementVision.FACE_DETECTION, null, Object.class);
+        assertEquals(1, envois.get());
+        assertEquals(1, nombreLancements());
+    }
+
+    @Test
+    void redemarrageApresEchecsDeVerification() throws Exception {
+        repond.set(true);
+        superviseur = new SuperviseurServeurPython(commandeFactice(), config());
+        superviseur.demarrer();
+        assertTrue(superviseur.attendrePret(5000));
+
+        // Le serveur ne répond plus : il n'est plus prêt, puis il est relancé
+        repond.set(false);
+        attendre(() -> !superviseur.isPret());
+        attendre(() -> nombreLancements() == 2);
+
+        repond.set(true);
+        assertTrue(superviseur.attendrePret(5000));
+        assertEquals(2, nombreLancements());
+    }
+
+    @Test
+    void nouvelleTentativeApresEchecDuLancement() throws Exception {
+        repond.set(true);
+        // Commande introuvable au premier lancement, corrigée ensuite (la liste est lue à chaque lancement)
+        final List<String> commande = new CopyOnWriteArrayList<>(Arrays.asList(
+                dossierTemporaire.resolve("introuvable").toString()));
+        superviseur = new SuperviseurServeurPython(commande, config());
+        superviseur.demarrer();
+        assertFalse(superviseur.attendrePret(300));
+
+        commande.clear();
+        commande.addAll(commandeFactice());
+        assertTrue(superviseur.attendrePret(5000));
+        assertEquals(1, nombreLancements());
+    }
+
+    /**
+     * @return une commande qui compte ses lancements puis attend d'être arrêtée
+     */
+    private List<String> commandeFactice() {
+        return Arrays.asList("sh", "-c", "echo lancement >> '" + fichierLancements + "'; exec sleep 60");
+    }
+
+    private VisionPythonConfig config() {
+        final Map<String, String> proprietes = new HashMap<>();
+        proprietes.put("vision.python.http.port", String.valueOf(serveurBouchon.getAddress().getPort()));
+        proprietes.put("vision.python.health.interval.ms", "50");
+        proprietes.put("vision.python.health.timeout.ms", "500");
+        proprietes.put("vision.python.health.failures.max", "2");
+        proprietes.put("vision.python.startup.timeout.ms", "10000");
+        proprietes.put("vision.python.restart.delay.min.ms", "50");
+        proprietes.put("vision.python.restart.delay.max.ms", "400");
+        return ConfigFactory.create(VisionPythonConfig.class, proprietes);
+    }
+
+    private int nombreLancements() {
+        try {
+            return Files.exists(fichierLancements) ? Files.readAllLines(fichierLancements).size() : 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void attendre(BooleanSupplier condition) throws InterruptedException {
+        final long fin = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < fin, "Condition non atteinte dans le délai");
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package fr.roboteek.robot.memoire;
+
+import fr.roboteek.robot.util.video.VideoFrame;
+import org.bytedeco.javacpp.Pointer;
+import org.openimaj.image.MBFImage;
+import org.openimaj.image.colour.ColourSpace;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static fr.roboteek.robot.configuration.Configurations.visionEngineConfig;
+
+/**
+ * Banc d'essai des moteurs d'analyse d'image : temps d'analyse d'une image 640x480 par moteur, et d'un lot de
+ * trois images (webcam et paire stéréo), analysé en une seule passe par les moteurs YOLO.
+ * La mémoire est affichée après le chargement du modèle et en fin de mesure (tas Java, mémoire native JavaCPP et
+ * mémoire physique du processus) ; le profileur GC donne l'allocation par image.
+ * <p>
+ * Les moteurs PYTHON_* nécessitent le serveur Python de vision ({@code python3 robot_ai_api.py <known-faces> --ipc-port 5002}),
+ * SSD et HAAR les fichiers des modèles dans le dossier configuré (vision.engine.models.dir), TINY_YOLO et YOLO2
+ * le téléchargement des poids DL4J au premier lancement. ROBOT_HOME doit être défini.
+ * <p>
+ * Lancement (sur le Raspberry Pi) : {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=fr.roboteek.robot.memoire.VisionEngineBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class VisionEngineBenchmark {
+
+    private static final int LARGEUR = 640;
+
+    private static final int HAUTEUR = 480;
+
+    private static final int TAILLE_LOT = 3;
+
+    private static final int MEGA_OCTET = 1024 * 1024;
+
+    @Param({"PYTHON_FACES", "SSD", "HAAR", "PYTHON_OBJECTS", "TINY_YOLO", "YOLO2"})
+    public String moteur;
+
+    private VisionEngine moteurVision;
+
+    private boolean objets;
+
+    private VideoFrame image;
+
+    private List<VideoFrame> lot;
+
+    @Setup
+    public void setUp() {
+        objets = moteur.equals("PYTHON_OBJECTS") || moteur.startsWith("TINY_YOLO") || moteur.equals("YOLO2");
+        final VisionEngine.Type type = moteur.startsWith("PYTHON") ? VisionEngine.Type.PYTHON : VisionEngine.Type.valueOf(moteur);
+        moteurVision = VisionEngine.creer(type, visionEngineConfig(), null);
+
+        // Image synthétique : dégradés et bruit
+        final Random random = new Random(42);
+        final MBFImage imageSynthetique = new MBFImage(LARGEUR, HAUTEUR, ColourSpace.RGB);
+        for (int bande = 0; bande < 3; bande++) {
+            final float[][] pixels = imageSynthetique.getBand(bande).pixels;
+            for (int y = 0; y < HAUTEUR; y++) {
+                for (int x = 0; x < LARGEUR; x++) {
+                    final float degrade = (float) (x * (bande + 1) + y) / (LARGEUR + HAUTEUR);
+                    pixels[y][x] = Math.min(1f, Math.abs(degrade % 1f + 0.05f * (float) random.nextGaussian()));
+                }
+            }
+        }
+        image = VideoFrame.copyOf(imageSynthetique);
+
+        lot = Collections.nCopies(TAILLE_LOT, image);
+
+        if (analyser() == null) {
+            throw new IllegalStateException("Le moteur " + moteur + " ne répond pas");
+        }
+        afficherMemoire("après chargement");
+    }
+
+    @TearDown
+    public void tearDown() {
+        afficherMemoire("fin de mesure");
+        moteurVision.close();
+    }
+
+    @Benchmark
+    public Object analyser() {
+        return objets ? moteurVision.detectObjects(image) : moteurVision.detectFaces(image);
+    }
+
+    @Benchmark
+    public Object analyserLot() {
+        if (objets) {
+            return moteurVision.detectObjects(lot);
+        }
+        final List<FacialRecognitionResponse> reponses = new ArrayList<>(TAILLE_LOT);
+        for (VideoFrame imageLot : lot) {
+            reponses.add(moteurVision.detectFaces(imageLot));
+        }
+        return reponses;
+    }
+
+    private void afficherMemoire(String etape) {
+        final Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        System.out.println(String.format("%n[%s - %s] tas : %d Mo, natif JavaCPP : %d Mo, physique : %d Mo", moteur, etape,
+                (runtime.totalMemory() - runtime.freeMemory()) / MEGA_OCTET,
+                Pointer.totalBytes() / MEGA_OCTET,
+                Pointer.physicalBytes() / MEGA_OCTET));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(VisionEngineBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
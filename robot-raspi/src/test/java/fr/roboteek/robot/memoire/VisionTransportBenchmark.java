@@ -0,0 +1,113 @@
+package fr.roboteek.robot.memoire;
+
+import fr.roboteek.robot.util.video.VideoFrame;
+import org.openimaj.image.MBFImage;
+import org.openimaj.image.colour.ColourSpace;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Banc d'essai des transports vers le serveur Python de vision : temps d'aller-retour d'une image 640x480.
+ * Le traitement PING mesure le seul coût du transport (le serveur répond sans traiter l'image), FACE_DETECTION
+ * le temps total vu par le capteur de vision.
+ * <p>
+ * Le serveur Python doit être démarré au préalable (ports HTTP 5001 et IPC 5002) :
+ * {@code python3 robot_ai_api.py <known-faces> --ipc-port 5002}
+ * <p>
+ * Lancement (sur le Raspberry Pi) : {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=fr.roboteek.robot.memoire.VisionTransportBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class VisionTransportBenchmark {
+
+    private static final int LARGEUR = 640;
+
+    private static final int HAUTEUR = 480;
+
+    private static final int PORT_HTTP = 5001;
+
+    private static final int PORT_IPC = 5002;
+
+    private static final int DELAI_MAXIMAL = 10000;
+
+    @Param({"HTTP", "IPC_RAW", "IPC_JPEG"})
+    public String transport;
+
+    @Param({"PING", "FACE_DETECTION"})
+    public String traitement;
+
+    private TransportVisionPython transportVision;
+
+    private TypeTraitementVision typeTraitement;
+
+    private VideoFrame image;
+
+    @Setup
+    public void setUp() {
+        switch (transport) {
+            case "HTTP":
+                transportVision = new TransportVisionPythonHttp(PORT_HTTP, DELAI_MAXIMAL);
+                break;
+            case "IPC_JPEG":
+                transportVision = new TransportVisionPythonIpc(PORT_IPC, DELAI_MAXIMAL, TransportVisionPythonIpc.FormatImage.JPEG);
+                break;
+            default:
+                transportVision = new TransportVisionPythonIpc(PORT_IPC, DELAI_MAXIMAL, TransportVisionPythonIpc.FormatImage.RAW);
+        }
+        typeTraitement = TypeTraitementVision.valueOf(traitement);
+
+        // Image synthétique : dégradés et bruit (taille JPEG proche de celle d'une image de la caméra)
+        final Random random = new Random(42);
+        final MBFImage imageSynthetique = new MBFImage(LARGEUR, HAUTEUR, ColourSpace.RGB);
+        for (int bande = 0; bande < 3; bande++) {
+            final float[][] pixels = imageSynthetique.getBand(bande).pixels;
+            for (int y = 0; y < HAUTEUR; y++) {
+                for (int x = 0; x < LARGEUR; x++) {
+                    final float degrade = (float) (x * (bande + 1) + y) / (LARGEUR + HAUTEUR);
+                    pixels[y][x] = Math.min(1f, Math.abs(degrade % 1f + 0.05f * (float) random.nextGaussian()));
+                }
+            }
+        }
+        image = VideoFrame.copyOf(imageSynthetique);
+
+        if (transportVision.traiter(TypeTraitementVision.PING, image, FacialRecognitionResponse.class) == null) {
+            throw new IllegalStateException("Le serveur Python de vision ne répond pas (transport " + transport + ")");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        transportVision.close();
+    }
+
+    @Benchmark
+    public FacialRecognitionResponse allerRetour() {
+        return transportVision.traiter(typeTraitement, image, FacialRecognitionResponse.class);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(VisionTransportBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,121 @@
+package fr.roboteek.robot.organes.capteurs;
+
+import fr.roboteek.robot.util.video.MotionEstimator;
+import fr.roboteek.robot.util.video.VideoFrame;
+import fr.roboteek.robot.util.video.VideoFramePool;
+import org.openimaj.image.ImageUtilities;
+import org.openimaj.image.MBFImage;
+import org.openimaj.image.colour.ColourSpace;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Banc d'essai du chemin d'une image 640x480 de la webcam jusqu'à l'analyse et la diffusion, sans la webcam (les
+ * pixels natifs sont simulés par un tampon direct) :
+ * <ul>
+ * <li>imageOpenImaj : chemin OpenIMAJ (copie des octets natifs dans un tableau, conversion en plans flottants,
+ * copie de l'image pour l'analyse, conversion pour l'encodage JPEG) ;</li>
+ * <li>imagePartagee : image de la réserve remplie par une copie native, partagée par référence avec l'analyse et
+ * convertie directement pour l'encodage JPEG.</li>
+ * </ul>
+ * Le profileur GC donne l'allocation par image (gc.alloc.rate.norm).
+ * <p>
+ * Lancement : {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=fr.roboteek.robot.organes.capteurs.CaptureImageBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CaptureImageBenchmark {
+
+    private static final int LARGEUR = 640;
+
+    private static final int HAUTEUR = 480;
+
+    /**
+     * Pixels RGB tels que fournis par la webcam (mémoire native).
+     */
+    private ByteBuffer pixelsNatifs;
+
+    private MBFImage imageCapture;
+
+    private BufferedImage imageDiffusion;
+
+    private final VideoFramePool reserveImages = new VideoFramePool(LARGEUR, HAUTEUR, 6);
+
+    private final MotionEstimator estimateurMouvement = new MotionEstimator();
+
+    @Setup
+    public void setUp() {
+        final byte[] pixels = new byte[LARGEUR * HAUTEUR * VideoFrame.CHANNELS];
+        new Random(42).nextBytes(pixels);
+        pixelsNatifs = ByteBuffer.allocateDirect(pixels.length);
+        pixelsNatifs.put(pixels).flip();
+        imageCapture = new MBFImage(LARGEUR, HAUTEUR, ColourSpace.RGB);
+    }
+
+    @Benchmark
+    public void imageOpenImaj(Blackhole blackhole) {
+        // VideoCapture.getNextFrame : copie des octets natifs dans un tableau, puis conversion en plans flottants
+        final byte[] octets = new byte[pixelsNatifs.capacity()];
+        pixelsNatifs.duplicate().get(octets);
+        final float[][] rouge = imageCapture.getBand(0).pixels;
+        final float[][] vert = imageCapture.getBand(1).pixels;
+        final float[][] bleu = imageCapture.getBand(2).pixels;
+        int index = 0;
+        for (int y = 0; y < HAUTEUR; y++) {
+            for (int x = 0; x < LARGEUR; x++) {
+                rouge[y][x] = ImageUtilities.BYTE_TO_FLOAT_LUT[octets[index++] & 0xFF];
+                vert[y][x] = ImageUtilities.BYTE_TO_FLOAT_LUT[octets[index++] & 0xFF];
+                bleu[y][x] = ImageUtilities.BYTE_TO_FLOAT_LUT[octets[index++] & 0xFF];
+            }
+        }
+        // Copie pour l'analyse (l'image de la capture est réutilisée)
+        blackhole.consume(imageCapture.clone());
+        // Conversion pour l'encodage JPEG
+        imageDiffusion = ImageUtilities.createBufferedImageForDisplay(imageCapture, imageDiffusion);
+        blackhole.consume(imageDiffusion);
+    }
+
+    @Benchmark
+    public void imagePartagee(Blackhole blackhole) {
+        final VideoFrame image = reserveImages.acquire();
+        final ByteBuffer pixels = image.getPixels().duplicate();
+        pixels.clear();
+        pixels.put(pixelsNatifs.duplicate());
+        blackhole.consume(estimateurMouvement.update(image));
+        // Référence prise (et rendue) par l'analyse
+        blackhole.consume(image.retain());
+        image.release();
+        imageDiffusion = image.toBufferedImage(imageDiffusion);
+        blackhole.consume(imageDiffusion);
+        image.release();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CaptureImageBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
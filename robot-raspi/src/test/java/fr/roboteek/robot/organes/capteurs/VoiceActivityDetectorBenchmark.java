@@ -0,0 +1,101 @@
+package fr.roboteek.robot.organes.capteurs;
+
+import fr.roboteek.robot.configuration.audio.VoiceActivityDetectorConfig;
+import org.aeonbits.owner.ConfigFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Banc d'essai des détecteurs d'activité vocale : temps CPU pour traiter une seconde de flux (16 kHz, blocs de
+ * 1024 échantillons comme le capteur vocal). Le résultat en µs/op divisé par 10 000 donne le pourcentage d'un
+ * coeur occupé par la détection.
+ * Le flux synthétique alterne bruit de fond, voyelles (fondamentale et harmoniques) et consonnes non voisées
+ * (bruit haute fréquence), afin que le détecteur PITCH exécute l'algorithme YIN sur les blocs non silencieux.
+ * <p>
+ * Lancement (sur le Raspberry Pi) : {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=fr.roboteek.robot.organes.capteurs.VoiceActivityDetectorBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VoiceActivityDetectorBenchmark {
+
+    private static final float SAMPLE_RATE = 16000;
+
+    private static final int BLOCK_SIZE = 1024;
+
+    /**
+     * Blocs d'une seconde de flux.
+     */
+    private static final int BLOCKS_PER_SECOND = (int) Math.ceil(SAMPLE_RATE / BLOCK_SIZE);
+
+    @Param({"PITCH", "ENERGY_ZCR", "FRAMES"})
+    public String type;
+
+    private VoiceActivityDetector detector;
+
+    private float[][] oneSecondOfAudio;
+
+    @Setup
+    public void setUp() {
+        final VoiceActivityDetectorConfig config = ConfigFactory.create(VoiceActivityDetectorConfig.class,
+                Collections.singletonMap("audio.vad.type", type));
+        detector = VoiceActivityDetector.creer(config, SAMPLE_RATE, BLOCK_SIZE);
+
+        final Random random = new Random(42);
+        oneSecondOfAudio = new float[BLOCKS_PER_SECOND][BLOCK_SIZE];
+        for (int block = 0; block < BLOCKS_PER_SECOND; block++) {
+            for (int i = 0; i < BLOCK_SIZE; i++) {
+                final double t = (block * BLOCK_SIZE + i) / SAMPLE_RATE;
+                double sample = 0.001 * random.nextGaussian();
+                switch (block % 4) {
+                    case 1:
+                        // Voyelle : fondamentale à 140 Hz et harmoniques décroissantes
+                        for (int harmonic = 1; harmonic <= 10; harmonic++) {
+                            sample += 0.2 / harmonic * Math.sin(2 * Math.PI * 140 * harmonic * t);
+                        }
+                        break;
+                    case 2:
+                        // Consonne non voisée : bruit dérivé (haute fréquence)
+                        sample += 0.05 * (random.nextGaussian() - random.nextGaussian());
+                        break;
+                    default:
+                        // Bruit de fond seul
+                }
+                oneSecondOfAudio[block][i] = (float) sample;
+            }
+        }
+    }
+
+    @Benchmark
+    public void oneSecondOfAudio(Blackhole blackhole) {
+        for (float[] block : oneSecondOfAudio) {
+            blackhole.consume(detector.isVoix(block));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(VoiceActivityDetectorBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
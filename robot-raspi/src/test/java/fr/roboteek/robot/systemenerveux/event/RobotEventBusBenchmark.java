@@ -0,0 +1,233 @@
+package fr.roboteek.robot.systemenerveux.event;
+
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.sound.sampled.AudioFormat;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Banc d'essai de la distribution synchrone : bus Guava (réflexion, abonnés filtrant par instanceof)
+ * contre la table de distribution du {@link RobotEventBus} (MethodHandle, filtres déclarés à l'abonnement).
+ * Les abonnés reproduisent ceux du robot (diffusion Websocket, persistance, organes).
+ * <p>
+ * Lancement : {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=fr.roboteek.robot.systemenerveux.event.RobotEventBusBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RobotEventBusBenchmark {
+
+    /**
+     * Blocs audio par seconde (44,1 kHz, blocs de 4096 échantillons).
+     */
+    private static final int AUDIO_EVENTS_PER_SECOND = 11;
+
+    /**
+     * Images par seconde de la webcam.
+     */
+    private static final int VIDEO_EVENTS_PER_SECOND = 25;
+
+    private EventBus guavaEventBus;
+
+    private RobotEventBus robotEventBus;
+
+    private List<Object> guavaListeners;
+
+    private List<Object> robotEventBusListeners;
+
+    /**
+     * Une seconde de flux capteurs, entrelacés comme en production.
+     */
+    private RobotEvent[] oneSecondOfSensorEvents;
+
+    private AudioEvent audioEvent;
+
+    private VideoEvent videoEvent;
+
+    @Setup
+    public void setUp() {
+        audioEvent = new AudioEvent();
+        audioEvent.setContenuPcm(new byte[4096], new AudioFormat(16000, 16, 1, true, false));
+        videoEvent = new VideoEvent();
+
+        oneSecondOfSensorEvents = new RobotEvent[AUDIO_EVENTS_PER_SECOND + VIDEO_EVENTS_PER_SECOND];
+        int audio = 0;
+        for (int i = 0; i < oneSecondOfSensorEvents.length; i++) {
+            final boolean audioDue = audio * VIDEO_EVENTS_PER_SECOND <= (i - audio) * AUDIO_EVENTS_PER_SECOND;
+            if (audioDue && audio < AUDIO_EVENTS_PER_SECOND) {
+                oneSecondOfSensorEvents[i] = audioEvent;
+                audio++;
+            } else {
+                oneSecondOfSensorEvents[i] = videoEvent;
+            }
+        }
+
+        guavaEventBus = new EventBus("benchmark");
+        guavaListeners = Arrays.asList(new InstanceofBroadcaster(), new InstanceofPersistance(), new OrganesListener());
+        guavaListeners.forEach(guavaEventBus::register);
+
+        robotEventBus = RobotEventBus.getInstance();
+        robotEventBusListeners = Arrays.asList(new FilteredBroadcaster(), new FilteredPersistance(), new OrganesListener());
+        robotEventBusListeners.forEach(robotEventBus::subscribe);
+    }
+
+    @TearDown
+    public void tearDown() {
+        robotEventBusListeners.forEach(robotEventBus::unsubscribe);
+    }
+
+    @Benchmark
+    public void guavaAudioEvent() {
+        guavaEventBus.post(audioEvent);
+    }
+
+    @Benchmark
+    public void dispatchTableAudioEvent() {
+        robotEventBus.publish(audioEvent);
+    }
+
+    @Benchmark
+    public void guavaVideoEvent() {
+        guavaEventBus.post(videoEvent);
+    }
+
+    @Benchmark
+    public void dispatchTableVideoEvent() {
+        robotEventBus.publish(videoEvent);
+    }
+
+    @Benchmark
+    public void guavaOneSecondOfSensors() {
+        for (RobotEvent event : oneSecondOfSensorEvents) {
+            guavaEventBus.post(event);
+        }
+    }
+
+    @Benchmark
+    public void dispatchTableOneSecondOfSensors() {
+        for (RobotEvent event : oneSecondOfSensorEvents) {
+            robotEventBus.publish(event);
+        }
+    }
+
+    /**
+     * Diffusion Websocket telle qu'écrite pour le bus Guava : reçoit tous les évènements.
+     */
+    public static class InstanceofBroadcaster {
+        long video, audio, others;
+
+        @Subscribe
+        public void handleRobotEvent(RobotEvent robotEvent) {
+            if (robotEvent instanceof VideoEvent) {
+                video++;
+            } else if (robotEvent instanceof AudioEvent) {
+                audio++;
+            } else {
+                others++;
+            }
+        }
+    }
+
+    /**
+     * Diffusion Websocket avec filtres déclarés.
+     */
+    public static class FilteredBroadcaster {
+        long video, audio, others;
+
+        @Subscribe
+        public void handleVideoEvent(VideoEvent videoEvent) {
+            video++;
+        }
+
+        @Subscribe
+        public void handleAudioEvent(AudioEvent audioEvent) {
+            audio++;
+        }
+
+        @Subscribe
+        @EventFilter(exclude = {VideoEvent.class, AudioEvent.class})
+        public void handleRobotEvent(RobotEvent robotEvent) {
+            others++;
+        }
+    }
+
+    /**
+     * Persistance telle qu'écrite pour le bus Guava : filtre chaque évènement par instanceof.
+     */
+    public static class InstanceofPersistance {
+        long saved;
+
+        @Subscribe
+        public void handleRobotEvent(RobotEvent robotEvent) {
+            if (robotEvent instanceof ConversationEvent || robotEvent instanceof ParoleEvent || robotEvent instanceof MouvementCouEvent) {
+                saved++;
+            }
+        }
+    }
+
+    /**
+     * Persistance avec filtre déclaré : ne reçoit jamais les flux capteurs.
+     */
+    public static class FilteredPersistance {
+        long saved;
+
+        @Subscribe
+        @EventFilter({ConversationEvent.class, ParoleEvent.class, MouvementCouEvent.class})
+        public void handleRobotEvent(RobotEvent robotEvent) {
+            saved++;
+        }
+    }
+
+    /**
+     * Organes abonnés à des évènements sans rapport avec les capteurs.
+     */
+    public static class OrganesListener {
+        long received;
+
+        @Subscribe
+        public void handleParoleEvent(ParoleEvent paroleEvent) {
+            received++;
+        }
+
+        @Subscribe
+        public void handleMouvementCouEvent(MouvementCouEvent mouvementCouEvent) {
+            received++;
+        }
+
+        @Subscribe
+        public void handleReconnaissanceVocaleControleEvent(ReconnaissanceVocaleControleEvent event) {
+            received++;
+        }
+
+        @Subscribe
+        public void handleStopEvent(StopEvent stopEvent) {
+            received++;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RobotEventBusBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
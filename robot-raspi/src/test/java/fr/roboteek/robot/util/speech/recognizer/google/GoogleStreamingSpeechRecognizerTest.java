@@ -0,0 +1,143 @@
+package fr.roboteek.robot.util.speech.recognizer.google;
+
+import fr.roboteek.robot.configuration.speech.recognizer.google.GoogleSpeechRecognizerConfig;
+import fr.roboteek.robot.util.speech.recognizer.StreamingRecognitionListener;
+import fr.roboteek.robot.util.speech.recognizer.StreamingRecognitionSession;
+import io.grpc.Server;
+import io.grpc.ServerBuilder;
+import org.aeonbits.owner.ConfigFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sound.sampled.AudioFormat;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Streaming recognition sessions against the scripted stand-in server (no network nor account).
+ */
+class GoogleStreamingSpeechRecognizerTest {
+
+    private static final AudioFormat FORMAT = new AudioFormat(16000, 16, 1, true, false);
+
+    /**
+     * Audio block of 100 ms (silence: the server only counts the bytes received).
+     */
+    private static final byte[] BLOCK = new byte[3200];
+
+    private Server server;
+
+    @AfterEach
+    void stopServer() throws InterruptedException {
+        if (server != null) {
+            server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void interimResultsThenEndOfUtteranceAndFinalResult() throws Exception {
+        final GoogleStreamingSpeechRecognizer recognizer = recognizer(true,
+                "300 INTERIM 0.1 bonjour",
+                "900 INTERIM 0.8 bonjour robot",
+                "1200 ENDPOINT",
+                "1200 FINAL bonjour robot");
+        final RecordingListener listener = new RecordingListener();
+        final StreamingRecognitionSession session = recognizer.startSession(FORMAT, listener);
+
+        // Audio sent until the server detects the end of the utterance
+        for (int i = 0; i < 30 && listener.endOfUtterance.getCount() > 0; i++) {
+            session.sendAudio(BLOCK, 0, BLOCK.length);
+            Thread.sleep(20);
+        }
+
+        assertTrue(listener.endOfUtterance.await(5, TimeUnit.SECONDS));
+        assertTrue(listener.completed.await(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("bonjour", "bonjour robot"), listener.interimTranscripts);
+        assertEquals(Arrays.asList(0.1f, 0.8f), listener.stabilities);
+        assertEquals("bonjour robot", listener.finalTranscript.get());
+        assertNull(listener.error.get());
+    }
+
+    @Test
+    void finalResultSentWhenTheClientFinishes() throws Exception {
+        final GoogleStreamingSpeechRecognizer recognizer = recognizer(false,
+                "200 INTERIM 0.5 quelle heure",
+                "5000 FINAL quelle heure est-il");
+        final RecordingListener listener = new RecordingListener();
+        final StreamingRecognitionSession session = recognizer.startSession(FORMAT, listener);
+
+        for (int i = 0; i < 5; i++) {
+            session.sendAudio(BLOCK, 0, BLOCK.length);
+        }
+        session.finish();
+
+        assertTrue(listener.completed.await(5, TimeUnit.SECONDS));
+        assertEquals(1, listener.endOfUtterance.getCount());
+        assertEquals(Arrays.asList("quelle heure"), listener.interimTranscripts);
+        assertEquals("quelle heure est-il", listener.finalTranscript.get());
+        assertNull(listener.error.get());
+    }
+
+    /**
+     * Starts the stand-in server with the given script, and creates a recognizer connected to it.
+     */
+    private GoogleStreamingSpeechRecognizer recognizer(boolean endpointing, String... script) throws IOException {
+        server = ServerBuilder.forPort(0)
+                .addService(new ScriptedSpeechServer(ScriptedSpeechServer.parse(Arrays.asList(script))))
+                .build()
+                .start();
+        final Map<String, String> properties = new HashMap<>();
+        properties.put("speech.recognizer.google.endpoint", "localhost:" + server.getPort());
+        properties.put("speech.recognizer.google.streaming.endpointing", String.valueOf(endpointing));
+        return new GoogleStreamingSpeechRecognizer(ConfigFactory.create(GoogleSpeechRecognizerConfig.class, properties));
+    }
+
+    private static class RecordingListener implements StreamingRecognitionListener {
+
+        private final List<String> interimTranscripts = new CopyOnWriteArrayList<>();
+
+        private final List<Float> stabilities = new CopyOnWriteArrayList<>();
+
+        private final CountDownLatch endOfUtterance = new CountDownLatch(1);
+
+        private final CountDownLatch completed = new CountDownLatch(1);
+
+        private final AtomicReference<String> finalTranscript = new AtomicReference<>();
+
+        private final AtomicReference<Throwable> error = new AtomicReference<>();
+
+        @Override
+        public void onInterimResult(String transcript, float stability) {
+            interimTranscripts.add(transcript);
+            stabilities.add(stability);
+        }
+
+        @Override
+        public void onEndOfUtterance() {
+            endOfUtterance.countDown();
+        }
+
+        @Override
+        public void onFinalResult(String transcript) {
+            finalTranscript.set(transcript);
+            completed.countDown();
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            this.error.set(error);
+            completed.countDown();
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package fr.roboteek.robot.util.speech.recognizer.google;
+
+import com.google.cloud.speech.v1.RecognizeRequest;
+import com.google.cloud.speech.v1.RecognizeResponse;
+import com.google.cloud.speech.v1.SpeechGrpc;
+import com.google.cloud.speech.v1.SpeechRecognitionAlternative;
+import com.google.cloud.speech.v1.SpeechRecognitionResult;
+import com.google.cloud.speech.v1.StreamingRecognitionResult;
+import com.google.cloud.speech.v1.StreamingRecognizeRequest;
+import com.google.cloud.speech.v1.StreamingRecognizeResponse;
+import io.grpc.Server;
+import io.grpc.ServerBuilder;
+import io.grpc.stub.StreamObserver;
+
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * Local stand-in for the Google Cloud Speech service, answering from a script (tests without network or account).
+ * Point the recognizers to it with the "speech.recognizer.google.endpoint" property.
+ * <p>
+ * The script has one step per line, triggered once the given duration of audio has been received
+ * ("#" starts a comment):
+ * <pre>
+ * 300 INTERIM 0.1 bonjour
+ * 900 INTERIM 0.8 bonjour robot
+ * 1200 ENDPOINT
+ * 1200 FINAL bonjour robot
+ * </pre>
+ * Once the ENDPOINT step is reached, the audio is ignored and the remaining steps are sent when the client
+ * closes its stream, like the real service does. The synchronous recognition returns the FINAL transcripts.
+ * <p>
+ * Standalone: {@code ScriptedSpeechServer <port> [script]}, the test resource "scripted-speech.txt" being used when
+ * no script is given.
+ */
+public class ScriptedSpeechServer extends SpeechGrpc.SpeechImplBase {
+
+    /**
+     * Script used when none is given to {@link #main(String[])}.
+     */
+    private static final String DEFAULT_SCRIPT = "scripted-speech.txt";
+
+    private final List<Step> script;
+
+    public ScriptedSpeechServer(List<Step> script) {
+        this.script = script;
+    }
+
+    /**
+     * Parses a script.
+     *
+     * @param lines the lines of the script
+     * @return the steps
+     */
+    public static List<Step> parse(List<String> lines) {
+        final List<Step> steps = new ArrayList<>();
+        for (String line : lines) {
+            final String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            final String[] fields = trimmed.split("\\s+", 3);
+            final long afterAudioMillis = Long.parseLong(fields[0]);
+            final StepType type = StepType.valueOf(fields[1].toUpperCase(Locale.ROOT));
+            switch (type) {
+                case INTERIM:
+                    final String[] interim = fields[2].split("\\s+", 2);
+                    steps.add(new Step(afterAudioMillis, type, Float.parseFloat(interim[0]), interim.length > 1 ? interim[1] : ""));
+                    break;
+                case FINAL:
+                    steps.add(new Step(afterAudioMillis, type, 1, fields.length > 2 ? fields[2] : ""));
+                    break;
+                default:
+                    steps.add(new Step(afterAudioMillis, type, 0, ""));
+            }
+        }
+        return steps;
+    }
+
+    @Override
+    public void recognize(RecognizeRequest request, StreamObserver<RecognizeResponse> responseObserver) {
+        final String transcript = script.stream()
+                .filter(step -> step.type == StepType.FINAL)
+                .map(step -> step.transcript)
+                .collect(Collectors.joining(" "));
+        responseObserver.onNext(RecognizeResponse.newBuilder()
+                .addResults(SpeechRecognitionResult.newBuilder()
+                        .addAlternatives(SpeechRecognitionAlternative.newBuilder().setTranscript(transcript)))
+                .build());
+        responseObserver.onCompleted();
+    }
+
+    @Override
+    public StreamObserver<StreamingRecognizeRequest> streamingRecognize(StreamObserver<StreamingRecognizeResponse> responseObserver) {
+        return new StreamObserver<StreamingRecognizeRequest>() {
+
+            private long bytesPerSecond;
+
+            private long receivedBytes;
+
+            private int nextStep;
+
+            private boolean endpointReached;
+
+            @Override
+            public void onNext(StreamingRecognizeRequest request) {
+                if (request.hasStreamingConfig()) {
+                    bytesPerSecond = (long) request.getStreamingConfig().getConfig().getSampleRateHertz()
+                            * Math.max(1, request.getStreamingConfig().getConfig().getAudioChannelCount()) * 2;
+                } else if (!endpointReached && bytesPerSecond > 0) {
+                    receivedBytes += request.getAudioContent().size();
+                    final long receivedMillis = receivedBytes * 1000 / bytesPerSecond;
+                    while (!endpointReached && nextStep < script.size() && script.get(nextStep).afterAudioMillis <= receivedMillis) {
+                        send(script.get(nextStep++));
+                    }
+                }
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                // Client cancelled: nothing to send
+            }
+
+            @Override
+            public void onCompleted() {
+                while (nextStep < script.size()) {
+                    send(script.get(nextStep++));
+                }
+                responseObserver.onCompleted();
+            }
+
+            private void send(Step step) {
+                final StreamingRecognizeResponse.Builder response = StreamingRecognizeResponse.newBuilder();
+                if (step.type == StepType.ENDPOINT) {
+                    endpointReached = true;
+                    response.setSpeechEventType(StreamingRecognizeResponse.SpeechEventType.END_OF_SINGLE_UTTERANCE);
+                } else {
+                    response.addResults(StreamingRecognitionResult.newBuilder()
+                            .setIsFinal(step.type == StepType.FINAL)
+                            .setStability(step.stability)
+                            .addAlternatives(SpeechRecognitionAlternative.newBuilder().setTranscript(step.transcript)));
+                }
+                responseObserver.onNext(response.build());
+            }
+        };
+    }
+
+    /**
+     * Type of a scripted step.
+     */
+    public enum StepType {
+        INTERIM, ENDPOINT, FINAL
+    }
+
+    /**
+     * Scripted step.
+     */
+    public static class Step {
+
+        /**
+         * Duration of audio to receive before sending the step.
+         */
+        private final long afterAudioMillis;
+
+        private final StepType type;
+
+        private final float stability;
+
+        private final String transcript;
+
+        public Step(long afterAudioMillis, StepType type, float stability, String transcript) {
+            this.afterAudioMillis = afterAudioMillis;
+            this.type = type;
+            this.stability = stability;
+            this.transcript = transcript;
+        }
+    }
+
+    /**
+     * @return the lines of the default script (test resource next to this class)
+     */
+    private static List<String> defaultScript() throws IOException {
+        try (InputStream input = ScriptedSpeechServer.class.getResourceAsStream(DEFAULT_SCRIPT)) {
+            if (input == null) {
+                throw new FileNotFoundException("Missing test resource " + DEFAULT_SCRIPT);
+            }
+            return new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8)).lines().collect(Collectors.toList());
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        final int port = args.length > 0 ? Integer.parseInt(args[0]) : 50051;
+        final List<Step> script = parse(args.length > 1 ? Files.readAllLines(Paths.get(args[1]), StandardCharsets.UTF_8) : defaultScript());
+        final Server server = ServerBuilder.forPort(port).addService(new ScriptedSpeechServer(script)).build().start();
+        System.out.println("Scripted speech server listening on port " + port + " (" + script.size() + " steps)");
+        server.awaitTermination();
+    }
+}
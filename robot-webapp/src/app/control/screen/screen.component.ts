@@ -3,11 +3,11 @@ import {VideoService} from '../../service/video.service';
 import {DomSanitizer} from '@angular/platform-browser';
 import {Message} from '@stomp/stompjs';
 import {AudioService} from '../../service/audio.service';
-import {decode} from 'base64-arraybuffer';
 import {VideoEvent} from '../../model/events/video-event';
 import {plainToClass} from 'class-transformer';
 import {DetectedObject} from '../../model/object-detection/detected-object';
 import {Point2d} from '../../model/object-detection/point2d';
+import {VideoStreamService} from '../../service/video-stream.service';
 
 @Component({
   selector: 'app-screen',
@@ -31,9 +31,15 @@ export class ScreenComponent implements OnInit, OnDestroy {
   public showLandmarks = false;
   public showObjects = false;
 
-  // Abonnement au topic "video" du Websocket
+  // Abonnement au topic "video" du Websocket (métadonnées des images)
   public videoSubscription;
 
+  // Abonnement au flux vidéo binaire
+  public videoStreamSubscription;
+
+  // URL de l'image courante (à libérer à l'image suivante)
+  private imageUrl: string;
+
   // Abonnement au topic "audio" du Websocket
   public audioSubscription;
 
@@ -44,6 +50,7 @@ export class ScreenComponent implements OnInit, OnDestroy {
 
   constructor(
     private videoService: VideoService,
+    private videoStreamService: VideoStreamService,
     private audioService: AudioService,
     private sanitizer: DomSanitizer
   ) {
@@ -53,6 +60,9 @@ export class ScreenComponent implements OnInit, OnDestroy {
     // Ecoute du topic "video" du Websocket
     this.videoSubscription = this.videoService.getMessageObservable()
       .subscribe((videoEventMsg: Message) => this.onNewVideoEventMsg(videoEventMsg));
+    // Réception du flux vidéo binaire
+    this.videoStreamSubscription = this.videoStreamService.getImageObservable(15)
+      .subscribe((image: Blob) => this.onNewImage(image));
     // Ecoute du topic "audio" du Websocket
     this.audioSubscription = this.audioService.getMessageObservable()
       .subscribe((audioEventMsg: Message) => this.onNewAudioEventMsg(audioEventMsg));
@@ -61,15 +71,31 @@ export class ScreenComponent implements OnInit, OnDestroy {
   ngOnDestroy(): void {
     // Arrêt de l'écoute du topic à la destruction du composant (pour éviter des écoutes multiples)
     this.videoSubscription.unsubscribe();
+    this.videoStreamSubscription.unsubscribe();
+    this.audioSubscription.unsubscribe();
+    if (this.imageUrl) {
+      URL.revokeObjectURL(this.imageUrl);
+    }
   }
 
   /**
-   * Construit le contenu de l'image à partir du message reçu dans le Websocket en sécurisant l'URL.
+   * Récupère les métadonnées de l'image (visages, objets) reçues dans le Websocket.
    * @param videoEventMsg le message reçu dans le Websocket
    */
   private onNewVideoEventMsg(videoEventMsg: Message): void {
     this.currentEvent = plainToClass(VideoEvent, JSON.parse(videoEventMsg.body));
-    this.imgContent = this.sanitizer.bypassSecurityTrustResourceUrl(`data:image/jpeg;base64,${this.currentEvent.imageBase64}`);
+  }
+
+  /**
+   * Construit le contenu de l'image à partir de l'image JPEG reçue dans le flux vidéo en sécurisant l'URL.
+   * @param image l'image JPEG
+   */
+  private onNewImage(image: Blob): void {
+    if (this.imageUrl) {
+      URL.revokeObjectURL(this.imageUrl);
+    }
+    this.imageUrl = URL.createObjectURL(image);
+    this.imgContent = this.sanitizer.bypassSecurityTrustResourceUrl(this.imageUrl);
     // Récupération des dimensions originales de l'image si elles n'ont pas déjà été récupérées
     if (this.imageElement && (this.imageWidth === 0 || this.imageHeight === 0)) {
       this.imageWidth = this.imageElement.nativeElement.naturalWidth;
@@ -78,13 +104,12 @@ export class ScreenComponent implements OnInit, OnDestroy {
   }
 
   /**
-   * Lit la frame audio reçue dans l'évènement.
+   * Lit la frame audio reçue dans le message (trame binaire : fichier WAV).
    * @param audioEventMsg le message reçu dans le Websocket
    */
   private onNewAudioEventMsg(audioEventMsg: Message): void {
-    const audioEvent = JSON.parse(audioEventMsg.body);
     const source = this.context.createBufferSource();
-    this.context.decodeAudioData(decode(audioEvent.audioContentBase64)).then((buffer) => {
+    this.context.decodeAudioData(audioEventMsg.binaryBody.slice().buffer).then((buffer) => {
       source.buffer = buffer;
       source.connect(this.context.destination);
       source.start(this.context.currentTime);
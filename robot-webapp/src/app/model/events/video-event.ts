@@ -7,13 +7,14 @@ const VIDEO_EVENT_TYPE = 'video';
 
 export class VideoEvent extends RobotEvent {
 
-  imageBase64: string;
   faceFound: boolean;
   @Type(() => RecognizedFace)
   faces: RecognizedFace[];
   objectFound: boolean;
   @Type(() => DetectedObject)
   objects: DetectedObject[];
+  faceFrameIndex: number;
+  objectFrameIndex: number;
 
   constructor() {
     super(VIDEO_EVENT_TYPE);
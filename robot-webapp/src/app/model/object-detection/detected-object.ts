@@ -4,4 +4,7 @@ export class DetectedObject {
     width: number;
     height: number;
     name: string;
+    trackId: number;
+    trackAge: number;
+    confidence: number;
 }
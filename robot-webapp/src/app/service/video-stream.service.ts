@@ -0,0 +1,43 @@
+import {Injectable} from '@angular/core';
+import {Observable} from 'rxjs';
+
+/**
+ * Service permettant de recevoir le flux vidéo binaire du robot (une image JPEG par message du Websocket "/video-stream").
+ * Les métadonnées des images (visages, objets) sont reçues séparément via le topic "/video" (VideoService).
+ */
+@Injectable({
+  providedIn: 'root'
+})
+export class VideoStreamService {
+
+  /** Délai avant reconnexion (ms). */
+  private static readonly RECONNECT_DELAY = 1000;
+
+  /**
+   * Retourne un objet observable des images reçues. Le Websocket est ouvert à la souscription et fermé au désabonnement.
+   * @param fps nombre d'images par seconde souhaité (plafonné par le robot)
+   */
+  public getImageObservable(fps: number): Observable<Blob> {
+    return new Observable<Blob>(observer => {
+      let socket: WebSocket;
+      let closed = false;
+      let reconnectTimer;
+      const connect = () => {
+        socket = new WebSocket('ws://' + window.location.hostname + ':8080/video-stream?fps=' + fps);
+        socket.binaryType = 'blob';
+        socket.onmessage = (event: MessageEvent) => observer.next(event.data as Blob);
+        socket.onclose = () => {
+          if (!closed) {
+            reconnectTimer = setTimeout(connect, VideoStreamService.RECONNECT_DELAY);
+          }
+        };
+      };
+      connect();
+      return () => {
+        closed = true;
+        clearTimeout(reconnectTimer);
+        socket.close();
+      };
+    });
+  }
+}